@@ -0,0 +1,65 @@
+package org.codeDuplicateChecking.benchmark;
+
+import org.codeDuplicateChecking.Agent.model.BatchPlagiarismResult;
+import org.codeDuplicateChecking.Agent.model.CodeBlock;
+import org.codeDuplicateChecking.Agent.service.CodePlagiarismService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 批量查重的基准测试，N份提交属于同一题目，共比较N*(N-1)/2对<br>
+ * 单次调用耗时较长，使用单次执行模式，每份提交约40行
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+@State(Scope.Benchmark)
+public class BatchComparisonBenchmark {
+
+    @Param({"50", "200", "1000"})
+    public int submissions;
+
+    @Param({"40"})
+    public int lines;
+
+    @Param({SubmissionGenerator.JAVA})
+    public String language;
+
+    @Param({"0.8"})
+    public double threshold;
+
+    private List<CodeBlock> codeBlocks;
+
+    private CodePlagiarismService service;
+
+    @Setup
+    public void setup() {
+        codeBlocks = new SubmissionGenerator(BenchmarkRunner.SEED).generateBatch(language, submissions, lines);
+        service = new CodePlagiarismService();
+    }
+
+    @TearDown
+    public void tearDown() {
+        service.shutdown();
+    }
+
+    @Benchmark
+    public BatchPlagiarismResult compareMultipleCodeBlocks() {
+        return service.compareMultipleCodeBlocks(codeBlocks, threshold);
+    }
+}
@@ -0,0 +1,27 @@
+package org.codeDuplicateChecking.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * 基准测试入口<br>
+ * 接受JMH的全部命令行参数，并默认开启GC分析器，输出每次调用的分配字节数（gc.alloc.rate.norm）
+ */
+public class BenchmarkRunner {
+
+    // 所有基准测试共用的代码生成种子
+    static final long SEED = 20240601L;
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        Options options = new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,878 @@
+package org.codeDuplicateChecking.benchmark;
+
+import org.codeDuplicateChecking.Agent.utils.CodePlagiarismUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 按指定方式改写代码，模拟常见的抄袭手法<br>
+ * 按行对Java、C/C++和Python代码做文本改写，不做完整的语法分析，适用于格式规范的比赛代码；
+ * 某种改写在代码中找不到可以改写的位置时原样返回代码
+ */
+class CodeMutator {
+
+    // C/C++/Java中声明变量和函数时使用的类型名
+    private static final String[] C_TYPES = {
+            "int", "long", "short", "double", "float", "char", "bool", "boolean", "byte", "void", "auto",
+            "unsigned", "signed", "String", "string", "Integer", "Long", "Double", "vector", "List", "ArrayList",
+            "Map", "HashMap", "TreeMap", "Set", "HashSet", "TreeSet", "Deque", "ArrayDeque", "Queue", "pair"};
+
+    private static final Pattern TYPE_PREFIX = Pattern.compile("^(?:(?:" + String.join("|", C_TYPES)
+            + ")\\b(?:\\s*<[^;(){}]*?>)?(?:\\s*\\[\\s*\\])*[\\s*&]+)+");
+    private static final Pattern MODIFIERS = Pattern.compile(
+            "^(?:(?:public|private|protected|static|final|const|inline|constexpr|register)\\s+)+");
+    private static final Pattern IDENTIFIER = Pattern.compile("[A-Za-z_]\\w*");
+    private static final Pattern LEADING_IDENTIFIER = Pattern.compile("^\\s*[*&]*\\s*([A-Za-z_]\\w*)");
+    private static final Pattern STRING_LITERAL = Pattern.compile("\"(?:\\\\.|[^\"\\\\])*\"|'(?:\\\\.|[^'\\\\])*'");
+    private static final Pattern C_ASSIGNMENT = Pattern.compile(
+            "^\\s*([A-Za-z_]\\w*)\\s*(?:\\[[^\\]]*\\]\\s*)*(?:[-+*/%&|^]|<<|>>)?=(?!=)");
+    private static final Pattern C_INCREMENT = Pattern.compile("^\\s*(?:([A-Za-z_]\\w*)\\s*(?:\\+\\+|--)|(?:\\+\\+|--)\\s*([A-Za-z_]\\w*))");
+    private static final Pattern C_FOR = Pattern.compile("^for\\s*\\((.*)\\)\\s*\\{$");
+    private static final Pattern C_WHILE = Pattern.compile("^while\\s*\\((.*)\\)\\s*\\{$");
+    private static final Pattern PY_DEF = Pattern.compile("^def\\s+([A-Za-z_]\\w*)\\s*\\((.*)\\)\\s*:");
+    private static final Pattern PY_ASSIGNMENT = Pattern.compile(
+            "^\\s*([A-Za-z_]\\w*(?:\\s*,\\s*[A-Za-z_]\\w*)*)\\s*(?:[-+*/%&|^]|//|\\*\\*|<<|>>)?=(?!=)");
+    private static final Pattern PY_FOR_VARIABLES = Pattern.compile("^for\\s+([A-Za-z_]\\w*(?:\\s*,\\s*[A-Za-z_]\\w*)*)\\s+in\\b");
+    private static final Pattern PY_FOR_RANGE = Pattern.compile("^for\\s+([A-Za-z_]\\w*)\\s+in\\s+range\\((.*)\\)\\s*:$");
+
+    // 不参与重命名的关键字、库函数和入口函数名
+    private static final Set<String> RESERVED = new HashSet<>(Arrays.asList(
+            "main", "args", "if", "else", "for", "while", "do", "switch", "case", "default", "return", "break",
+            "continue", "class", "struct", "public", "private", "protected", "static", "final", "const", "new",
+            "delete", "this", "null", "nullptr", "NULL", "true", "false", "True", "False", "None", "and", "or",
+            "not", "in", "is", "def", "pass", "import", "from", "as", "print", "range", "len", "input", "int",
+            "str", "list", "dict", "set", "min", "max", "abs", "sum", "sorted", "map", "self", "System", "out",
+            "println", "printf", "scanf", "cin", "cout", "endl", "std", "Math", "String", "Integer", "Long",
+            "__name__", "__main__", "sys", "stdin", "readline"));
+
+    // 不可交换顺序的语句，可能有输出等副作用或改变控制流
+    private static final Pattern UNSWAPPABLE = Pattern.compile(
+            "\\b(?:return|break|continue|print|println|printf|scanf|cin|cout|input|System|yield|throw)\\b");
+
+    // 重命名和插入无用代码时使用的变量名
+    private static final String[] NAME_POOL = {
+            "x", "y", "z", "k", "p", "q", "tmp", "cur", "val", "ans", "res", "sum", "cnt", "idx", "num", "acc",
+            "buf", "flag", "step", "mid", "lo", "hi", "best", "len", "pos", "dp", "arr", "work", "calc", "solve"};
+
+    private final Random random;
+
+    CodeMutator(Random random) {
+        this.random = random;
+    }
+
+    /**
+     * 按指定方式改写代码
+     * @param code 原始代码
+     * @param language 代码语言
+     * @param mutation 改写方式
+     * @return 改写后的代码，找不到可以改写的位置时返回原始代码
+     */
+    String apply(String code, String language, Mutation mutation) {
+        boolean python = "python".equals(CodePlagiarismUtils.normalizeLanguage(language));
+        switch (mutation) {
+            case RENAME:
+                return rename(code, python);
+            case REORDER:
+                return reorder(code, python);
+            case DEAD_CODE:
+                return insertDeadCode(code, python);
+            case LOOP_REWRITE:
+                return rewriteLoops(code, python);
+            case TEMPLATE_PADDING:
+                return padTemplate(code, language, python);
+            default:
+                throw new IllegalArgumentException("未知的改写方式: " + mutation);
+        }
+    }
+
+    // ---------------------------------------------------------------- 重命名
+
+    private String rename(String code, boolean python) {
+        Set<String> declared = python ? pythonDeclarations(code) : cDeclarations(code);
+        declared.removeAll(RESERVED);
+        if (declared.isEmpty()) {
+            return code;
+        }
+        Set<String> used = identifiers(code);
+        Map<String, String> renames = new HashMap<>();
+        for (String name : declared) {
+            // 大部分标识符被重命名，保留少数原名
+            if (renames.isEmpty() || random.nextInt(5) != 0) {
+                renames.put(name, freshName(used));
+            }
+        }
+        return replaceIdentifiers(code, renames);
+    }
+
+    private Set<String> cDeclarations(String code) {
+        Set<String> names = new LinkedHashSet<>();
+        for (String line : code.split("\n", -1)) {
+            String trimmed = line.trim();
+            Matcher forMatcher = C_FOR.matcher(trimmed);
+            if (forMatcher.find()) {
+                String init = forMatcher.group(1);
+                int end = indexOfAny(init, ';', ':');
+                parseDeclaration(end >= 0 ? init.substring(0, end) : init, names);
+            } else {
+                parseDeclaration(MODIFIERS.matcher(trimmed).replaceFirst(""), names);
+            }
+        }
+        return names;
+    }
+
+    /**
+     * 解析一条C/C++/Java声明，记录声明的变量名，函数声明记录函数名和参数名
+     */
+    private static void parseDeclaration(String text, Set<String> names) {
+        Matcher type = TYPE_PREFIX.matcher(text);
+        if (!type.find()) {
+            return;
+        }
+        String rest = text.substring(type.end());
+        Matcher first = LEADING_IDENTIFIER.matcher(rest);
+        if (!first.find()) {
+            return;
+        }
+        String afterName = rest.substring(first.end()).trim();
+        if (afterName.startsWith("(")) {
+            names.add(first.group(1));
+            int close = afterName.lastIndexOf(')');
+            String params = close > 0 ? afterName.substring(1, close) : "";
+            for (String param : splitTopLevel(params, ',')) {
+                Matcher paramType = TYPE_PREFIX.matcher(param.trim());
+                if (paramType.find()) {
+                    Matcher paramName = LEADING_IDENTIFIER.matcher(param.trim().substring(paramType.end()));
+                    if (paramName.find()) {
+                        names.add(paramName.group(1));
+                    }
+                }
+            }
+            return;
+        }
+        int end = rest.indexOf(';');
+        for (String part : splitTopLevel(end >= 0 ? rest.substring(0, end) : rest, ',')) {
+            Matcher name = LEADING_IDENTIFIER.matcher(part);
+            if (name.find()) {
+                names.add(name.group(1));
+            }
+        }
+    }
+
+    private Set<String> pythonDeclarations(String code) {
+        Set<String> names = new LinkedHashSet<>();
+        for (String line : code.split("\n", -1)) {
+            String trimmed = line.trim();
+            Matcher def = PY_DEF.matcher(trimmed);
+            if (def.find()) {
+                names.add(def.group(1));
+                for (String param : splitTopLevel(def.group(2), ',')) {
+                    Matcher name = IDENTIFIER.matcher(param.replace("*", "").split("[=:]")[0]);
+                    if (name.find()) {
+                        names.add(name.group());
+                    }
+                }
+                continue;
+            }
+            Matcher loop = PY_FOR_VARIABLES.matcher(trimmed);
+            if (loop.find()) {
+                for (String name : loop.group(1).split(",")) {
+                    names.add(name.trim());
+                }
+                continue;
+            }
+            for (String statement : splitTopLevel(trimmed, ';')) {
+                Matcher assignment = PY_ASSIGNMENT.matcher(statement);
+                if (assignment.find()) {
+                    for (String name : assignment.group(1).split(",")) {
+                        names.add(name.trim());
+                    }
+                }
+            }
+        }
+        // 双下划线名称通常是解释器约定的名称
+        names.removeIf(name -> name.startsWith("__"));
+        return names;
+    }
+
+    /**
+     * 替换字符串字面量以外的标识符
+     */
+    private static String replaceIdentifiers(String code, Map<String, String> renames) {
+        StringBuilder result = new StringBuilder(code.length() + 64);
+        Matcher literal = STRING_LITERAL.matcher(code);
+        int last = 0;
+        while (literal.find()) {
+            appendRenamed(result, code.substring(last, literal.start()), renames);
+            result.append(literal.group());
+            last = literal.end();
+        }
+        appendRenamed(result, code.substring(last), renames);
+        return result.toString();
+    }
+
+    private static void appendRenamed(StringBuilder result, String segment, Map<String, String> renames) {
+        Matcher identifier = IDENTIFIER.matcher(segment);
+        int last = 0;
+        while (identifier.find()) {
+            String replacement = renames.get(identifier.group());
+            if (replacement != null) {
+                result.append(segment, last, identifier.start()).append(replacement);
+                last = identifier.end();
+            }
+        }
+        result.append(segment, last, segment.length());
+    }
+
+    // ---------------------------------------------------------------- 调整顺序
+
+    private String reorder(String code, boolean python) {
+        List<String> lines = new ArrayList<>(Arrays.asList(code.split("\n", -1)));
+        List<int[]> units = python ? pythonFunctions(lines) : cFunctions(lines);
+
+        // 同一层级的函数互相交换位置，函数之间的空行和其他代码保持不动
+        Map<Integer, List<int[]>> byLevel = new HashMap<>();
+        for (int[] unit : units) {
+            byLevel.computeIfAbsent(unit[2], level -> new ArrayList<>()).add(unit);
+        }
+        List<String> reordered = new ArrayList<>();
+        int next = 0;
+        Map<int[], int[]> placement = new HashMap<>();
+        for (List<int[]> sameLevel : byLevel.values()) {
+            List<int[]> shuffled = new ArrayList<>(sameLevel);
+            Collections.shuffle(shuffled, random);
+            for (int i = 0; i < sameLevel.size(); i++) {
+                placement.put(sameLevel.get(i), shuffled.get(i));
+            }
+        }
+        units.sort((a, b) -> Integer.compare(a[0], b[0]));
+        for (int[] slot : units) {
+            reordered.addAll(lines.subList(next, slot[0]));
+            int[] unit = placement.get(slot);
+            reordered.addAll(lines.subList(unit[0], unit[1] + 1));
+            next = slot[1] + 1;
+        }
+        reordered.addAll(lines.subList(next, lines.size()));
+
+        // 交换相邻且互不依赖的简单语句
+        for (int i = 0; i + 1 < reordered.size(); i++) {
+            String first = reordered.get(i);
+            String second = reordered.get(i + 1);
+            if (indentOf(first) == indentOf(second) && random.nextInt(2) == 0 && independent(first, second, python)) {
+                reordered.set(i, second);
+                reordered.set(i + 1, first);
+                i++;
+            }
+        }
+        return String.join("\n", reordered);
+    }
+
+    /**
+     * 查找C/C++/Java的函数，只返回互不嵌套的最外层函数
+     * @return 每个函数的{起始行, 结束行, 层级}
+     */
+    private static List<int[]> cFunctions(List<String> lines) {
+        List<int[]> units = new ArrayList<>();
+        int depth = 0;
+        for (int i = 0; i < lines.size(); i++) {
+            String trimmed = lines.get(i).trim();
+            if (isFunctionHeader(trimmed)) {
+                int end = findBlockEnd(lines, i);
+                if (end > i) {
+                    units.add(new int[]{i, end, depth});
+                    i = end;
+                    continue;
+                }
+            }
+            depth += braceDelta(lines.get(i));
+        }
+        return units;
+    }
+
+    private static boolean isFunctionHeader(String trimmed) {
+        if (!trimmed.endsWith("{") || !trimmed.contains("(")) {
+            return false;
+        }
+        String head = trimmed.substring(0, trimmed.indexOf('('));
+        return !head.contains("=") && !head.matches(
+                "^(?:if|else|for|while|switch|do|try|catch|class|struct|namespace|enum|interface|return|synchronized)\\b.*")
+                && TYPE_PREFIX.matcher(MODIFIERS.matcher(head).replaceFirst("")).find();
+    }
+
+    /**
+     * 查找Python的函数定义，函数体为缩进更深的后续行，不包含末尾的空行
+     */
+    private static List<int[]> pythonFunctions(List<String> lines) {
+        List<int[]> units = new ArrayList<>();
+        for (int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i);
+            if (!line.trim().startsWith("def ")) {
+                continue;
+            }
+            int end = findPythonBlockEnd(lines, i);
+            units.add(new int[]{i, end, indentOf(line)});
+            i = end;
+        }
+        return units;
+    }
+
+    private static boolean independent(String first, String second, boolean python) {
+        Set<String> written1 = writtenNames(first, python);
+        Set<String> written2 = writtenNames(second, python);
+        if (written1.isEmpty() || written2.isEmpty()) {
+            return false;
+        }
+        Set<String> used1 = identifiers(first);
+        Set<String> used2 = identifiers(second);
+        return Collections.disjoint(written1, used2) && Collections.disjoint(written2, used1);
+    }
+
+    /**
+     * 取简单赋值或声明语句写入的变量名，其他语句返回空集合
+     */
+    private static Set<String> writtenNames(String line, boolean python) {
+        String trimmed = line.trim();
+        Set<String> names = new LinkedHashSet<>();
+        if (trimmed.isEmpty() || UNSWAPPABLE.matcher(trimmed).find()) {
+            return names;
+        }
+        if (python) {
+            if (trimmed.endsWith(":") || trimmed.endsWith("\\") || trimmed.startsWith("#")) {
+                return names;
+            }
+            Matcher assignment = PY_ASSIGNMENT.matcher(trimmed);
+            if (assignment.find() && !trimmed.contains(";")) {
+                for (String name : assignment.group(1).split(",")) {
+                    names.add(name.trim());
+                }
+            }
+            return names;
+        }
+        if (!trimmed.endsWith(";") || trimmed.contains("{") || trimmed.contains("}")
+                || trimmed.startsWith("for") || trimmed.startsWith("case")) {
+            return names;
+        }
+        parseDeclaration(MODIFIERS.matcher(trimmed).replaceFirst(""), names);
+        if (names.isEmpty()) {
+            Matcher assignment = C_ASSIGNMENT.matcher(trimmed);
+            Matcher increment = C_INCREMENT.matcher(trimmed);
+            if (assignment.find()) {
+                names.add(assignment.group(1));
+            } else if (increment.find()) {
+                names.add(increment.group(1) != null ? increment.group(1) : increment.group(2));
+            }
+        }
+        return names;
+    }
+
+    // ---------------------------------------------------------------- 无用代码
+
+    private static final String[][] C_DEAD_CODE = {
+            {"int %v = %k;"},
+            {"if (%k < 0) {", "    int %v = %k;", "}"},
+            {"int %v = 0;", "while (%v > %k) {", "    %v--;", "}"},
+            {"int %v = %k;", "%v = %v * 2 - %v;"}};
+
+    private static final String[][] PYTHON_DEAD_CODE = {
+            {"%v = %k"},
+            {"if %k < 0:", "    %v = %k"},
+            {"%v = 0", "while %v > %k:", "    %v -= 1"},
+            {"%v = %k", "%v = %v * 2 - %v"}};
+
+    private String insertDeadCode(String code, boolean python) {
+        List<String> lines = new ArrayList<>(Arrays.asList(code.split("\n", -1)));
+        List<Integer> points = new ArrayList<>();
+        for (int i = 0; i + 1 < lines.size(); i++) {
+            String trimmed = lines.get(i).trim();
+            boolean opensBlock = python
+                    ? trimmed.endsWith(":") && !trimmed.startsWith("#") && !trimmed.startsWith("class ")
+                    : trimmed.endsWith("{") && !trimmed.matches(".*=\\s*\\{$") && !trimmed.matches(
+                    "^(?:.*\\s)?(?:class|struct|namespace|enum|interface|switch)\\b.*");
+            if (opensBlock && !lines.get(i + 1).trim().isEmpty()) {
+                points.add(i);
+            }
+        }
+        if (points.isEmpty()) {
+            return code;
+        }
+
+        Set<String> used = identifiers(code);
+        List<Integer> chosen = new ArrayList<>();
+        for (Integer point : points) {
+            if (random.nextInt(5) < 2) {
+                chosen.add(point);
+            }
+        }
+        if (chosen.isEmpty()) {
+            chosen.add(points.get(random.nextInt(points.size())));
+        }
+        // 从后往前插入，前面的行号不变
+        for (int c = chosen.size() - 1; c >= 0; c--) {
+            int point = chosen.get(c);
+            String indent = leadingWhitespace(lines.get(point + 1));
+            String[][] templates = python ? PYTHON_DEAD_CODE : C_DEAD_CODE;
+            String[] template = templates[random.nextInt(templates.length)];
+            String name = freshName(used);
+            String constant = String.valueOf(1 + random.nextInt(1000));
+            List<String> inserted = new ArrayList<>();
+            for (String templateLine : template) {
+                inserted.add(indent + templateLine.replace("%v", name).replace("%k", constant));
+            }
+            lines.addAll(point + 1, inserted);
+        }
+        return String.join("\n", lines);
+    }
+
+    // ---------------------------------------------------------------- 循环改写
+
+    private String rewriteLoops(String code, boolean python) {
+        List<String> lines = new ArrayList<>(Arrays.asList(code.split("\n", -1)));
+        List<Integer> loops = new ArrayList<>();
+        for (int i = 0; i < lines.size(); i++) {
+            String trimmed = lines.get(i).trim();
+            if (python ? PY_FOR_RANGE.matcher(trimmed).find()
+                    : C_FOR.matcher(trimmed).find() || C_WHILE.matcher(trimmed).find()) {
+                loops.add(i);
+            }
+        }
+        if (loops.isEmpty()) {
+            return code;
+        }
+
+        boolean rewritten = false;
+        // 从后往前改写，内层循环先于外层循环，前面的行号不变
+        for (int c = loops.size() - 1; c >= 0; c--) {
+            boolean last = c == 0 && !rewritten;
+            if (!last && random.nextInt(5) < 2) {
+                continue;
+            }
+            rewritten |= python ? rewritePythonLoop(lines, loops.get(c)) : rewriteCLoop(lines, loops.get(c));
+        }
+        return String.join("\n", lines);
+    }
+
+    /**
+     * for循环改写为while循环，while循环改写为省略初始化和更新的for循环
+     */
+    private static boolean rewriteCLoop(List<String> lines, int header) {
+        String line = lines.get(header);
+        String indent = leadingWhitespace(line);
+        String trimmed = line.trim();
+        Matcher whileLoop = C_WHILE.matcher(trimmed);
+        if (whileLoop.find()) {
+            lines.set(header, indent + "for (; " + whileLoop.group(1).trim() + "; ) {");
+            return true;
+        }
+
+        Matcher forLoop = C_FOR.matcher(trimmed);
+        if (!forLoop.find()) {
+            return false;
+        }
+        List<String> parts = splitTopLevel(forLoop.group(1), ';');
+        int end = findBlockEnd(lines, header);
+        if (parts.size() != 3 || end <= header || !lines.get(end).trim().equals("}")) {
+            return false;
+        }
+        List<String> body = lines.subList(header + 1, end);
+        for (String bodyLine : body) {
+            if (bodyLine.matches(".*\\bcontinue\\b.*")) {
+                return false;
+            }
+        }
+        String init = parts.get(0).trim();
+        String condition = parts.get(1).trim();
+        String bodyIndent = body.isEmpty() ? indent + "    " : leadingWhitespace(body.get(0));
+
+        List<String> replacement = new ArrayList<>();
+        Set<String> declared = new LinkedHashSet<>();
+        parseDeclaration(init, declared);
+        // 循环变量原本只在循环内可见，同名变量在别处再次声明时用代码块限定作用域
+        boolean scoped = false;
+        for (String name : declared) {
+            scoped |= countMatches(String.join("\n", lines), "\\b(?:" + String.join("|", C_TYPES) + ")\\s+"
+                    + Pattern.quote(name) + "\\b") > 1;
+        }
+        if (!declared.isEmpty()) {
+            replacement.add(indent + init + ";");
+        } else {
+            for (String statement : splitTopLevel(init, ',')) {
+                if (!statement.trim().isEmpty()) {
+                    replacement.add(indent + statement.trim() + ";");
+                }
+            }
+        }
+        replacement.add(indent + "while (" + (condition.isEmpty() ? "true" : condition) + ") {");
+        replacement.addAll(body);
+        for (String statement : splitTopLevel(parts.get(2), ',')) {
+            if (!statement.trim().isEmpty()) {
+                replacement.add(bodyIndent + statement.trim() + ";");
+            }
+        }
+        replacement.add(indent + "}");
+        if (scoped) {
+            replacement.replaceAll(replaced -> replaced.isEmpty() ? replaced : "    " + replaced);
+            replacement.add(0, indent + "{");
+            replacement.add(indent + "}");
+        }
+
+        lines.subList(header, end + 1).clear();
+        lines.addAll(header, replacement);
+        return true;
+    }
+
+    /**
+     * for ... in range(...) 循环改写为while循环
+     */
+    private static boolean rewritePythonLoop(List<String> lines, int header) {
+        String line = lines.get(header);
+        Matcher matcher = PY_FOR_RANGE.matcher(line.trim());
+        if (!matcher.find()) {
+            return false;
+        }
+        String variable = matcher.group(1);
+        List<String> args = splitTopLevel(matcher.group(2), ',');
+        String start = "0";
+        String stop;
+        String step = "1";
+        if (args.size() == 1) {
+            stop = args.get(0).trim();
+        } else if (args.size() == 2 || args.size() == 3) {
+            start = args.get(0).trim();
+            stop = args.get(1).trim();
+            if (args.size() == 3) {
+                step = args.get(2).trim();
+                // 只改写步长为正整数常量的循环，保证循环条件不变
+                if (!step.matches("[1-9]\\d*")) {
+                    return false;
+                }
+            }
+        } else {
+            return false;
+        }
+
+        int end = findPythonBlockEnd(lines, header);
+        if (end <= header) {
+            return false;
+        }
+        String indent = leadingWhitespace(line);
+        List<String> body = new ArrayList<>(lines.subList(header + 1, end + 1));
+        for (String bodyLine : body) {
+            if (bodyLine.matches(".*\\bcontinue\\b.*")) {
+                return false;
+            }
+        }
+        // for ... else 的语义无法直接改写
+        if (end + 1 < lines.size() && indentOf(lines.get(end + 1)) == indentOf(line)
+                && lines.get(end + 1).trim().startsWith("else")) {
+            return false;
+        }
+        String bodyIndent = leadingWhitespace(lines.get(header + 1));
+        for (String bodyLine : body) {
+            if (!bodyLine.trim().isEmpty()) {
+                bodyIndent = leadingWhitespace(bodyLine);
+                break;
+            }
+        }
+
+        List<String> replacement = new ArrayList<>();
+        replacement.add(indent + variable + " = " + start);
+        replacement.add(indent + "while " + variable + " < " + stop + ":");
+        replacement.addAll(body);
+        replacement.add(bodyIndent + variable + " += " + step);
+        lines.subList(header, end + 1).clear();
+        lines.addAll(header, replacement);
+        return true;
+    }
+
+    // ---------------------------------------------------------------- 代码模板
+
+    private static final String[][] CPP_TEMPLATE = {
+            {"#define ll long long"},
+            {"#define pb push_back"},
+            {"#define all(x) (x).begin(), (x).end()"},
+            {"typedef pair<int, int> pii;"},
+            {"const int MOD = 1e9 + 7;"},
+            {"const int INF = 0x3f3f3f3f;"},
+            {"int gcd(int a, int b) { return b == 0 ? a : gcd(b, a % b); }"},
+            {"long long qpow(long long base, long long exp, long long mod) {",
+                    "    long long result = 1;",
+                    "    base %= mod;",
+                    "    while (exp > 0) {",
+                    "        if (exp & 1) result = result * base % mod;",
+                    "        base = base * base % mod;",
+                    "        exp >>= 1;",
+                    "    }",
+                    "    return result;",
+                    "}"}};
+
+    private static final String[][] JAVA_TEMPLATE = {
+            {"    static final int MOD = 1000000007;"},
+            {"    static final int INF = Integer.MAX_VALUE / 2;"},
+            {"    static int gcd(int a, int b) { return b == 0 ? a : gcd(b, a % b); }"},
+            {"    static long qpow(long base, long exp, long mod) {",
+                    "        long result = 1;",
+                    "        base %= mod;",
+                    "        while (exp > 0) {",
+                    "            if ((exp & 1) == 1) result = result * base % mod;",
+                    "            base = base * base % mod;",
+                    "            exp >>= 1;",
+                    "        }",
+                    "        return result;",
+                    "    }"},
+            {"    static class FastReader {",
+                    "        private final BufferedReader reader = new BufferedReader(new InputStreamReader(System.in));",
+                    "        private StringTokenizer tokenizer;",
+                    "",
+                    "        String next() throws IOException {",
+                    "            while (tokenizer == null || !tokenizer.hasMoreTokens()) {",
+                    "                tokenizer = new StringTokenizer(reader.readLine());",
+                    "            }",
+                    "            return tokenizer.nextToken();",
+                    "        }",
+                    "",
+                    "        int nextInt() throws IOException {",
+                    "            return Integer.parseInt(next());",
+                    "        }",
+                    "    }"}};
+
+    private static final String[][] PYTHON_TEMPLATE = {
+            {"from collections import defaultdict, deque"},
+            {"input = sys.stdin.readline"},
+            {"sys.setrecursionlimit(1 << 20)"},
+            {"MOD = 10 ** 9 + 7"},
+            {"INF = float('inf')"},
+            {"def gcd(a, b):", "    return a if b == 0 else gcd(b, a % b)"}};
+
+    private String padTemplate(String code, String language, boolean python) {
+        List<String> lines = new ArrayList<>(Arrays.asList(code.split("\n", -1)));
+        String normalized = CodePlagiarismUtils.normalizeLanguage(language);
+        if (python) {
+            List<String> template = new ArrayList<>();
+            template.add("import sys");
+            template.addAll(pickTemplate(PYTHON_TEMPLATE));
+            template.add("");
+            lines.addAll(afterLeadingLines(lines, "import ", "from "), template);
+        } else if ("java".equals(normalized)) {
+            int classHeader = -1;
+            for (int i = 0; i < lines.size(); i++) {
+                if (lines.get(i).matches("^(?:public\\s+)?(?:final\\s+)?class\\s+\\w+.*\\{\\s*$")) {
+                    classHeader = i;
+                    break;
+                }
+            }
+            if (classHeader < 0) {
+                return code;
+            }
+            List<String> members = pickTemplate(JAVA_TEMPLATE);
+            members.add("");
+            lines.addAll(classHeader + 1, members);
+            lines.addAll(0, Arrays.asList("import java.io.*;", "import java.util.*;", ""));
+        } else {
+            List<String> template = pickTemplate(CPP_TEMPLATE);
+            template.add("");
+            int position = afterLeadingLines(lines, "#include", "using namespace");
+            lines.addAll(position, template);
+            lines.add(0, "#include <bits/stdc++.h>");
+            for (int i = 0; i < lines.size(); i++) {
+                if (lines.get(i).trim().matches("^int\\s+main\\s*\\(.*\\)\\s*\\{$")) {
+                    lines.addAll(i + 1, Arrays.asList("    ios::sync_with_stdio(false);", "    cin.tie(nullptr);"));
+                    break;
+                }
+            }
+        }
+        return String.join("\n", lines);
+    }
+
+    /**
+     * 随机选取模板中的至少两段代码，保持模板中的顺序
+     */
+    private List<String> pickTemplate(String[][] template) {
+        List<String> picked = new ArrayList<>();
+        int count = 0;
+        for (int i = 0; i < template.length; i++) {
+            boolean needed = template.length - i <= 2 - count;
+            if (needed || random.nextInt(5) < 3) {
+                picked.addAll(Arrays.asList(template[i]));
+                count++;
+            }
+        }
+        return picked;
+    }
+
+    /**
+     * @return 代码开头连续的指定类型行（如import、#include）及其间空行之后的位置
+     */
+    private static int afterLeadingLines(List<String> lines, String... prefixes) {
+        int position = 0;
+        for (int i = 0; i < lines.size(); i++) {
+            String trimmed = lines.get(i).trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            boolean matches = false;
+            for (String prefix : prefixes) {
+                matches |= trimmed.startsWith(prefix);
+            }
+            if (!matches) {
+                break;
+            }
+            position = i + 1;
+        }
+        return position;
+    }
+
+    // ---------------------------------------------------------------- 工具方法
+
+    private String freshName(Set<String> used) {
+        String name = NAME_POOL[random.nextInt(NAME_POOL.length)];
+        while (used.contains(name) || RESERVED.contains(name)) {
+            name = NAME_POOL[random.nextInt(NAME_POOL.length)] + (2 + random.nextInt(98));
+        }
+        used.add(name);
+        return name;
+    }
+
+    private static Set<String> identifiers(String code) {
+        Set<String> names = new HashSet<>();
+        Matcher matcher = IDENTIFIER.matcher(code);
+        while (matcher.find()) {
+            names.add(matcher.group());
+        }
+        return names;
+    }
+
+    /**
+     * 找到从header行开始的代码块的结束行，即大括号恢复平衡的行
+     * @return 结束行，找不到时返回-1
+     */
+    private static int findBlockEnd(List<String> lines, int header) {
+        int depth = 0;
+        for (int i = header; i < lines.size(); i++) {
+            depth += braceDelta(lines.get(i));
+            if (depth <= 0 && i > header) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 找到Python代码块的最后一行，即缩进比header行深的最后一个非空行
+     */
+    private static int findPythonBlockEnd(List<String> lines, int header) {
+        int indent = indentOf(lines.get(header));
+        int end = header;
+        for (int i = header + 1; i < lines.size(); i++) {
+            String line = lines.get(i);
+            if (line.trim().isEmpty()) {
+                continue;
+            }
+            if (indentOf(line) <= indent) {
+                break;
+            }
+            end = i;
+        }
+        return end;
+    }
+
+    private static int braceDelta(String line) {
+        String code = STRING_LITERAL.matcher(line).replaceAll("\"\"");
+        int comment = code.indexOf("//");
+        if (comment >= 0) {
+            code = code.substring(0, comment);
+        }
+        int delta = 0;
+        for (int i = 0; i < code.length(); i++) {
+            char c = code.charAt(i);
+            if (c == '{') {
+                delta++;
+            } else if (c == '}') {
+                delta--;
+            }
+        }
+        return delta;
+    }
+
+    private static int indentOf(String line) {
+        int indent = 0;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == ' ') {
+                indent++;
+            } else if (c == '\t') {
+                indent += 4;
+            } else {
+                return indent;
+            }
+        }
+        // 空行不属于任何缩进层级
+        return -1;
+    }
+
+    private static String leadingWhitespace(String line) {
+        int i = 0;
+        while (i < line.length() && Character.isWhitespace(line.charAt(i))) {
+            i++;
+        }
+        return line.substring(0, i);
+    }
+
+    /**
+     * 按分隔符切分文本，忽略括号和字符串中的分隔符
+     */
+    private static List<String> splitTopLevel(String text, char separator) {
+        List<String> parts = new ArrayList<>();
+        int depth = 0;
+        int start = 0;
+        char quote = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (quote != 0) {
+                if (c == '\\') {
+                    i++;
+                } else if (c == quote) {
+                    quote = 0;
+                }
+            } else if (c == '"' || c == '\'') {
+                quote = c;
+            } else if (c == '(' || c == '[' || c == '{') {
+                depth++;
+            } else if (c == ')' || c == ']' || c == '}') {
+                depth--;
+            } else if (c == separator && depth == 0) {
+                parts.add(text.substring(start, i));
+                start = i + 1;
+            }
+        }
+        parts.add(text.substring(start));
+        return parts;
+    }
+
+    private static int indexOfAny(String text, char first, char second) {
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == first || text.charAt(i) == second) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int countMatches(String text, String regex) {
+        Matcher matcher = Pattern.compile(regex).matcher(text);
+        int count = 0;
+        while (matcher.find()) {
+            count++;
+        }
+        return count;
+    }
+}
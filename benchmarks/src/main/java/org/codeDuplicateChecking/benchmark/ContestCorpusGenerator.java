@@ -0,0 +1,236 @@
+package org.codeDuplicateChecking.benchmark;
+
+import org.codeDuplicateChecking.Agent.model.CodeBlock;
+import org.codeDuplicateChecking.Agent.utils.CodePlagiarismUtils;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 带标注的合成比赛语料生成器<br>
+ * 每道题目有若干份互相独立的种子解答，每份解答又被若干名抄袭者复制，并用随机选取的一到多种方式改写。
+ * 同一种子解答派生出的提交（包括原解答）两两之间为抄袭，不同种子解答之间不是抄袭，
+ * 据此可以计算查重结果的准确率和召回率。种子解答可以从目录读取，也可以由SubmissionGenerator生成
+ */
+public class ContestCorpusGenerator {
+
+    private final long seed;
+
+    public ContestCorpusGenerator(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * 用SubmissionGenerator生成种子解答
+     * @param language 代码语言
+     * @param problems 题目数
+     * @param solutionsPerProblem 每道题目的独立解答数
+     * @param lines 每份解答的目标行数
+     * @return 题目ID到种子解答的映射
+     */
+    public Map<String, List<CodeBlock>> generateSeeds(String language, int problems, int solutionsPerProblem,
+                                                      int lines) {
+        Map<String, List<CodeBlock>> seeds = new LinkedHashMap<>();
+        for (int p = 0; p < problems; p++) {
+            String problemId = "P" + (1000 + p);
+            List<CodeBlock> solutions = new ArrayList<>(solutionsPerProblem);
+            for (int s = 0; s < solutionsPerProblem; s++) {
+                long solutionSeed = seed + p * 100003L + s * 7919L;
+                String code = new SubmissionGenerator(solutionSeed).generate(language, lines);
+                solutions.add(new CodeBlock(problemId + "-s" + s, code, "s" + s, null, null, language, problemId));
+            }
+            seeds.put(problemId, solutions);
+        }
+        return seeds;
+    }
+
+    /**
+     * 从目录读取种子解答，每个子目录是一道题目，其中每个源代码文件是一份独立的解答
+     * @param directory 种子解答目录
+     * @return 题目ID（子目录名）到种子解答的映射，按名称排序
+     * @throws IOException 读取失败
+     */
+    public static Map<String, List<CodeBlock>> loadSeeds(Path directory) throws IOException {
+        Map<String, List<CodeBlock>> seeds = new LinkedHashMap<>();
+        List<Path> problemDirectories;
+        try (Stream<Path> children = Files.list(directory)) {
+            problemDirectories = children.filter(Files::isDirectory).sorted().collect(Collectors.toList());
+        }
+        for (Path problemDirectory : problemDirectories) {
+            String problemId = problemDirectory.getFileName().toString();
+            List<Path> files;
+            try (Stream<Path> children = Files.list(problemDirectory)) {
+                files = children.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+            }
+            List<CodeBlock> solutions = new ArrayList<>();
+            for (Path file : files) {
+                String language = languageOf(file.getFileName().toString());
+                if (language == null) {
+                    continue;
+                }
+                String code = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+                int index = solutions.size();
+                solutions.add(new CodeBlock(problemId + "-s" + index, code, "s" + index, null, null, language,
+                        problemId));
+            }
+            if (!solutions.isEmpty()) {
+                seeds.put(problemId, solutions);
+            }
+        }
+        return seeds;
+    }
+
+    /**
+     * 生成比赛语料，每份种子解答本身也作为一份提交
+     * @param seeds 题目ID到种子解答的映射
+     * @param copiesPerSolution 每份种子解答的抄袭提交数
+     * @param maxMutations 每份抄袭提交最多使用的改写方式数，实际数量在1到该值之间随机
+     * @return 带标注的提交列表，同一题目的提交相邻
+     */
+    public List<LabeledSubmission> generate(Map<String, List<CodeBlock>> seeds, int copiesPerSolution,
+                                            int maxMutations) {
+        Random random = new Random(seed);
+        CodeMutator mutator = new CodeMutator(random);
+        int mutationLimit = Math.max(1, Math.min(maxMutations, Mutation.values().length));
+        List<LabeledSubmission> submissions = new ArrayList<>();
+        for (List<CodeBlock> solutions : seeds.values()) {
+            for (CodeBlock solution : solutions) {
+                submissions.add(new LabeledSubmission(solution, solution.getId(), Collections.emptyList()));
+                for (int c = 0; c < copiesPerSolution; c++) {
+                    List<Mutation> mutations = new ArrayList<>(Arrays.asList(Mutation.values()));
+                    Collections.shuffle(mutations, random);
+                    mutations = mutations.subList(0, 1 + random.nextInt(mutationLimit));
+
+                    // 只标注实际改变了代码的改写
+                    String code = solution.getCode();
+                    List<Mutation> applied = new ArrayList<>();
+                    for (Mutation mutation : mutations) {
+                        String mutated = mutator.apply(code, solution.getLanguage(), mutation);
+                        if (!mutated.equals(code)) {
+                            applied.add(mutation);
+                            code = mutated;
+                        }
+                    }
+                    String author = solution.getAuthor() + "c" + c;
+                    CodeBlock copy = new CodeBlock(solution.getId() + "-c" + c, code, author, null, null,
+                            solution.getLanguage(), solution.getProblemId());
+                    submissions.add(new LabeledSubmission(copy, solution.getId(), applied));
+                }
+            }
+        }
+        return submissions;
+    }
+
+    /**
+     * 将语料写入目录，路径为 {problem}/{author}/Main.{扩展名}，与压缩包接口的默认路径模式一致，
+     * 标注写入 labels.csv
+     * @param submissions 带标注的提交列表
+     * @param directory 输出目录
+     * @throws IOException 写入失败
+     */
+    public static void write(List<LabeledSubmission> submissions, Path directory) throws IOException {
+        Files.createDirectories(directory);
+        try (Writer labels = Files.newBufferedWriter(directory.resolve("labels.csv"), StandardCharsets.UTF_8)) {
+            labels.write("id,problem_id,author,language,origin,mutations,path\n");
+            for (LabeledSubmission submission : submissions) {
+                CodeBlock codeBlock = submission.getCodeBlock();
+                String path = codeBlock.getProblemId() + "/" + codeBlock.getAuthor() + "/Main."
+                        + extensionOf(codeBlock.getLanguage());
+                Path file = directory.resolve(path);
+                Files.createDirectories(file.getParent());
+                Files.write(file, codeBlock.getCode().getBytes(StandardCharsets.UTF_8));
+                labels.write(String.join(",", codeBlock.getId(), codeBlock.getProblemId(), codeBlock.getAuthor(),
+                        codeBlock.getLanguage(), submission.getOrigin(), submission.getMutationLabels(), path));
+                labels.write('\n');
+            }
+        }
+    }
+
+    /**
+     * @return 按文件扩展名推断的语言，不是源代码文件时返回null
+     */
+    static String languageOf(String fileName) {
+        String lower = fileName.toLowerCase(Locale.ROOT);
+        if (lower.endsWith(".java")) {
+            return SubmissionGenerator.JAVA;
+        }
+        if (lower.endsWith(".cpp") || lower.endsWith(".cc") || lower.endsWith(".cxx") || lower.endsWith(".c")) {
+            return SubmissionGenerator.CPP;
+        }
+        if (lower.endsWith(".py")) {
+            return SubmissionGenerator.PYTHON;
+        }
+        return null;
+    }
+
+    private static String extensionOf(String language) {
+        switch (CodePlagiarismUtils.normalizeLanguage(language)) {
+            case "java":
+                return "java";
+            case "python":
+                return "py";
+            default:
+                return "cpp";
+        }
+    }
+
+    /**
+     * 带标注的提交
+     */
+    public static class LabeledSubmission {
+
+        private final CodeBlock codeBlock;
+
+        // 派生出该提交的种子解答ID
+        private final String origin;
+
+        // 实际使用的改写方式，种子解答本身为空
+        private final List<Mutation> mutations;
+
+        LabeledSubmission(CodeBlock codeBlock, String origin, List<Mutation> mutations) {
+            this.codeBlock = codeBlock;
+            this.origin = origin;
+            this.mutations = mutations;
+        }
+
+        public CodeBlock getCodeBlock() {
+            return codeBlock;
+        }
+
+        public String getOrigin() {
+            return origin;
+        }
+
+        public List<Mutation> getMutations() {
+            return mutations;
+        }
+
+        /**
+         * @return 以|分隔的改写方式名称，种子解答为空字符串
+         */
+        public String getMutationLabels() {
+            return mutations.stream().map(Mutation::getLabel).collect(Collectors.joining("|"));
+        }
+
+        /**
+         * @param other 另一份提交
+         * @return 两份提交是否由同一份种子解答派生，即是否应判为抄袭
+         */
+        public boolean isPlagiarismOf(LabeledSubmission other) {
+            return origin.equals(other.origin);
+        }
+    }
+}
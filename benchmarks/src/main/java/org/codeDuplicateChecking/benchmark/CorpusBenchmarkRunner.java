@@ -0,0 +1,392 @@
+package org.codeDuplicateChecking.benchmark;
+
+import org.codeDuplicateChecking.Agent.model.BatchPlagiarismResult;
+import org.codeDuplicateChecking.Agent.model.CodeBlock;
+import org.codeDuplicateChecking.Agent.model.CodeFingerprint;
+import org.codeDuplicateChecking.Agent.model.PlagiarismResult;
+import org.codeDuplicateChecking.Agent.service.CodePlagiarismService;
+import org.codeDuplicateChecking.Agent.utils.CodePlagiarismUtils;
+import org.codeDuplicateChecking.Agent.utils.StructureMetric;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * 合成比赛语料上的查重速度与准确度测试<br>
+ * 对同一份带标注的语料，按每种评分配置（各项相似度的权重和阈值）比较同一题目、同一语言族内的全部代码对，
+ * 输出吞吐量（代码对/秒）、峰值堆内存，以及准确率、召回率和按改写方式统计的召回率。
+ * 权重为0的相似度算法不计算，因此去掉某项算法带来的提速和准确度损失可以直接对比。
+ * 最后一行使用CodePlagiarismService的完整批量查重流程（默认权重），用于核对线上实际的表现<br>
+ * 用法：java -cp benchmarks.jar org.codeDuplicateChecking.benchmark.CorpusBenchmarkRunner [选项]
+ */
+public class CorpusBenchmarkRunner {
+
+    private static final String USAGE = String.join("\n",
+            "选项：",
+            "  --language Java|C++|Python   生成种子解答使用的语言，默认Java",
+            "  --problems N                 题目数，默认5",
+            "  --solutions N                每道题目的独立解答数，默认10",
+            "  --lines N                    每份种子解答的目标行数，默认40",
+            "  --seeds DIR                  从目录读取种子解答（每个子目录一道题目），代替生成",
+            "  --copies N                   每份解答的抄袭提交数，默认4",
+            "  --mutations N                每份抄袭提交最多使用的改写方式数，默认2",
+            "  --seed N                     随机种子，默认" + BenchmarkRunner.SEED,
+            "  --config NAME=W1,W2,W3,W4@T[:M]",
+            "                               评分配置，权重依次为jaccard4、jaccard8、edit_distance、structure，",
+            "                               M为结构相似度算法sequence（默认）或subtree-hash，可重复指定",
+            "  --threshold T                完整查重流程使用的阈值，默认0.7",
+            "  --threads N                  并行线程数，默认CPU核数",
+            "  --out DIR                    将语料和labels.csv写入目录");
+
+    // 未指定--config时使用的评分配置，第一项与CodePlagiarismUtils的默认权重一致
+    private static final String[] DEFAULT_CONFIGS = {
+            "default=0.2,0.2,0.3,0.3@0.7",
+            "no-edit-distance=0.3,0.3,0,0.4@0.7",
+            "jaccard-only=0.5,0.5,0,0@0.6",
+            "structure-only=0,0,0,1@0.8",
+            "subtree-hash=0.2,0.2,0.3,0.3@0.7:subtree-hash",
+            "subtree-hash-only=0,0,0,1@0.5:subtree-hash"};
+
+    public static void main(String[] args) throws Exception {
+        RunnerOptions options = new RunnerOptions(args, USAGE);
+        if (options.has("help")) {
+            System.out.println(USAGE);
+            return;
+        }
+        long seed = options.getLong("seed", BenchmarkRunner.SEED);
+        int threads = options.getInt("threads", Runtime.getRuntime().availableProcessors());
+        double threshold = options.getDouble("threshold", 0.7);
+        List<ScoringConfig> configs = new ArrayList<>();
+        for (String config : options.getAll("config", Arrays.asList(DEFAULT_CONFIGS))) {
+            configs.add(ScoringConfig.parse(config));
+        }
+
+        // 生成语料
+        ContestCorpusGenerator generator = new ContestCorpusGenerator(seed);
+        Map<String, List<CodeBlock>> seeds = options.has("seeds")
+                ? ContestCorpusGenerator.loadSeeds(Paths.get(options.get("seeds", null)))
+                : generator.generateSeeds(options.get("language", SubmissionGenerator.JAVA),
+                options.getInt("problems", 5), options.getInt("solutions", 10), options.getInt("lines", 40));
+        List<ContestCorpusGenerator.LabeledSubmission> corpus = generator.generate(seeds,
+                options.getInt("copies", 4), options.getInt("mutations", 2));
+        if (options.has("out")) {
+            ContestCorpusGenerator.write(corpus, Paths.get(options.get("out", null)));
+        }
+
+        // 预处理，所有配置共用
+        long preprocessStart = System.nanoTime();
+        List<String> processed = new ArrayList<>(corpus.size());
+        for (ContestCorpusGenerator.LabeledSubmission submission : corpus) {
+            processed.add(CodePlagiarismUtils.preprocessCode(submission.getCodeBlock().getCode()));
+        }
+        long preprocessNanos = System.nanoTime() - preprocessStart;
+
+        int[][] pairs = partitionPairs(corpus);
+        boolean[] truth = new boolean[pairs.length];
+        int positives = 0;
+        for (int i = 0; i < pairs.length; i++) {
+            truth[i] = corpus.get(pairs[i][0]).isPlagiarismOf(corpus.get(pairs[i][1]));
+            positives += truth[i] ? 1 : 0;
+        }
+        printCorpusSummary(corpus, seeds.size(), pairs.length, positives, preprocessNanos);
+
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        List<Report> reports = new ArrayList<>();
+        try {
+            for (ScoringConfig config : configs) {
+                resetPeakHeap();
+                long start = System.nanoTime();
+                boolean[] predicted = pool.submit(() -> {
+                    boolean[] result = new boolean[pairs.length];
+                    IntStream.range(0, pairs.length).parallel().forEach(i -> result[i] =
+                            config.score(processed.get(pairs[i][0]), processed.get(pairs[i][1])) >= config.threshold);
+                    return result;
+                }).get();
+                reports.add(evaluate(config.name, config.threshold, System.nanoTime() - start, peakHeapBytes(),
+                        corpus, pairs, truth, predicted));
+            }
+        } finally {
+            pool.shutdown();
+        }
+        reports.add(evaluateService(corpus, pairs, truth, threshold));
+        printReports(reports, pairs.length);
+    }
+
+    /**
+     * 使用CodePlagiarismService的完整批量查重流程（预处理、分区、线程池并发比较）
+     */
+    private static Report evaluateService(List<ContestCorpusGenerator.LabeledSubmission> corpus, int[][] pairs,
+                                          boolean[] truth, double threshold) {
+        CodePlagiarismService service = new CodePlagiarismService();
+        try {
+            List<CodeBlock> codeBlocks = new ArrayList<>(corpus.size());
+            Map<String, Integer> indexById = new HashMap<>();
+            for (ContestCorpusGenerator.LabeledSubmission submission : corpus) {
+                indexById.put(submission.getCodeBlock().getId(), codeBlocks.size());
+                codeBlocks.add(submission.getCodeBlock());
+            }
+            resetPeakHeap();
+            long start = System.nanoTime();
+            List<CodeFingerprint> fingerprints = service.createFingerprints(codeBlocks);
+            BatchPlagiarismResult result = service.compareMultipleFingerprints(fingerprints, threshold, true);
+            long elapsed = System.nanoTime() - start;
+
+            Map<Long, Boolean> predictedByPair = new HashMap<>();
+            for (PlagiarismResult pair : result.getResults()) {
+                predictedByPair.put(pairKey(indexById.get(pair.getCodeBlockId1()), indexById.get(pair.getCodeBlockId2())),
+                        pair.isPlagiarism());
+            }
+            boolean[] predicted = new boolean[pairs.length];
+            for (int i = 0; i < pairs.length; i++) {
+                predicted[i] = predictedByPair.getOrDefault(pairKey(pairs[i][0], pairs[i][1]), false);
+            }
+            return evaluate("service", threshold, elapsed, peakHeapBytes(), corpus, pairs, truth, predicted);
+        } finally {
+            service.shutdown();
+        }
+    }
+
+    private static long pairKey(int first, int second) {
+        return (long) Math.min(first, second) << 32 | Math.max(first, second);
+    }
+
+    /**
+     * 列出同一题目、同一语言族内的全部代码对，与批量查重的分区方式一致
+     */
+    private static int[][] partitionPairs(List<ContestCorpusGenerator.LabeledSubmission> corpus) {
+        Map<String, List<Integer>> partitions = new LinkedHashMap<>();
+        for (int i = 0; i < corpus.size(); i++) {
+            CodeBlock codeBlock = corpus.get(i).getCodeBlock();
+            partitions.computeIfAbsent(codeBlock.getProblemId() + "::"
+                    + CodePlagiarismUtils.normalizeLanguage(codeBlock.getLanguage()), key -> new ArrayList<>()).add(i);
+        }
+        List<int[]> pairs = new ArrayList<>();
+        for (List<Integer> members : partitions.values()) {
+            for (int a = 0; a < members.size(); a++) {
+                for (int b = a + 1; b < members.size(); b++) {
+                    pairs.add(new int[]{members.get(a), members.get(b)});
+                }
+            }
+        }
+        return pairs.toArray(new int[0][]);
+    }
+
+    private static Report evaluate(String name, double threshold, long elapsedNanos, long peakHeapBytes,
+                                   List<ContestCorpusGenerator.LabeledSubmission> corpus, int[][] pairs,
+                                   boolean[] truth, boolean[] predicted) {
+        Report report = new Report(name, threshold, elapsedNanos, peakHeapBytes);
+        for (int i = 0; i < pairs.length; i++) {
+            if (truth[i] && predicted[i]) {
+                report.truePositives++;
+            } else if (predicted[i]) {
+                report.falsePositives++;
+            } else if (truth[i]) {
+                report.falseNegatives++;
+            }
+            if (truth[i]) {
+                // 抄袭对涉及的改写方式为两份提交所用改写的并集
+                Set<Mutation> mutations = EnumSet.noneOf(Mutation.class);
+                mutations.addAll(corpus.get(pairs[i][0]).getMutations());
+                mutations.addAll(corpus.get(pairs[i][1]).getMutations());
+                for (Mutation mutation : mutations) {
+                    int[] counts = report.recallByMutation.computeIfAbsent(mutation, m -> new int[2]);
+                    counts[0] += predicted[i] ? 1 : 0;
+                    counts[1]++;
+                }
+            }
+        }
+        return report;
+    }
+
+    private static void printCorpusSummary(List<ContestCorpusGenerator.LabeledSubmission> corpus, int problems,
+                                           int pairs, int positives, long preprocessNanos) {
+        Map<Mutation, Integer> mutationCounts = new EnumMap<>(Mutation.class);
+        for (ContestCorpusGenerator.LabeledSubmission submission : corpus) {
+            for (Mutation mutation : submission.getMutations()) {
+                mutationCounts.merge(mutation, 1, Integer::sum);
+            }
+        }
+        System.out.printf("语料：%d 道题目，%d 份提交，%d 对代码（其中抄袭 %d 对），预处理 %.1f ms%n",
+                problems, corpus.size(), pairs, positives, preprocessNanos / 1e6);
+        StringBuilder line = new StringBuilder("改写方式：");
+        for (Map.Entry<Mutation, Integer> entry : mutationCounts.entrySet()) {
+            line.append(' ').append(entry.getKey().getLabel()).append('=').append(entry.getValue());
+        }
+        System.out.println(line);
+        System.out.println();
+    }
+
+    private static void printReports(List<Report> reports, int pairs) {
+        System.out.printf("%-20s %9s %12s %10s %12s %10s %8s %8s%n",
+                "config", "threshold", "pairs/s", "time ms", "peak heap MB", "precision", "recall", "F1");
+        for (Report report : reports) {
+            double seconds = report.elapsedNanos / 1e9;
+            System.out.printf("%-20s %9.2f %12.0f %10.1f %12.1f %10.4f %8.4f %8.4f%n",
+                    report.name, report.threshold, seconds > 0 ? pairs / seconds : 0.0, report.elapsedNanos / 1e6,
+                    report.peakHeapBytes / (1024.0 * 1024.0), report.precision(), report.recall(), report.f1());
+        }
+        System.out.println();
+        System.out.println("按改写方式统计的召回率：");
+        StringBuilder header = new StringBuilder(String.format("%-20s", "mutation"));
+        for (Report report : reports) {
+            header.append(String.format(" %20s", report.name));
+        }
+        System.out.println(header);
+        for (Mutation mutation : Mutation.values()) {
+            StringBuilder row = new StringBuilder(String.format("%-20s", mutation.getLabel()));
+            for (Report report : reports) {
+                int[] counts = report.recallByMutation.get(mutation);
+                row.append(String.format(" %20s", counts == null ? "-"
+                        : String.format("%.4f (%d)", (double) counts[0] / counts[1], counts[1])));
+            }
+            System.out.println(row);
+        }
+    }
+
+    private static void resetPeakHeap() {
+        System.gc();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
+            }
+        }
+    }
+
+    /**
+     * @return 各堆内存区域峰值之和，各区域的峰值不一定同时出现，因此是峰值的上界
+     */
+    private static long peakHeapBytes() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && pool.getPeakUsage() != null) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+        return peak;
+    }
+
+    /**
+     * 评分配置：各项相似度的权重和判定阈值
+     */
+    static class ScoringConfig {
+
+        private final String name;
+
+        // 权重，顺序与CodePlagiarismUtils.SCORE_METRICS一致
+        private final double[] weights;
+
+        private final double threshold;
+
+        private final StructureMetric structureMetric;
+
+        ScoringConfig(String name, double[] weights, double threshold, StructureMetric structureMetric) {
+            this.name = name;
+            this.weights = weights;
+            this.threshold = threshold;
+            this.structureMetric = structureMetric;
+        }
+
+        /**
+         * 解析 名称=权重1,权重2,权重3,权重4@阈值[:结构相似度算法] 格式的评分配置
+         */
+        static ScoringConfig parse(String text) {
+            int equals = text.indexOf('=');
+            int at = text.lastIndexOf('@');
+            if (equals <= 0 || at < equals) {
+                throw new IllegalArgumentException("评分配置格式应为 名称=权重1,权重2,权重3,权重4@阈值[:结构相似度算法]: " + text);
+            }
+            int colon = text.indexOf(':', at);
+            StructureMetric structureMetric = StructureMetric.SEQUENCE;
+            if (colon > 0) {
+                structureMetric = StructureMetric.valueOf(
+                        text.substring(colon + 1).trim().toUpperCase(Locale.ROOT).replace('-', '_'));
+            }
+            String[] parts = text.substring(equals + 1, at).split(",");
+            if (parts.length != CodePlagiarismUtils.SCORE_METRICS.length) {
+                throw new IllegalArgumentException("评分配置需要 " + CodePlagiarismUtils.SCORE_METRICS.length
+                        + " 个权重: " + text);
+            }
+            double[] weights = new double[parts.length];
+            for (int i = 0; i < parts.length; i++) {
+                weights[i] = Double.parseDouble(parts[i].trim());
+            }
+            return new ScoringConfig(text.substring(0, equals), weights,
+                    Double.parseDouble(text.substring(at + 1, colon > 0 ? colon : text.length())), structureMetric);
+        }
+
+        /**
+         * 计算综合相似度，权重为0的算法不计算
+         */
+        double score(String processedCode1, String processedCode2) {
+            double score = 0.0;
+            if (weights[0] != 0) {
+                score += weights[0] * CodePlagiarismUtils.calculateProcessedJaccardSimilarity(processedCode1, processedCode2, 4);
+            }
+            if (weights[1] != 0) {
+                score += weights[1] * CodePlagiarismUtils.calculateProcessedJaccardSimilarity(processedCode1, processedCode2, 8);
+            }
+            if (weights[2] != 0) {
+                score += weights[2] * CodePlagiarismUtils.calculateProcessedEditDistanceSimilarity(processedCode1, processedCode2);
+            }
+            if (weights[3] != 0) {
+                score += weights[3] * CodePlagiarismUtils.calculateProcessedStructureSimilarity(processedCode1, processedCode2,
+                        structureMetric);
+            }
+            return score;
+        }
+    }
+
+    /**
+     * 一种评分配置的测试结果
+     */
+    private static class Report {
+
+        private final String name;
+        private final double threshold;
+        private final long elapsedNanos;
+        private final long peakHeapBytes;
+        private int truePositives;
+        private int falsePositives;
+        private int falseNegatives;
+
+        // 改写方式到{检出的抄袭对数, 抄袭对总数}
+        private final Map<Mutation, int[]> recallByMutation = new EnumMap<>(Mutation.class);
+
+        Report(String name, double threshold, long elapsedNanos, long peakHeapBytes) {
+            this.name = name;
+            this.threshold = threshold;
+            this.elapsedNanos = elapsedNanos;
+            this.peakHeapBytes = peakHeapBytes;
+        }
+
+        double precision() {
+            int predicted = truePositives + falsePositives;
+            return predicted == 0 ? 0.0 : (double) truePositives / predicted;
+        }
+
+        double recall() {
+            int actual = truePositives + falseNegatives;
+            return actual == 0 ? 0.0 : (double) truePositives / actual;
+        }
+
+        double f1() {
+            double precision = precision();
+            double recall = recall();
+            return precision + recall == 0 ? 0.0 : 2 * precision * recall / (precision + recall);
+        }
+    }
+}
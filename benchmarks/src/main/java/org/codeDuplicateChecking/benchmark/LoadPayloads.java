@@ -0,0 +1,182 @@
+package org.codeDuplicateChecking.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.codeDuplicateChecking.Agent.model.CodeBlock;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 压测请求体<br>
+ * 由带标注的比赛语料预先生成每个接口的一组请求体，压测时随机取用，发送线程不做序列化，保证到达时间准确。
+ * 单对比较的两段代码按配置的比例取自同一份种子解答（抄袭对，分析接口会调用大模型），其余为同一题目的任意两份提交
+ */
+class LoadPayloads {
+
+    private final Map<LoadTestRunner.Endpoint, List<byte[]>> payloads = new LinkedHashMap<>();
+
+    /**
+     * @param corpus 带标注的提交列表
+     * @param count 每个接口预先生成的请求体数量
+     * @param batchSize 批量查重请求的代码块数，超过题目提交数时取该题目的全部提交
+     * @param plagiarismRatio 单对比较中抄袭对的比例
+     * @param threshold 查重阈值
+     * @param apiKey 分析接口使用的API Key，本地大模型提供方不校验
+     * @param model 分析接口使用的模型，为空时使用服务端默认模型
+     * @param seed 随机种子
+     */
+    LoadPayloads(List<ContestCorpusGenerator.LabeledSubmission> corpus, int count, int batchSize,
+                 double plagiarismRatio, double threshold, String apiKey, String model, long seed)
+            throws JsonProcessingException {
+        Map<String, List<ContestCorpusGenerator.LabeledSubmission>> byProblem = new LinkedHashMap<>();
+        for (ContestCorpusGenerator.LabeledSubmission submission : corpus) {
+            byProblem.computeIfAbsent(submission.getCodeBlock().getProblemId(), key -> new ArrayList<>())
+                    .add(submission);
+        }
+        List<List<ContestCorpusGenerator.LabeledSubmission>> problems = byProblem.values().stream()
+                .filter(submissions -> submissions.size() >= 2)
+                .collect(Collectors.toList());
+        if (problems.isEmpty()) {
+            throw new IllegalArgumentException("语料中没有提交数不少于2的题目");
+        }
+
+        ObjectMapper mapper = new ObjectMapper();
+        Random random = new Random(seed);
+        List<byte[]> two = new ArrayList<>(count);
+        List<byte[]> batch = new ArrayList<>(count);
+        List<byte[]> analysis = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            List<ContestCorpusGenerator.LabeledSubmission> problem = problems.get(random.nextInt(problems.size()));
+            CodeBlock[] pair = pickPair(problem, random.nextDouble() < plagiarismRatio, random);
+            Map<String, Object> body = new LinkedHashMap<>();
+            body.put("codeBlock1", pair[0]);
+            body.put("codeBlock2", pair[1]);
+            body.put("threshold", threshold);
+            two.add(mapper.writeValueAsBytes(body));
+
+            body.put("apiKey", apiKey);
+            body.put("model", model);
+            analysis.add(mapper.writeValueAsBytes(body));
+
+            List<ContestCorpusGenerator.LabeledSubmission> sample = new ArrayList<>(problem);
+            Collections.shuffle(sample, random);
+            List<CodeBlock> codeBlocks = sample.subList(0, Math.min(batchSize, sample.size())).stream()
+                    .map(ContestCorpusGenerator.LabeledSubmission::getCodeBlock)
+                    .collect(Collectors.toList());
+            Map<String, Object> batchBody = new LinkedHashMap<>();
+            batchBody.put("threshold", threshold);
+            batchBody.put("partitionByLanguage", true);
+            batchBody.put("codeBlocks", codeBlocks);
+            batch.add(mapper.writeValueAsBytes(batchBody));
+        }
+        payloads.put(LoadTestRunner.Endpoint.TWO, two);
+        payloads.put(LoadTestRunner.Endpoint.BATCH, batch);
+        payloads.put(LoadTestRunner.Endpoint.ANALYSIS, analysis);
+    }
+
+    /**
+     * @return 随机选取的请求体
+     */
+    byte[] next(LoadTestRunner.Endpoint endpoint, Random random) {
+        List<byte[]> candidates = payloads.get(endpoint);
+        return candidates.get(random.nextInt(candidates.size()));
+    }
+
+    /**
+     * @return 请求体的平均大小（字节）
+     */
+    long averageSize(LoadTestRunner.Endpoint endpoint) {
+        List<byte[]> candidates = payloads.get(endpoint);
+        long total = 0;
+        for (byte[] payload : candidates) {
+            total += payload.length;
+        }
+        return total / candidates.size();
+    }
+
+    private static CodeBlock[] pickPair(List<ContestCorpusGenerator.LabeledSubmission> problem, boolean plagiarism,
+                                        Random random) {
+        if (plagiarism) {
+            Map<String, List<ContestCorpusGenerator.LabeledSubmission>> byOrigin = new HashMap<>();
+            for (ContestCorpusGenerator.LabeledSubmission submission : problem) {
+                byOrigin.computeIfAbsent(submission.getOrigin(), key -> new ArrayList<>()).add(submission);
+            }
+            List<List<ContestCorpusGenerator.LabeledSubmission>> groups = byOrigin.values().stream()
+                    .filter(group -> group.size() >= 2)
+                    .collect(Collectors.toList());
+            // 没有抄袭对时（例如读取的语料没有标注）退化为任意两份提交
+            if (!groups.isEmpty()) {
+                return pickTwo(groups.get(random.nextInt(groups.size())), random);
+            }
+        }
+        return pickTwo(problem, random);
+    }
+
+    private static CodeBlock[] pickTwo(List<ContestCorpusGenerator.LabeledSubmission> submissions, Random random) {
+        int first = random.nextInt(submissions.size());
+        int second = random.nextInt(submissions.size() - 1);
+        if (second >= first) {
+            second++;
+        }
+        return new CodeBlock[]{submissions.get(first).getCodeBlock(), submissions.get(second).getCodeBlock()};
+    }
+
+    /**
+     * 读取ContestCorpusGenerator.write写出的语料目录，或任意按 {problem}/{author}/{file} 组织的提交目录。
+     * 有labels.csv时按其中的来源解答标注抄袭对，否则每份提交各自独立
+     * @param directory 语料目录
+     * @return 提交列表
+     * @throws IOException 读取失败
+     */
+    static List<ContestCorpusGenerator.LabeledSubmission> loadCorpus(Path directory) throws IOException {
+        Map<String, String> originByPath = new HashMap<>();
+        Path labels = directory.resolve("labels.csv");
+        if (Files.isRegularFile(labels)) {
+            try (BufferedReader reader = Files.newBufferedReader(labels, StandardCharsets.UTF_8)) {
+                // 列：id,problem_id,author,language,origin,mutations,path
+                reader.readLine();
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    String[] columns = line.split(",", -1);
+                    if (columns.length >= 7) {
+                        originByPath.put(columns[6], columns[4]);
+                    }
+                }
+            }
+        }
+
+        List<Path> files;
+        try (Stream<Path> walk = Files.walk(directory)) {
+            files = walk.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+        }
+        List<ContestCorpusGenerator.LabeledSubmission> corpus = new ArrayList<>();
+        for (Path file : files) {
+            Path relative = directory.relativize(file);
+            String language = ContestCorpusGenerator.languageOf(file.getFileName().toString());
+            if (language == null || relative.getNameCount() < 3) {
+                continue;
+            }
+            String path = relative.toString().replace('\\', '/');
+            String problemId = relative.getName(relative.getNameCount() - 3).toString();
+            String author = relative.getName(relative.getNameCount() - 2).toString();
+            String code = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+            CodeBlock codeBlock = new CodeBlock(path, code, author, null, null, language, problemId);
+            corpus.add(new ContestCorpusGenerator.LabeledSubmission(codeBlock,
+                    originByPath.getOrDefault(path, path), Collections.emptyList()));
+        }
+        return corpus;
+    }
+}
@@ -0,0 +1,491 @@
+package org.codeDuplicateChecking.benchmark;
+
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Okio;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 查重服务的端到端HTTP压测<br>
+ * 按配置的比例混合发送单对查重（/compare/two）、批量查重（/compare/batch）和AI增强分析（/analysis/compare）请求，
+ * 请求按开环方式发送：到达时间由到达率决定（默认泊松到达），不等待前一个请求完成，
+ * 耗时从计划发送时间算起，服务端排队和客户端积压都计入耗时，避免闭环压测低估饱和后的延迟。
+ * 依次按每个到达率运行一个阶段，输出各接口的耗时分位数、错误率和实际吞吐量，
+ * 第一个吞吐量跟不上到达率、耗时超过目标或错误率超标的阶段即为饱和点<br>
+ * AI增强分析需要被测实例使用本地大模型提供方（--ai.provider.type=local），不访问网络<br>
+ * 用法：java -cp benchmarks.jar org.codeDuplicateChecking.benchmark.LoadTestRunner [选项]
+ */
+public class LoadTestRunner {
+
+    private static final String USAGE = String.join("\n",
+            "选项：",
+            "  --url URL                    被测实例地址，默认http://localhost:8080",
+            "  --mix two=W,batch=W,analysis=W  各接口请求的比例，默认two=70,batch=20,analysis=10",
+            "  --rates R1,R2,...            依次运行的到达率（请求/秒），默认1,2,5,10,20,50",
+            "  --duration S                 每个阶段的时长（秒），默认30",
+            "  --warmup S                   以第一个到达率预热的时长（秒），不计入结果，默认10",
+            "  --arrival poisson|uniform    到达间隔服从指数分布或固定间隔，默认poisson",
+            "  --slo two=MS,batch=MS,analysis=MS  各接口p99耗时目标（毫秒），默认two=500,batch=10000,analysis=6000",
+            "  --max-error-rate R           错误率上限，默认0.01",
+            "  --max-in-flight N            未完成请求数上限，超过后新请求记为dropped，默认1000",
+            "  --timeout-ms MS              单个请求的超时时间，默认60000",
+            "  --keep-going                 达到饱和点后继续运行更高的到达率",
+            "  --corpus DIR                 从目录读取语料（ContestCorpusGenerator写出的目录或 {problem}/{author}/{file}）",
+            "  --language Java|C++|Python   生成语料使用的语言，默认Java",
+            "  --problems N                 生成语料的题目数，默认5",
+            "  --solutions N                每道题目的独立解答数，默认10",
+            "  --copies N                   每份解答的抄袭提交数，默认4",
+            "  --lines N                    每份解答的目标行数，默认40",
+            "  --batch-size N               批量查重请求的代码块数，默认20",
+            "  --plagiarism-ratio R         单对比较中抄袭对的比例，默认0.3",
+            "  --payloads N                 每个接口预先生成的请求体数，默认200",
+            "  --threshold T                查重阈值，默认0.7",
+            "  --api-key KEY                分析接口使用的API Key，默认local",
+            "  --model MODEL                分析接口使用的模型，默认使用服务端配置",
+            "  --seed N                     随机种子，默认" + BenchmarkRunner.SEED);
+
+    private static final MediaType JSON = MediaType.parse("application/json; charset=utf-8");
+
+    // 实际吞吐量低于到达率的该比例时视为饱和
+    private static final double MIN_THROUGHPUT_RATIO = 0.9;
+
+    private static final double[] PERCENTILES = {0.5, 0.9, 0.99, 0.999};
+
+    /**
+     * 被测接口
+     */
+    enum Endpoint {
+        TWO("two", "/api/v1/plagiarism/compare/two"),
+        BATCH("batch", "/api/v1/plagiarism/compare/batch"),
+        ANALYSIS("analysis", "/api/v1/plagiarism/analysis/compare");
+
+        private final String label;
+        private final String path;
+
+        Endpoint(String label, String path) {
+            this.label = label;
+            this.path = path;
+        }
+
+        static Endpoint fromLabel(String label) {
+            for (Endpoint endpoint : values()) {
+                if (endpoint.label.equals(label)) {
+                    return endpoint;
+                }
+            }
+            throw new IllegalArgumentException("未知的接口: " + label + "，可选two、batch、analysis");
+        }
+    }
+
+    private final String baseUrl;
+    private final OkHttpClient client;
+    private final LoadPayloads payloads;
+    private final Map<Endpoint, Double> mix;
+    private final boolean poisson;
+    private final int maxInFlight;
+    private final Random random;
+
+    // 所有阶段共用的未完成请求数
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    LoadTestRunner(String baseUrl, LoadPayloads payloads, Map<Endpoint, Double> mix, boolean poisson,
+                   int maxInFlight, long timeoutMs, long seed) {
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        this.payloads = payloads;
+        this.mix = mix;
+        this.poisson = poisson;
+        this.maxInFlight = maxInFlight;
+        this.random = new Random(seed);
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(maxInFlight);
+        dispatcher.setMaxRequestsPerHost(maxInFlight);
+        this.client = new OkHttpClient.Builder()
+                .dispatcher(dispatcher)
+                .connectionPool(new ConnectionPool(Math.min(maxInFlight, 256), 5, TimeUnit.MINUTES))
+                .connectTimeout(5, TimeUnit.SECONDS)
+                .readTimeout(timeoutMs, TimeUnit.MILLISECONDS)
+                .callTimeout(timeoutMs, TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    public static void main(String[] args) throws Exception {
+        RunnerOptions options = new RunnerOptions(args, USAGE);
+        if (options.has("help")) {
+            System.out.println(USAGE);
+            return;
+        }
+        long seed = options.getLong("seed", BenchmarkRunner.SEED);
+        Map<Endpoint, Double> mix = parseEndpointValues(options.get("mix", "two=70,batch=20,analysis=10"));
+        Map<Endpoint, Double> slo = parseEndpointValues(options.get("slo", "two=500,batch=10000,analysis=6000"));
+        double[] rates = Arrays.stream(options.get("rates", "1,2,5,10,20,50").split(","))
+                .mapToDouble(rate -> Double.parseDouble(rate.trim())).toArray();
+        int duration = options.getInt("duration", 30);
+        int warmup = options.getInt("warmup", 10);
+        double maxErrorRate = options.getDouble("max-error-rate", 0.01);
+        long timeoutMs = options.getLong("timeout-ms", 60000);
+
+        // 准备语料和请求体
+        List<ContestCorpusGenerator.LabeledSubmission> corpus;
+        if (options.has("corpus")) {
+            corpus = LoadPayloads.loadCorpus(Paths.get(options.get("corpus", null)));
+        } else {
+            ContestCorpusGenerator generator = new ContestCorpusGenerator(seed);
+            corpus = generator.generate(generator.generateSeeds(options.get("language", SubmissionGenerator.JAVA),
+                    options.getInt("problems", 5), options.getInt("solutions", 10), options.getInt("lines", 40)),
+                    options.getInt("copies", 4), 2);
+        }
+        LoadPayloads payloads = new LoadPayloads(corpus, options.getInt("payloads", 200),
+                options.getInt("batch-size", 20), options.getDouble("plagiarism-ratio", 0.3),
+                options.getDouble("threshold", 0.7), options.get("api-key", "local"), options.get("model", null), seed);
+
+        LoadTestRunner runner = new LoadTestRunner(options.get("url", "http://localhost:8080"), payloads, mix,
+                !"uniform".equalsIgnoreCase(options.get("arrival", "poisson")), options.getInt("max-in-flight", 1000),
+                timeoutMs, seed);
+        try {
+            System.out.printf("被测实例：%s，语料 %d 份提交%n", runner.baseUrl, corpus.size());
+            StringBuilder line = new StringBuilder("请求比例：");
+            for (Map.Entry<Endpoint, Double> entry : mix.entrySet()) {
+                line.append(String.format(" %s=%.0f（请求体平均 %d 字节，p99目标 %.0f ms）", entry.getKey().label,
+                        entry.getValue(), payloads.averageSize(entry.getKey()), slo.getOrDefault(entry.getKey(), 0.0)));
+            }
+            System.out.println(line);
+            System.out.println();
+
+            if (warmup > 0) {
+                System.out.printf("预热 %d 秒，到达率 %.1f/s%n", warmup, rates[0]);
+                runner.runStage(rates[0], warmup, timeoutMs);
+            }
+            List<StageResult> results = new ArrayList<>();
+            for (double rate : rates) {
+                StageResult result = runner.runStage(rate, duration, timeoutMs);
+                result.evaluate(slo, maxErrorRate);
+                results.add(result);
+                printStage(result);
+                if (result.saturationReason != null && !options.has("keep-going")) {
+                    break;
+                }
+            }
+            printSummary(results);
+        } finally {
+            runner.shutdown();
+        }
+    }
+
+    /**
+     * 以固定到达率运行一个阶段，发送结束后等待该阶段的请求全部完成
+     * @param rate 到达率（请求/秒）
+     * @param durationSeconds 阶段时长（秒）
+     * @param drainTimeoutMs 等待未完成请求的最长时间
+     * @return 阶段结果
+     */
+    StageResult runStage(double rate, int durationSeconds, long drainTimeoutMs) throws InterruptedException {
+        StageResult stage = new StageResult(rate, durationSeconds);
+        AtomicInteger outstanding = new AtomicInteger();
+        long start = System.nanoTime();
+        long end = start + TimeUnit.SECONDS.toNanos(durationSeconds);
+        stage.startNanos = start;
+        long next = start;
+        while (true) {
+            next += nextInterval(rate);
+            if (next >= end) {
+                break;
+            }
+            long wait = next - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            send(pickEndpoint(), next, stage, outstanding);
+        }
+
+        long drainDeadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(drainTimeoutMs);
+        while (outstanding.get() > 0 && System.nanoTime() < drainDeadline) {
+            Thread.sleep(10);
+        }
+        return stage;
+    }
+
+    private long nextInterval(double rate) {
+        double seconds = poisson ? -Math.log(1 - random.nextDouble()) / rate : 1 / rate;
+        return (long) (seconds * 1e9);
+    }
+
+    private Endpoint pickEndpoint() {
+        double total = 0;
+        for (double weight : mix.values()) {
+            total += weight;
+        }
+        double target = random.nextDouble() * total;
+        Endpoint picked = null;
+        for (Map.Entry<Endpoint, Double> entry : mix.entrySet()) {
+            picked = entry.getKey();
+            target -= entry.getValue();
+            if (target < 0) {
+                break;
+            }
+        }
+        return picked;
+    }
+
+    /**
+     * 异步发送一个请求，耗时从计划发送时间算起
+     */
+    private void send(Endpoint endpoint, long scheduledNanos, StageResult stage, AtomicInteger outstanding) {
+        EndpointStats stats = stage.stats(endpoint);
+        stats.sent.incrementAndGet();
+        if (inFlight.get() >= maxInFlight) {
+            stats.error("dropped");
+            return;
+        }
+        inFlight.incrementAndGet();
+        outstanding.incrementAndGet();
+        Request request = new Request.Builder()
+                .url(baseUrl + endpoint.path)
+                .post(RequestBody.create(JSON, payloads.next(endpoint, random)))
+                .build();
+        client.newCall(request).enqueue(new Callback() {
+            @Override
+            public void onResponse(Call call, Response response) {
+                try (ResponseBody body = response.body()) {
+                    // 读完响应体，连接才能复用
+                    if (body != null) {
+                        body.source().readAll(Okio.blackhole());
+                    }
+                    long now = System.nanoTime();
+                    if (response.isSuccessful()) {
+                        stats.success((now - scheduledNanos) / 1000);
+                        stage.succeeded(now);
+                    } else {
+                        stats.error("HTTP " + response.code());
+                    }
+                } catch (IOException e) {
+                    onFailure(call, e);
+                    return;
+                }
+                finish();
+            }
+
+            @Override
+            public void onFailure(Call call, IOException e) {
+                stats.error(e instanceof InterruptedIOException ? "timeout" : e.getClass().getSimpleName());
+                finish();
+            }
+
+            private void finish() {
+                inFlight.decrementAndGet();
+                outstanding.decrementAndGet();
+            }
+        });
+    }
+
+    void shutdown() {
+        client.dispatcher().executorService().shutdown();
+        client.connectionPool().evictAll();
+    }
+
+    private static Map<Endpoint, Double> parseEndpointValues(String spec) {
+        Map<Endpoint, Double> values = new EnumMap<>(Endpoint.class);
+        for (String item : spec.split(",")) {
+            String[] parts = item.split("=");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("格式应为 two=V,batch=V,analysis=V: " + spec);
+            }
+            double value = Double.parseDouble(parts[1].trim());
+            if (value > 0) {
+                values.put(Endpoint.fromLabel(parts[0].trim()), value);
+            }
+        }
+        if (values.isEmpty()) {
+            throw new IllegalArgumentException("至少需要一个值大于0的接口: " + spec);
+        }
+        return values;
+    }
+
+    private static void printStage(StageResult stage) {
+        System.out.printf("到达率 %.1f/s：实际吞吐量 %.1f/s%s%n", stage.rate, stage.throughput(),
+                stage.saturationReason == null ? "" : "，饱和（" + stage.saturationReason + "）");
+        System.out.printf("  %-10s %8s %8s %8s %9s %9s %9s %9s %9s %9s%n",
+                "endpoint", "sent", "ok", "errors", "error %", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        for (Map.Entry<Endpoint, EndpointStats> entry : stage.stats.entrySet()) {
+            EndpointStats stats = entry.getValue();
+            long[] sorted = stats.sortedLatencies();
+            StringBuilder row = new StringBuilder(String.format("  %-10s %8d %8d %8d %9.2f",
+                    entry.getKey().label, stats.sent.get(), sorted.length, stats.errorCount(), stats.errorRate() * 100));
+            for (double percentile : PERCENTILES) {
+                row.append(String.format(" %9.1f", percentile(sorted, percentile) / 1000.0));
+            }
+            row.append(String.format(" %9.1f", sorted.length == 0 ? 0.0 : sorted[sorted.length - 1] / 1000.0));
+            System.out.println(row);
+            if (!stats.errors.isEmpty()) {
+                System.out.println("    错误：" + stats.errors);
+            }
+        }
+        System.out.println();
+    }
+
+    private static void printSummary(List<StageResult> results) {
+        StageResult lastHealthy = null;
+        StageResult saturated = null;
+        for (StageResult result : results) {
+            if (result.saturationReason == null) {
+                if (saturated == null) {
+                    lastHealthy = result;
+                }
+            } else if (saturated == null) {
+                saturated = result;
+            }
+        }
+        if (saturated == null) {
+            System.out.printf("所有到达率均未饱和，最高 %.1f/s%n", results.get(results.size() - 1).rate);
+        } else {
+            System.out.printf("饱和点：%.1f/s（%s），最高可持续到达率：%s%n", saturated.rate, saturated.saturationReason,
+                    lastHealthy == null ? "无" : String.format("%.1f/s", lastHealthy.rate));
+        }
+    }
+
+    /**
+     * @param sorted 升序排列的耗时
+     * @return 分位数耗时，没有样本时返回0
+     */
+    static long percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+    }
+
+    /**
+     * 单个阶段的结果
+     */
+    static class StageResult {
+
+        private final double rate;
+        private final int durationSeconds;
+        private final Map<Endpoint, EndpointStats> stats = new EnumMap<>(Endpoint.class);
+
+        private long startNanos;
+
+        // 成功完成的请求数和最后一个成功请求的完成时间，用于计算实际吞吐量
+        private final AtomicInteger succeeded = new AtomicInteger();
+        private final AtomicLong lastSuccessNanos = new AtomicLong();
+
+        // 未饱和时为null
+        private String saturationReason;
+
+        StageResult(double rate, int durationSeconds) {
+            this.rate = rate;
+            this.durationSeconds = durationSeconds;
+            for (Endpoint endpoint : Endpoint.values()) {
+                stats.put(endpoint, new EndpointStats());
+            }
+        }
+
+        EndpointStats stats(Endpoint endpoint) {
+            return stats.get(endpoint);
+        }
+
+        void succeeded(long nanos) {
+            succeeded.incrementAndGet();
+            lastSuccessNanos.accumulateAndGet(nanos, Math::max);
+        }
+
+        /**
+         * @return 成功请求数除以发送时长和最后一个成功请求完成时间中的较大者，
+         *         服务端处理不过来时积压的请求在阶段结束后才完成，吞吐量随之降低
+         */
+        double throughput() {
+            double seconds = Math.max(durationSeconds, (lastSuccessNanos.get() - startNanos) / 1e9);
+            return succeeded.get() / seconds;
+        }
+
+        /**
+         * 按吞吐量、各接口p99耗时目标和错误率判断是否饱和
+         */
+        void evaluate(Map<Endpoint, Double> slo, double maxErrorRate) {
+            stats.values().removeIf(endpointStats -> endpointStats.sent.get() == 0);
+            List<String> reasons = new ArrayList<>();
+            if (throughput() < rate * MIN_THROUGHPUT_RATIO) {
+                reasons.add(String.format("吞吐量低于到达率的%.0f%%", MIN_THROUGHPUT_RATIO * 100));
+            }
+            for (Map.Entry<Endpoint, EndpointStats> entry : stats.entrySet()) {
+                Double target = slo.get(entry.getKey());
+                long p99 = percentile(entry.getValue().sortedLatencies(), 0.99);
+                if (target != null && p99 / 1000.0 > target) {
+                    reasons.add(String.format("%s p99 %.0f ms 超过 %.0f ms", entry.getKey().label, p99 / 1000.0, target));
+                }
+                if (entry.getValue().errorRate() > maxErrorRate) {
+                    reasons.add(String.format("%s 错误率 %.2f%%", entry.getKey().label,
+                            entry.getValue().errorRate() * 100));
+                }
+            }
+            saturationReason = reasons.isEmpty() ? null : String.join("；", reasons);
+        }
+    }
+
+    /**
+     * 单个接口在一个阶段内的统计，耗时只统计成功的请求
+     */
+    static class EndpointStats {
+
+        private final AtomicInteger sent = new AtomicInteger();
+
+        // 成功请求的耗时（微秒）
+        private long[] latencies = new long[1024];
+        private int count = 0;
+
+        // 错误类型到次数的映射
+        private final Map<String, Integer> errors = new TreeMap<>();
+
+        synchronized void success(long latencyMicros) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = latencyMicros;
+        }
+
+        synchronized void error(String type) {
+            errors.merge(type, 1, Integer::sum);
+        }
+
+        synchronized int errorCount() {
+            int total = 0;
+            for (int errorCount : errors.values()) {
+                total += errorCount;
+            }
+            return total;
+        }
+
+        double errorRate() {
+            int sentCount = sent.get();
+            return sentCount == 0 ? 0 : (double) errorCount() / sentCount;
+        }
+
+        synchronized long[] sortedLatencies() {
+            long[] sorted = Arrays.copyOf(latencies, count);
+            Arrays.sort(sorted);
+            return sorted;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package org.codeDuplicateChecking.benchmark;
+
+/**
+ * 合成比赛语料中抄袭版本使用的改写方式，每份抄袭提交都标注了所用的改写
+ */
+public enum Mutation {
+
+    /**
+     * 重命名变量、参数和函数
+     */
+    RENAME("rename"),
+
+    /**
+     * 打乱函数顺序，并交换相邻且互不依赖的语句
+     */
+    REORDER("reorder"),
+
+    /**
+     * 插入不影响结果的无用代码
+     */
+    DEAD_CODE("dead_code"),
+
+    /**
+     * for循环与while循环互相改写
+     */
+    LOOP_REWRITE("loop_rewrite"),
+
+    /**
+     * 加入比赛常用的代码模板（头文件、宏、快速读入、常用函数等）
+     */
+    TEMPLATE_PADDING("template_padding");
+
+    private final String label;
+
+    Mutation(String label) {
+        this.label = label;
+    }
+
+    /**
+     * @return 标注文件和报告中使用的名称
+     */
+    public String getLabel() {
+        return label;
+    }
+}
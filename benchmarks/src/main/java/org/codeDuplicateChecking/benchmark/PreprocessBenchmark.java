@@ -0,0 +1,54 @@
+package org.codeDuplicateChecking.benchmark;
+
+import org.codeDuplicateChecking.Agent.utils.CodePlagiarismUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 代码预处理的基准测试，预处理是每个代码块都要执行一次的线性步骤
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PreprocessBenchmark {
+
+    @Param({"50", "500", "5000"})
+    public int lines;
+
+    @Param({SubmissionGenerator.JAVA, SubmissionGenerator.CPP, SubmissionGenerator.PYTHON})
+    public String language;
+
+    private String code;
+
+    private String processedCode;
+
+    @Setup
+    public void setup() {
+        code = new SubmissionGenerator(BenchmarkRunner.SEED).generate(language, lines);
+        processedCode = CodePlagiarismUtils.preprocessCode(code);
+    }
+
+    @Benchmark
+    public String preprocessCode() {
+        return CodePlagiarismUtils.preprocessCode(code);
+    }
+
+    @Benchmark
+    public int countStructureFeatures() {
+        return CodePlagiarismUtils.countStructureFeatures(processedCode);
+    }
+}
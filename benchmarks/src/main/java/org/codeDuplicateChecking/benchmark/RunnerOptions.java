@@ -0,0 +1,60 @@
+package org.codeDuplicateChecking.benchmark;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 非JMH测试程序的命令行选项，格式为 --key value，不带值的选项视为开关，同一选项可重复指定
+ */
+class RunnerOptions {
+
+    private final Map<String, List<String>> options = new HashMap<>();
+
+    /**
+     * @param args 命令行参数
+     * @param usage 用法说明，参数无法识别时附在异常信息中
+     */
+    RunnerOptions(String[] args, String usage) {
+        for (int i = 0; i < args.length; i++) {
+            if (!args[i].startsWith("--")) {
+                throw new IllegalArgumentException("无法识别的参数: " + args[i] + "\n" + usage);
+            }
+            String key = args[i].substring(2);
+            String value = i + 1 < args.length && !args[i + 1].startsWith("--") ? args[++i] : "";
+            options.computeIfAbsent(key, k -> new ArrayList<>()).add(value);
+        }
+    }
+
+    boolean has(String key) {
+        return options.containsKey(key);
+    }
+
+    /**
+     * @return 选项最后一次指定的值，未指定时返回默认值
+     */
+    String get(String key, String defaultValue) {
+        List<String> values = options.get(key);
+        return values != null ? values.get(values.size() - 1) : defaultValue;
+    }
+
+    int getInt(String key, int defaultValue) {
+        return has(key) ? Integer.parseInt(get(key, null)) : defaultValue;
+    }
+
+    long getLong(String key, long defaultValue) {
+        return has(key) ? Long.parseLong(get(key, null)) : defaultValue;
+    }
+
+    double getDouble(String key, double defaultValue) {
+        return has(key) ? Double.parseDouble(get(key, null)) : defaultValue;
+    }
+
+    /**
+     * @return 选项每次指定的值，未指定时返回默认值
+     */
+    List<String> getAll(String key, List<String> defaultValues) {
+        return options.getOrDefault(key, defaultValues);
+    }
+}
@@ -0,0 +1,95 @@
+package org.codeDuplicateChecking.benchmark;
+
+import org.codeDuplicateChecking.Agent.utils.CodePlagiarismUtils;
+import org.codeDuplicateChecking.Agent.utils.StructureMetric;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 单个代码对各项相似度算法的基准测试，比较原代码与其抄袭版本<br>
+ * 编辑距离和结构相似度使用完整的(m+1)*(n+1)动态规划表，内存随代码长度平方增长：
+ * 预处理后每行约27个字符，1000行的代码对约需要3GB，5000行需要70GB以上，因此默认只测到1000行，
+ * 更大的规模需要通过 -p lines=5000 和更大的 -Xmx 手动指定
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms6g", "-Xmx6g"})
+@State(Scope.Benchmark)
+public class SimilarityBenchmark {
+
+    @Param({"50", "200", "1000"})
+    public int lines;
+
+    @Param({SubmissionGenerator.JAVA, SubmissionGenerator.CPP, SubmissionGenerator.PYTHON})
+    public String language;
+
+    private String code1;
+    private String code2;
+
+    private String processedCode1;
+    private String processedCode2;
+
+    @Setup
+    public void setup() {
+        SubmissionGenerator generator = new SubmissionGenerator(BenchmarkRunner.SEED);
+        code1 = generator.generate(language, lines);
+        code2 = generator.generatePlagiarized(language, lines);
+        processedCode1 = CodePlagiarismUtils.preprocessCode(code1);
+        processedCode2 = CodePlagiarismUtils.preprocessCode(code2);
+    }
+
+    @Benchmark
+    public double jaccard4() {
+        return CodePlagiarismUtils.calculateProcessedJaccardSimilarity(processedCode1, processedCode2, 4);
+    }
+
+    @Benchmark
+    public double jaccard8() {
+        return CodePlagiarismUtils.calculateProcessedJaccardSimilarity(processedCode1, processedCode2, 8);
+    }
+
+    @Benchmark
+    public int editDistance() {
+        return CodePlagiarismUtils.calculateEditDistance(processedCode1, processedCode2);
+    }
+
+    @Benchmark
+    public double structureSimilarity() {
+        return CodePlagiarismUtils.calculateProcessedStructureSimilarity(processedCode1, processedCode2);
+    }
+
+    // Python代码没有花括号，回退到structureSimilarity
+    @Benchmark
+    public double subtreeHashSimilarity() {
+        return CodePlagiarismUtils.calculateProcessedStructureSimilarity(processedCode1, processedCode2,
+                StructureMetric.SUBTREE_HASH);
+    }
+
+    @Benchmark
+    public double scoreUpperBound() {
+        return CodePlagiarismUtils.calculateProcessedScoreUpperBound(processedCode1.length(), processedCode2.length(),
+                CodePlagiarismUtils.countStructureFeatures(processedCode1),
+                CodePlagiarismUtils.countStructureFeatures(processedCode2));
+    }
+
+    /**
+     * 完整的综合相似度，包含两个代码块的预处理
+     */
+    @Benchmark
+    public double plagiarismScore() {
+        return CodePlagiarismUtils.calculatePlagiarismScore(code1, code2);
+    }
+}
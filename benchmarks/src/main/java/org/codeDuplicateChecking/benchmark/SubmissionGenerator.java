@@ -0,0 +1,309 @@
+package org.codeDuplicateChecking.benchmark;
+
+import org.codeDuplicateChecking.Agent.model.CodeBlock;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 基准测试用的合成代码生成器<br>
+ * 按固定种子生成指定行数的Java/C++/Python代码，相同种子每次生成的代码完全相同，保证各次测试结果可以对比。
+ * 抄袭版本与原代码结构相同，但重命名了标识符、打乱了函数顺序并插入了注释
+ */
+public class SubmissionGenerator {
+
+    public static final String JAVA = "Java";
+    public static final String CPP = "C++";
+    public static final String PYTHON = "Python";
+
+    // 原代码和抄袭版本使用的变量名
+    private static final String[] ORIGINAL_NAMES = {
+            "count", "total", "index", "value", "result", "temp", "left", "right"};
+    private static final String[] RENAMED_NAMES = {
+            "cnt", "acc", "pos", "val", "res", "tmp", "lo", "hi"};
+
+    // 抄袭版本插入的注释
+    private static final String[] COMMENTS = {
+            "update state", "check boundary", "accumulate", "main loop", "edge case", "helper step"};
+
+    // 语句类型：赋值、条件、for循环、函数调用、while循环
+    private static final int ASSIGN = 0;
+    private static final int IF = 1;
+    private static final int FOR = 2;
+    private static final int CALL = 3;
+    private static final int WHILE = 4;
+
+    private final long seed;
+
+    public SubmissionGenerator(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * 生成原始代码
+     * @param language 代码语言，Java、C++或Python
+     * @param lines 目标行数，实际行数会略多于目标行数
+     * @return 代码
+     */
+    public String generate(String language, int lines) {
+        return render(language, buildProgram(language, lines), false);
+    }
+
+    /**
+     * 生成与同一种子原始代码对应的抄袭版本
+     * @param language 代码语言，Java、C++或Python
+     * @param lines 原始代码的目标行数
+     * @return 重命名标识符、打乱函数顺序并插入注释后的代码
+     */
+    public String generatePlagiarized(String language, int lines) {
+        List<Function> functions = new ArrayList<>(buildProgram(language, lines));
+        Collections.shuffle(functions, new Random(seed * 31 + 7));
+        return render(language, functions, true);
+    }
+
+    /**
+     * 生成同一题目下的一批提交，每4份中的最后一份抄袭前一份，其余相互独立
+     * @param language 代码语言
+     * @param count 提交数
+     * @param lines 每份提交的目标行数
+     * @return 代码块列表
+     */
+    public List<CodeBlock> generateBatch(String language, int count, int lines) {
+        List<CodeBlock> codeBlocks = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String code = i % 4 == 3
+                    ? new SubmissionGenerator(seed + i - 1).generatePlagiarized(language, lines)
+                    : new SubmissionGenerator(seed + i).generate(language, lines);
+            codeBlocks.add(new CodeBlock("s" + i, code, "author" + i, null, null, language, "P1000"));
+        }
+        return codeBlocks;
+    }
+
+    /**
+     * 生成函数列表，直到按目标语言渲染后的行数达到目标行数
+     */
+    private List<Function> buildProgram(String language, int lines) {
+        Random random = new Random(seed);
+        List<Function> functions = new ArrayList<>();
+        // 类声明、main函数等固定部分大约占6行
+        int total = 6;
+        while (total < lines) {
+            Function function = new Function(functions.size(), 2 + random.nextInt(3));
+            int statementCount = 2 + random.nextInt(5);
+            for (int i = 0; i < statementCount; i++) {
+                int kind = random.nextInt(5);
+                if (kind == CALL && function.index == 0) {
+                    kind = ASSIGN;
+                }
+                int vars = function.variableCount();
+                function.statements.add(new int[]{kind,
+                        random.nextInt(vars), random.nextInt(vars), random.nextInt(vars),
+                        1 + random.nextInt(100),
+                        function.index == 0 ? 0 : random.nextInt(function.index)});
+            }
+            functions.add(function);
+            // 函数之间有一个空行
+            total += renderFunction(language, function, false, new StringBuilder(), new Random(0)) + 1;
+        }
+        return functions;
+    }
+
+    private String render(String language, List<Function> functions, boolean plagiarized) {
+        StringBuilder code = new StringBuilder();
+        Random commentRandom = new Random(seed + 1);
+        int entry = functions.isEmpty() ? -1 : lastIndex(functions);
+        if (PYTHON.equals(language)) {
+            for (Function function : functions) {
+                renderFunction(language, function, plagiarized, code, commentRandom);
+                code.append('\n');
+            }
+            code.append("if __name__ == \"__main__\":\n");
+            code.append("    print(").append(entry >= 0 ? functionName(entry, plagiarized) + "(1, 2)" : "0").append(")\n");
+        } else if (CPP.equals(language)) {
+            code.append("#include <iostream>\n");
+            code.append("using namespace std;\n\n");
+            // 函数顺序被打乱后仍需要先声明再调用
+            for (Function function : functions) {
+                code.append(cHeader(function, plagiarized, "")).append(";\n");
+            }
+            code.append('\n');
+            for (Function function : functions) {
+                renderFunction(language, function, plagiarized, code, commentRandom);
+                code.append('\n');
+            }
+            code.append("int main() {\n");
+            code.append("    cout << ").append(entry >= 0 ? functionName(entry, plagiarized) + "(1, 2)" : "0").append(" << endl;\n");
+            code.append("    return 0;\n");
+            code.append("}\n");
+        } else {
+            code.append("public class Solution {\n\n");
+            for (Function function : functions) {
+                renderFunction(language, function, plagiarized, code, commentRandom);
+                code.append('\n');
+            }
+            code.append("    public static void main(String[] args) {\n");
+            code.append("        System.out.println(").append(entry >= 0 ? functionName(entry, plagiarized) + "(1, 2)" : "0").append(");\n");
+            code.append("    }\n");
+            code.append("}\n");
+        }
+        return code.toString();
+    }
+
+    private static int lastIndex(List<Function> functions) {
+        int last = 0;
+        for (Function function : functions) {
+            last = Math.max(last, function.index);
+        }
+        return last;
+    }
+
+    /**
+     * 渲染一个函数
+     * @return 渲染的行数
+     */
+    private int renderFunction(String language, Function function, boolean plagiarized,
+                               StringBuilder code, Random commentRandom) {
+        int start = code.length();
+        String[] names = plagiarized ? RENAMED_NAMES : ORIGINAL_NAMES;
+        boolean python = PYTHON.equals(language);
+        String indent = JAVA.equals(language) ? "        " : "    ";
+        String comment = python ? "# " : "// ";
+
+        if (python) {
+            code.append("def ").append(functionName(function.index, plagiarized)).append('(');
+            appendParameters(code, function, names, "");
+            code.append("):\n");
+        } else {
+            code.append(cHeader(function, plagiarized, JAVA.equals(language) ? "    static " : "")).append(" {\n");
+        }
+
+        // 局部变量声明
+        code.append(indent).append(python ? "" : "int ");
+        for (int i = function.params; i < function.variableCount(); i++) {
+            if (i > function.params) {
+                code.append(python ? "; " : ", ");
+            }
+            code.append(variable(i, names)).append(" = ").append(i - function.params);
+        }
+        code.append(python ? "\n" : ";\n");
+
+        for (int[] statement : function.statements) {
+            if (plagiarized && commentRandom.nextInt(3) == 0) {
+                code.append(indent).append(comment)
+                        .append(COMMENTS[commentRandom.nextInt(COMMENTS.length)]).append('\n');
+            }
+            renderStatement(code, statement, names, plagiarized, python, indent);
+        }
+
+        code.append(indent).append("return ").append(variable(function.params, names)).append(python ? "\n" : ";\n");
+        if (!python) {
+            code.append(JAVA.equals(language) ? "    }\n" : "}\n");
+        }
+        return countLines(code, start);
+    }
+
+    private void renderStatement(StringBuilder code, int[] statement, String[] names,
+                                 boolean plagiarized, boolean python, String indent) {
+        String a = variable(statement[1], names);
+        String b = variable(statement[2], names);
+        String c = variable(statement[3], names);
+        int constant = statement[4];
+        String end = python ? "\n" : ";\n";
+        String inner = indent + "    ";
+        switch (statement[0]) {
+            case IF:
+                code.append(indent).append(python ? "if " + a + " > " + constant + ":\n" : "if (" + a + " > " + constant + ") {\n");
+                code.append(inner).append(b).append(" = ").append(b).append(" - ").append(a).append(end);
+                closeBlock(code, python, indent);
+                break;
+            case FOR:
+                code.append(indent).append(python
+                        ? "for i in range(" + constant + "):\n"
+                        : "for (int i = 0; i < " + constant + "; i++) {\n");
+                code.append(inner).append(a).append(" += i * ").append(b).append(end);
+                closeBlock(code, python, indent);
+                break;
+            case WHILE:
+                code.append(indent).append(python ? "while " + a + " > " + constant + ":\n" : "while (" + a + " > " + constant + ") {\n");
+                code.append(inner).append(a).append(" = ").append(a).append(python ? " // 2" : " / 2").append(end);
+                closeBlock(code, python, indent);
+                break;
+            case CALL:
+                code.append(indent).append(a).append(" = ").append(functionName(statement[5], plagiarized))
+                        .append('(').append(b).append(", ").append(c).append(')').append(end);
+                break;
+            default:
+                code.append(indent).append(a).append(" = ").append(b).append(" * ").append(constant)
+                        .append(" + ").append(c).append(end);
+                break;
+        }
+    }
+
+    private static void closeBlock(StringBuilder code, boolean python, String indent) {
+        if (!python) {
+            code.append(indent).append("}\n");
+        }
+    }
+
+    private String cHeader(Function function, boolean plagiarized, String prefix) {
+        StringBuilder header = new StringBuilder(prefix).append("int ")
+                .append(functionName(function.index, plagiarized)).append('(');
+        appendParameters(header, function, plagiarized ? RENAMED_NAMES : ORIGINAL_NAMES, "int ");
+        return header.append(')').toString();
+    }
+
+    private static void appendParameters(StringBuilder code, Function function, String[] names, String type) {
+        for (int i = 0; i < function.params; i++) {
+            if (i > 0) {
+                code.append(", ");
+            }
+            code.append(type).append(variable(i, names));
+        }
+    }
+
+    private static String functionName(int index, boolean plagiarized) {
+        return (plagiarized ? "helper" : "compute") + index;
+    }
+
+    private static String variable(int index, String[] names) {
+        return index < names.length ? names[index] : names[index % names.length] + index / names.length;
+    }
+
+    private static int countLines(StringBuilder code, int from) {
+        int lines = 0;
+        for (int i = from; i < code.length(); i++) {
+            if (code.charAt(i) == '\n') {
+                lines++;
+            }
+        }
+        return lines;
+    }
+
+    /**
+     * 生成的函数，所有函数都只使用int参数和局部变量
+     */
+    private static class Function {
+
+        private final int index;
+
+        // 参数个数固定为2，便于互相调用
+        private final int params = 2;
+
+        // 局部变量个数
+        private final int locals;
+
+        // 每条语句为{类型, 变量a, 变量b, 变量c, 常量, 被调用的函数}
+        private final List<int[]> statements = new ArrayList<>();
+
+        Function(int index, int locals) {
+            this.index = index;
+            this.locals = locals;
+        }
+
+        int variableCount() {
+            return params + locals;
+        }
+    }
+}
@@ -1,113 +1,32 @@
 package org.codeDuplicateChecking.Agent;
 
-import com.alibaba.dashscope.aigc.generation.Generation;
-import com.alibaba.dashscope.aigc.generation.GenerationParam;
-import com.alibaba.dashscope.aigc.generation.GenerationResult;
-import com.alibaba.dashscope.common.Message;
-import com.alibaba.dashscope.common.Role;
 import com.alibaba.dashscope.exception.ApiException;
 import com.alibaba.dashscope.exception.InputRequiredException;
 import com.alibaba.dashscope.exception.NoApiKeyException;
+import org.codeDuplicateChecking.Agent.service.LLMClientService;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
-import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
+/**
+ * 绑定了API密钥、模型和系统提示词的轻量代理<br>
+ * 本身不持有连接、线程或对话历史，每次对话都是独立请求，
+ * 实际调用全部委托给全局共享的LLMClientService，因此可以按需随意创建
+ */
 public class QwenAgent {
-    private String apiKey;
-    private String model;
-    private List<Message> conversationHistory;
-    private Generation generation;
+    private final LLMClientService llmClient;
+    private final String apiKey;
+    private final String model;
+    private final String systemPrompt;
 
-    public QwenAgent(String apiKey, String model, String systemPrompt) {
+    public QwenAgent(LLMClientService llmClient, String apiKey, String model, String systemPrompt) {
+        this.llmClient = llmClient;
         this.apiKey = apiKey;
         this.model = model;
-        this.conversationHistory = new ArrayList<>();
-        this.generation = new Generation();
-        Message AIMessage = Message.builder()
-                .role(Role.SYSTEM.getValue())
-                .content(systemPrompt)
-                .build();
-        this.conversationHistory.add(AIMessage);
+        this.systemPrompt = systemPrompt;
     }
 
     public String chat(String userMessage) throws ApiException, NoApiKeyException, InputRequiredException, TimeoutException {
-        // 添加用户消息到对话历史
-        Message userMsg = Message.builder()
-                .role(Role.USER.getValue())
-                .content(userMessage)
-                .build();
-        conversationHistory.add(userMsg);
-
-        // 构建API请求参数
-        GenerationParam param = GenerationParam.builder()
-                .apiKey(this.apiKey)
-                .model(this.model) // 使用配置的模型
-                .messages(this.conversationHistory)
-                .resultFormat(GenerationParam.ResultFormat.MESSAGE)
-                .build();
-
-        // 使用ExecutorService实现超时控制
-        ExecutorService executor = Executors.newSingleThreadExecutor();
-        Future<GenerationResult> future = executor.submit(() -> {
-            try {
-                return generation.call(param);
-            } catch (Exception e) {
-                if (e instanceof RuntimeException && e.getCause() != null) {
-                    // 解包运行时异常
-                    Throwable cause = e.getCause();
-                    if (cause instanceof ApiException) {
-                        throw (ApiException) cause;
-                    } else if (cause instanceof InputRequiredException) {
-                        throw (InputRequiredException) cause;
-                    } else if (cause instanceof NoApiKeyException) {
-                        throw (NoApiKeyException) cause;
-                    }
-                }
-                throw e;
-            }
-        });
-
-        GenerationResult result;
-        try {
-            // 设置30秒超时
-            result = future.get(30, TimeUnit.SECONDS);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            throw new RuntimeException("请求被中断", e);
-        } catch (ExecutionException e) {
-            Throwable cause = e.getCause();
-            if (cause instanceof ApiException) {
-                throw (ApiException) cause;
-            } else if (cause instanceof InputRequiredException) {
-                throw (InputRequiredException) cause;
-            } else if (cause instanceof NoApiKeyException) {
-                throw (NoApiKeyException) cause;
-            } else {
-                throw new RuntimeException("请求执行失败", e);
-            }
-        } catch (TimeoutException e) {
-            future.cancel(true);
-            throw new TimeoutException("AI服务连接超时");
-        } finally {
-            executor.shutdown();
-        }
-
-        // 获取AI的回复
-        String aiResponse = result.getOutput().getChoices().get(0).getMessage().getContent();
-
-        // 添加AI回复到对话历史
-        Message aiMsg = Message.builder()
-                .role(Role.ASSISTANT.getValue())
-                .content(aiResponse)
-                .build();
-        conversationHistory.add(aiMsg);
-        return aiResponse;
+        return llmClient.chat(apiKey, model, systemPrompt, userMessage);
     }
     
     /**
@@ -127,4 +46,4 @@ public class QwenAgent {
         }
     }
 
-}
\ No newline at end of file
+}
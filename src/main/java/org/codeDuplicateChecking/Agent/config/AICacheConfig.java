@@ -0,0 +1,39 @@
+package org.codeDuplicateChecking.Agent.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * AI响应缓存配置类
+ * 使用ConfigurationProperties绑定ai.cache配置属性，并启用磁盘层的定期清理<br>
+ * 内存层按LRU和TTL淘汰，可选的磁盘层在服务重启后依然可以命中
+ */
+@Configuration
+@EnableScheduling
+@ConfigurationProperties(prefix = "ai.cache")
+@Data
+public class AICacheConfig {
+
+    // 是否启用AI响应缓存
+    private boolean enabled = true;
+
+    // 内存中最多缓存的响应数
+    private int maxEntries = 1000;
+
+    // 缓存有效期（秒）
+    private long ttlSeconds = 86400;
+
+    // 是否启用磁盘缓存层
+    private boolean diskEnabled = false;
+
+    // 磁盘缓存目录
+    private String diskDirectory = "./cache/ai-responses";
+
+    // 磁盘中最多保留的响应文件数，定期清理时超出部分按写入时间从旧到新删除
+    private int diskMaxEntries = 10000;
+
+    // 磁盘层定期清理的间隔（毫秒），清理时删除已过期的文件
+    private long diskSweepIntervalMs = 600000;
+}
@@ -0,0 +1,24 @@
+package org.codeDuplicateChecking.Agent.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 大模型客户端配置类
+ * 使用ConfigurationProperties绑定ai.client配置属性
+ */
+@Configuration
+@ConfigurationProperties(prefix = "ai.client")
+@Data
+public class AIClientConfig {
+
+    // 单次大模型调用的超时时间（秒）
+    private long timeoutSeconds = 30;
+
+    // 建立连接的超时时间（秒）
+    private long connectTimeoutSeconds = 10;
+
+    // 读取响应的超时时间（秒），应大于单次调用超时
+    private long readTimeoutSeconds = 60;
+}
@@ -0,0 +1,32 @@
+package org.codeDuplicateChecking.Agent.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * AI服务健康探测配置类
+ * 使用ConfigurationProperties绑定ai.health配置属性，并启用后台定时探测
+ */
+@Configuration
+@EnableScheduling
+@ConfigurationProperties(prefix = "ai.health")
+@Data
+public class AIHealthConfig {
+
+    // 是否启用后台健康探测，关闭时每次检查连接都直接探测
+    private boolean enabled = true;
+
+    // 默认API Key和模型的后台探测间隔（毫秒），也是其他组合缓存结果的有效期
+    private long probeIntervalMs = 60000;
+
+    // 超过该时间（秒）未被查询的非默认API Key和模型组合不再缓存
+    private long idleExpireSeconds = 1800;
+
+    // 最多同时缓存的非默认API Key和模型组合数，默认组合不计入也不会被淘汰
+    private int maxTargets = 64;
+
+    // 查询需要探测时等待探测结果的时间（毫秒），超时返回上次结果或检查中状态
+    private long firstProbeWaitMs = 8000;
+}
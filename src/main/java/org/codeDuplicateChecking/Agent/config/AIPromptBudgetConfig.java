@@ -0,0 +1,30 @@
+package org.codeDuplicateChecking.Agent.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * AI提示词token预算配置类
+ * 使用ConfigurationProperties绑定ai.prompt-budget配置属性
+ */
+@Configuration
+@ConfigurationProperties(prefix = "ai.prompt-budget")
+@Data
+public class AIPromptBudgetConfig {
+
+    // 是否压缩提示词，关闭时按原样发送完整代码
+    private boolean enabled = true;
+
+    // 单对代码分析的用户提示词token上限（估算值）
+    private int maxPairTokens = 4000;
+
+    // 批量总结的用户提示词token上限（估算值）
+    private int maxBatchTokens = 8000;
+
+    // 超出预算时，每个相似片段前后保留的上下文行数
+    private int contextLines = 2;
+
+    // 标准化后长度不足该值的行（如单独的括号）不作为相似片段的锚点
+    private int minMatchLineLength = 8;
+}
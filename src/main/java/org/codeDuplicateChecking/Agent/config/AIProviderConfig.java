@@ -0,0 +1,55 @@
+package org.codeDuplicateChecking.Agent.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 大模型服务提供方配置类
+ * 使用ConfigurationProperties绑定ai.provider配置属性
+ */
+@Configuration
+@ConfigurationProperties(prefix = "ai.provider")
+@Data
+public class AIProviderConfig {
+
+    // 提供方类型：dashscope（通义千问）或local（本地模拟/回放，用于离线压测）
+    private String type = "dashscope";
+
+    // dashscope模式下录制调用的文件路径（JSON Lines），为空时不录制，录制结果可供local模式回放
+    private String recordFile = "";
+
+    // local模式配置
+    private Local local = new Local();
+
+    /**
+     * 本地提供方配置
+     */
+    @Data
+    public static class Local {
+
+        // synthetic：按提示词生成格式正确的模拟回复；replay：回放录制文件中的回复
+        private String mode = "synthetic";
+
+        // replay模式的录制文件路径（JSON Lines）
+        private String replayFile = "";
+
+        // 模拟耗时中位数（毫秒），耗时服从对数正态分布
+        private long latencyMedianMs = 800;
+
+        // 模拟耗时p99（毫秒）
+        private long latencyP99Ms = 4000;
+
+        // 模拟错误的比例，范围[0,1]
+        private double errorRate = 0.0;
+
+        // 模拟错误的HTTP状态码，如429、503
+        private int errorStatusCode = 503;
+
+        // 流式输出时每段的字符数
+        private int streamChunkChars = 8;
+
+        // 流式输出时相邻两段的间隔（毫秒）
+        private long streamChunkDelayMs = 20;
+    }
+}
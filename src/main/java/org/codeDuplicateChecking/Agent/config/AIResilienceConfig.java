@@ -0,0 +1,69 @@
+package org.codeDuplicateChecking.Agent.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 大模型调用容错配置类
+ * 使用ConfigurationProperties绑定ai.resilience配置属性
+ */
+@Configuration
+@ConfigurationProperties(prefix = "ai.resilience")
+@Data
+public class AIResilienceConfig {
+
+    // 是否启用熔断器
+    private boolean enabled = true;
+
+    // 统计失败率的滑动窗口大小（最近N次调用）
+    private int windowSize = 20;
+
+    // 窗口内至少有这么多次调用才计算失败率
+    private int minimumCalls = 10;
+
+    // 失败率（含超时）达到该比例时熔断
+    private double failureRateThreshold = 0.5;
+
+    // 熔断持续时间（秒），之后进入半开状态放行探测请求
+    private long openDurationSeconds = 30;
+
+    // 半开状态下同时放行的探测请求数
+    private int halfOpenProbes = 1;
+
+    // 自适应超时：取最近成功调用耗时的该分位数
+    private double timeoutPercentile = 0.99;
+
+    // 自适应超时：分位数耗时乘以该系数作为超时时间
+    private double timeoutMultiplier = 1.5;
+
+    // 自适应超时下限（秒），上限为ai.client.timeout-seconds
+    private long minTimeoutSeconds = 5;
+
+    // 每个模型保留的最近成功调用耗时样本数
+    private int latencySampleSize = 200;
+
+    // 某个模型的样本数达到该值后才对该模型启用自适应超时和对冲，之前使用ai.client.timeout-seconds且不对冲
+    private int minLatencySamples = 20;
+
+    // 是否启用对冲请求
+    private boolean hedgeEnabled = true;
+
+    // 请求超过最近成功调用耗时的该分位数仍未返回时发出对冲请求
+    private double hedgePercentile = 0.95;
+
+    // 单个调用最多发出的对冲请求数
+    private int maxHedgesPerRequest = 1;
+
+    // 对冲请求占总请求的比例上限
+    private double hedgeBudgetRatio = 0.1;
+
+    // 可重试错误（429、5xx、网络错误）的最大重试次数
+    private int maxRetries = 2;
+
+    // 重试退避基准时间（毫秒），每次重试翻倍
+    private long retryBaseDelayMs = 200;
+
+    // 重试退避上限（毫秒）
+    private long retryMaxDelayMs = 2000;
+}
@@ -0,0 +1,30 @@
+package org.codeDuplicateChecking.Agent.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * AI分级模型路由配置类
+ * 使用ConfigurationProperties绑定ai.routing配置属性
+ */
+@Configuration
+@ConfigurationProperties(prefix = "ai.routing")
+@Data
+public class AIRoutingConfig {
+
+    // 是否启用分级路由，只对未指定模型的请求生效
+    private boolean enabled = true;
+
+    // 先行复核所有代码对的快速模型
+    private String fastModel = "qwen-turbo";
+
+    // 快速模型给出的查重率与阈值相差不超过该值（百分点）时视为结论不确定，升级到大模型
+    private double uncertaintyMargin = 10.0;
+
+    // 快速模型给出的查重率与本地算法查重率相差超过该值（百分点）时视为意见不一致，升级到大模型
+    private double disagreementTolerance = 20.0;
+
+    // 每个模型保留的耗时样本数
+    private int latencySampleSize = 200;
+}
@@ -0,0 +1,43 @@
+package org.codeDuplicateChecking.Agent.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 批量AI复核分诊配置类
+ * 使用ConfigurationProperties绑定ai.triage配置属性
+ */
+@Configuration
+@ConfigurationProperties(prefix = "ai.triage")
+@Data
+public class AITriageConfig {
+
+    // 是否对批量查重中的高相似度代码对逐对进行AI复核
+    private boolean enabled = true;
+
+    // 每批最多复核的代码对数
+    private int maxPairs = 10;
+
+    // 每批复核的token预算（提示词估算值加预估输出），0表示不限
+    private int maxTokens = 30000;
+
+    // 每次复核预估的输出token数
+    private int estimatedOutputTokens = 400;
+
+    // 每批复核的费用预算（元），0表示不限
+    private double maxCost = 0;
+
+    // 每千token的费用（元），用于按token估算费用
+    private double costPerThousandTokens = 0.002;
+
+    // 每批复核的时间预算（秒），超时后未开始的代码对跳过；进行中的复核被取消，不再重试、对冲或升级，
+    // 已发出的非流式请求无法从服务端撤回，其回复被丢弃
+    private long maxDurationSeconds = 60;
+
+    // 同时进行的复核调用数
+    private int concurrency = 4;
+
+    // 优先级 = 基础查重率 + margin-weight × 超出阈值的幅度
+    private double marginWeight = 1.0;
+}
@@ -0,0 +1,65 @@
+package org.codeDuplicateChecking.Agent.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 分布式查重配置类
+ * 使用ConfigurationProperties绑定plagiarism.cluster配置属性，并启用工作节点的过期任务定时清理<br>
+ * 开启后当前实例作为协调节点，将批量查重的代码对矩阵切分为分块并分发给工作节点；
+ * 工作节点是同一个Spring Boot应用的实例，需开启worker-enabled并配置共享密钥
+ */
+@Configuration
+@EnableScheduling
+@ConfigurationProperties(prefix = "plagiarism.cluster")
+@Data
+public class ClusterConfig {
+
+    // 是否以协调节点模式运行
+    private boolean enabled = false;
+
+    // 是否以工作节点模式运行，开启后才注册供协调节点调用的内部接口
+    private boolean workerEnabled = false;
+
+    // 工作节点地址列表，如 http://localhost:8081
+    private List<String> workers = new ArrayList<>();
+
+    // 分块边长（每个分块最多包含 tileSize × tileSize 个代码对）
+    private int tileSize = 64;
+
+    // 每个工作节点同时处理的分块数
+    private int inFlightPerWorker = 2;
+
+    // 代码块数量达到该值时才启用分布式查重，小批量在本地计算更快
+    private int minCodeBlocks = 200;
+
+    // 合并结果时保留的前K个高相似度结果，小于等于0表示保留全部结果
+    private int topK = 0;
+
+    // 单个分块请求的超时时间（毫秒）
+    private long requestTimeoutMs = 120000;
+
+    // 工作节点连续失败多少次后视为下线，不再分配分块
+    private int maxWorkerFailures = 3;
+
+    // 工作节点保留任务代码指纹的时间（毫秒），超时后自动清理
+    private long jobTtlMs = 600000;
+
+    // 协调节点与工作节点之间的共享密钥，通过X-Cluster-Secret请求头传递；
+    // 工作节点拒绝密钥不符的请求，未配置时拒绝所有请求
+    private String sharedSecret = "";
+
+    // 工作节点同时保留的任务数上限
+    private int maxJobs = 16;
+
+    // 单个任务的代码指纹数上限
+    private int maxJobFingerprints = 50000;
+
+    // 单个任务预处理后代码的总字符数上限
+    private long maxJobCodeChars = 100000000L;
+}
@@ -0,0 +1,37 @@
+package org.codeDuplicateChecking.Agent.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 批量查重请求流式读取配置类
+ * 使用ConfigurationProperties绑定plagiarism.ingestion配置属性
+ */
+@Configuration
+@ConfigurationProperties(prefix = "plagiarism.ingestion")
+@Data
+public class IngestionConfig {
+
+    // 同时在预处理中的代码块数上限，限制内存中同时存在的原始代码数量
+    private int maxInFlightBlocks = 64;
+
+    // 单个请求最多包含的代码块数，0表示不限
+    private int maxCodeBlocks = 20000;
+
+    // 单个代码块的代码字符数上限，0表示不限
+    private int maxBlockChars = 1024 * 1024;
+
+    // 单个请求所有代码块的代码总字符数上限，0表示不限
+    private long maxTotalCodeChars = 256L * 1024 * 1024;
+
+    // 请求体的字节数上限，gzip压缩的请求体按解压后的字节数计算，0表示不限
+    private long maxBodyBytes = 1024L * 1024 * 1024;
+
+    // 压缩包上传时从文件路径提取代码信息的模式，支持{problem}、{author}、{language}、{file}占位符和*通配符，
+    // 从路径末尾开始匹配，压缩包外层的目录不影响匹配
+    private String archivePathPattern = "{problem}/{author}/{file}";
+
+    // 压缩包中单个文件的大小上限（字节），超过的文件被跳过
+    private int archiveMaxEntryBytes = 1024 * 1024;
+}
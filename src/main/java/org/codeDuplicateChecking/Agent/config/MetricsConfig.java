@@ -0,0 +1,29 @@
+package org.codeDuplicateChecking.Agent.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 运行指标配置类
+ * 使用ConfigurationProperties绑定plagiarism.metrics配置属性<br>
+ * 指标以Prometheus文本格式在/actuator/prometheus输出
+ */
+@Configuration
+@ConfigurationProperties(prefix = "plagiarism.metrics")
+@Data
+public class MetricsConfig {
+
+    // 是否启用运行指标，关闭后不再记录指标，/actuator/prometheus返回404
+    private boolean enabled = true;
+
+    // 是否记录每对代码各项相似度算法的耗时，关闭后只统计代码对数
+    private boolean pairStageTimers = true;
+
+    // 作为指标model标签值的模型名，其余模型（如调用方指定的任意模型）统一记为other，避免产生无限多的指标序列
+    private List<String> modelLabels = new ArrayList<>(Arrays.asList("qwen-turbo", "qwen-plus", "qwen-max", "qwen-long"));
+}
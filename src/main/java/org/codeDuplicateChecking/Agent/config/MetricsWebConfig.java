@@ -0,0 +1,68 @@
+package org.codeDuplicateChecking.Agent.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.codeDuplicateChecking.Agent.service.MetricsRegistry;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.List;
+
+/**
+ * 响应序列化计时配置<br>
+ * 将Spring MVC的JSON消息转换器替换为计时版本，每次序列化响应的耗时计入
+ * plagiarism_stage_seconds{stage="serialization"}，包含将响应写出到网络的时间
+ */
+@Configuration
+public class MetricsWebConfig implements WebMvcConfigurer {
+
+    private final MetricsRegistry metrics;
+
+    public MetricsWebConfig(MetricsRegistry metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        if (!metrics.isEnabled()) {
+            return;
+        }
+        MetricsRegistry.Timer timer = metrics.stageTimer("serialization");
+        for (int i = 0; i < converters.size(); i++) {
+            HttpMessageConverter<?> converter = converters.get(i);
+            if (converter.getClass() == MappingJackson2HttpMessageConverter.class) {
+                converters.set(i, new TimedJacksonConverter(
+                        ((MappingJackson2HttpMessageConverter) converter).getObjectMapper(), timer));
+            }
+        }
+    }
+
+    /**
+     * 记录序列化耗时的JSON消息转换器
+     */
+    private static class TimedJacksonConverter extends MappingJackson2HttpMessageConverter {
+
+        private final MetricsRegistry.Timer timer;
+
+        TimedJacksonConverter(ObjectMapper objectMapper, MetricsRegistry.Timer timer) {
+            super(objectMapper);
+            this.timer = timer;
+        }
+
+        @Override
+        protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage)
+                throws IOException, HttpMessageNotWritableException {
+            long startNanos = System.nanoTime();
+            try {
+                super.writeInternal(object, type, outputMessage);
+            } finally {
+                timer.recordSince(startNanos);
+            }
+        }
+    }
+}
@@ -1,21 +1,37 @@
 package org.codeDuplicateChecking.Agent.config;
 
 import com.alibaba.dashscope.aigc.generation.Generation;
+import com.alibaba.dashscope.protocol.ConnectionOptions;
+import com.alibaba.dashscope.protocol.Protocol;
+import com.alibaba.dashscope.utils.Constants;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.time.Duration;
+
 @Configuration
 public class QwenConfig {
 
     private final DashScopeConfig dashScopeConfig;
+    private final AIClientConfig aiClientConfig;
 
-    public QwenConfig(DashScopeConfig dashScopeConfig) {
+    public QwenConfig(DashScopeConfig dashScopeConfig, AIClientConfig aiClientConfig) {
         this.dashScopeConfig = dashScopeConfig;
+        this.aiClientConfig = aiClientConfig;
     }
 
+    /**
+     * 全局共享的Generation实例，内部持有一个带连接池的HTTP客户端，
+     * 所有大模型调用复用同一批连接，避免每次请求重新握手
+     */
     @Bean
     public Generation generation() {
-        return new Generation();
+        ConnectionOptions connectionOptions = ConnectionOptions.builder()
+                .connectTimeout(Duration.ofSeconds(aiClientConfig.getConnectTimeoutSeconds()))
+                .readTimeout(Duration.ofSeconds(aiClientConfig.getReadTimeoutSeconds()))
+                .writeTimeout(Duration.ofSeconds(aiClientConfig.getConnectTimeoutSeconds()))
+                .build();
+        return new Generation(Protocol.HTTP.getValue(), Constants.baseHttpApiUrl, connectionOptions);
     }
 
     @Bean
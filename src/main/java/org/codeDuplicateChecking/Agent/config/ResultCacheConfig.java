@@ -0,0 +1,22 @@
+package org.codeDuplicateChecking.Agent.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 查重结果缓存配置类
+ * 使用ConfigurationProperties绑定plagiarism.result-cache配置属性<br>
+ * 查重结果完全由请求内容决定，缓存不设有效期，只按估算的内存占用淘汰
+ */
+@Configuration
+@ConfigurationProperties(prefix = "plagiarism.result-cache")
+@Data
+public class ResultCacheConfig {
+
+    // 是否启用查重结果缓存
+    private boolean enabled = true;
+
+    // 缓存结果估算内存占用的上限（字节），超出后按LRU淘汰
+    private long maxWeightBytes = 64L * 1024 * 1024;
+}
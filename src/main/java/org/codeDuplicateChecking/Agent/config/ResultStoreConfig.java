@@ -0,0 +1,22 @@
+package org.codeDuplicateChecking.Agent.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 批量查重结果集存储配置类
+ * 使用ConfigurationProperties绑定plagiarism.result-store配置属性<br>
+ * 响应中的resultId对应的完整结果集保存在独立的存储中，不受查重结果缓存的开关和淘汰影响
+ */
+@Configuration
+@ConfigurationProperties(prefix = "plagiarism.result-store")
+@Data
+public class ResultStoreConfig {
+
+    // 结果集在最后一次访问后保留的时间（毫秒）
+    private long ttlMs = 30 * 60 * 1000L;
+
+    // 结果集估算内存占用的上限（字节），超出后淘汰最久未访问的结果集，最新保存的结果集总是保留
+    private long maxWeightBytes = 256L * 1024 * 1024;
+}
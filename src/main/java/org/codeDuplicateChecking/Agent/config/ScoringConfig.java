@@ -0,0 +1,19 @@
+package org.codeDuplicateChecking.Agent.config;
+
+import lombok.Data;
+import org.codeDuplicateChecking.Agent.utils.StructureMetric;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 相似度评分配置类
+ * 使用ConfigurationProperties绑定plagiarism.scoring配置属性
+ */
+@Configuration
+@ConfigurationProperties(prefix = "plagiarism.scoring")
+@Data
+public class ScoringConfig {
+
+    // 结构相似度算法：sequence（特征序列编辑距离）或subtree-hash（语法树子树哈希匹配）
+    private StructureMetric structureMetric = StructureMetric.SEQUENCE;
+}
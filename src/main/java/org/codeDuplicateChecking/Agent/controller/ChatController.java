@@ -7,9 +7,6 @@ import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-
 @RestController
 @RequestMapping("/api/v1/chat")
 public class ChatController {
@@ -37,18 +34,8 @@ public class ChatController {
     public SseEmitter streamChat(@RequestBody ChatRequest request) {
         SseEmitter emitter = new SseEmitter(300000L); // 5分钟超时
 
-        ExecutorService executor = Executors.newSingleThreadExecutor();
-        executor.submit(() -> {
-            try {
-                // 直接传递SseEmitter给服务层，让服务层实时发送数据
-                qwenStreamService.streamChat(request.getMessage(), request.getSystemPrompt(), emitter);
-                emitter.complete();
-            } catch (Exception e) {
-                emitter.completeWithError(e);
-            } finally {
-                executor.shutdown();
-            }
-        });
+        // 服务层异步推送增量内容，不再为每个请求创建线程
+        qwenStreamService.streamChat(request.getMessage(), request.getSystemPrompt(), emitter);
 
         return emitter;
     }
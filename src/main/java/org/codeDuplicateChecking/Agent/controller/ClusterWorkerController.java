@@ -0,0 +1,103 @@
+package org.codeDuplicateChecking.Agent.controller;
+
+import org.codeDuplicateChecking.Agent.model.ClusterJobRequest;
+import org.codeDuplicateChecking.Agent.model.PairTileRequest;
+import org.codeDuplicateChecking.Agent.model.PairTileResult;
+import org.codeDuplicateChecking.Agent.service.ClusterWorkerService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 分布式查重工作节点控制器，供协调节点下发代码指纹和分配分块<br>
+ * 仅在配置plagiarism.cluster.worker-enabled=true时注册
+ */
+@RestController
+@ConditionalOnProperty(prefix = "plagiarism.cluster", name = "worker-enabled", havingValue = "true")
+@RequestMapping("/api/v1/plagiarism/cluster")
+public class ClusterWorkerController {
+
+    private final ClusterWorkerService workerService;
+
+    public ClusterWorkerController(ClusterWorkerService workerService) {
+        this.workerService = workerService;
+    }
+
+    /**
+     * 接收协调节点下发的任务代码指纹
+     * @param secret 共享密钥
+     * @param request 任务ID和代码指纹列表
+     * @return 接收确认，密钥不符时返回401，任务过大时返回413，任务数已满时返回503
+     */
+    @PostMapping("/jobs")
+    public ResponseEntity<Map<String, Object>> registerJob(
+            @RequestHeader(value = ClusterWorkerService.SECRET_HEADER, required = false) String secret,
+            @RequestBody ClusterJobRequest request) {
+        if (!workerService.isAuthorized(secret)) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        if (request.getJobId() == null || request.getFingerprints() == null) {
+            return ResponseEntity.badRequest()
+                .header("X-Error-Message", "任务ID和代码指纹不能为空")
+                .build();
+        }
+        try {
+            workerService.registerJob(request.getJobId(), request.getFingerprints(), request.getStructureMetric());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE)
+                .header("X-Error-Message", e.getMessage())
+                .build();
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header("X-Error-Message", e.getMessage())
+                .build();
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("jobId", request.getJobId());
+        response.put("fingerprints", request.getFingerprints().size());
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * 计算任务中的一个代码对分块
+     * @param secret 共享密钥
+     * @param jobId 任务ID
+     * @param tile 分块范围
+     * @return 分块结果，任务不存在时返回404，协调节点会重新下发代码指纹
+     */
+    @PostMapping("/jobs/{jobId}/tiles")
+    public ResponseEntity<PairTileResult> computeTile(
+            @RequestHeader(value = ClusterWorkerService.SECRET_HEADER, required = false) String secret,
+            @PathVariable String jobId, @RequestBody PairTileRequest tile) {
+        if (!workerService.isAuthorized(secret)) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        PairTileResult result = workerService.computeTile(jobId, tile);
+        if (result == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+        return ResponseEntity.ok(result);
+    }
+
+    /**
+     * 释放任务数据
+     * @param secret 共享密钥
+     * @param jobId 任务ID
+     * @return 无内容
+     */
+    @DeleteMapping("/jobs/{jobId}")
+    public ResponseEntity<Void> releaseJob(
+            @RequestHeader(value = ClusterWorkerService.SECRET_HEADER, required = false) String secret,
+            @PathVariable String jobId) {
+        if (!workerService.isAuthorized(secret)) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        workerService.releaseJob(jobId);
+        return ResponseEntity.noContent().build();
+    }
+}
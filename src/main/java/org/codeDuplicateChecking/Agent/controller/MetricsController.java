@@ -0,0 +1,37 @@
+package org.codeDuplicateChecking.Agent.controller;
+
+import org.codeDuplicateChecking.Agent.service.MetricsRegistry;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * 运行指标控制器，以Prometheus文本格式输出查重和AI调用的运行指标<br>
+ * 路径与Spring Boot Actuator的Prometheus端点一致，Prometheus可以直接按默认路径抓取
+ */
+@RestController
+public class MetricsController {
+
+    // Prometheus文本格式的内容类型
+    private static final MediaType PROMETHEUS_TEXT = MediaType.parseMediaType("text/plain;version=0.0.4;charset=utf-8");
+
+    private final MetricsRegistry metrics;
+
+    public MetricsController(MetricsRegistry metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * 输出全部运行指标
+     * @return Prometheus文本格式的指标，未启用运行指标时返回404
+     */
+    @GetMapping("/actuator/prometheus")
+    public ResponseEntity<String> prometheus() {
+        if (!metrics.isEnabled()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+        return ResponseEntity.ok().contentType(PROMETHEUS_TEXT).body(metrics.scrape());
+    }
+}
@@ -1,19 +1,25 @@
 package org.codeDuplicateChecking.Agent.controller;
 
-import org.codeDuplicateChecking.Agent.QwenAgent;
-import org.codeDuplicateChecking.Agent.config.AIPromptConfig;
+import org.codeDuplicateChecking.Agent.model.AIHealthStatus;
 import org.codeDuplicateChecking.Agent.model.ImprovementRequest;
+import org.codeDuplicateChecking.Agent.model.ModelRoutingStats;
 import org.codeDuplicateChecking.Agent.model.SinglePlagiarismRequest;
 import org.codeDuplicateChecking.Agent.model.BatchPlagiarismRequest;
+import org.codeDuplicateChecking.Agent.model.ResultQuery;
+import org.codeDuplicateChecking.Agent.service.AIHealthService;
+import org.codeDuplicateChecking.Agent.service.ComparisonProfiler;
+import org.codeDuplicateChecking.Agent.service.ModelRouter;
 import org.codeDuplicateChecking.Agent.service.PlagiarismAnalysisService;
+import org.codeDuplicateChecking.Agent.service.ResultPageService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.HashMap;
 import java.util.Map;
-import java.util.concurrent.TimeoutException;
 
 /**
  * 代码查重智能分析控制器
@@ -39,10 +45,22 @@ public class PlagiarismAnalysisController {
     private String qwenModel;
     
     /**
-     * AI提示词配置
+     * AI服务健康状态，缓存后台探测结果
      */
     @Autowired
-    private AIPromptConfig aiPromptConfig;
+    private AIHealthService healthService;
+    
+    /**
+     * 分级模型路由
+     */
+    @Autowired
+    private ModelRouter modelRouter;
+    
+    /**
+     * 批量查重结果分页
+     */
+    @Autowired
+    private ResultPageService resultPageService;
 
     /**
      * 检查AI连接状态
@@ -60,36 +78,24 @@ public class PlagiarismAnalysisController {
             model = qwenModel;
         }
         
+        // 直接返回后台探测缓存的状态，不再为每次检查发起完整对话
+        AIHealthStatus status = healthService.getStatus(apiKey, model);
         Map<String, Object> response = new HashMap<>();
-        
-        try {
-            // 使用配置类中的提示词
-            String assistantPrompt = aiPromptConfig.getPrompts().getPlagiarism().getAssistant();
-            QwenAgent agent = new QwenAgent(apiKey, model, assistantPrompt);
-            
-            // 检查连接
-            boolean connected = agent.checkConnection();
-            response.put("connected", connected);
-            response.put("message", connected ? "千问AI助手连接成功" : "千问AI助手连接失败");
-            
-            return ResponseEntity.ok(response);
-        } catch (TimeoutException e) {
-            response.put("connected", false);
-            response.put("message", "千问AI助手连接超时");
-            return ResponseEntity.ok(response);
-        } catch (Exception e) {
-            response.put("connected", false);
-            response.put("message", "千问AI助手连接失败: " + e.getMessage());
-            return ResponseEntity.ok(response);
-        }
+        response.put("connected", status.isConnected());
+        response.put("message", status.getMessage());
+        response.put("latencyMs", status.getLatencyMs());
+        response.put("checkedAt", status.getCheckedAt());
+        response.put("circuitState", status.getCircuitState());
+        return ResponseEntity.ok(response);
     }
     
     /**
-     * 分析两段代码的相似度并提供AI增强分析
+     * 分析两段代码的相似度并提供AI增强分析<br>
+     * profile为true时基础查重结果中附带分阶段耗时，包括AI调用的耗时
      */
     @PostMapping("/compare")
     public ResponseEntity<PlagiarismAnalysisService.PlagiarismAnalysis> compareAndAnalyze(
-            @RequestBody SinglePlagiarismRequest request) {
+            @RequestBody SinglePlagiarismRequest request, @RequestParam(defaultValue = "false") boolean profile) {
         
         // 确保请求参数有效
         if (request == null || request.getCodeBlock1() == null || request.getCodeBlock2() == null) {
@@ -106,7 +112,8 @@ public class PlagiarismAnalysisController {
                 request.getCodeBlock2(), 
                 threshold,
                 request.getApiKey(),
-                request.getModel());
+                request.getModel(),
+                profile ? new ComparisonProfiler() : null);
                 
         // 确保分析结果不为空
         if (analysis == null) {
@@ -117,11 +124,37 @@ public class PlagiarismAnalysisController {
     }
 
     /**
-     * 批量分析多个代码块并提供综合报告
+     * 流式分析两段代码的相似度<br>
+     * 依次推送result（基础查重结果）、token（AI分析增量输出）和summary（解析后的AI结论）事件
+     */
+    @PostMapping(value = "/compare/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter compareAndAnalyzeStream(@RequestBody SinglePlagiarismRequest request) {
+        
+        // 确保请求参数有效
+        if (request == null || request.getCodeBlock1() == null || request.getCodeBlock2() == null) {
+            throw new IllegalArgumentException("请求中必须包含两个有效的代码块");
+        }
+        
+        SseEmitter emitter = new SseEmitter(300000L); // 5分钟超时
+        analysisService.streamSmartPlagiarismAnalysis(
+                request.getCodeBlock1(),
+                request.getCodeBlock2(),
+                request.getThreshold(),
+                request.getApiKey(),
+                request.getModel(),
+                emitter);
+        return emitter;
+    }
+
+    /**
+     * 批量分析多个代码块并提供综合报告<br>
+     * 基础结果可通过 /api/v1/plagiarism/results/{resultId} 分页查询，指定size查询参数时响应中只包含第一页；
+     * profile为true时基础结果中附带分阶段耗时，包括AI调用的耗时
      */
     @PostMapping("/batch")
     public ResponseEntity<PlagiarismAnalysisService.BatchPlagiarismAnalysis> batchAnalyze(
-            @RequestBody BatchPlagiarismRequest request) {
+            @RequestBody BatchPlagiarismRequest request, ResultQuery query,
+            @RequestParam(defaultValue = "false") boolean profile) {
         
         // 确保请求参数有效
         if (request == null || request.getCodeBlocks() == null || request.getCodeBlocks().size() < 2) {
@@ -137,13 +170,16 @@ public class PlagiarismAnalysisController {
                 request.getCodeBlocks(), 
                 threshold,
                 request.getApiKey(),
-                request.getModel());
+                request.getModel(),
+                profile ? new ComparisonProfiler() : null);
             
         // 确保分析结果不为空
         if (analysis == null) {
             return ResponseEntity.status(500).body(null);
         }
         
+        // 保存完整的基础结果供分页查询，指定size查询参数时响应中只包含第一页
+        resultPageService.storeAndPaginate(analysis.getBaseResult(), query);
         return ResponseEntity.ok(analysis);
     }
 
@@ -185,6 +221,14 @@ public class PlagiarismAnalysisController {
         }
     }
 
+    /**
+     * 获取分级模型路由统计：各模型的调用次数和耗时分位数、升级到大模型的比例
+     */
+    @GetMapping("/routing-stats")
+    public ResponseEntity<ModelRoutingStats> getRoutingStats() {
+        return ResponseEntity.ok(modelRouter.getStats());
+    }
+
     /**
      * 简单提取文本中的改进建议部分
      */
@@ -1,18 +1,32 @@
 package org.codeDuplicateChecking.Agent.controller;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import org.codeDuplicateChecking.Agent.model.BatchPlagiarismResult;
 import org.codeDuplicateChecking.Agent.model.CodeBlock;
-import org.codeDuplicateChecking.Agent.model.PlagiarismRequest;
+import org.codeDuplicateChecking.Agent.model.IngestedBatch;
+import org.codeDuplicateChecking.Agent.model.OneToManyRequest;
+import org.codeDuplicateChecking.Agent.model.OneToManyResult;
 import org.codeDuplicateChecking.Agent.model.PlagiarismResult;
+import org.codeDuplicateChecking.Agent.model.ResultPage;
+import org.codeDuplicateChecking.Agent.model.ResultQuery;
+import org.codeDuplicateChecking.Agent.service.BatchIngestionService;
 import org.codeDuplicateChecking.Agent.service.CodePlagiarismService;
+import org.codeDuplicateChecking.Agent.service.ComparisonProfiler;
+import org.codeDuplicateChecking.Agent.service.ComparisonResultCache;
+import org.codeDuplicateChecking.Agent.service.ResultPageService;
+import org.codeDuplicateChecking.Agent.utils.HashUtils;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.BooleanSupplier;
 
 /**
  * 代码查重控制器，处理代码查重相关的HTTP请求
@@ -22,18 +36,30 @@ import java.util.Map;
 public class PlagiarismController {
 
     private final CodePlagiarismService plagiarismService;
+    private final BatchIngestionService ingestionService;
+    private final ComparisonResultCache resultCache;
+    private final ResultPageService resultPageService;
 
-    public PlagiarismController(CodePlagiarismService plagiarismService) {
+    public PlagiarismController(CodePlagiarismService plagiarismService, BatchIngestionService ingestionService,
+                                ComparisonResultCache resultCache, ResultPageService resultPageService) {
         this.plagiarismService = plagiarismService;
+        this.ingestionService = ingestionService;
+        this.resultCache = resultCache;
+        this.resultPageService = resultPageService;
     }
 
     /**
-     * 比较两个代码块的相似度
+     * 比较两个代码块的相似度<br>
+     * 响应带有ETag，重复请求携带If-None-Match时返回304；profile为true时不使用缓存，结果附带分阶段耗时
      * @param request 包含两个代码块和阈值的请求体
+     * @param profile 是否返回分阶段耗时
+     * @param ifNoneMatch 上次响应的ETag
      * @return 查重结果
      */
     @PostMapping("/compare/two")
-    public ResponseEntity<PlagiarismResult> compareTwoCodeBlocks(@RequestBody Map<String, Object> request) {
+    public ResponseEntity<PlagiarismResult> compareTwoCodeBlocks(@RequestBody Map<String, Object> request,
+            @RequestParam(defaultValue = "false") boolean profile,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         try {
             // 从请求中提取代码块信息
             // 安全地获取和转换代码块信息
@@ -67,14 +93,63 @@ public class PlagiarismController {
             CodeBlock codeBlock1 = buildCodeBlockFromMap(codeBlock1Map);
             CodeBlock codeBlock2 = buildCodeBlockFromMap(codeBlock2Map);
 
-            // 调用服务层进行比较
-            PlagiarismResult result = plagiarismService.compareTwoCodeBlocks(codeBlock1, codeBlock2, threshold);
+            // 分阶段耗时只在实际计算时才有意义，跳过缓存和ETag
+            if (profile) {
+                return ResponseEntity.ok(plagiarismService.compareTwoCodeBlocks(codeBlock1, codeBlock2, threshold,
+                    new ComparisonProfiler()));
+            }
+
+            // 相同请求的结果不变，请求内容的哈希作为ETag，在预处理之前检查
+            String cacheKey = resultCache.buildPairKey(codeBlock1, codeBlock2, threshold,
+                plagiarismService.getScoringSignature());
+            if (matchesETag(ifNoneMatch, cacheKey, () -> resultCache.contains(cacheKey))) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(toETag(cacheKey)).build();
+            }
+
+            // 未命中缓存时才预处理并调用服务层进行比较
+            Object cached = resultCache.get(cacheKey);
+            PlagiarismResult result = cached instanceof PlagiarismResult ? (PlagiarismResult) cached
+                : plagiarismService.compareFingerprints(plagiarismService.createFingerprint(codeBlock1),
+                    plagiarismService.createFingerprint(codeBlock2), threshold);
             
             // 确保结果不为空
             if (result == null) {
                 return ResponseEntity.status(500).body(null);
             }
             
+            if (cached == null) {
+                resultCache.put(cacheKey, result);
+            }
+            return ResponseEntity.ok().eTag(toETag(cacheKey)).body(result);
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .header("X-Error-Message", e.getMessage())
+                .build();
+        }
+    }
+
+    /**
+     * 将一段待查代码与一组参考代码逐一比较，只需一次请求
+     * @param request 包含待查代码、参考代码列表和阈值的请求体
+     * @return 按相似度从高到低排列的匹配结果
+     */
+    @PostMapping("/compare/one-to-many")
+    public ResponseEntity<OneToManyResult> compareOneToMany(@RequestBody OneToManyRequest request) {
+        try {
+            // 验证请求参数
+            if (request.getQuery() == null || request.getQuery().getCode() == null) {
+                return ResponseEntity.badRequest()
+                    .header("X-Error-Message", "缺少待查代码")
+                    .build();
+            }
+            if (request.getReferences() == null || request.getReferences().isEmpty()) {
+                return ResponseEntity.badRequest()
+                    .header("X-Error-Message", "至少需要一个参考代码块")
+                    .build();
+            }
+
+            OneToManyResult result = plagiarismService.compareOneToMany(request.getQuery(),
+                request.getReferences(), request.getThreshold(), request.isPartitionByLanguage(), request.getTopK());
             return ResponseEntity.ok(result);
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -84,30 +159,78 @@ public class PlagiarismController {
     }
 
     /**
-     * 批量比较多个代码块之间的相似度
-     * @param request 包含代码块列表和阈值的请求对象
+     * 批量比较多个代码块之间的相似度<br>
+     * 请求体格式与PlagiarismRequest相同，以流的方式读取，可以是gzip压缩的JSON。
+     * 响应带有ETag，重复请求携带If-None-Match时返回304；指定size查询参数时分页返回；
+     * profile为true时不使用缓存，结果附带分阶段耗时
+     * @param body 包含代码块列表和阈值的请求体
+     * @param query 分页查询条件
+     * @param profile 是否返回分阶段耗时
+     * @param ifNoneMatch 上次响应的ETag
      * @return 批量查重结果
      */
     @PostMapping("/compare/batch")
-    public ResponseEntity<BatchPlagiarismResult> compareMultipleCodeBlocks(@RequestBody PlagiarismRequest request) {
+    public ResponseEntity<BatchPlagiarismResult> compareMultipleCodeBlocks(InputStream body, ResultQuery query,
+            @RequestParam(defaultValue = "false") boolean profile,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         try {
+            // 边读取边预处理，内存中只保留代码指纹
+            ComparisonProfiler profiler = profile ? new ComparisonProfiler() : null;
+            IngestedBatch batch = ingestionService.ingest(body, profiler);
+
             // 验证请求参数
-            if (request.getCodeBlocks() == null || request.getCodeBlocks().size() < 2) {
+            if (batch.getFingerprints().size() < 2) {
                 return ResponseEntity.badRequest()
                     .header("X-Error-Message", "至少需要两个代码块进行比较")
                     .build();
             }
 
             // 调用服务层进行批量比较
-            BatchPlagiarismResult result = plagiarismService.compareMultipleCodeBlocks(
-                request.getCodeBlocks(), request.getThreshold());
-            
-            // 确保结果不为空
-            if (result == null) {
-                return ResponseEntity.status(500).body(null);
+            return compareIngestedBatch(batch, query, profiler, ifNoneMatch);
+        } catch (JsonProcessingException | IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                .header("X-Error-Message", e.getMessage())
+                .build();
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .header("X-Error-Message", e.getMessage())
+                .build();
+        }
+    }
+
+    /**
+     * 比较提交记录压缩包中所有代码之间的相似度<br>
+     * 请求体为zip、tar或tar.gz压缩包，以流的方式逐个读取文件，题目、作者和语言从文件路径中提取
+     * @param body 压缩包
+     * @param threshold 抄袭阈值
+     * @param partitionByLanguage 是否按语言族分区
+     * @param query 分页查询条件
+     * @param profile 是否返回分阶段耗时
+     * @param ifNoneMatch 上次响应的ETag
+     * @return 批量查重结果
+     */
+    @PostMapping("/compare/archive")
+    public ResponseEntity<BatchPlagiarismResult> compareArchive(InputStream body,
+            @RequestParam(defaultValue = "0.7") double threshold,
+            @RequestParam(defaultValue = "true") boolean partitionByLanguage, ResultQuery query,
+            @RequestParam(defaultValue = "false") boolean profile,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        try {
+            ComparisonProfiler profiler = profile ? new ComparisonProfiler() : null;
+            IngestedBatch batch = ingestionService.ingestArchive(body, threshold, partitionByLanguage, profiler);
+
+            // 验证请求参数
+            if (batch.getFingerprints().size() < 2) {
+                return ResponseEntity.badRequest()
+                    .header("X-Error-Message", "压缩包中至少需要两个代码文件进行比较")
+                    .build();
             }
-            
-            return ResponseEntity.ok(result);
+
+            return compareIngestedBatch(batch, query, profiler, ifNoneMatch);
+        } catch (IOException | IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                .header("X-Error-Message", e.getMessage())
+                .build();
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                 .header("X-Error-Message", e.getMessage())
@@ -115,6 +238,103 @@ public class PlagiarismController {
         }
     }
 
+    /**
+     * 分页查询批量查重的完整结果
+     * @param resultId 批量查重响应中的结果集标识
+     * @param query 过滤、排序和分页条件
+     * @return 本页结果，结果集已被淘汰时返回404，需要重新提交查重
+     */
+    @GetMapping("/results/{resultId}")
+    public ResponseEntity<ResultPage> getResultPage(@PathVariable String resultId, ResultQuery query) {
+        try {
+            ResultPage page = resultPageService.find(resultId, query);
+            if (page == null) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .header("X-Error-Message", "结果已过期，请重新提交查重")
+                    .build();
+            }
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                .header("X-Error-Message", e.getMessage())
+                .build();
+        }
+    }
+
+    /**
+     * 比较已读取的批量请求，相同代码集合、阈值和评分配置的结果从缓存返回
+     * @param batch 已完成预处理的批量请求
+     * @param query 分页查询条件，页大小为0时不分页
+     * @param profiler 分阶段耗时收集器，不为null时总是重新计算，不检查缓存和ETag
+     * @param ifNoneMatch 上次响应的ETag
+     * @return 批量查重结果，ETag匹配时返回304
+     */
+    private ResponseEntity<BatchPlagiarismResult> compareIngestedBatch(IngestedBatch batch, ResultQuery query,
+                                                                      ComparisonProfiler profiler,
+                                                                      String ifNoneMatch) {
+        String cacheKey = resultCache.buildBatchKey(batch.getFingerprints(), batch.getThreshold(),
+            batch.isPartitionByLanguage(), plagiarismService.getScoringSignature());
+        if (profiler != null) {
+            BatchPlagiarismResult result = plagiarismService.compareMultipleFingerprints(
+                batch.getFingerprints(), batch.getThreshold(), batch.isPartitionByLanguage(), profiler);
+            BatchPlagiarismResult response = resultPageService.paginate(cacheKey, result, query);
+            response.setIngestion(batch.getStatistics());
+            // 结果本身仍然有效，去掉本次请求的分阶段耗时后放入缓存，供分页查询和后续请求使用
+            result.setProfile(null);
+            resultCache.put(cacheKey, result);
+            return ResponseEntity.ok(response);
+        }
+        // 分页返回时不同的查询条件对应不同的响应
+        String etag = resultPageService.isPaged(query)
+            ? cacheKey + "-" + HashUtils.sha256Hex(query.toString()).substring(0, 16) : cacheKey;
+        if (matchesETag(ifNoneMatch, etag, () -> resultCache.contains(cacheKey))) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(toETag(etag)).build();
+        }
+
+        Object cached = resultCache.get(cacheKey);
+        BatchPlagiarismResult result = cached instanceof BatchPlagiarismResult ? (BatchPlagiarismResult) cached
+            : plagiarismService.compareMultipleFingerprints(
+                batch.getFingerprints(), batch.getThreshold(), batch.isPartitionByLanguage());
+        
+        // 确保结果不为空
+        if (result == null) {
+            return ResponseEntity.status(500).body(null);
+        }
+        
+        if (cached == null) {
+            resultCache.put(cacheKey, result);
+        }
+        // 缓存中的结果被多个请求共享，复制后再分页并附加本次请求的读取统计，缓存键即结果集标识
+        BatchPlagiarismResult response = resultPageService.paginate(cacheKey, result, query);
+        response.setIngestion(batch.getStatistics());
+        return ResponseEntity.ok().eTag(toETag(etag)).body(response);
+    }
+
+    /**
+     * 判断If-None-Match请求头是否包含指定的ETag，支持多个ETag和弱ETag；
+     * *只在已有缓存的结果时匹配，否则客户端会收到一个没有任何内容可复用的304
+     * @param cached 是否已有缓存的结果，只在请求头包含*时调用
+     */
+    private static boolean matchesETag(String ifNoneMatch, String cacheKey, BooleanSupplier cached) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String tag : ifNoneMatch.split(",")) {
+            String trimmed = tag.trim();
+            if (trimmed.startsWith("W/")) {
+                trimmed = trimmed.substring(2);
+            }
+            if (trimmed.equals(toETag(cacheKey)) || (trimmed.equals("*") && cached.getAsBoolean())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String toETag(String cacheKey) {
+        return "\"" + cacheKey + "\"";
+    }
+
     /**
      * 获取系统支持的编程语言列表
      * @return 支持的语言列表
@@ -170,6 +390,7 @@ public class PlagiarismController {
         setStringProperty(map, "title", codeBlock::setTitle);
         setStringProperty(map, "language", codeBlock::setLanguage);
         setStringProperty(map, "timestamp", codeBlock::setTimestamp);
+        setStringProperty(map, "problemId", codeBlock::setProblemId);
         
         return codeBlock;
     }
@@ -0,0 +1,74 @@
+package org.codeDuplicateChecking.Agent.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * 批量查重事件，持续时间为代码对比较阶段的耗时，总耗时（含预处理）另见wallTime字段
+ */
+@Name(EngineEvents.BATCH_COMPARISON)
+@Label("批量查重")
+@Category({"代码查重", "查重引擎"})
+@Description("一次批量查重或一对多查重的规模和耗时")
+@StackTrace(false)
+class BatchComparisonEvent extends jdk.jfr.Event {
+
+    private static final EventType TYPE = EventType.getEventType(BatchComparisonEvent.class);
+
+    @Label("类型")
+    @Description("batch：两两比较；one-to-many：一段代码与一组参考代码比较")
+    String kind;
+
+    @Label("代码块数")
+    int codeBlocks;
+
+    @Label("分区数")
+    int partitions;
+
+    @Label("比较的代码对数")
+    long pairs;
+
+    @Label("跳过的代码对数")
+    @Description("批量查重中不同题目或语言分区之间不比较的代码对，一对多查重中按相似度上界剪枝和分区不同的参考代码")
+    long prunedPairs;
+
+    @Label("抄袭代码对数")
+    int plagiarismPairs;
+
+    @Label("总耗时")
+    @Timespan(Timespan.MILLISECONDS)
+    long wallTime;
+
+    /**
+     * @return 已开始计时的事件，没有录制启用该事件时返回null
+     */
+    static BatchComparisonEvent start() {
+        if (!TYPE.isEnabled()) {
+            return null;
+        }
+        BatchComparisonEvent event = new BatchComparisonEvent();
+        event.begin();
+        return event;
+    }
+
+    void finish(String kind, int codeBlocks, int partitions, long pairs, long prunedPairs, int plagiarismPairs,
+                long wallTimeMs) {
+        end();
+        if (!shouldCommit()) {
+            return;
+        }
+        this.kind = kind;
+        this.codeBlocks = codeBlocks;
+        this.partitions = partitions;
+        this.pairs = pairs;
+        this.prunedPairs = prunedPairs;
+        this.plagiarismPairs = plagiarismPairs;
+        this.wallTime = wallTimeMs;
+        commit();
+    }
+}
@@ -0,0 +1,123 @@
+package org.codeDuplicateChecking.Agent.jfr;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 查重引擎的JFR（Java Flight Recorder）事件入口<br>
+ * 记录单对代码比较、批量查重和大模型调用三类事件，运维可以在生产环境随时用jcmd开启持续录制，
+ * 事后按时间段分析比赛当天的延迟尖峰，无需重新部署。没有录制启用某类事件时，begin方法返回null，
+ * 调用方不做任何额外计时，开销只有一次volatile读取<br>
+ * jdk.jfr在OpenJDK 8u262及以上版本才有，为兼容更早的Java 8运行环境，事件类只通过本类访问，
+ * 启动时检测一次，不可用时所有方法直接返回，事件类不会被加载
+ */
+public final class EngineEvents {
+
+    private static final Logger log = LoggerFactory.getLogger(EngineEvents.class);
+
+    public static final String PAIR_COMPARISON = "org.codeDuplicateChecking.PairComparison";
+    public static final String BATCH_COMPARISON = "org.codeDuplicateChecking.BatchComparison";
+    public static final String LLM_CALL = "org.codeDuplicateChecking.LLMCall";
+
+    private static final boolean AVAILABLE = detect();
+
+    private EngineEvents() {
+    }
+
+    private static boolean detect() {
+        try {
+            // 初始化事件类时加载jdk.jfr并注册事件类型
+            String packagePrefix = EngineEvents.class.getName().substring(0,
+                    EngineEvents.class.getName().lastIndexOf('.') + 1);
+            Class.forName(packagePrefix + "PairComparisonEvent");
+            Class.forName(packagePrefix + "BatchComparisonEvent");
+            Class.forName(packagePrefix + "LLMCallEvent");
+            return true;
+        } catch (Throwable e) {
+            log.info("当前运行环境不支持JFR自定义事件，查重引擎事件不会被记录: {}", e.toString());
+            return false;
+        }
+    }
+
+    /**
+     * @return 当前运行环境是否支持JFR自定义事件
+     */
+    public static boolean isAvailable() {
+        return AVAILABLE;
+    }
+
+    /**
+     * 开始一次代码对比较
+     * @return 事件句柄，没有录制启用该事件时返回null，此时调用方无需记录各项算法的耗时
+     */
+    public static Object beginPair() {
+        return AVAILABLE ? PairComparisonEvent.start() : null;
+    }
+
+    /**
+     * 结束一次代码对比较，耗时达到录制配置的阈值时提交事件
+     * @param event beginPair返回的句柄，为null时忽略
+     * @param codeBlockId1 第一个代码块ID，不经过服务层直接计算时为null
+     * @param codeBlockId2 第二个代码块ID
+     * @param length1 第一个代码块预处理后的长度
+     * @param length2 第二个代码块预处理后的长度
+     * @param metricNanos 各项算法的耗时（纳秒），按CodePlagiarismUtils.SCORE_METRICS的顺序，可为null
+     * @param score 综合相似度
+     */
+    public static void commitPair(Object event, String codeBlockId1, String codeBlockId2, int length1, int length2,
+                                  long[] metricNanos, double score) {
+        if (event != null) {
+            ((PairComparisonEvent) event).finish(codeBlockId1, codeBlockId2, length1, length2, metricNanos, score);
+        }
+    }
+
+    /**
+     * 开始一次批量查重
+     * @return 事件句柄，没有录制启用该事件时返回null
+     */
+    public static Object beginBatch() {
+        return AVAILABLE ? BatchComparisonEvent.start() : null;
+    }
+
+    /**
+     * 结束一次批量查重并提交事件
+     * @param event beginBatch返回的句柄，为null时忽略
+     * @param kind batch或one-to-many
+     * @param codeBlocks 代码块数
+     * @param partitions 分区数
+     * @param pairs 实际比较的代码对数
+     * @param prunedPairs 跳过的代码对数
+     * @param plagiarismPairs 判定为抄袭的代码对数
+     * @param wallTimeMs 总耗时（毫秒），含预处理
+     */
+    public static void commitBatch(Object event, String kind, int codeBlocks, int partitions, long pairs,
+                                   long prunedPairs, int plagiarismPairs, long wallTimeMs) {
+        if (event != null) {
+            ((BatchComparisonEvent) event).finish(kind, codeBlocks, partitions, pairs, prunedPairs, plagiarismPairs,
+                    wallTimeMs);
+        }
+    }
+
+    /**
+     * 开始一次大模型调用
+     * @return 事件句柄，没有录制启用该事件时返回null
+     */
+    public static Object beginLLMCall() {
+        return AVAILABLE ? LLMCallEvent.start() : null;
+    }
+
+    /**
+     * 结束一次大模型调用并提交事件
+     * @param event beginLLMCall返回的句柄，为null时忽略
+     * @param provider 大模型提供方
+     * @param model 模型名称
+     * @param streaming 是否流式输出
+     * @param outcome 调用结果
+     */
+    public static void commitLLMCall(Object event, String provider, String model, boolean streaming,
+                                     String outcome) {
+        if (event != null) {
+            ((LLMCallEvent) event).finish(provider, model, streaming, outcome);
+        }
+    }
+}
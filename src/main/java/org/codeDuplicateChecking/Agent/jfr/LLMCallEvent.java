@@ -0,0 +1,58 @@
+package org.codeDuplicateChecking.Agent.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * 大模型调用事件，持续时间为整个调用的耗时（含重试和对冲）
+ */
+@Name(EngineEvents.LLM_CALL)
+@Label("大模型调用")
+@Category({"代码查重", "AI分析"})
+@Description("一次大模型调用的模型、耗时和结果")
+@StackTrace(false)
+class LLMCallEvent extends jdk.jfr.Event {
+
+    private static final EventType TYPE = EventType.getEventType(LLMCallEvent.class);
+
+    @Label("提供方")
+    String provider;
+
+    @Label("模型")
+    String model;
+
+    @Label("流式输出")
+    boolean streaming;
+
+    @Label("结果")
+    @Description("success、timeout、cancelled、circuit_open、client_error、server_error或other")
+    String outcome;
+
+    /**
+     * @return 已开始计时的事件，没有录制启用该事件时返回null
+     */
+    static LLMCallEvent start() {
+        if (!TYPE.isEnabled()) {
+            return null;
+        }
+        LLMCallEvent event = new LLMCallEvent();
+        event.begin();
+        return event;
+    }
+
+    void finish(String provider, String model, boolean streaming, String outcome) {
+        end();
+        if (!shouldCommit()) {
+            return;
+        }
+        this.provider = provider;
+        this.model = model;
+        this.streaming = streaming;
+        this.outcome = outcome;
+        commit();
+    }
+}
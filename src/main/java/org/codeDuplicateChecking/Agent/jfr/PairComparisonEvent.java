@@ -0,0 +1,94 @@
+package org.codeDuplicateChecking.Agent.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+import jdk.jfr.Timespan;
+
+/**
+ * 单对代码比较事件，持续时间为综合相似度的计算耗时<br>
+ * 批量查重每秒可能比较上万对代码，默认只记录耗时超过10毫秒的比较，排查时可在录制配置中把threshold调为0
+ */
+@Name(EngineEvents.PAIR_COMPARISON)
+@Label("代码对比较")
+@Category({"代码查重", "查重引擎"})
+@Description("计算一对代码综合相似度的耗时和各项算法的耗时")
+@StackTrace(false)
+@Threshold("10 ms")
+class PairComparisonEvent extends jdk.jfr.Event {
+
+    private static final EventType TYPE = EventType.getEventType(PairComparisonEvent.class);
+
+    @Label("代码块1")
+    String codeBlockId1;
+
+    @Label("代码块2")
+    String codeBlockId2;
+
+    @Label("代码块1长度")
+    @Description("预处理后的代码长度（字符）")
+    int length1;
+
+    @Label("代码块2长度")
+    @Description("预处理后的代码长度（字符）")
+    int length2;
+
+    @Label("Jaccard(n=4)耗时")
+    @Timespan(Timespan.NANOSECONDS)
+    long jaccard4Duration;
+
+    @Label("Jaccard(n=8)耗时")
+    @Timespan(Timespan.NANOSECONDS)
+    long jaccard8Duration;
+
+    @Label("编辑距离耗时")
+    @Timespan(Timespan.NANOSECONDS)
+    long editDistanceDuration;
+
+    @Label("结构相似度耗时")
+    @Timespan(Timespan.NANOSECONDS)
+    long structureDuration;
+
+    @Label("综合相似度")
+    double score;
+
+    /**
+     * @return 已开始计时的事件，没有录制启用该事件时返回null
+     */
+    static PairComparisonEvent start() {
+        if (!TYPE.isEnabled()) {
+            return null;
+        }
+        PairComparisonEvent event = new PairComparisonEvent();
+        event.begin();
+        return event;
+    }
+
+    /**
+     * 结束计时，耗时达到阈值时填写字段并提交
+     * @param metricNanos 各项算法的耗时，按CodePlagiarismUtils.SCORE_METRICS的顺序，可为null
+     */
+    void finish(String codeBlockId1, String codeBlockId2, int length1, int length2, long[] metricNanos,
+                double score) {
+        end();
+        if (!shouldCommit()) {
+            return;
+        }
+        this.codeBlockId1 = codeBlockId1;
+        this.codeBlockId2 = codeBlockId2;
+        this.length1 = length1;
+        this.length2 = length2;
+        if (metricNanos != null && metricNanos.length >= 4) {
+            this.jaccard4Duration = metricNanos[0];
+            this.jaccard8Duration = metricNanos[1];
+            this.editDistanceDuration = metricNanos[2];
+            this.structureDuration = metricNanos[3];
+        }
+        this.score = score;
+        commit();
+    }
+}
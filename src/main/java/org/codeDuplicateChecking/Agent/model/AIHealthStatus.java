@@ -0,0 +1,29 @@
+package org.codeDuplicateChecking.Agent.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 某个API Key和模型组合最近一次健康探测的结果
+ */
+@Data
+@NoArgsConstructor
+public class AIHealthStatus {
+    // 是否连接正常
+    private boolean connected;
+
+    // 返回给前端的提示信息
+    private String message;
+
+    // 模型名称
+    private String model;
+
+    // 探测耗时（毫秒），尚未探测时为-1
+    private long latencyMs = -1;
+
+    // 探测完成时间（毫秒时间戳），尚未探测时为0
+    private long checkedAt;
+
+    // 熔断器状态：CLOSED、OPEN或HALF_OPEN
+    private String circuitState;
+}
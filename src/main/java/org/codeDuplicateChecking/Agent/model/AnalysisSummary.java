@@ -0,0 +1,29 @@
+package org.codeDuplicateChecking.Agent.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 从AI分析文本中解析出的结构化结论，作为流式分析的最后一个事件返回
+ */
+@Data
+@NoArgsConstructor
+public class AnalysisSummary {
+    // AI给出的查重率（百分比），未能解析时为null
+    private Double aiSimilarityRate;
+
+    // 处理建议
+    private String suggestion;
+
+    // 代码风格评价
+    private String styleEvaluation;
+
+    // 算法评价
+    private String algorithmEvaluation;
+
+    // AI分析结果是否来自缓存
+    private boolean fromCache;
+
+    // AI分析失败时的错误信息，此时其余字段为空
+    private String aiError;
+}
@@ -1,5 +1,6 @@
 package org.codeDuplicateChecking.Agent.model;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -16,6 +17,9 @@ public class BatchPlagiarismResult {
     // 查重结果列表
     private List<PlagiarismResult> results;
     
+    // 参与查重的代码块总数，分页返回时results只包含一页，不能由结果数推算
+    private int totalCodeBlocks;
+    
     // 总查重对数
     private int totalPairs;
     
@@ -37,13 +41,29 @@ public class BatchPlagiarismResult {
     // 查重统计信息
     private String statistics;
     
-    // 获取代码块总数的辅助方法（不是直接存储的字段，通过结果集计算）
-    public int getTotalCodeBlocks() {
-        // 通过结果中的唯一代码块ID统计代码块总数
-        if (results == null || results.isEmpty()) {
-            return 0;
-        }
-        // 简单返回结果数+1作为估计值（每对比较产生一个结果）
-        return (int)Math.ceil(Math.sqrt(results.size() * 2));
+    // 按题目和语言分区的统计信息
+    private List<PartitionStatistics> partitionStatistics;
+    
+    // 因不属于同一分区（题目或语言不同）而跳过的代码对数
+    private int skippedPairs;
+    
+    // 流式读取请求的统计信息，普通请求为null
+    private IngestionStatistics ingestion;
+    
+    // 结果集标识，可通过 /api/v1/plagiarism/results/{resultId} 分页查询完整结果
+    private String resultId;
+    
+    // 分页信息，分页返回时results只包含本页结果，不分页时为null
+    private ResultPage page;
+    
+    // 分阶段耗时，只在请求指定profile=true时返回
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private ComparisonProfile profile;
+    
+    public BatchPlagiarismResult(List<PlagiarismResult> results, int totalPairs, int plagiarismPairs,
+                                 double maxSimilarityScore, double avgSimilarityScore, double threshold,
+                                 long processingTimeMs, String statistics) {
+        this(results, 0, totalPairs, plagiarismPairs, maxSimilarityScore, avgSimilarityScore, threshold,
+                processingTimeMs, statistics, null, 0, null, null, null, null);
     }
 }
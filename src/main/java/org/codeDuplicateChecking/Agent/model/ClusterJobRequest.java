@@ -0,0 +1,26 @@
+package org.codeDuplicateChecking.Agent.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.codeDuplicateChecking.Agent.utils.StructureMetric;
+
+import java.util.List;
+
+/**
+ * 分布式查重任务下发请求，协调节点将整批代码指纹一次性发送给工作节点
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ClusterJobRequest {
+    // 任务ID，由协调节点生成
+    private String jobId;
+
+    // 本次任务的全部代码指纹，分块请求中通过下标引用
+    private List<CodeFingerprint> fingerprints;
+
+    // 协调节点使用的结构相似度算法，工作节点按该算法计算，保证与本地计算结果一致；
+    // 为空时表示协调节点版本不支持该字段，只会使用特征序列算法
+    private StructureMetric structureMetric;
+}
@@ -23,4 +23,6 @@ public class CodeBlock {
     private String title;
     // 代码语言
     private String language;
+    // 所属题目ID（可选），批量查重时只比较同一题目下的代码
+    private String problemId;
 }
@@ -0,0 +1,27 @@
+package org.codeDuplicateChecking.Agent.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 代码指纹模型类，表示已完成预处理的代码块<br>
+ * 批量查重和分布式查重时只需在各节点间传递预处理结果，不必反复预处理原始代码
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CodeFingerprint {
+    // 代码块的唯一标识符
+    private String id;
+    // 代码作者
+    private String author;
+    // 代码标题或描述
+    private String title;
+    // 代码语言
+    private String language;
+    // 所属题目ID
+    private String problemId;
+    // 预处理后的代码（已移除注释、空白行并标准化变量名）
+    private String processedCode;
+}
@@ -0,0 +1,71 @@
+package org.codeDuplicateChecking.Agent.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 单次查重请求的分阶段耗时，请求指定profile=true时返回<br>
+ * 各阶段耗时是所有线程上的累计值，并行执行时可能大于请求的总耗时
+ */
+@Data
+@NoArgsConstructor
+public class ComparisonProfile {
+    // 预处理的代码块数
+    private int preprocessedBlocks;
+
+    // 预处理的累计耗时（毫秒）
+    private double preprocessMs;
+
+    // 比较的代码对数
+    private int comparedPairs;
+
+    // 各项相似度算法的累计耗时（毫秒），键为jaccard4、jaccard8、edit_distance、structure
+    private Map<String, Double> metricMs;
+
+    // 生成分析说明的累计耗时（毫秒）
+    private double analysisTextMs;
+
+    // 提交到查重线程池的任务数
+    private int executorTasks;
+
+    // 任务在线程池队列中等待的累计时间（毫秒）
+    private double queueWaitMs;
+
+    // 单个任务的最长排队时间（毫秒）
+    private double maxQueueWaitMs;
+
+    // AI调用次数，不调用AI的接口为0
+    private int aiCalls;
+
+    // 等待AI调用的累计时间（毫秒）
+    private double aiMs;
+
+    // 耗时最长的代码对，按耗时从高到低排列
+    private List<SlowPair> slowestPairs;
+
+    /**
+     * 一个代码对的比较耗时
+     */
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class SlowPair {
+        // 两个代码块的ID
+        private String codeBlockId1;
+        private String codeBlockId2;
+
+        // 两个代码块预处理后的长度（字符数）
+        private int length1;
+        private int length2;
+
+        // 比较的总耗时（毫秒）
+        private double totalMs;
+
+        // 各项相似度算法的耗时（毫秒）
+        private Map<String, Double> metricMs;
+    }
+}
@@ -0,0 +1,26 @@
+package org.codeDuplicateChecking.Agent.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 流式读取完成的批量查重请求，只包含预处理后的代码指纹，不再持有原始代码
+ */
+@Data
+@NoArgsConstructor
+public class IngestedBatch {
+    // 查重阈值，范围[0,1]
+    private double threshold = 0.7;
+
+    // 是否按语言族分区
+    private boolean partitionByLanguage = true;
+
+    // 代码指纹，顺序与请求中代码块出现的顺序一致
+    private List<CodeFingerprint> fingerprints = new ArrayList<>();
+
+    // 读取统计信息
+    private IngestionStatistics statistics;
+}
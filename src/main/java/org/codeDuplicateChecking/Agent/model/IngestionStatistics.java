@@ -0,0 +1,35 @@
+package org.codeDuplicateChecking.Agent.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 流式读取批量查重请求的统计信息
+ */
+@Data
+@NoArgsConstructor
+public class IngestionStatistics {
+    // 读取的代码块数
+    private int codeBlocks;
+
+    // 请求体是否为gzip压缩
+    private boolean gzip;
+
+    // 原始代码总字符数
+    private long rawCodeChars;
+
+    // 预处理后代码总字符数
+    private long processedCodeChars;
+
+    // 读取和预处理耗时（毫秒）
+    private long ingestionTimeMs;
+
+    // 压缩包格式（zip、tar），非压缩包上传时为null
+    private String archiveFormat;
+
+    // 压缩包中的文件数
+    private int archiveEntries;
+
+    // 因路径不匹配、不是源代码或超过大小上限而跳过的文件数
+    private int skippedEntries;
+}
@@ -0,0 +1,31 @@
+package org.codeDuplicateChecking.Agent.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 录制的大模型调用，录制文件中每行一条JSON，供本地回放使用
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class LLMRecording {
+    // 系统提示词与用户消息的SHA-256，用于回放时匹配请求
+    private String promptSha256;
+
+    // 模型名称
+    private String model;
+
+    // 回复内容
+    private String response;
+
+    // 调用耗时（毫秒）
+    private long latencyMs;
+
+    // 输入token数
+    private int inputTokens;
+
+    // 输出token数
+    private int outputTokens;
+}
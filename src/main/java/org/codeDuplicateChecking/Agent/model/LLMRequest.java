@@ -0,0 +1,33 @@
+package org.codeDuplicateChecking.Agent.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 大模型调用请求，只包含系统提示词和本次用户消息，不携带对话历史
+ */
+@Data
+@NoArgsConstructor
+public class LLMRequest {
+    // API密钥
+    private String apiKey;
+
+    // 模型名称
+    private String model;
+
+    // 系统提示词，可为空
+    private String systemPrompt;
+
+    // 用户消息
+    private String userMessage;
+
+    // 最大输出token数，为空时使用模型默认值
+    private Integer maxTokens;
+
+    public LLMRequest(String apiKey, String model, String systemPrompt, String userMessage) {
+        this.apiKey = apiKey;
+        this.model = model;
+        this.systemPrompt = systemPrompt;
+        this.userMessage = userMessage;
+    }
+}
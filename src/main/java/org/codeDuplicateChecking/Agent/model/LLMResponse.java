@@ -0,0 +1,22 @@
+package org.codeDuplicateChecking.Agent.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 大模型调用结果，包含回复内容和token用量
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class LLMResponse {
+    // 回复内容
+    private String content;
+
+    // 输入token数，服务未返回时为0
+    private int inputTokens;
+
+    // 输出token数，服务未返回时为0
+    private int outputTokens;
+}
@@ -0,0 +1,65 @@
+package org.codeDuplicateChecking.Agent.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 分级模型路由的统计信息
+ */
+@Data
+@NoArgsConstructor
+public class ModelRoutingStats {
+    // 是否启用分级路由
+    private boolean enabled;
+
+    // 快速模型
+    private String fastModel;
+
+    // 经过分级路由的代码对数
+    private long routedPairs;
+
+    // 升级到大模型的代码对数
+    private long escalatedPairs;
+
+    // 升级比例，没有经过路由的代码对时为0
+    private double escalationRate;
+
+    // 因快速模型结论不确定而升级的代码对数
+    private long uncertainEscalations;
+
+    // 因快速模型与本地算法意见不一致而升级的代码对数
+    private long disagreementEscalations;
+
+    // 因快速模型调用失败而升级的代码对数
+    private long fastFailedEscalations;
+
+    // 各模型的调用统计
+    private List<TierStats> tiers;
+
+    /**
+     * 单个模型的调用统计，只统计实际发出的调用，不含缓存命中
+     */
+    @Data
+    @NoArgsConstructor
+    public static class TierStats {
+        // 模型名称
+        private String model;
+
+        // 调用次数
+        private long calls;
+
+        // 失败次数
+        private long failures;
+
+        // 成功调用的平均耗时（毫秒）
+        private long avgLatencyMs;
+
+        // 最近成功调用耗时的中位数（毫秒），没有样本时为-1
+        private long p50LatencyMs;
+
+        // 最近成功调用耗时的95%分位数（毫秒），没有样本时为-1
+        private long p95LatencyMs;
+    }
+}
@@ -0,0 +1,30 @@
+package org.codeDuplicateChecking.Agent.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 一对多查重请求模型类，将一段待查代码与一组参考代码逐一比较
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class OneToManyRequest {
+    // 待查代码块
+    private CodeBlock query;
+    
+    // 参考代码块列表
+    private List<CodeBlock> references;
+    
+    // 查重阈值，范围[0,1]
+    private double threshold = 0.7; // 默认阈值为0.7
+    
+    // 是否只比较同一语言族（以及同一题目）的参考代码
+    private boolean partitionByLanguage = true;
+    
+    // 只返回相似度最高的前K个匹配，0表示返回全部
+    private int topK = 0;
+}
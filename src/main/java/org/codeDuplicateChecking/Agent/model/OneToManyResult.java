@@ -0,0 +1,45 @@
+package org.codeDuplicateChecking.Agent.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 一对多查重结果模型类，匹配按相似度从高到低排列
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class OneToManyResult {
+    // 待查代码块的标识符
+    private String queryId;
+    
+    // 相似度达到阈值的参考代码，按相似度从高到低排列
+    private List<PlagiarismResult> matches;
+    
+    // 参考代码总数
+    private int totalReferences;
+    
+    // 完整计算了相似度的参考代码数
+    private int comparedReferences;
+    
+    // 相似度上界低于阈值而跳过完整计算的参考代码数
+    private int prunedReferences;
+    
+    // 因题目或语言不同而跳过的参考代码数
+    private int skippedReferences;
+    
+    // 达到阈值的参考代码数（不受topK限制）
+    private int matchCount;
+    
+    // 完整计算的参考代码中的最大相似度得分
+    private double maxSimilarityScore;
+    
+    // 查重阈值
+    private double threshold;
+    
+    // 查重时间（毫秒）
+    private long processingTimeMs;
+}
@@ -0,0 +1,60 @@
+package org.codeDuplicateChecking.Agent.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 批量查重中单个代码对的AI复核情况，包括已复核的结论和未复核的原因
+ */
+@Data
+@NoArgsConstructor
+public class PairReview {
+    // 第一个代码块ID
+    private String codeBlockId1;
+
+    // 第二个代码块ID
+    private String codeBlockId2;
+
+    // 基础查重得分
+    private double similarityScore;
+
+    // 分诊优先级，越大越先复核
+    private double priority;
+
+    // 预估消耗的token数（提示词加预估输出，升级到大模型时为两次调用之和），命中缓存时为0
+    private int estimatedTokens;
+
+    // 未复核的原因，已复核时为null
+    private String skipReason;
+
+    // 给出复核结论的模型
+    private String model;
+
+    // 分级路由中升级到大模型的原因，未升级时为null
+    private String escalationReason;
+
+    // 需要升级但预算不足、改用快速模型结论的原因，为null时未因预算放弃升级
+    private String escalationSkipReason;
+
+    // AI分析原文
+    private String aiAnalysis;
+
+    // AI给出的查重率（百分比），未能解析时为null
+    private Double aiSimilarityRate;
+
+    // 处理建议
+    private String suggestion;
+
+    // AI分析结果是否来自缓存
+    private boolean fromCache;
+
+    // AI复核失败时的错误信息
+    private String aiError;
+
+    public PairReview(PlagiarismResult result, double priority) {
+        this.codeBlockId1 = result.getCodeBlockId1();
+        this.codeBlockId2 = result.getCodeBlockId2();
+        this.similarityScore = result.getSimilarityScore();
+        this.priority = priority;
+    }
+}
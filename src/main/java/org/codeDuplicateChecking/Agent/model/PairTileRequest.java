@@ -0,0 +1,31 @@
+package org.codeDuplicateChecking.Agent.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 代码对矩阵分块请求，表示比较矩阵中 [rowStart,rowEnd) × [colStart,colEnd) 的一块区域<br>
+ * 只计算列下标大于行下标的代码对，保证每对代码只比较一次
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class PairTileRequest {
+    // 分块ID
+    private int tileId;
+
+    // 行范围（包含起点，不包含终点）
+    private int rowStart;
+    private int rowEnd;
+
+    // 列范围（包含起点，不包含终点）
+    private int colStart;
+    private int colEnd;
+
+    // 查重阈值
+    private double threshold;
+
+    // 返回相似度最高的前K个结果，小于等于0表示返回全部结果
+    private int topK;
+}
@@ -0,0 +1,34 @@
+package org.codeDuplicateChecking.Agent.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 代码对矩阵分块的计算结果<br>
+ * 统计数据覆盖分块内的全部代码对，结果列表可能只包含前K个高相似度结果
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class PairTileResult {
+    // 分块ID
+    private int tileId;
+
+    // 分块内的查重结果（可能已按topK截断）
+    private List<PlagiarismResult> results;
+
+    // 分块内比较的代码对数
+    private int pairCount;
+
+    // 分块内判定为抄袭的代码对数
+    private int plagiarismPairs;
+
+    // 分块内相似度得分总和，用于合并后计算平均值
+    private double totalSimilarityScore;
+
+    // 分块内最大相似度得分
+    private double maxSimilarityScore;
+}
@@ -0,0 +1,34 @@
+package org.codeDuplicateChecking.Agent.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 批量查重分区统计，一个分区对应同一题目、同一语言族的一组代码块
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class PartitionStatistics {
+    // 题目ID，未指定题目时为null
+    private String problemId;
+
+    // 语言族，如 c/c++、java、python，未指定语言时为空字符串
+    private String language;
+
+    // 分区内代码块数
+    private int codeBlocks;
+
+    // 分区内比较的代码对数
+    private int totalPairs;
+
+    // 分区内检测出的抄袭对数
+    private int plagiarismPairs;
+
+    // 分区内最大相似度得分
+    private double maxSimilarityScore;
+
+    // 分区内平均相似度得分
+    private double avgSimilarityScore;
+}
@@ -15,9 +15,15 @@ public class PlagiarismRequest {
     // 待对比的代码块列表
     private List<CodeBlock> codeBlocks;
     
+    // 按题目分组的代码块（可选），与codeBlocks合并后参与查重
+    private List<ProblemSection> problems;
+    
     // 查重阈值，范围[0,1]
     private double threshold = 0.7; // 默认阈值为0.7
     
     // 是否需要详细分析
     private boolean needDetailedAnalysis = false;
+    
+    // 是否按语言族分区，默认不比较不同语言的代码
+    private boolean partitionByLanguage = true;
 }
@@ -1,5 +1,6 @@
 package org.codeDuplicateChecking.Agent.model;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -32,4 +33,15 @@ public class PlagiarismResult {
     
     // 详细分析说明（可选）
     private String analysis;
+    
+    // 分阶段耗时，只在请求指定profile=true时返回
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private ComparisonProfile profile;
+    
+    public PlagiarismResult(String codeBlockId1, String author1, String title1,
+                            String codeBlockId2, String author2, String title2,
+                            double similarityScore, boolean isPlagiarism, double threshold, String analysis) {
+        this(codeBlockId1, author1, title1, codeBlockId2, author2, title2, similarityScore, isPlagiarism,
+                threshold, analysis, null);
+    }
 }
@@ -0,0 +1,21 @@
+package org.codeDuplicateChecking.Agent.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 按题目分组的代码块集合，用于在一次批量请求中提交多道题目的代码
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ProblemSection {
+    // 题目ID，会覆盖到本组所有未设置题目ID的代码块上
+    private String problemId;
+
+    // 本组代码块
+    private List<CodeBlock> codeBlocks;
+}
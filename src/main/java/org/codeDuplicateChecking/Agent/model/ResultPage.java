@@ -0,0 +1,38 @@
+package org.codeDuplicateChecking.Agent.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 批量查重结果的一页
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ResultPage {
+    // 结果集标识，用于查询其他页
+    private String resultId;
+
+    // 页码，从0开始
+    private int page;
+
+    // 每页结果数
+    private int size;
+
+    // 过滤后的结果总数
+    private int totalElements;
+
+    // 过滤后的总页数
+    private int totalPages;
+
+    // 过滤前的结果总数
+    private int unfilteredElements;
+
+    // 本页结果；作为批量查重结果的分页信息时为null，结果位于BatchPlagiarismResult.results
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private List<PlagiarismResult> results;
+}
@@ -0,0 +1,29 @@
+package org.codeDuplicateChecking.Agent.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 批量查重结果的分页查询条件，由URL查询参数绑定
+ */
+@Data
+@NoArgsConstructor
+public class ResultQuery {
+    // 只返回相似度不低于该值的代码对
+    private double minScore = 0.0;
+
+    // 只返回任一方作者包含该文本的代码对（不区分大小写），为空时不过滤
+    private String author;
+
+    // 只返回判定为抄袭的代码对
+    private boolean plagiarismOnly = false;
+
+    // 排序方式：score_desc（默认）、score_asc、none（保持比较顺序）
+    private String sort = "score_desc";
+
+    // 页码，从0开始
+    private int page = 0;
+
+    // 每页结果数，0表示不分页（批量查重接口）或使用默认页大小（结果查询接口）
+    private int size = 0;
+}
@@ -0,0 +1,218 @@
+package org.codeDuplicateChecking.Agent.service;
+
+import org.codeDuplicateChecking.Agent.config.AIHealthConfig;
+import org.codeDuplicateChecking.Agent.model.AIHealthStatus;
+import org.codeDuplicateChecking.Agent.utils.HashUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.util.Comparator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * AI服务健康状态<br>
+ * 按（API Key哈希，模型）缓存最近一次探测结果，探测使用只输出1个token的最小请求，
+ * 检查连接时直接返回缓存的状态，不再为每次检查发起一次完整的对话。
+ * 只有配置的默认API Key和模型由后台定时探测，且不会被淘汰；调用方传入的其他组合
+ * 只在被查询且缓存结果超过探测间隔时才重新探测，不会产生持续的后台探测流量
+ */
+@Service
+public class AIHealthService {
+
+    private final AIHealthConfig config;
+    private final LLMClientService llmClient;
+
+    private final String defaultApiKey;
+    private final String defaultModel;
+
+    // 默认API Key和模型组合，未配置默认API Key时为null
+    private volatile Target defaultTarget;
+
+    // 调用方传入的其他组合，键为API Key哈希加模型名，数量达到上限时淘汰最久未被查询的组合
+    private final ConcurrentHashMap<String, Target> targets = new ConcurrentHashMap<>();
+
+    // 同一组合同时只进行一次探测
+    private final SingleFlight<AIHealthStatus> probes = new SingleFlight<>();
+
+    public AIHealthService(AIHealthConfig config, LLMClientService llmClient) {
+        this(config, llmClient, "", "qwen-plus");
+    }
+
+    @Autowired
+    public AIHealthService(AIHealthConfig config, LLMClientService llmClient,
+                           @Value("${dashscope.api.key:}") String defaultApiKey,
+                           @Value("${dashscope.model:qwen-plus}") String defaultModel) {
+        this.config = config;
+        this.llmClient = llmClient;
+        this.defaultApiKey = defaultApiKey;
+        this.defaultModel = defaultModel;
+    }
+
+    /**
+     * 配置了默认API Key时，启动后立即开始探测默认组合，页面首次加载即可命中缓存
+     */
+    @PostConstruct
+    public void registerDefaultTarget() {
+        if (config.isEnabled() && defaultApiKey != null && !defaultApiKey.isEmpty()) {
+            defaultTarget = new Target(targetKey(defaultApiKey, defaultModel), defaultApiKey, defaultModel);
+            probe(defaultTarget);
+        }
+    }
+
+    /**
+     * 获取AI服务健康状态<br>
+     * 默认组合已有探测结果时直接返回，由后台定时刷新；其他组合的结果在探测间隔内直接返回，
+     * 过期后在本次查询时重新探测。需要探测时最多等待first-probe-wait-ms，超时返回上次结果或检查中状态
+     * @param apiKey API密钥
+     * @param model 模型名称
+     * @return 健康状态
+     */
+    public AIHealthStatus getStatus(String apiKey, String model) {
+        if (!config.isEnabled()) {
+            return withCircuitState(awaitProbe(probe(new Target(targetKey(apiKey, model), apiKey, model)),
+                    config.getFirstProbeWaitMs(), model, null));
+        }
+
+        String key = targetKey(apiKey, model);
+        Target target = defaultTarget != null && defaultTarget.key.equals(key) ? defaultTarget : track(key, apiKey, model);
+        AIHealthStatus status = target.status;
+        boolean fresh = status != null && (target == defaultTarget
+                || System.currentTimeMillis() - status.getCheckedAt() < config.getProbeIntervalMs());
+        if (fresh) {
+            return withCircuitState(status);
+        }
+        return withCircuitState(awaitProbe(probe(target), config.getFirstProbeWaitMs(), model, status));
+    }
+
+    /**
+     * 后台定时探测默认组合，并移除长时间未被查询的其他组合
+     */
+    @Scheduled(fixedDelayString = "${ai.health.probe-interval-ms:60000}",
+            initialDelayString = "${ai.health.probe-interval-ms:60000}")
+    public void probeAll() {
+        if (!config.isEnabled()) {
+            return;
+        }
+        long expireBefore = System.currentTimeMillis() - config.getIdleExpireSeconds() * 1000L;
+        targets.values().removeIf(target -> target.lastRequestedAt < expireBefore);
+        Target target = defaultTarget;
+        if (target != null) {
+            probe(target);
+        }
+    }
+
+    /**
+     * @return 跟踪的非默认组合数
+     */
+    int getTrackedTargetCount() {
+        return targets.size();
+    }
+
+    /**
+     * 记录一次对非默认组合的查询，组合数达到上限时移除最久未被查询的组合
+     */
+    private Target track(String key, String apiKey, String model) {
+        Target target = targets.get(key);
+        if (target == null) {
+            while (targets.size() >= Math.max(1, config.getMaxTargets())) {
+                targets.values().stream()
+                        .min(Comparator.comparingLong(candidate -> candidate.lastRequestedAt))
+                        .ifPresent(oldest -> targets.remove(oldest.key, oldest));
+            }
+            target = targets.computeIfAbsent(key, k -> new Target(k, apiKey, model));
+        }
+        target.lastRequestedAt = System.currentTimeMillis();
+        return target;
+    }
+
+    /**
+     * 探测一次，结果写回目标的缓存状态
+     */
+    private CompletableFuture<AIHealthStatus> probe(Target target) {
+        return probes.execute(target.key, () -> {
+            long startTime = System.currentTimeMillis();
+            return llmClient.probeAsync(target.apiKey, target.model).handle((reply, error) -> {
+                AIHealthStatus status = new AIHealthStatus();
+                status.setModel(target.model);
+                status.setLatencyMs(System.currentTimeMillis() - startTime);
+                status.setCheckedAt(System.currentTimeMillis());
+                Throwable cause = error instanceof CompletionException && error.getCause() != null
+                        ? error.getCause() : error;
+                if (cause == null) {
+                    status.setConnected(true);
+                    status.setMessage("千问AI助手连接成功");
+                } else if (cause instanceof TimeoutException) {
+                    status.setMessage("千问AI助手连接超时");
+                } else {
+                    status.setMessage("千问AI助手连接失败: " + cause.getMessage());
+                }
+                target.status = status;
+                return status;
+            });
+        });
+    }
+
+    /**
+     * 等待探测结果，超时时返回上次的结果，没有上次结果时返回检查中状态
+     */
+    private static AIHealthStatus awaitProbe(CompletableFuture<AIHealthStatus> probe, long waitMs, String model,
+                                             AIHealthStatus previous) {
+        try {
+            return probe.get(waitMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            // 探测仍在进行，结果完成后写入缓存
+        }
+        if (previous != null) {
+            return previous;
+        }
+        AIHealthStatus checking = new AIHealthStatus();
+        checking.setModel(model);
+        checking.setMessage("正在检查千问AI助手连接，请稍后重试");
+        return checking;
+    }
+
+    /**
+     * 复制缓存的状态并附上熔断器当前状态，缓存中的对象不被修改
+     */
+    private AIHealthStatus withCircuitState(AIHealthStatus cached) {
+        AIHealthStatus status = new AIHealthStatus();
+        status.setConnected(cached.isConnected());
+        status.setMessage(cached.getMessage());
+        status.setModel(cached.getModel());
+        status.setLatencyMs(cached.getLatencyMs());
+        status.setCheckedAt(cached.getCheckedAt());
+        status.setCircuitState(llmClient.getCircuitState());
+        return status;
+    }
+
+    private static String targetKey(String apiKey, String model) {
+        return HashUtils.sha256Hex(apiKey == null ? "" : apiKey) + ":" + model;
+    }
+
+    /**
+     * 一个被探测的API Key和模型组合，API Key只保存在内存中用于探测
+     */
+    private static class Target {
+        private final String key;
+        private final String apiKey;
+        private final String model;
+        private volatile AIHealthStatus status;
+        private volatile long lastRequestedAt = System.currentTimeMillis();
+
+        Target(String key, String apiKey, String model) {
+            this.key = key;
+            this.apiKey = apiKey;
+            this.model = model;
+        }
+    }
+}
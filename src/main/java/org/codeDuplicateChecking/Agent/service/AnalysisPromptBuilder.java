@@ -0,0 +1,266 @@
+package org.codeDuplicateChecking.Agent.service;
+
+import org.codeDuplicateChecking.Agent.config.AIPromptBudgetConfig;
+import org.codeDuplicateChecking.Agent.model.CodeBlock;
+import org.codeDuplicateChecking.Agent.model.PlagiarismResult;
+import org.codeDuplicateChecking.Agent.utils.CodePlagiarismUtils;
+import org.springframework.stereotype.Service;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 按token预算构建AI分析的用户提示词<br>
+ * 代码先去除注释和多余空白；压缩后仍超出预算时，只保留两段代码中互相匹配的相似片段
+ * （按标准化变量名后的行比较）及其前后若干行上下文，并按预算截断
+ */
+@Service
+public class AnalysisPromptBuilder {
+
+    // 相似片段之间的省略标记
+    private static final String GAP_MARKER = "...";
+
+    private final AIPromptBudgetConfig config;
+
+    public AnalysisPromptBuilder(AIPromptBudgetConfig config) {
+        this.config = config;
+    }
+
+    /**
+     * 构建单对代码分析的用户提示词
+     * @param code1 第一个代码块
+     * @param code2 第二个代码块
+     * @param baseResult 基础查重结果
+     * @return 提示词及其估算token数
+     */
+    public AnalysisPrompt buildPairPrompt(CodeBlock code1, CodeBlock code2, PlagiarismResult baseResult) {
+        String scoreLine = "原始查重率: " + String.format("%.1f%%", baseResult.getSimilarityScore() * 100);
+        String original = renderPair(code1.getCode(), code2.getCode(), scoreLine, "");
+        int originalTokens = CodePlagiarismUtils.estimateTokens(original);
+        if (!config.isEnabled()) {
+            return new AnalysisPrompt(original, originalTokens, originalTokens);
+        }
+
+        String compacted = renderPair(CodePlagiarismUtils.stripCommentsAndWhitespace(code1.getCode()),
+                CodePlagiarismUtils.stripCommentsAndWhitespace(code2.getCode()), scoreLine, "");
+        if (CodePlagiarismUtils.estimateTokens(compacted) <= config.getMaxPairTokens()) {
+            return new AnalysisPrompt(compacted, CodePlagiarismUtils.estimateTokens(compacted), originalTokens);
+        }
+
+        // 压缩后仍超出预算，只保留对齐的相似片段及上下文
+        String note = "（代码较长，已去除注释和空白，仅保留两段代码中相似的片段及上下文，方括号内为原始行号）\n\n";
+        int overhead = CodePlagiarismUtils.estimateTokens(renderPair("", "", scoreLine, note));
+        int perCodeBudget = Math.max(1, (config.getMaxPairTokens() - overhead) / 2);
+
+        String[] lines1 = CodePlagiarismUtils.stripComments(code1.getCode()).split("\n", -1);
+        String[] lines2 = CodePlagiarismUtils.stripComments(code2.getCode()).split("\n", -1);
+        String[] normalized1 = normalizeLines(lines1);
+        String[] normalized2 = normalizeLines(lines2);
+        String regions1 = renderRegions(lines1, markMatched(normalized1, anchorSet(normalized2)), perCodeBudget);
+        String regions2 = renderRegions(lines2, markMatched(normalized2, anchorSet(normalized1)), perCodeBudget);
+
+        String prompt = renderPair(regions1, regions2, scoreLine, note);
+        return new AnalysisPrompt(prompt, CodePlagiarismUtils.estimateTokens(prompt), originalTokens);
+    }
+
+    /**
+     * 构建批量总结的用户提示词：列出高相似度代码对，并附上涉及的代码（压缩后，按预算截断）
+     * @param highSimilarityResults 高相似度代码对的查重结果列表
+     * @param allCodeBlocks 所有参与分析的代码块列表
+     * @param averageSimilarity 高相似度代码对的平均查重率
+     * @return 提示词及其估算token数
+     */
+    public AnalysisPrompt buildBatchPrompt(List<PlagiarismResult> highSimilarityResults, List<CodeBlock> allCodeBlocks,
+                                           double averageSimilarity) {
+        String header = "批量代码查重分析请求\n\n"
+                + "整体代码集合原始平均查重率: " + String.format("%.1f%%", averageSimilarity * 100) + "\n\n";
+        String original = header + "代码如下：\n" + allCodeBlocks.toString();
+        int originalTokens = CodePlagiarismUtils.estimateTokens(original);
+        if (!config.isEnabled()) {
+            return new AnalysisPrompt(original, originalTokens, originalTokens);
+        }
+
+        StringBuilder prompt = new StringBuilder(header);
+        prompt.append("代码块总数: ").append(allCodeBlocks.size())
+                .append("，高相似度代码对: ").append(highSimilarityResults.size()).append("\n");
+        Set<String> involvedIds = new LinkedHashSet<>();
+        for (PlagiarismResult result : highSimilarityResults) {
+            prompt.append("- ").append(result.getCodeBlockId1()).append("(").append(result.getAuthor1()).append(")")
+                    .append(" 与 ").append(result.getCodeBlockId2()).append("(").append(result.getAuthor2()).append(")")
+                    .append(": ").append(String.format("%.1f%%", result.getSimilarityScore() * 100)).append("\n");
+            involvedIds.add(result.getCodeBlockId1());
+            involvedIds.add(result.getCodeBlockId2());
+        }
+
+        // 只附上高相似度代码对涉及的代码，超出预算后省略其余代码
+        Map<String, CodeBlock> blocksById = allCodeBlocks.stream()
+                .filter(block -> block.getId() != null)
+                .collect(Collectors.toMap(CodeBlock::getId, Function.identity(), (first, second) -> first));
+        prompt.append("\n涉及的代码如下（已去除注释和空白）：\n");
+        int omitted = 0;
+        for (String id : involvedIds) {
+            CodeBlock block = blocksById.get(id);
+            if (block == null) {
+                continue;
+            }
+            String section = "\n代码块 " + id + "（作者: " + block.getAuthor() + "）:\n```\n"
+                    + CodePlagiarismUtils.stripCommentsAndWhitespace(block.getCode()) + "\n```\n";
+            if (CodePlagiarismUtils.estimateTokens(prompt.toString() + section) > config.getMaxBatchTokens()) {
+                omitted++;
+                continue;
+            }
+            prompt.append(section);
+        }
+        if (omitted > 0) {
+            prompt.append("\n（超出长度限制，另有 ").append(omitted).append(" 个代码块的代码已省略）\n");
+        }
+
+        String text = prompt.toString();
+        return new AnalysisPrompt(text, CodePlagiarismUtils.estimateTokens(text), originalTokens);
+    }
+
+    private static String renderPair(String code1, String code2, String scoreLine, String note) {
+        return note
+                + "代码块1:\n```\n" + code1 + "\n```\n\n"
+                + "代码块2:\n```\n" + code2 + "\n```\n\n"
+                + scoreLine;
+    }
+
+    /**
+     * 逐行标准化变量名，使变量重命名后的相同语句能够匹配
+     */
+    private static String[] normalizeLines(String[] lines) {
+        String[] normalized = new String[lines.length];
+        for (int i = 0; i < lines.length; i++) {
+            normalized[i] = lines[i].trim().isEmpty() ? "" : CodePlagiarismUtils.preprocessCode(lines[i]);
+        }
+        return normalized;
+    }
+
+    private Set<String> anchorSet(String[] normalized) {
+        Set<String> anchors = new HashSet<>();
+        for (String line : normalized) {
+            if (line.length() >= config.getMinMatchLineLength()) {
+                anchors.add(line);
+            }
+        }
+        return anchors;
+    }
+
+    private boolean[] markMatched(String[] normalized, Set<String> otherAnchors) {
+        boolean[] matched = new boolean[normalized.length];
+        for (int i = 0; i < normalized.length; i++) {
+            matched[i] = normalized[i].length() >= config.getMinMatchLineLength()
+                    && otherAnchors.contains(normalized[i]);
+        }
+        return matched;
+    }
+
+    /**
+     * 输出相似行及其上下文组成的片段，每个片段前标注原始行号，超出预算后停止
+     */
+    private String renderRegions(String[] lines, boolean[] matched, int tokenBudget) {
+        boolean anyMatched = false;
+        boolean[] included = new boolean[lines.length];
+        int context = Math.max(0, config.getContextLines());
+        for (int i = 0; i < lines.length; i++) {
+            if (matched[i]) {
+                anyMatched = true;
+                for (int j = Math.max(0, i - context); j <= Math.min(lines.length - 1, i + context); j++) {
+                    included[j] = true;
+                }
+            }
+        }
+        if (!anyMatched) {
+            // 没有逐行相同的片段时，保留代码开头部分
+            Arrays.fill(included, true);
+        }
+
+        int indentUnit = CodePlagiarismUtils.detectIndentUnit(lines);
+        StringBuilder result = new StringBuilder();
+        int tokens = 0;
+        int i = 0;
+        while (i < lines.length) {
+            if (!included[i]) {
+                i++;
+                continue;
+            }
+            int end = i;
+            while (end + 1 < lines.length && included[end + 1]) {
+                end++;
+            }
+            StringBuilder region = new StringBuilder();
+            if (result.length() > 0) {
+                region.append(GAP_MARKER).append('\n');
+            }
+            region.append('[').append(i + 1).append('-').append(end + 1).append("]\n");
+            for (int line = i; line <= end; line++) {
+                String compacted = CodePlagiarismUtils.compactLine(lines[line], indentUnit);
+                if (!compacted.isEmpty()) {
+                    region.append(compacted).append('\n');
+                }
+            }
+            int regionTokens = CodePlagiarismUtils.estimateTokens(region.toString());
+            if (tokens + regionTokens > tokenBudget) {
+                String omittedMarker = GAP_MARKER + "（其余片段已省略）\n";
+                if (result.length() == 0) {
+                    // 第一个片段就超出预算时按字符截断，保证至少有内容
+                    int remaining = tokenBudget - CodePlagiarismUtils.estimateTokens(omittedMarker);
+                    int length = Math.min(region.length(), Math.max(0, remaining) * 4);
+                    while (length > 0 && CodePlagiarismUtils.estimateTokens(region.substring(0, length)) > remaining) {
+                        length = length * 9 / 10;
+                    }
+                    result.append(region, 0, length).append('\n');
+                }
+                result.append(omittedMarker);
+                break;
+            }
+            result.append(region);
+            tokens += regionTokens;
+            i = end + 1;
+        }
+        return result.toString().trim();
+    }
+
+    /**
+     * 构建好的提示词及其估算token数
+     */
+    public static class AnalysisPrompt {
+        private final String text;
+        private final int estimatedTokens;
+        private final int originalEstimatedTokens;
+
+        public AnalysisPrompt(String text, int estimatedTokens, int originalEstimatedTokens) {
+            this.text = text;
+            this.estimatedTokens = estimatedTokens;
+            this.originalEstimatedTokens = originalEstimatedTokens;
+        }
+
+        /**
+         * 获取提示词文本
+         */
+        public String getText() {
+            return text;
+        }
+
+        /**
+         * 获取压缩后提示词的估算token数
+         */
+        public int getEstimatedTokens() {
+            return estimatedTokens;
+        }
+
+        /**
+         * 获取未压缩时（原始代码）提示词的估算token数
+         */
+        public int getOriginalEstimatedTokens() {
+            return originalEstimatedTokens;
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package org.codeDuplicateChecking.Agent.service;
+
+import org.codeDuplicateChecking.Agent.model.CodeBlock;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 压缩包文件路径模式<br>
+ * 例如 "{problem}/{author}/{file}" 从 "contest/P1001/alice/Main.java" 中提取题目ID P1001 和作者 alice，
+ * 未在路径中给出语言时按文件扩展名推断。模式从路径末尾开始匹配，压缩包外层的目录不影响匹配
+ */
+class ArchivePathPattern {
+
+    private static final String[] PLACEHOLDERS = {"problem", "author", "language", "file"};
+
+    // 文件扩展名对应的语言
+    private static final Map<String, String> EXTENSION_LANGUAGES = new HashMap<>();
+
+    static {
+        EXTENSION_LANGUAGES.put("java", "Java");
+        EXTENSION_LANGUAGES.put("py", "Python");
+        EXTENSION_LANGUAGES.put("c", "C");
+        EXTENSION_LANGUAGES.put("h", "C");
+        EXTENSION_LANGUAGES.put("cpp", "C++");
+        EXTENSION_LANGUAGES.put("cc", "C++");
+        EXTENSION_LANGUAGES.put("cxx", "C++");
+        EXTENSION_LANGUAGES.put("hpp", "C++");
+        EXTENSION_LANGUAGES.put("cs", "C#");
+        EXTENSION_LANGUAGES.put("js", "JavaScript");
+        EXTENSION_LANGUAGES.put("ts", "TypeScript");
+        EXTENSION_LANGUAGES.put("php", "PHP");
+        EXTENSION_LANGUAGES.put("rb", "Ruby");
+        EXTENSION_LANGUAGES.put("go", "Go");
+        EXTENSION_LANGUAGES.put("swift", "Swift");
+        EXTENSION_LANGUAGES.put("kt", "Kotlin");
+        EXTENSION_LANGUAGES.put("rs", "Rust");
+        EXTENSION_LANGUAGES.put("scala", "Scala");
+        EXTENSION_LANGUAGES.put("pas", "Pascal");
+    }
+
+    private final Pattern pattern;
+
+    ArchivePathPattern(String pathPattern) {
+        StringBuilder regex = new StringBuilder("(?:^|.*/)");
+        Matcher placeholder = Pattern.compile("\\{(\\w+)}|\\*").matcher(pathPattern);
+        int last = 0;
+        while (placeholder.find()) {
+            regex.append(Pattern.quote(pathPattern.substring(last, placeholder.start())));
+            String name = placeholder.group(1);
+            if (name == null) {
+                regex.append("[^/]*");
+            } else if (isPlaceholder(name)) {
+                regex.append("(?<").append(name).append(">[^/]+?)");
+            } else {
+                throw new IllegalArgumentException("不支持的路径占位符: {" + name + "}");
+            }
+            last = placeholder.end();
+        }
+        regex.append(Pattern.quote(pathPattern.substring(last))).append('$');
+        this.pattern = Pattern.compile(regex.toString());
+    }
+
+    /**
+     * 根据文件路径构建代码块，代码内容由调用方填充
+     * @param path 压缩包中的文件路径
+     * @return 代码块，路径不匹配或无法确定语言时返回null
+     */
+    CodeBlock toCodeBlock(String path) {
+        Matcher matcher = pattern.matcher(path);
+        if (!matcher.matches()) {
+            return null;
+        }
+        String fileName = path.substring(path.lastIndexOf('/') + 1);
+        String language = group(matcher, "language");
+        if (language == null) {
+            language = languageOf(fileName);
+            if (language == null) {
+                return null;
+            }
+        }
+        CodeBlock codeBlock = new CodeBlock();
+        codeBlock.setId(path);
+        codeBlock.setTitle(fileName);
+        codeBlock.setAuthor(group(matcher, "author"));
+        codeBlock.setProblemId(group(matcher, "problem"));
+        codeBlock.setLanguage(language);
+        return codeBlock;
+    }
+
+    /**
+     * 按文件扩展名推断语言
+     * @param fileName 文件名
+     * @return 语言名称，不是已知的源代码文件时返回null
+     */
+    static String languageOf(String fileName) {
+        int dot = fileName.lastIndexOf('.');
+        if (dot < 0) {
+            return null;
+        }
+        return EXTENSION_LANGUAGES.get(fileName.substring(dot + 1).toLowerCase(Locale.ROOT));
+    }
+
+    private static boolean isPlaceholder(String name) {
+        for (String placeholder : PLACEHOLDERS) {
+            if (placeholder.equals(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private String group(Matcher matcher, String name) {
+        if (!pattern.pattern().contains("(?<" + name + ">")) {
+            return null;
+        }
+        return matcher.group(name);
+    }
+}
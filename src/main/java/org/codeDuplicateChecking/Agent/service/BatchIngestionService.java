@@ -0,0 +1,403 @@
+package org.codeDuplicateChecking.Agent.service;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.codeDuplicateChecking.Agent.config.IngestionConfig;
+import org.codeDuplicateChecking.Agent.model.CodeBlock;
+import org.codeDuplicateChecking.Agent.model.CodeFingerprint;
+import org.codeDuplicateChecking.Agent.model.IngestedBatch;
+import org.codeDuplicateChecking.Agent.model.IngestionStatistics;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * 批量查重请求的流式读取<br>
+ * 用流式JSON解析器逐个读取codeBlocks和problems中的代码块，每读到一个代码块就提交预处理，
+ * 预处理完成后原始代码即被丢弃，内存中只保留预处理后的代码指纹。
+ * 同时在预处理中的代码块数有上限，请求体再大也不会把全部原始代码留在内存中；
+ * 请求体（解压后）的字节数、单个代码块和全部代码的字符数也有上限，超出时拒绝请求。支持gzip压缩的请求体，
+ * 也可以直接读取zip、tar、tar.gz格式的提交记录压缩包
+ */
+@Service
+public class BatchIngestionService {
+
+    private final IngestionConfig config;
+    private final ObjectMapper objectMapper;
+    private final CodePlagiarismService plagiarismService;
+
+    public BatchIngestionService(IngestionConfig config, ObjectMapper objectMapper,
+                                 CodePlagiarismService plagiarismService) {
+        this.config = config;
+        this.objectMapper = objectMapper;
+        this.plagiarismService = plagiarismService;
+    }
+
+    /**
+     * 流式读取批量查重请求，格式与PlagiarismRequest相同
+     * @param body 请求体，可以是gzip压缩的JSON
+     * @return 预处理完成的批量请求
+     * @throws IOException 读取失败或JSON格式错误
+     * @throws IllegalArgumentException 代码块数量、代码长度或请求体大小超过上限
+     */
+    public IngestedBatch ingest(InputStream body) throws IOException {
+        return ingest(body, null);
+    }
+
+    /**
+     * 流式读取批量查重请求，并记录代码块的排队和预处理耗时
+     * @param body 请求体，可以是gzip压缩的JSON
+     * @param profiler 分阶段耗时收集器，为null时不记录
+     * @return 预处理完成的批量请求
+     * @throws IOException 读取失败或JSON格式错误
+     * @throws IllegalArgumentException 代码块数量、代码长度或请求体大小超过上限
+     */
+    public IngestedBatch ingest(InputStream body, ComparisonProfiler profiler) throws IOException {
+        long startTime = System.currentTimeMillis();
+        IngestedBatch batch = new IngestedBatch();
+        IngestionStatistics statistics = new IngestionStatistics();
+
+        InputStream input = new BufferedInputStream(body);
+        input.mark(2);
+        int first = input.read();
+        int second = input.read();
+        input.reset();
+        // 按gzip魔数识别压缩的请求体，不依赖Content-Encoding请求头
+        if (first == 0x1f && second == 0x8b) {
+            statistics.setGzip(true);
+            input = new GZIPInputStream(input, 64 * 1024);
+        }
+        input = new BoundedInputStream(input, config.getMaxBodyBytes());
+
+        Ingestion ingestion = new Ingestion(statistics, profiler);
+        try (JsonParser parser = objectMapper.getFactory().createParser(input)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new JsonParseException(parser, "请求体必须是JSON对象");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                parser.nextToken();
+                switch (field) {
+                    case "threshold":
+                        batch.setThreshold(parser.getValueAsDouble(batch.getThreshold()));
+                        break;
+                    case "partitionByLanguage":
+                        batch.setPartitionByLanguage(parser.getValueAsBoolean(batch.isPartitionByLanguage()));
+                        break;
+                    case "codeBlocks":
+                        readCodeBlocks(parser, null, ingestion);
+                        break;
+                    case "problems":
+                        readProblems(parser, ingestion);
+                        break;
+                    default:
+                        parser.skipChildren();
+                }
+            }
+            batch.setFingerprints(ingestion.finish());
+        }
+
+        statistics.setCodeBlocks(batch.getFingerprints().size());
+        statistics.setIngestionTimeMs(System.currentTimeMillis() - startTime);
+        batch.setStatistics(statistics);
+        return batch;
+    }
+
+    /**
+     * 流式读取提交记录压缩包，每个源代码文件作为一个代码块<br>
+     * 代码块的题目、作者和语言按plagiarism.ingestion.archive-path-pattern从文件路径中提取
+     * @param body zip、tar或tar.gz压缩包
+     * @param threshold 查重阈值
+     * @param partitionByLanguage 是否按语言族分区
+     * @return 预处理完成的批量请求
+     * @throws IOException 读取失败或压缩包格式错误
+     * @throws IllegalArgumentException 代码块数量、代码总长度或压缩包大小超过上限，或路径模式无效
+     */
+    public IngestedBatch ingestArchive(InputStream body, double threshold, boolean partitionByLanguage)
+            throws IOException {
+        return ingestArchive(body, threshold, partitionByLanguage, null);
+    }
+
+    /**
+     * 流式读取提交记录压缩包，并记录代码块的排队和预处理耗时
+     * @param body zip、tar或tar.gz压缩包
+     * @param threshold 查重阈值
+     * @param partitionByLanguage 是否按语言族分区
+     * @param profiler 分阶段耗时收集器，为null时不记录
+     * @return 预处理完成的批量请求
+     * @throws IOException 读取失败或压缩包格式错误
+     * @throws IllegalArgumentException 代码块数量、代码总长度或压缩包大小超过上限，或路径模式无效
+     */
+    public IngestedBatch ingestArchive(InputStream body, double threshold, boolean partitionByLanguage,
+                                       ComparisonProfiler profiler) throws IOException {
+        long startTime = System.currentTimeMillis();
+        ArchivePathPattern pathPattern = new ArchivePathPattern(config.getArchivePathPattern());
+        IngestedBatch batch = new IngestedBatch();
+        batch.setThreshold(threshold);
+        batch.setPartitionByLanguage(partitionByLanguage);
+        IngestionStatistics statistics = new IngestionStatistics();
+
+        InputStream input = new BufferedInputStream(body, 64 * 1024);
+        byte[] magic = new byte[2];
+        input.mark(magic.length);
+        int read = input.read(magic);
+        input.reset();
+        boolean zip = read == 2 && magic[0] == 'P' && magic[1] == 'K';
+        if (!zip && read == 2 && (magic[0] & 0xff) == 0x1f && (magic[1] & 0xff) == 0x8b) {
+            statistics.setGzip(true);
+            input = new GZIPInputStream(input, 64 * 1024);
+        }
+        input = new BoundedInputStream(input, config.getMaxBodyBytes());
+        statistics.setArchiveFormat(zip ? "zip" : "tar");
+
+        Ingestion ingestion = new Ingestion(statistics, profiler);
+        if (zip) {
+            try (ZipInputStream entries = new ZipInputStream(input, StandardCharsets.UTF_8)) {
+                ZipEntry entry;
+                while ((entry = entries.getNextEntry()) != null) {
+                    if (!entry.isDirectory()) {
+                        readArchiveEntry(entry.getName(), entries, pathPattern, ingestion, statistics);
+                    }
+                }
+            }
+        } else {
+            try (TarArchiveReader entries = new TarArchiveReader(input)) {
+                TarArchiveReader.Entry entry;
+                while ((entry = entries.nextEntry()) != null) {
+                    readArchiveEntry(entry.getName(), entries, pathPattern, ingestion, statistics);
+                }
+            }
+        }
+        batch.setFingerprints(ingestion.finish());
+
+        statistics.setCodeBlocks(batch.getFingerprints().size());
+        statistics.setIngestionTimeMs(System.currentTimeMillis() - startTime);
+        batch.setStatistics(statistics);
+        return batch;
+    }
+
+    /**
+     * 读取压缩包中的一个文件，路径不匹配、不是源代码或超过大小上限时跳过
+     */
+    private void readArchiveEntry(String name, InputStream content, ArchivePathPattern pathPattern,
+                                  Ingestion ingestion, IngestionStatistics statistics) throws IOException {
+        statistics.setArchiveEntries(statistics.getArchiveEntries() + 1);
+        String path = name.replace('\\', '/');
+        while (path.startsWith("./") || path.startsWith("/")) {
+            path = path.substring(path.indexOf('/') + 1);
+        }
+        // 跳过macOS打包时附带的元数据和隐藏文件
+        CodeBlock codeBlock = path.startsWith("__MACOSX/") || path.contains("/.") || path.startsWith(".")
+                ? null : pathPattern.toCodeBlock(path);
+        byte[] code = codeBlock != null ? readLimited(content, config.getArchiveMaxEntryBytes()) : null;
+        if (code == null) {
+            statistics.setSkippedEntries(statistics.getSkippedEntries() + 1);
+            return;
+        }
+        codeBlock.setCode(new String(code, StandardCharsets.UTF_8));
+        ingestion.accept(codeBlock, null);
+    }
+
+    /**
+     * 读取文件内容，超过上限时返回null，剩余内容由压缩包流在读取下一个文件时跳过
+     */
+    private static byte[] readLimited(InputStream content, int limit) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = content.read(buffer)) >= 0) {
+            if (output.size() + read > limit) {
+                return null;
+            }
+            output.write(buffer, 0, read);
+        }
+        return output.toByteArray();
+    }
+
+    /**
+     * 读取代码块数组，每个代码块读完立即提交预处理
+     * @param section 所属题目分组，平铺的代码块为null
+     */
+    private void readCodeBlocks(JsonParser parser, Section section, Ingestion ingestion) throws IOException {
+        if (parser.currentToken() == JsonToken.VALUE_NULL) {
+            return;
+        }
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            throw new JsonParseException(parser, "codeBlocks必须是数组");
+        }
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+            if (token == JsonToken.VALUE_NULL) {
+                continue;
+            }
+            ingestion.accept(objectMapper.readValue(parser, CodeBlock.class), section);
+        }
+    }
+
+    /**
+     * 读取按题目分组的代码块，题目ID可以出现在分组中codeBlocks之前或之后
+     */
+    private void readProblems(JsonParser parser, Ingestion ingestion) throws IOException {
+        if (parser.currentToken() == JsonToken.VALUE_NULL) {
+            return;
+        }
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            throw new JsonParseException(parser, "problems必须是数组");
+        }
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+            if (token == JsonToken.VALUE_NULL) {
+                continue;
+            }
+            Section section = new Section();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                parser.nextToken();
+                if ("problemId".equals(field)) {
+                    section.problemId = parser.getValueAsString();
+                } else if ("codeBlocks".equals(field)) {
+                    readCodeBlocks(parser, section, ingestion);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+    }
+
+    /**
+     * 限制读取字节数的输入流，gzip请求体套在解压流外层，按解压后的字节数计算
+     */
+    private static class BoundedInputStream extends FilterInputStream {
+        private final long limit;
+        private long count = 0;
+
+        BoundedInputStream(InputStream in, long limit) {
+            super(in);
+            this.limit = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                consume(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = super.read(buffer, offset, length);
+            if (read > 0) {
+                consume(read);
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            consume(skipped);
+            return skipped;
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        private void consume(long bytes) {
+            count += bytes;
+            if (limit > 0 && count > limit) {
+                throw new IllegalArgumentException("请求体超过上限 " + limit + " 字节");
+            }
+        }
+    }
+
+    /**
+     * 题目分组，题目ID在分组读完后才能确定
+     */
+    private static class Section {
+        private String problemId;
+    }
+
+    /**
+     * 一次请求的读取过程：限制同时预处理的代码块数以及单个代码块和全部代码的字符数
+     */
+    private class Ingestion {
+        private final IngestionStatistics statistics;
+        private final ComparisonProfiler profiler;
+        private final Semaphore inFlight = new Semaphore(Math.max(1, config.getMaxInFlightBlocks()));
+        private final List<CompletableFuture<CodeFingerprint>> fingerprints = new ArrayList<>();
+        private final List<Section> sections = new ArrayList<>();
+
+        Ingestion(IngestionStatistics statistics, ComparisonProfiler profiler) {
+            this.statistics = statistics;
+            this.profiler = profiler;
+        }
+
+        void accept(CodeBlock codeBlock, Section section) throws IOException {
+            if (config.getMaxCodeBlocks() > 0 && fingerprints.size() >= config.getMaxCodeBlocks()) {
+                throw new IllegalArgumentException("代码块数量超过上限 " + config.getMaxCodeBlocks());
+            }
+            if (codeBlock.getCode() == null) {
+                codeBlock.setCode("");
+            }
+            int codeChars = codeBlock.getCode().length();
+            if (config.getMaxBlockChars() > 0 && codeChars > config.getMaxBlockChars()) {
+                throw new IllegalArgumentException("代码块 " + codeBlock.getId() + " 的代码长度超过上限 "
+                        + config.getMaxBlockChars());
+            }
+            long totalChars = statistics.getRawCodeChars() + codeChars;
+            if (config.getMaxTotalCodeChars() > 0 && totalChars > config.getMaxTotalCodeChars()) {
+                throw new IllegalArgumentException("代码总长度超过上限 " + config.getMaxTotalCodeChars());
+            }
+            statistics.setRawCodeChars(totalChars);
+
+            try {
+                inFlight.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("读取批量查重请求时被中断");
+            }
+            CompletableFuture<CodeFingerprint> future = plagiarismService.createFingerprintAsync(codeBlock, profiler);
+            future.whenComplete((fingerprint, error) -> inFlight.release());
+            fingerprints.add(future);
+            sections.add(section);
+        }
+
+        /**
+         * 等待全部预处理完成，分组中未设置题目ID的代码块使用分组的题目ID
+         */
+        List<CodeFingerprint> finish() {
+            List<CodeFingerprint> result = new ArrayList<>(fingerprints.size());
+            long processedChars = 0;
+            for (int i = 0; i < fingerprints.size(); i++) {
+                CodeFingerprint fingerprint = fingerprints.get(i).join();
+                Section section = sections.get(i);
+                if (fingerprint.getProblemId() == null && section != null) {
+                    fingerprint.setProblemId(section.problemId);
+                }
+                processedChars += fingerprint.getProcessedCode().length();
+                result.add(fingerprint);
+            }
+            statistics.setProcessedCodeChars(processedChars);
+            return result;
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package org.codeDuplicateChecking.Agent.service;
+
+import org.codeDuplicateChecking.Agent.config.AIResilienceConfig;
+
+import java.util.function.LongSupplier;
+
+/**
+ * 大模型调用熔断器<br>
+ * 关闭状态下统计最近若干次调用的失败率（含超时），达到阈值后打开，打开期间直接拒绝调用；
+ * 打开一段时间后进入半开状态，只放行少量探测请求，探测成功则关闭，失败则重新打开
+ */
+class CircuitBreaker {
+
+    enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final AIResilienceConfig config;
+    private final LongSupplier clock;
+
+    // 最近调用结果的环形窗口，true表示失败
+    private final boolean[] outcomes;
+    private int next = 0;
+    private int count = 0;
+    private int failures = 0;
+
+    private State state = State.CLOSED;
+    private long openedAt = 0;
+    private int halfOpenInFlight = 0;
+
+    CircuitBreaker(AIResilienceConfig config) {
+        this(config, System::currentTimeMillis);
+    }
+
+    CircuitBreaker(AIResilienceConfig config, LongSupplier clock) {
+        this.config = config;
+        this.clock = clock;
+        this.outcomes = new boolean[Math.max(1, config.getWindowSize())];
+    }
+
+    /**
+     * 申请一次调用许可
+     * @return 允许调用时返回true，熔断打开或半开探测名额已满时返回false
+     */
+    synchronized boolean tryAcquire() {
+        if (!config.isEnabled()) {
+            return true;
+        }
+        if (state == State.OPEN) {
+            if (clock.getAsLong() - openedAt < config.getOpenDurationSeconds() * 1000L) {
+                return false;
+            }
+            state = State.HALF_OPEN;
+            halfOpenInFlight = 0;
+        }
+        if (state == State.HALF_OPEN) {
+            if (halfOpenInFlight >= Math.max(1, config.getHalfOpenProbes())) {
+                return false;
+            }
+            halfOpenInFlight++;
+        }
+        return true;
+    }
+
+    /**
+     * 记录一次成功调用，半开状态下关闭熔断器
+     */
+    synchronized void recordSuccess() {
+        if (state == State.HALF_OPEN) {
+            reset(State.CLOSED);
+            return;
+        }
+        record(false);
+    }
+
+    /**
+     * 记录一次失败调用（服务端错误或超时），半开状态下重新打开熔断器
+     */
+    synchronized void recordFailure() {
+        if (state == State.HALF_OPEN) {
+            open();
+            return;
+        }
+        record(true);
+        if (count >= config.getMinimumCalls()
+                && (double) failures / count >= config.getFailureRateThreshold()) {
+            open();
+        }
+    }
+
+    /**
+     * 调用结果与服务健康无关（如API Key错误、调用被取消），只归还半开探测名额
+     */
+    synchronized void recordIgnored() {
+        if (state == State.HALF_OPEN && halfOpenInFlight > 0) {
+            halfOpenInFlight--;
+        }
+    }
+
+    synchronized State getState() {
+        return state;
+    }
+
+    private void record(boolean failed) {
+        if (count == outcomes.length) {
+            if (outcomes[next]) {
+                failures--;
+            }
+        } else {
+            count++;
+        }
+        outcomes[next] = failed;
+        if (failed) {
+            failures++;
+        }
+        next = (next + 1) % outcomes.length;
+    }
+
+    private void open() {
+        reset(State.OPEN);
+        openedAt = clock.getAsLong();
+    }
+
+    private void reset(State newState) {
+        state = newState;
+        next = 0;
+        count = 0;
+        failures = 0;
+        halfOpenInFlight = 0;
+    }
+}
@@ -0,0 +1,11 @@
+package org.codeDuplicateChecking.Agent.service;
+
+/**
+ * 大模型调用熔断期间直接拒绝请求时抛出的异常
+ */
+public class CircuitOpenException extends RuntimeException {
+
+    public CircuitOpenException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,302 @@
+package org.codeDuplicateChecking.Agent.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import org.codeDuplicateChecking.Agent.config.ClusterConfig;
+import org.codeDuplicateChecking.Agent.model.ClusterJobRequest;
+import org.codeDuplicateChecking.Agent.model.CodeFingerprint;
+import org.codeDuplicateChecking.Agent.model.PairTileRequest;
+import org.codeDuplicateChecking.Agent.model.PairTileResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 分布式查重协调器<br>
+ * 将批量查重的代码对矩阵按上三角切分为分块，先把预处理后的代码指纹下发到各工作节点，
+ * 再由每个工作节点的若干调度线程不断领取分块并通过HTTP提交计算。
+ * 工作节点失败时分块重新放回队列由其他节点领取，所有工作节点都下线时由本地兜底计算剩余分块。
+ */
+class ClusterCoordinator {
+
+    private static final Logger log = LoggerFactory.getLogger(ClusterCoordinator.class);
+
+    private static final MediaType JSON = MediaType.parse("application/json; charset=utf-8");
+
+    // 工作节点接口前缀
+    private static final String CLUSTER_API = "/api/v1/plagiarism/cluster/jobs";
+
+    private final ClusterConfig config;
+    private final ObjectMapper objectMapper;
+    private final CodePlagiarismService localService;
+    private final OkHttpClient httpClient;
+
+    // 运行分布式任务的线程，多个分区的任务同时进行
+    private final ExecutorService jobRunner = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "cluster-job");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    ClusterCoordinator(ClusterConfig config, ObjectMapper objectMapper, CodePlagiarismService localService) {
+        this.config = config;
+        this.objectMapper = objectMapper;
+        this.localService = localService;
+        this.httpClient = new OkHttpClient.Builder()
+                .connectTimeout(5, TimeUnit.SECONDS)
+                .readTimeout(config.getRequestTimeoutMs(), TimeUnit.MILLISECONDS)
+                .writeTimeout(config.getRequestTimeoutMs(), TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    /**
+     * 判断当前批量是否应分发到工作节点
+     * @param codeBlockCount 代码块数量
+     * @return 配置了工作节点且代码块足够多时返回true
+     */
+    boolean shouldDistribute(int codeBlockCount) {
+        return !config.getWorkers().isEmpty() && codeBlockCount >= config.getMinCodeBlocks();
+    }
+
+    int getTopK() {
+        return config.getTopK();
+    }
+
+    /**
+     * 异步执行一次分布式查重任务，多个分区可以同时分发
+     * @param fingerprints 全部代码指纹
+     * @param threshold 抄袭阈值
+     * @return 按分块ID排序的分块结果
+     */
+    CompletableFuture<List<PairTileResult>> executeAsync(List<CodeFingerprint> fingerprints, double threshold) {
+        return CompletableFuture.supplyAsync(() -> execute(fingerprints, threshold), jobRunner);
+    }
+
+    /**
+     * 关闭任务线程，正在进行的任务被中断
+     */
+    void shutdown() {
+        jobRunner.shutdownNow();
+    }
+
+    /**
+     * 执行一次分布式查重任务
+     * @param fingerprints 全部代码指纹
+     * @param threshold 抄袭阈值
+     * @return 按分块ID排序的分块结果
+     */
+    List<PairTileResult> execute(List<CodeFingerprint> fingerprints, double threshold) {
+        String jobId = UUID.randomUUID().toString();
+        List<PairTileRequest> tiles = buildTiles(fingerprints.size(), Math.max(1, config.getTileSize()),
+                threshold, config.getTopK());
+
+        BlockingDeque<PairTileRequest> pending = new LinkedBlockingDeque<>(tiles);
+        Map<Integer, PairTileResult> completed = new ConcurrentHashMap<>();
+
+        List<WorkerClient> workers = new ArrayList<>();
+        for (String baseUrl : config.getWorkers()) {
+            workers.add(new WorkerClient(trimSlash(baseUrl), jobId, fingerprints));
+        }
+
+        int slotsPerWorker = Math.max(1, config.getInFlightPerWorker());
+        ExecutorService dispatchers = Executors.newFixedThreadPool(workers.size() * slotsPerWorker);
+        for (WorkerClient worker : workers) {
+            for (int i = 0; i < slotsPerWorker; i++) {
+                dispatchers.submit(() -> dispatch(worker, pending, completed, tiles.size()));
+            }
+        }
+
+        dispatchers.shutdown();
+        try {
+            while (!dispatchers.awaitTermination(1, TimeUnit.SECONDS)) {
+                // 等待所有调度线程结束
+            }
+        } catch (InterruptedException e) {
+            dispatchers.shutdownNow();
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Distributed comparison interrupted", e);
+        }
+
+        // 所有工作节点都已下线，剩余分块由本地计算
+        PairTileRequest tile;
+        while ((tile = pending.poll()) != null) {
+            if (!completed.containsKey(tile.getTileId())) {
+                completed.put(tile.getTileId(), localService.compareTile(fingerprints, tile));
+            }
+        }
+
+        for (WorkerClient worker : workers) {
+            worker.releaseJob();
+        }
+
+        return new ArrayList<>(new TreeMap<>(completed).values());
+    }
+
+    /**
+     * 调度线程主循环：不断从队列领取分块交给指定工作节点计算
+     */
+    private void dispatch(WorkerClient worker, BlockingDeque<PairTileRequest> pending,
+                          Map<Integer, PairTileResult> completed, int totalTiles) {
+        while (completed.size() < totalTiles && !worker.isDown()) {
+            PairTileRequest tile;
+            try {
+                tile = pending.poll(100, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (tile == null) {
+                // 其他分块仍在计算中，若对应节点失败会被放回队列
+                continue;
+            }
+            try {
+                completed.put(tile.getTileId(), worker.runTile(tile));
+                worker.recordSuccess();
+            } catch (IOException | RuntimeException e) {
+                // 分块放回队首，由其他节点（或本地兜底）重新计算
+                pending.addFirst(tile);
+                worker.recordFailure(e);
+            }
+        }
+    }
+
+    /**
+     * 将 n×n 代码对矩阵的上三角切分为分块
+     */
+    static List<PairTileRequest> buildTiles(int n, int tileSize, double threshold, int topK) {
+        List<PairTileRequest> tiles = new ArrayList<>();
+        int tileId = 0;
+        for (int rowStart = 0; rowStart < n; rowStart += tileSize) {
+            for (int colStart = rowStart; colStart < n; colStart += tileSize) {
+                tiles.add(new PairTileRequest(tileId++, rowStart, Math.min(n, rowStart + tileSize),
+                        colStart, Math.min(n, colStart + tileSize), threshold, topK));
+            }
+        }
+        return tiles;
+    }
+
+    /**
+     * 配置了共享密钥时在请求中附带密钥
+     */
+    private Request.Builder authorized(Request.Builder builder) {
+        String secret = config.getSharedSecret();
+        return secret != null && !secret.isEmpty()
+                ? builder.header(ClusterWorkerService.SECRET_HEADER, secret) : builder;
+    }
+
+    private static String trimSlash(String url) {
+        return url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+    }
+
+    /**
+     * 单个工作节点在一次任务中的客户端状态
+     */
+    private class WorkerClient {
+        private final String baseUrl;
+        private final String jobId;
+        private final List<CodeFingerprint> fingerprints;
+        private volatile boolean jobShipped = false;
+        private volatile boolean down = false;
+        private int consecutiveFailures = 0;
+
+        WorkerClient(String baseUrl, String jobId, List<CodeFingerprint> fingerprints) {
+            this.baseUrl = baseUrl;
+            this.jobId = jobId;
+            this.fingerprints = fingerprints;
+        }
+
+        boolean isDown() {
+            return down;
+        }
+
+        synchronized void recordSuccess() {
+            consecutiveFailures = 0;
+        }
+
+        synchronized void recordFailure(Exception e) {
+            consecutiveFailures++;
+            log.warn("Cluster worker {} failed ({}/{}): {}", baseUrl, consecutiveFailures,
+                    config.getMaxWorkerFailures(), e.getMessage());
+            if (consecutiveFailures >= config.getMaxWorkerFailures()) {
+                down = true;
+                log.warn("Cluster worker {} marked as down, its tiles will be reassigned", baseUrl);
+            }
+        }
+
+        /**
+         * 提交一个分块，工作节点不认识该任务（例如重启过）时重新下发代码指纹后重试
+         */
+        PairTileResult runTile(PairTileRequest tile) throws IOException {
+            ensureJobShipped();
+            Request request = authorized(new Request.Builder())
+                    .url(baseUrl + CLUSTER_API + "/" + jobId + "/tiles")
+                    .post(RequestBody.create(JSON, objectMapper.writeValueAsBytes(tile)))
+                    .build();
+            try (Response response = httpClient.newCall(request).execute()) {
+                if (response.code() == 404) {
+                    jobShipped = false;
+                    throw new IOException("job " + jobId + " unknown to worker");
+                }
+                ResponseBody body = response.body();
+                if (!response.isSuccessful() || body == null) {
+                    throw new IOException("worker responded with HTTP " + response.code());
+                }
+                return objectMapper.readValue(body.byteStream(), PairTileResult.class);
+            }
+        }
+
+        private synchronized void ensureJobShipped() throws IOException {
+            if (jobShipped) {
+                return;
+            }
+            Request request = authorized(new Request.Builder())
+                    .url(baseUrl + CLUSTER_API)
+                    .post(RequestBody.create(JSON,
+                            objectMapper.writeValueAsBytes(new ClusterJobRequest(jobId, fingerprints,
+                                    localService.getStructureMetric()))))
+                    .build();
+            try (Response response = httpClient.newCall(request).execute()) {
+                if (!response.isSuccessful()) {
+                    throw new IOException("failed to ship fingerprints, HTTP " + response.code());
+                }
+            }
+            jobShipped = true;
+        }
+
+        /**
+         * 通知工作节点释放任务数据，失败时忽略（工作节点会按TTL自动清理）
+         */
+        void releaseJob() {
+            if (!jobShipped || down) {
+                return;
+            }
+            Request request = authorized(new Request.Builder())
+                    .url(baseUrl + CLUSTER_API + "/" + jobId)
+                    .delete()
+                    .build();
+            try (Response ignored = httpClient.newCall(request).execute()) {
+                // 只需确认请求已发送
+            } catch (IOException e) {
+                log.debug("Failed to release job {} on worker {}", jobId, baseUrl, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package org.codeDuplicateChecking.Agent.service;
+
+import org.codeDuplicateChecking.Agent.config.ClusterConfig;
+import org.codeDuplicateChecking.Agent.model.CodeFingerprint;
+import org.codeDuplicateChecking.Agent.model.PairTileRequest;
+import org.codeDuplicateChecking.Agent.model.PairTileResult;
+import org.codeDuplicateChecking.Agent.utils.StructureMetric;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 分布式查重工作节点服务<br>
+ * 保存协调节点下发的代码指纹，并按协调节点分配的分块计算代码对相似度。
+ * 仅在配置plagiarism.cluster.worker-enabled=true时创建
+ */
+@Service
+@ConditionalOnProperty(prefix = "plagiarism.cluster", name = "worker-enabled", havingValue = "true")
+public class ClusterWorkerService {
+
+    // 协调节点传递共享密钥的请求头
+    public static final String SECRET_HEADER = "X-Cluster-Secret";
+
+    private final CodePlagiarismService plagiarismService;
+    private final ClusterConfig clusterConfig;
+
+    // 任务ID -> 任务数据
+    private final Map<String, WorkerJob> jobs = new ConcurrentHashMap<>();
+
+    public ClusterWorkerService(CodePlagiarismService plagiarismService, ClusterConfig clusterConfig) {
+        this.plagiarismService = plagiarismService;
+        this.clusterConfig = clusterConfig;
+    }
+
+    /**
+     * 校验协调节点传来的共享密钥，未配置密钥时拒绝所有请求
+     * @param secret X-Cluster-Secret请求头的值
+     * @return 密钥一致时返回true
+     */
+    public boolean isAuthorized(String secret) {
+        String expected = clusterConfig.getSharedSecret();
+        if (expected == null || expected.isEmpty()) {
+            return false;
+        }
+        // 按固定时间比较，避免通过响应时间逐字节猜测密钥
+        return secret != null && MessageDigest.isEqual(expected.getBytes(StandardCharsets.UTF_8),
+                secret.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 登记一个任务的代码指纹，同时清理已过期的任务
+     * @param jobId 任务ID
+     * @param fingerprints 代码指纹列表
+     * @param structureMetric 协调节点的结构相似度算法，为空时使用特征序列算法
+     * @throws IllegalArgumentException 代码指纹数或代码总长度超过上限
+     * @throws IllegalStateException 工作节点保留的任务数已达上限
+     */
+    public void registerJob(String jobId, List<CodeFingerprint> fingerprints, StructureMetric structureMetric) {
+        if (fingerprints.size() > clusterConfig.getMaxJobFingerprints()) {
+            throw new IllegalArgumentException("代码指纹数超过上限" + clusterConfig.getMaxJobFingerprints());
+        }
+        long codeChars = 0;
+        for (CodeFingerprint fingerprint : fingerprints) {
+            codeChars += fingerprint.getProcessedCode() != null ? fingerprint.getProcessedCode().length() : 0;
+        }
+        if (codeChars > clusterConfig.getMaxJobCodeChars()) {
+            throw new IllegalArgumentException("代码总长度超过上限" + clusterConfig.getMaxJobCodeChars());
+        }
+
+        evictExpiredJobs();
+        synchronized (jobs) {
+            if (!jobs.containsKey(jobId) && jobs.size() >= clusterConfig.getMaxJobs()) {
+                throw new IllegalStateException("工作节点任务数已达上限" + clusterConfig.getMaxJobs());
+            }
+            jobs.put(jobId, new WorkerJob(fingerprints,
+                    structureMetric != null ? structureMetric : StructureMetric.SEQUENCE, System.currentTimeMillis()));
+        }
+    }
+
+    /**
+     * 计算指定任务中的一个分块
+     * @param jobId 任务ID
+     * @param tile 分块范围
+     * @return 分块结果，任务不存在时返回null
+     */
+    public PairTileResult computeTile(String jobId, PairTileRequest tile) {
+        evictExpiredJobs();
+        WorkerJob job = jobs.get(jobId);
+        if (job == null) {
+            return null;
+        }
+        job.lastAccessMs = System.currentTimeMillis();
+        return plagiarismService.compareTile(job.fingerprints, tile, job.structureMetric);
+    }
+
+    /**
+     * 释放任务数据
+     * @param jobId 任务ID
+     */
+    public void releaseJob(String jobId) {
+        jobs.remove(jobId);
+    }
+
+    /**
+     * 清理超过TTL未被访问的任务，协调节点异常退出、未释放任务时由此回收内存
+     */
+    @Scheduled(fixedDelayString = "${plagiarism.cluster.job-ttl-ms:600000}",
+            initialDelayString = "${plagiarism.cluster.job-ttl-ms:600000}")
+    public void evictExpiredJobs() {
+        long now = System.currentTimeMillis();
+        jobs.values().removeIf(job -> now - job.lastAccessMs > clusterConfig.getJobTtlMs());
+    }
+
+    /**
+     * 获取工作节点当前保留的任务数
+     * @return 任务数
+     */
+    public int getJobCount() {
+        return jobs.size();
+    }
+
+    private static class WorkerJob {
+        private final List<CodeFingerprint> fingerprints;
+        private final StructureMetric structureMetric;
+        private volatile long lastAccessMs;
+
+        WorkerJob(List<CodeFingerprint> fingerprints, StructureMetric structureMetric, long lastAccessMs) {
+            this.fingerprints = fingerprints;
+            this.structureMetric = structureMetric;
+            this.lastAccessMs = lastAccessMs;
+        }
+    }
+}
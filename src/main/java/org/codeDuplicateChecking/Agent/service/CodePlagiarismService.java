@@ -1,13 +1,27 @@
 package org.codeDuplicateChecking.Agent.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.codeDuplicateChecking.Agent.config.ClusterConfig;
+import org.codeDuplicateChecking.Agent.config.MetricsConfig;
+import org.codeDuplicateChecking.Agent.config.ScoringConfig;
+import org.codeDuplicateChecking.Agent.jfr.EngineEvents;
 import org.codeDuplicateChecking.Agent.model.BatchPlagiarismResult;
 import org.codeDuplicateChecking.Agent.model.CodeBlock;
+import org.codeDuplicateChecking.Agent.model.CodeFingerprint;
+import org.codeDuplicateChecking.Agent.model.OneToManyResult;
+import org.codeDuplicateChecking.Agent.model.PairTileRequest;
+import org.codeDuplicateChecking.Agent.model.PairTileResult;
+import org.codeDuplicateChecking.Agent.model.PartitionStatistics;
 import org.codeDuplicateChecking.Agent.model.PlagiarismResult;
 import org.codeDuplicateChecking.Agent.utils.CodePlagiarismUtils;
+import org.codeDuplicateChecking.Agent.utils.StructureMetric;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 /**
@@ -19,13 +33,76 @@ public class CodePlagiarismService {
     // 默认的抄袭阈值
     private static final double DEFAULT_THRESHOLD = 0.7;
     
+    // 相似度算法版本，修改评分算法时需要同步修改，使已缓存的查重结果失效
+    private static final String SCORING_VERSION = "processed-score-v1";
+    
     // 线程池配置
-    private final ExecutorService executorService;
+    private final ThreadPoolExecutor executorService;
+    
+    // 分布式查重协调器，未配置工作节点时为null
+    private final ClusterCoordinator clusterCoordinator;
+    
+    // 是否记录每对代码各项相似度算法的耗时
+    private final boolean pairStageTimers;
+    
+    // 结构相似度算法
+    private final StructureMetric structureMetric;
+    
+    // 运行指标
+    private final MetricsRegistry.Timer preprocessTimer;
+    private final MetricsRegistry.Timer analysisTextTimer;
+    private final MetricsRegistry.Timer[] scoreMetricTimers;
+    private final MetricsRegistry.Timer batchTimer;
+    private final MetricsRegistry.Counter plagiarismPairCounter;
+    private final MetricsRegistry.Counter cleanPairCounter;
+    private final MetricsRegistry.Counter prunedPairCounter;
     
     public CodePlagiarismService() {
+        this(null, null);
+    }
+    
+    public CodePlagiarismService(ClusterConfig clusterConfig, ObjectMapper objectMapper) {
+        this(clusterConfig, objectMapper, new MetricsConfig(), new MetricsRegistry(new MetricsConfig()));
+    }
+    
+    public CodePlagiarismService(ClusterConfig clusterConfig, ObjectMapper objectMapper,
+                                 MetricsConfig metricsConfig, MetricsRegistry metrics) {
+        this(clusterConfig, objectMapper, metricsConfig, metrics, new ScoringConfig());
+    }
+    
+    @Autowired
+    public CodePlagiarismService(ClusterConfig clusterConfig, ObjectMapper objectMapper,
+                                 MetricsConfig metricsConfig, MetricsRegistry metrics, ScoringConfig scoringConfig) {
         // 初始化线程池，使用CPU核心数的线程
-        int processors = Runtime.getRuntime().availableProcessors();
-        this.executorService = Executors.newFixedThreadPool(Math.max(2, processors));
+        int processors = Math.max(2, Runtime.getRuntime().availableProcessors());
+        this.executorService = new ThreadPoolExecutor(processors, processors, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>());
+        this.clusterCoordinator = (clusterConfig != null && clusterConfig.isEnabled() && objectMapper != null)
+                ? new ClusterCoordinator(clusterConfig, objectMapper, this)
+                : null;
+        
+        this.pairStageTimers = metricsConfig.isEnabled() && metricsConfig.isPairStageTimers();
+        this.structureMetric = scoringConfig.getStructureMetric() != null
+                ? scoringConfig.getStructureMetric() : StructureMetric.SEQUENCE;
+        this.preprocessTimer = metrics.stageTimer("preprocess");
+        this.analysisTextTimer = metrics.stageTimer("analysis_text");
+        this.scoreMetricTimers = new MetricsRegistry.Timer[CodePlagiarismUtils.SCORE_METRICS.length];
+        for (int i = 0; i < scoreMetricTimers.length; i++) {
+            scoreMetricTimers[i] = metrics.stageTimer(CodePlagiarismUtils.SCORE_METRICS[i]);
+        }
+        this.batchTimer = metrics.timer("plagiarism_batch_seconds", "批量查重的总耗时（秒）");
+        this.plagiarismPairCounter = metrics.counter("plagiarism_pairs_total", "已比较的代码对数", "result", "plagiarism");
+        this.cleanPairCounter = metrics.counter("plagiarism_pairs_total", "已比较的代码对数", "result", "clean");
+        this.prunedPairCounter = metrics.counter("plagiarism_pairs_pruned_total",
+                "因相似度上界低于阈值而跳过完整计算的代码对数");
+        
+        metrics.gauge("plagiarism_executor_queue_depth", "查重线程池中排队的任务数",
+                () -> executorService.getQueue().size());
+        metrics.gauge("plagiarism_executor_active_threads", "查重线程池中正在执行任务的线程数",
+                executorService::getActiveCount);
+        metrics.gauge("plagiarism_executor_pool_size", "查重线程池的线程数", executorService::getPoolSize);
+        metrics.gauge("plagiarism_executor_completed_tasks", "查重线程池累计完成的任务数",
+                executorService::getCompletedTaskCount);
     }
     
     /**
@@ -36,99 +113,567 @@ public class CodePlagiarismService {
      * @return 查重结果
      */
     public PlagiarismResult compareTwoCodeBlocks(CodeBlock codeBlock1, CodeBlock codeBlock2, double threshold) {
+        return compareTwoCodeBlocks(codeBlock1, codeBlock2, threshold, null);
+    }
+    
+    /**
+     * 比较两个代码块的相似度，并记录分阶段耗时
+     * @param codeBlock1 第一个代码块
+     * @param codeBlock2 第二个代码块
+     * @param threshold 抄袭阈值
+     * @param profiler 分阶段耗时收集器，为null时不记录
+     * @return 查重结果，profiler不为null时附带分阶段耗时
+     */
+    public PlagiarismResult compareTwoCodeBlocks(CodeBlock codeBlock1, CodeBlock codeBlock2, double threshold,
+                                                 ComparisonProfiler profiler) {
+        return compareFingerprints(createFingerprint(codeBlock1, profiler), createFingerprint(codeBlock2, profiler),
+                threshold, profiler);
+    }
+    
+    /**
+     * 比较两个代码指纹的相似度
+     * @param fingerprint1 第一个代码指纹
+     * @param fingerprint2 第二个代码指纹
+     * @param threshold 抄袭阈值
+     * @return 查重结果
+     */
+    public PlagiarismResult compareFingerprints(CodeFingerprint fingerprint1, CodeFingerprint fingerprint2, double threshold) {
+        return comparePair(fingerprint1, fingerprint2, threshold, structureMetric, null);
+    }
+    
+    /**
+     * 比较两个代码指纹的相似度，并记录分阶段耗时
+     * @param fingerprint1 第一个代码指纹
+     * @param fingerprint2 第二个代码指纹
+     * @param threshold 抄袭阈值
+     * @param profiler 分阶段耗时收集器，为null时不记录
+     * @return 查重结果，profiler不为null时附带分阶段耗时
+     */
+    public PlagiarismResult compareFingerprints(CodeFingerprint fingerprint1, CodeFingerprint fingerprint2,
+                                                double threshold, ComparisonProfiler profiler) {
+        PlagiarismResult result = comparePair(fingerprint1, fingerprint2, threshold, structureMetric, profiler);
+        if (profiler != null) {
+            result.setProfile(profiler.toProfile());
+        }
+        return result;
+    }
+    
+    /**
+     * 比较一个代码对，批量查重中的每一对都经过这里
+     * @param metric 结构相似度算法，分布式查重的工作节点使用协调节点指定的算法
+     */
+    private PlagiarismResult comparePair(CodeFingerprint fingerprint1, CodeFingerprint fingerprint2, double threshold,
+                                         StructureMetric metric, ComparisonProfiler profiler) {
         // 确保阈值在有效范围内
         double validThreshold = Math.max(0.0, Math.min(1.0, threshold));
         if (validThreshold == 0.0) {
             validThreshold = DEFAULT_THRESHOLD;
         }
         
-        // 计算相似度
-        double similarityScore = CodePlagiarismUtils.calculatePlagiarismScore(
-                codeBlock1.getCode(), codeBlock2.getCode());
+        // 计算相似度，开启分项计时、分阶段耗时或JFR录制时记录各项算法的耗时
+        Object pairEvent = EngineEvents.beginPair();
+        boolean timed = pairStageTimers || profiler != null;
+        long[] metricNanos = timed || pairEvent != null ? new long[CodePlagiarismUtils.SCORE_METRICS.length] : null;
+        double similarityScore = CodePlagiarismUtils.calculateProcessedPlagiarismScore(
+                fingerprint1.getProcessedCode(), fingerprint2.getProcessedCode(), metricNanos, metric);
+        EngineEvents.commitPair(pairEvent, fingerprint1.getId(), fingerprint2.getId(),
+                fingerprint1.getProcessedCode().length(), fingerprint2.getProcessedCode().length(),
+                metricNanos, similarityScore);
         
         // 判断是否为抄袭
         boolean isPlagiarism = similarityScore >= validThreshold;
+        (isPlagiarism ? plagiarismPairCounter : cleanPairCounter).increment();
         
         // 生成分析说明
-        String analysis = generateAnalysis(similarityScore, validThreshold, codeBlock1.getLanguage());
+        long analysisStart = timed ? System.nanoTime() : 0;
+        String analysis = generateAnalysis(similarityScore, validThreshold, fingerprint1.getLanguage());
+        if (timed) {
+            long analysisNanos = System.nanoTime() - analysisStart;
+            if (pairStageTimers) {
+                for (int i = 0; i < metricNanos.length; i++) {
+                    scoreMetricTimers[i].record(metricNanos[i]);
+                }
+                analysisTextTimer.record(analysisNanos);
+            }
+            if (profiler != null) {
+                profiler.recordPair(fingerprint1, fingerprint2, metricNanos, analysisNanos);
+            }
+        }
         
         // 返回查重结果
         return new PlagiarismResult(
-                codeBlock1.getId(), codeBlock1.getAuthor(), codeBlock1.getTitle(),
-                codeBlock2.getId(), codeBlock2.getAuthor(), codeBlock2.getTitle(),
+                fingerprint1.getId(), fingerprint1.getAuthor(), fingerprint1.getTitle(),
+                fingerprint2.getId(), fingerprint2.getAuthor(), fingerprint2.getTitle(),
                 similarityScore, isPlagiarism, validThreshold, analysis
         );
     }
     
     /**
-     * 批量比较多个代码块之间的相似度
+     * 对代码块进行预处理，生成代码指纹
+     * @param codeBlock 代码块
+     * @return 代码指纹
+     */
+    public CodeFingerprint createFingerprint(CodeBlock codeBlock) {
+        return createFingerprint(codeBlock, null);
+    }
+    
+    /**
+     * 对代码块进行预处理，生成代码指纹，并记录预处理耗时
+     * @param codeBlock 代码块
+     * @param profiler 分阶段耗时收集器，为null时不记录
+     * @return 代码指纹
+     */
+    public CodeFingerprint createFingerprint(CodeBlock codeBlock, ComparisonProfiler profiler) {
+        long startNanos = System.nanoTime();
+        String processedCode = CodePlagiarismUtils.preprocessCode(codeBlock.getCode());
+        long elapsedNanos = System.nanoTime() - startNanos;
+        preprocessTimer.record(elapsedNanos);
+        if (profiler != null) {
+            profiler.recordPreprocess(elapsedNanos);
+        }
+        return new CodeFingerprint(
+                codeBlock.getId(), codeBlock.getAuthor(), codeBlock.getTitle(), codeBlock.getLanguage(),
+                codeBlock.getProblemId(), processedCode
+        );
+    }
+    
+    /**
+     * 在查重线程池中异步预处理单个代码块
+     * @param codeBlock 代码块
+     * @return 代码指纹的Future
+     */
+    public CompletableFuture<CodeFingerprint> createFingerprintAsync(CodeBlock codeBlock) {
+        return createFingerprintAsync(codeBlock, null);
+    }
+    
+    /**
+     * 在查重线程池中异步预处理单个代码块，并记录排队和预处理耗时
+     * @param codeBlock 代码块
+     * @param profiler 分阶段耗时收集器，为null时不记录
+     * @return 代码指纹的Future
+     */
+    public CompletableFuture<CodeFingerprint> createFingerprintAsync(CodeBlock codeBlock, ComparisonProfiler profiler) {
+        return supplyAsync(() -> createFingerprint(codeBlock, profiler), profiler);
+    }
+    
+    /**
+     * 并行预处理一组代码块，每个代码块只预处理一次
+     * @param codeBlocks 代码块列表
+     * @return 与输入顺序一致的代码指纹列表
+     */
+    public List<CodeFingerprint> createFingerprints(List<CodeBlock> codeBlocks) {
+        return createFingerprints(codeBlocks, null);
+    }
+    
+    private List<CodeFingerprint> createFingerprints(List<CodeBlock> codeBlocks, ComparisonProfiler profiler) {
+        List<CompletableFuture<CodeFingerprint>> futures = codeBlocks.stream()
+                .map(codeBlock -> createFingerprintAsync(codeBlock, profiler))
+                .collect(Collectors.toList());
+        return futures.stream().map(CompletableFuture::join).collect(Collectors.toList());
+    }
+    
+    /**
+     * 将任务提交到查重线程池，profiler不为null时记录任务的排队时间
+     */
+    private <T> CompletableFuture<T> supplyAsync(Supplier<T> task, ComparisonProfiler profiler) {
+        if (profiler == null) {
+            return CompletableFuture.supplyAsync(task, executorService);
+        }
+        long submittedNanos = System.nanoTime();
+        return CompletableFuture.supplyAsync(() -> {
+            profiler.recordQueueWait(System.nanoTime() - submittedNanos);
+            return task.get();
+        }, executorService);
+    }
+    
+    /**
+     * 批量比较多个代码块之间的相似度，按题目和语言族分区
      * @param codeBlocks 代码块列表
      * @param threshold 抄袭阈值
      * @return 批量查重结果
      */
     public BatchPlagiarismResult compareMultipleCodeBlocks(List<CodeBlock> codeBlocks, double threshold) {
+        return compareMultipleCodeBlocks(codeBlocks, threshold, true);
+    }
+    
+    /**
+     * 批量比较多个代码块之间的相似度<br>
+     * 代码块按（题目ID，语言族）划分为分区，只比较同一分区内的代码对，各分区并发计算
+     * @param codeBlocks 代码块列表
+     * @param threshold 抄袭阈值
+     * @param partitionByLanguage 是否按语言族分区，为false时不同语言的代码也会互相比较
+     * @return 批量查重结果
+     */
+    public BatchPlagiarismResult compareMultipleCodeBlocks(List<CodeBlock> codeBlocks, double threshold,
+                                                           boolean partitionByLanguage) {
+        return compareMultipleCodeBlocks(codeBlocks, threshold, partitionByLanguage, null);
+    }
+    
+    /**
+     * 批量比较多个代码块之间的相似度，并记录分阶段耗时
+     * @param codeBlocks 代码块列表
+     * @param threshold 抄袭阈值
+     * @param partitionByLanguage 是否按语言族分区
+     * @param profiler 分阶段耗时收集器，为null时不记录
+     * @return 批量查重结果，profiler不为null时附带分阶段耗时
+     */
+    public BatchPlagiarismResult compareMultipleCodeBlocks(List<CodeBlock> codeBlocks, double threshold,
+                                                           boolean partitionByLanguage, ComparisonProfiler profiler) {
         long startTime = System.currentTimeMillis();
         
+        // 确保代码块列表不为空且至少有两个代码块
+        if (codeBlocks == null || codeBlocks.size() < 2) {
+            return withProfile(buildBatchResult(new ArrayList<>(), codeBlocks != null ? codeBlocks.size() : 0,
+                    0, 0, 0.0, 0.0, threshold, startTime), profiler);
+        }
+        
+        // 每个代码块只预处理一次
+        return compareMultipleFingerprints(createFingerprints(codeBlocks, profiler), threshold, partitionByLanguage,
+                startTime, profiler);
+    }
+    
+    /**
+     * 批量比较已完成预处理的代码指纹，用于流式读取的批量请求，比较时不再需要原始代码
+     * @param fingerprints 代码指纹列表
+     * @param threshold 抄袭阈值
+     * @param partitionByLanguage 是否按语言族分区
+     * @return 批量查重结果
+     */
+    public BatchPlagiarismResult compareMultipleFingerprints(List<CodeFingerprint> fingerprints, double threshold,
+                                                             boolean partitionByLanguage) {
+        return compareMultipleFingerprints(fingerprints, threshold, partitionByLanguage, null);
+    }
+    
+    /**
+     * 批量比较已完成预处理的代码指纹，并记录分阶段耗时
+     * @param fingerprints 代码指纹列表
+     * @param threshold 抄袭阈值
+     * @param partitionByLanguage 是否按语言族分区
+     * @param profiler 分阶段耗时收集器，为null时不记录，预处理耗时由生成指纹的一方记录
+     * @return 批量查重结果，profiler不为null时附带分阶段耗时
+     */
+    public BatchPlagiarismResult compareMultipleFingerprints(List<CodeFingerprint> fingerprints, double threshold,
+                                                             boolean partitionByLanguage, ComparisonProfiler profiler) {
+        long startTime = System.currentTimeMillis();
+        if (fingerprints == null || fingerprints.size() < 2) {
+            return withProfile(buildBatchResult(new ArrayList<>(), fingerprints != null ? fingerprints.size() : 0,
+                    0, 0, 0.0, 0.0, threshold, startTime), profiler);
+        }
+        return compareMultipleFingerprints(fingerprints, threshold, partitionByLanguage, startTime, profiler);
+    }
+    
+    private BatchPlagiarismResult compareMultipleFingerprints(List<CodeFingerprint> fingerprints, double threshold,
+                                                              boolean partitionByLanguage, long startTime,
+                                                              ComparisonProfiler profiler) {
+        Object batchEvent = EngineEvents.beginBatch();
+        
+        // 按题目和语言分区
+        Map<String, List<CodeFingerprint>> partitions = partitionFingerprints(fingerprints, partitionByLanguage);
+        
+        // 本地分区提交到线程池并发计算，大分区分发到工作节点进行分布式查重，所有分区同时进行，不等待
+        Map<String, CompletableFuture<PairTileResult>> partitionFutures = new LinkedHashMap<>();
+        for (Map.Entry<String, List<CodeFingerprint>> entry : partitions.entrySet()) {
+            int size = entry.getValue().size();
+            if (clusterCoordinator != null && clusterCoordinator.shouldDistribute(size)) {
+                partitionFutures.put(entry.getKey(), clusterCoordinator.executeAsync(entry.getValue(), threshold)
+                        .thenApply(tiles -> mergeTileResults(tiles, clusterCoordinator.getTopK())));
+            } else {
+                partitionFutures.put(entry.getKey(), compareTileAsync(entry.getValue(),
+                        new PairTileRequest(0, 0, size, 0, size, threshold, 0), structureMetric, profiler));
+            }
+        }
+        
+        // 等待所有比较完成并收集结果
+        Map<String, PairTileResult> partitionResults = new HashMap<>();
+        try {
+            for (Map.Entry<String, CompletableFuture<PairTileResult>> entry : partitionFutures.entrySet()) {
+                partitionResults.put(entry.getKey(), entry.getValue().get());
+            }
+        } catch (InterruptedException | ExecutionException e) {
+            // 处理异常
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Error comparing code blocks in parallel", e);
+        }
+        
+        // 按分区原有顺序汇总统计
         List<PlagiarismResult> results = new ArrayList<>();
+        List<PartitionStatistics> partitionStatistics = new ArrayList<>();
         int totalPairs = 0;
         int plagiarismPairs = 0;
         double maxSimilarityScore = 0.0;
         double totalSimilarityScore = 0.0;
         
-        // 确保代码块列表不为空且至少有两个代码块
-        if (codeBlocks != null && codeBlocks.size() >= 2) {
-            // 生成所有唯一的代码块对组合
-            List<CompletableFuture<PlagiarismResult>> futures = new ArrayList<>();
-            
-            for (int i = 0; i < codeBlocks.size(); i++) {
-                for (int j = i + 1; j < codeBlocks.size(); j++) {
-                    final CodeBlock block1 = codeBlocks.get(i);
-                    final CodeBlock block2 = codeBlocks.get(j);
-                    
-                    // 异步执行每对代码块的比较
-                    CompletableFuture<PlagiarismResult> future = CompletableFuture.supplyAsync(() -> {
-                        return compareTwoCodeBlocks(block1, block2, threshold);
-                    }, executorService);
-                    
-                    futures.add(future);
+        for (Map.Entry<String, List<CodeFingerprint>> entry : partitions.entrySet()) {
+            PairTileResult partitionResult = partitionResults.get(entry.getKey());
+            CodeFingerprint first = entry.getValue().get(0);
+            results.addAll(partitionResult.getResults());
+            totalPairs += partitionResult.getPairCount();
+            plagiarismPairs += partitionResult.getPlagiarismPairs();
+            totalSimilarityScore += partitionResult.getTotalSimilarityScore();
+            maxSimilarityScore = Math.max(maxSimilarityScore, partitionResult.getMaxSimilarityScore());
+            partitionStatistics.add(new PartitionStatistics(
+                    first.getProblemId(),
+                    partitionByLanguage ? CodePlagiarismUtils.normalizeLanguage(first.getLanguage()) : "",
+                    entry.getValue().size(), partitionResult.getPairCount(), partitionResult.getPlagiarismPairs(),
+                    partitionResult.getMaxSimilarityScore(),
+                    partitionResult.getPairCount() > 0
+                            ? partitionResult.getTotalSimilarityScore() / partitionResult.getPairCount() : 0.0));
+        }
+        
+        BatchPlagiarismResult batchResult = buildBatchResult(results, fingerprints.size(), totalPairs, plagiarismPairs,
+                maxSimilarityScore, totalSimilarityScore, threshold, startTime);
+        long flatPairs = (long) fingerprints.size() * (fingerprints.size() - 1) / 2;
+        int pairsInPartitions = partitions.values().stream()
+                .mapToInt(partition -> partition.size() * (partition.size() - 1) / 2)
+                .sum();
+        batchResult.setPartitionStatistics(partitionStatistics);
+        batchResult.setSkippedPairs((int) (flatPairs - pairsInPartitions));
+        if (partitions.size() > 1) {
+            batchResult.setStatistics(batchResult.getStatistics() + String.format(
+                    "；共 %d 个题目/语言分区，跳过 %d 对不同题目或语言的代码块",
+                    partitions.size(), batchResult.getSkippedPairs()));
+        }
+        batchTimer.record(TimeUnit.MILLISECONDS.toNanos(batchResult.getProcessingTimeMs()));
+        EngineEvents.commitBatch(batchEvent, "batch", fingerprints.size(), partitions.size(), totalPairs,
+                batchResult.getSkippedPairs(), plagiarismPairs, batchResult.getProcessingTimeMs());
+        return withProfile(batchResult, profiler);
+    }
+    
+    private static BatchPlagiarismResult withProfile(BatchPlagiarismResult batchResult, ComparisonProfiler profiler) {
+        if (profiler != null) {
+            batchResult.setProfile(profiler.toProfile());
+        }
+        return batchResult;
+    }
+    
+    /**
+     * 将一段待查代码与一组参考代码逐一比较<br>
+     * 待查代码只预处理一次，参考代码在线程池中并行预处理和比较，不比较参考代码之间的相似度。
+     * 先用长度和结构特征数估计相似度上界，上界低于阈值的参考代码不再做完整计算
+     * @param query 待查代码块
+     * @param references 参考代码块列表
+     * @param threshold 抄袭阈值
+     * @param partitionByLanguage 是否只比较同一语言族的参考代码，题目ID不同的参考代码总是跳过
+     * @param topK 只返回相似度最高的前K个匹配，小于等于0表示返回全部
+     * @return 按相似度从高到低排列的匹配结果
+     */
+    public OneToManyResult compareOneToMany(CodeBlock query, List<CodeBlock> references, double threshold,
+                                            boolean partitionByLanguage, int topK) {
+        long startTime = System.currentTimeMillis();
+        Object batchEvent = EngineEvents.beginBatch();
+        // 确保阈值在有效范围内，与compareFingerprints一致
+        double validThreshold = Math.max(0.0, Math.min(1.0, threshold));
+        if (validThreshold == 0.0) {
+            validThreshold = DEFAULT_THRESHOLD;
+        }
+        final double pruneThreshold = validThreshold;
+        
+        CodeFingerprint queryFingerprint = createFingerprint(query);
+        int queryLength = queryFingerprint.getProcessedCode().length();
+        // 子树哈希相似度的上界不依赖结构特征数，无需统计
+        boolean countFeatures = structureMetric == StructureMetric.SEQUENCE;
+        int queryFeatures = countFeatures
+                ? CodePlagiarismUtils.countStructureFeatures(queryFingerprint.getProcessedCode()) : 0;
+        String queryKey = partitionKey(query.getProblemId(), query.getLanguage(), partitionByLanguage);
+        
+        int totalReferences = references != null ? references.size() : 0;
+        int skippedReferences = 0;
+        AtomicInteger prunedReferences = new AtomicInteger();
+        List<CompletableFuture<PlagiarismResult>> futures = new ArrayList<>();
+        for (int i = 0; i < totalReferences; i++) {
+            CodeBlock reference = references.get(i);
+            if (reference == null || !queryKey.equals(
+                    partitionKey(reference.getProblemId(), reference.getLanguage(), partitionByLanguage))) {
+                skippedReferences++;
+                continue;
+            }
+            futures.add(CompletableFuture.supplyAsync(() -> {
+                CodeFingerprint fingerprint = createFingerprint(reference);
+                String processedCode = fingerprint.getProcessedCode();
+                double upperBound = CodePlagiarismUtils.calculateProcessedScoreUpperBound(queryLength,
+                        processedCode.length(), queryFeatures,
+                        countFeatures ? CodePlagiarismUtils.countStructureFeatures(processedCode) : 0, structureMetric);
+                if (upperBound < pruneThreshold) {
+                    prunedReferences.incrementAndGet();
+                    prunedPairCounter.increment();
+                    return null;
+                }
+                return compareFingerprints(queryFingerprint, fingerprint, pruneThreshold);
+            }, executorService));
+        }
+        
+        List<PlagiarismResult> matches = new ArrayList<>();
+        int comparedReferences = 0;
+        double maxSimilarityScore = 0.0;
+        for (CompletableFuture<PlagiarismResult> future : futures) {
+            PlagiarismResult result = future.join();
+            if (result == null) {
+                continue;
+            }
+            comparedReferences++;
+            maxSimilarityScore = Math.max(maxSimilarityScore, result.getSimilarityScore());
+            if (result.isPlagiarism()) {
+                matches.add(result);
+            }
+        }
+        
+        int matchCount = matches.size();
+        matches.sort(Comparator.comparingDouble(PlagiarismResult::getSimilarityScore).reversed());
+        if (topK > 0 && matches.size() > topK) {
+            matches = new ArrayList<>(matches.subList(0, topK));
+        }
+        
+        long elapsedMs = System.currentTimeMillis() - startTime;
+        EngineEvents.commitBatch(batchEvent, "one-to-many", totalReferences + 1, 1, comparedReferences,
+                prunedReferences.get() + skippedReferences, matchCount, elapsedMs);
+        return new OneToManyResult(query.getId(), matches, totalReferences, comparedReferences,
+                prunedReferences.get(), skippedReferences, matchCount, maxSimilarityScore, validThreshold,
+                elapsedMs);
+    }
+    
+    /**
+     * 按（题目ID，语言族）对代码指纹分区，保持代码块的原有顺序
+     * @param fingerprints 代码指纹列表
+     * @param partitionByLanguage 是否按语言族分区
+     * @return 分区键到分区内代码指纹的映射
+     */
+    private Map<String, List<CodeFingerprint>> partitionFingerprints(List<CodeFingerprint> fingerprints,
+                                                                     boolean partitionByLanguage) {
+        Map<String, List<CodeFingerprint>> partitions = new LinkedHashMap<>();
+        for (CodeFingerprint fingerprint : fingerprints) {
+            String key = partitionKey(fingerprint.getProblemId(), fingerprint.getLanguage(), partitionByLanguage);
+            partitions.computeIfAbsent(key, k -> new ArrayList<>()).add(fingerprint);
+        }
+        return partitions;
+    }
+    
+    /**
+     * 计算代码块所属的分区键，同一分区内的代码才互相比较
+     */
+    private static String partitionKey(String problemId, String language, boolean partitionByLanguage) {
+        return (problemId != null ? problemId : "") + "::"
+                + (partitionByLanguage ? CodePlagiarismUtils.normalizeLanguage(language) : "");
+    }
+    
+    /**
+     * 计算代码对矩阵中的一个分块，分布式查重的工作节点和协调节点本地兜底都使用该方法
+     * @param fingerprints 本次任务的全部代码指纹
+     * @param tile 分块范围
+     * @return 分块计算结果
+     */
+    public PairTileResult compareTile(List<CodeFingerprint> fingerprints, PairTileRequest tile) {
+        return compareTile(fingerprints, tile, structureMetric);
+    }
+    
+    /**
+     * 使用指定的结构相似度算法计算代码对矩阵中的一个分块，工作节点按协调节点的评分配置计算
+     * @param fingerprints 本次任务的全部代码指纹
+     * @param tile 分块范围
+     * @param metric 结构相似度算法
+     * @return 分块计算结果
+     */
+    public PairTileResult compareTile(List<CodeFingerprint> fingerprints, PairTileRequest tile, StructureMetric metric) {
+        return compareTileAsync(fingerprints, tile, metric, null).join();
+    }
+    
+    /**
+     * 异步计算代码对矩阵中的一个分块，按行拆分为多个任务提交到线程池
+     * @param fingerprints 本次任务的全部代码指纹
+     * @param tile 分块范围
+     * @param metric 结构相似度算法
+     * @param profiler 分阶段耗时收集器，为null时不记录
+     * @return 分块计算结果的Future
+     */
+    private CompletableFuture<PairTileResult> compareTileAsync(List<CodeFingerprint> fingerprints, PairTileRequest tile,
+                                                               StructureMetric metric, ComparisonProfiler profiler) {
+        int rowEnd = Math.min(tile.getRowEnd(), fingerprints.size());
+        int colEnd = Math.min(tile.getColEnd(), fingerprints.size());
+        
+        // 按行拆分为多个任务并行计算
+        List<CompletableFuture<List<PlagiarismResult>>> futures = new ArrayList<>();
+        for (int i = tile.getRowStart(); i < rowEnd; i++) {
+            final int row = i;
+            futures.add(supplyAsync(() -> {
+                List<PlagiarismResult> rowResults = new ArrayList<>();
+                for (int j = Math.max(tile.getColStart(), row + 1); j < colEnd; j++) {
+                    rowResults.add(comparePair(fingerprints.get(row), fingerprints.get(j), tile.getThreshold(),
+                            metric, profiler));
                 }
+                return rowResults;
+            }, profiler));
+        }
+        
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).thenApply(v -> {
+            List<PlagiarismResult> results = new ArrayList<>();
+            for (CompletableFuture<List<PlagiarismResult>> future : futures) {
+                results.addAll(future.join());
             }
             
-            // 等待所有比较完成并收集结果
-            try {
-                CompletableFuture<Void> allOf = CompletableFuture.allOf(
-                        futures.toArray(new CompletableFuture[0]));
-                
-                // 获取所有结果
-                List<PlagiarismResult> completedResults = allOf.thenApply(v -> 
-                        futures.stream()
-                                .map(CompletableFuture::join)
-                                .collect(Collectors.toList())
-                ).get();
-                
-                results.addAll(completedResults);
-                
-                // 统计结果
-                totalPairs = completedResults.size();
-                
-                for (PlagiarismResult result : completedResults) {
-                    totalSimilarityScore += result.getSimilarityScore();
-                    
-                    if (result.getSimilarityScore() > maxSimilarityScore) {
-                        maxSimilarityScore = result.getSimilarityScore();
-                    }
-                    
-                    if (result.isPlagiarism()) {
-                        plagiarismPairs++;
-                    }
+            int plagiarismPairs = 0;
+            double totalSimilarityScore = 0.0;
+            double maxSimilarityScore = 0.0;
+            for (PlagiarismResult result : results) {
+                totalSimilarityScore += result.getSimilarityScore();
+                maxSimilarityScore = Math.max(maxSimilarityScore, result.getSimilarityScore());
+                if (result.isPlagiarism()) {
+                    plagiarismPairs++;
                 }
-            } catch (InterruptedException | ExecutionException e) {
-                // 处理异常
-                Thread.currentThread().interrupt();
-                throw new RuntimeException("Error comparing code blocks in parallel", e);
             }
+            
+            int pairCount = results.size();
+            return new PairTileResult(tile.getTileId(), selectTopK(results, tile.getTopK()), pairCount,
+                    plagiarismPairs, totalSimilarityScore, maxSimilarityScore);
+        });
+    }
+    
+    /**
+     * 合并各分块的计算结果
+     * @param tileResults 分块结果列表
+     * @param topK 保留的前K个结果，小于等于0表示保留全部
+     * @return 合并后的结果，统计数据覆盖全部分块
+     */
+    private PairTileResult mergeTileResults(List<PairTileResult> tileResults, int topK) {
+        List<PlagiarismResult> results = new ArrayList<>();
+        int totalPairs = 0;
+        int plagiarismPairs = 0;
+        double maxSimilarityScore = 0.0;
+        double totalSimilarityScore = 0.0;
+        
+        for (PairTileResult tileResult : tileResults) {
+            results.addAll(tileResult.getResults());
+            totalPairs += tileResult.getPairCount();
+            plagiarismPairs += tileResult.getPlagiarismPairs();
+            totalSimilarityScore += tileResult.getTotalSimilarityScore();
+            maxSimilarityScore = Math.max(maxSimilarityScore, tileResult.getMaxSimilarityScore());
         }
         
+        return new PairTileResult(0, selectTopK(results, topK), totalPairs, plagiarismPairs,
+                totalSimilarityScore, maxSimilarityScore);
+    }
+    
+    /**
+     * 按相似度从高到低选出前K个结果
+     * @param results 查重结果列表
+     * @param topK 保留的结果数，小于等于0表示保留全部（不排序）
+     * @return 选出的结果列表
+     */
+    private List<PlagiarismResult> selectTopK(List<PlagiarismResult> results, int topK) {
+        if (topK <= 0) {
+            return results;
+        }
+        return results.stream()
+                .sorted(Comparator.comparingDouble(PlagiarismResult::getSimilarityScore).reversed())
+                .limit(topK)
+                .collect(Collectors.toList());
+    }
+    
+    /**
+     * 根据统计数据构建批量查重结果
+     */
+    private BatchPlagiarismResult buildBatchResult(List<PlagiarismResult> results, int totalCodeBlocks,
+                                                   int totalPairs, int plagiarismPairs,
+                                                   double maxSimilarityScore, double totalSimilarityScore,
+                                                   double threshold, long startTime) {
         // 计算平均相似度
         double avgSimilarityScore = totalPairs > 0 ? totalSimilarityScore / totalPairs : 0.0;
         
@@ -143,10 +688,12 @@ public class CodePlagiarismService {
         long processingTimeMs = System.currentTimeMillis() - startTime;
         
         // 返回批量查重结果
-        return new BatchPlagiarismResult(
+        BatchPlagiarismResult batchResult = new BatchPlagiarismResult(
                 results, totalPairs, plagiarismPairs, maxSimilarityScore,
                 avgSimilarityScore, threshold, processingTimeMs, statistics
         );
+        batchResult.setTotalCodeBlocks(totalCodeBlocks);
+        return batchResult;
     }
     
     /**
@@ -189,10 +736,31 @@ public class CodePlagiarismService {
         return analysis.toString();
     }
     
+    /**
+     * 获取结构相似度算法，分布式查重时随代码指纹下发给工作节点
+     * @return 结构相似度算法
+     */
+    public StructureMetric getStructureMetric() {
+        return structureMetric;
+    }
+    
+    /**
+     * 评分配置签名，作为查重结果缓存键的一部分<br>
+     * 修改相似度算法或影响结果的配置（如分布式查重的topK）时签名随之变化，旧的缓存结果不再命中
+     * @return 评分配置签名
+     */
+    public String getScoringSignature() {
+        return SCORING_VERSION + ";structure=" + structureMetric.name().toLowerCase(Locale.ROOT)
+                + ";topK=" + (clusterCoordinator != null ? clusterCoordinator.getTopK() : 0);
+    }
+    
     /**
      * 关闭线程池
      */
     public void shutdown() {
+        if (clusterCoordinator != null) {
+            clusterCoordinator.shutdown();
+        }
         if (executorService != null && !executorService.isTerminated()) {
             executorService.shutdown();
             try {
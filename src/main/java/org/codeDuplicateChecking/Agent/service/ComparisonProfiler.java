@@ -0,0 +1,170 @@
+package org.codeDuplicateChecking.Agent.service;
+
+import org.codeDuplicateChecking.Agent.model.CodeFingerprint;
+import org.codeDuplicateChecking.Agent.model.ComparisonProfile;
+import org.codeDuplicateChecking.Agent.utils.CodePlagiarismUtils;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 单次查重请求的分阶段耗时收集器<br>
+ * 请求指定profile=true时创建并传给查重服务，各线程并发记录；未开启时查重服务收到null，不做任何记录
+ */
+public class ComparisonProfiler {
+
+    // 保留的最慢代码对数
+    static final int SLOWEST_PAIRS = 10;
+
+    private final LongAdder preprocessCount = new LongAdder();
+    private final LongAdder preprocessNanos = new LongAdder();
+    private final LongAdder pairCount = new LongAdder();
+    private final LongAdder[] metricNanos = new LongAdder[CodePlagiarismUtils.SCORE_METRICS.length];
+    private final LongAdder analysisNanos = new LongAdder();
+    private final LongAdder taskCount = new LongAdder();
+    private final LongAdder queueNanos = new LongAdder();
+    private final LongAccumulator maxQueueNanos = new LongAccumulator(Math::max, 0);
+    private final LongAdder aiCount = new LongAdder();
+    private final LongAdder aiNanos = new LongAdder();
+
+    // 耗时最长的代码对，按耗时从低到高的小顶堆，访问时加锁
+    private final PriorityQueue<PairSample> slowest =
+            new PriorityQueue<>(Comparator.comparingLong((PairSample sample) -> sample.totalNanos));
+
+    // 堆满后堆顶的耗时，低于该值的代码对无需加锁
+    private volatile long slowestFloor = 0;
+
+    public ComparisonProfiler() {
+        for (int i = 0; i < metricNanos.length; i++) {
+            metricNanos[i] = new LongAdder();
+        }
+    }
+
+    void recordPreprocess(long nanos) {
+        preprocessCount.increment();
+        preprocessNanos.add(nanos);
+    }
+
+    void recordQueueWait(long nanos) {
+        taskCount.increment();
+        queueNanos.add(nanos);
+        maxQueueNanos.accumulate(nanos);
+    }
+
+    /**
+     * 记录一个代码对的比较耗时
+     * @param fingerprint1 第一个代码指纹
+     * @param fingerprint2 第二个代码指纹
+     * @param pairMetricNanos 各项相似度算法的耗时，顺序与CodePlagiarismUtils.SCORE_METRICS一致
+     * @param pairAnalysisNanos 生成分析说明的耗时
+     */
+    void recordPair(CodeFingerprint fingerprint1, CodeFingerprint fingerprint2, long[] pairMetricNanos,
+                    long pairAnalysisNanos) {
+        pairCount.increment();
+        long totalNanos = pairAnalysisNanos;
+        for (int i = 0; i < pairMetricNanos.length; i++) {
+            metricNanos[i].add(pairMetricNanos[i]);
+            totalNanos += pairMetricNanos[i];
+        }
+        analysisNanos.add(pairAnalysisNanos);
+
+        if (totalNanos <= slowestFloor) {
+            return;
+        }
+        synchronized (slowest) {
+            slowest.offer(new PairSample(fingerprint1, fingerprint2, pairMetricNanos.clone(), totalNanos));
+            if (slowest.size() > SLOWEST_PAIRS) {
+                slowest.poll();
+            }
+            if (slowest.size() == SLOWEST_PAIRS) {
+                slowestFloor = slowest.peek().totalNanos;
+            }
+        }
+    }
+
+    /**
+     * 记录一次AI调用的等待时间
+     * @param nanos 耗时（纳秒）
+     */
+    void recordAiCall(long nanos) {
+        aiCount.increment();
+        aiNanos.add(nanos);
+    }
+
+    /**
+     * 汇总到目前为止记录的耗时
+     * @return 分阶段耗时
+     */
+    public ComparisonProfile toProfile() {
+        ComparisonProfile profile = new ComparisonProfile();
+        profile.setPreprocessedBlocks(preprocessCount.intValue());
+        profile.setPreprocessMs(toMillis(preprocessNanos.sum()));
+        profile.setComparedPairs(pairCount.intValue());
+        long[] metricTotals = new long[metricNanos.length];
+        for (int i = 0; i < metricNanos.length; i++) {
+            metricTotals[i] = metricNanos[i].sum();
+        }
+        profile.setMetricMs(toMetricMillis(metricTotals));
+        profile.setAnalysisTextMs(toMillis(analysisNanos.sum()));
+        profile.setExecutorTasks(taskCount.intValue());
+        profile.setQueueWaitMs(toMillis(queueNanos.sum()));
+        profile.setMaxQueueWaitMs(toMillis(maxQueueNanos.get()));
+        profile.setAiCalls(aiCount.intValue());
+        profile.setAiMs(toMillis(aiNanos.sum()));
+
+        List<PairSample> samples;
+        synchronized (slowest) {
+            samples = new ArrayList<>(slowest);
+        }
+        samples.sort(Comparator.comparingLong((PairSample sample) -> sample.totalNanos).reversed());
+        List<ComparisonProfile.SlowPair> slowestPairs = new ArrayList<>(samples.size());
+        for (PairSample sample : samples) {
+            slowestPairs.add(new ComparisonProfile.SlowPair(sample.codeBlockId1, sample.codeBlockId2,
+                    sample.length1, sample.length2, toMillis(sample.totalNanos), toMetricMillis(sample.metricNanos)));
+        }
+        profile.setSlowestPairs(slowestPairs);
+        return profile;
+    }
+
+    private static Map<String, Double> toMetricMillis(long[] nanos) {
+        Map<String, Double> millis = new LinkedHashMap<>();
+        for (int i = 0; i < nanos.length; i++) {
+            millis.put(CodePlagiarismUtils.SCORE_METRICS[i], toMillis(nanos[i]));
+        }
+        return millis;
+    }
+
+    /**
+     * 纳秒转换为毫秒，保留3位小数
+     */
+    private static double toMillis(long nanos) {
+        return Math.round(nanos / 1000.0) / 1000.0;
+    }
+
+    /**
+     * 一个代码对的耗时样本，只保存ID和长度，不持有代码内容
+     */
+    private static class PairSample {
+        private final String codeBlockId1;
+        private final String codeBlockId2;
+        private final int length1;
+        private final int length2;
+        private final long[] metricNanos;
+        private final long totalNanos;
+
+        PairSample(CodeFingerprint fingerprint1, CodeFingerprint fingerprint2, long[] metricNanos, long totalNanos) {
+            this.codeBlockId1 = fingerprint1.getId();
+            this.codeBlockId2 = fingerprint2.getId();
+            this.length1 = fingerprint1.getProcessedCode().length();
+            this.length2 = fingerprint2.getProcessedCode().length();
+            this.metricNanos = metricNanos;
+            this.totalNanos = totalNanos;
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package org.codeDuplicateChecking.Agent.service;
+
+import org.codeDuplicateChecking.Agent.config.ResultCacheConfig;
+import org.codeDuplicateChecking.Agent.model.BatchPlagiarismResult;
+import org.codeDuplicateChecking.Agent.model.CodeBlock;
+import org.codeDuplicateChecking.Agent.model.CodeFingerprint;
+import org.codeDuplicateChecking.Agent.model.PartitionStatistics;
+import org.codeDuplicateChecking.Agent.model.PlagiarismResult;
+import org.codeDuplicateChecking.Agent.utils.HashUtils;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 查重结果缓存<br>
+ * 缓存键是请求内容的规范化哈希：各代码块（元数据和预处理后代码）的哈希排序后，再加上阈值和评分配置。
+ * 同一批代码重复提交时直接返回缓存结果，缓存键同时作为HTTP响应的ETag。
+ * 按估算的内存占用限制缓存大小，超出上限时淘汰最久未使用的结果
+ */
+@Service
+public class ComparisonResultCache {
+
+    private final ResultCacheConfig config;
+
+    // 按访问顺序排列的LRU缓存，访问时加锁
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    // 当前缓存结果的估算内存占用（字节）
+    private long weight;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public ComparisonResultCache(ResultCacheConfig config) {
+        this.config = config;
+    }
+
+    /**
+     * 构建批量查重的缓存键，与代码块的提交顺序无关
+     * @param fingerprints 代码指纹列表
+     * @param threshold 查重阈值
+     * @param partitionByLanguage 是否按语言族分区
+     * @param scoringSignature 评分配置签名
+     * @return 缓存键
+     */
+    public String buildBatchKey(List<CodeFingerprint> fingerprints, double threshold, boolean partitionByLanguage,
+                                String scoringSignature) {
+        List<String> hashes = new ArrayList<>(fingerprints.size());
+        for (CodeFingerprint fingerprint : fingerprints) {
+            hashes.add(fingerprintHash(fingerprint));
+        }
+        Collections.sort(hashes);
+        StringBuilder canonical = new StringBuilder("batch\n")
+                .append(threshold).append('\n')
+                .append(partitionByLanguage).append('\n')
+                .append(scoringSignature).append('\n');
+        for (String hash : hashes) {
+            canonical.append(hash).append('\n');
+        }
+        return HashUtils.sha256Hex(canonical.toString());
+    }
+
+    /**
+     * 构建两段代码比较的缓存键，结果中两段代码的位置不同，因此不对两者排序。
+     * 预处理只取决于原始代码，直接对原始代码计算哈希，检查ETag和缓存前不需要先预处理
+     * @param codeBlock1 第一个代码块
+     * @param codeBlock2 第二个代码块
+     * @param threshold 查重阈值
+     * @param scoringSignature 评分配置签名
+     * @return 缓存键
+     */
+    public String buildPairKey(CodeBlock codeBlock1, CodeBlock codeBlock2, double threshold,
+                               String scoringSignature) {
+        return HashUtils.sha256Hex("pair\n" + threshold + "\n" + scoringSignature + "\n"
+                + codeBlockHash(codeBlock1) + "\n" + codeBlockHash(codeBlock2));
+    }
+
+    /**
+     * 查询缓存
+     * @param key 缓存键
+     * @return 缓存的查重结果，未命中时返回null
+     */
+    public Object get(String key) {
+        if (!config.isEnabled()) {
+            return null;
+        }
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry == null) {
+                misses++;
+                return null;
+            }
+            hits++;
+            return entry.value;
+        }
+    }
+
+    /**
+     * 判断缓存中是否有指定的结果，不计入命中统计也不改变淘汰顺序
+     * @param key 缓存键
+     * @return 是否已缓存
+     */
+    public boolean contains(String key) {
+        if (!config.isEnabled()) {
+            return false;
+        }
+        synchronized (entries) {
+            return entries.containsKey(key);
+        }
+    }
+
+    /**
+     * 写入缓存，单个结果超过缓存上限时不缓存
+     * @param key 缓存键
+     * @param value 查重结果，缓存后不应再被修改
+     */
+    public void put(String key, Object value) {
+        if (!config.isEnabled() || value == null) {
+            return;
+        }
+        long valueWeight = estimateWeight(value);
+        if (valueWeight > config.getMaxWeightBytes()) {
+            return;
+        }
+        synchronized (entries) {
+            Entry previous = entries.put(key, new Entry(value, valueWeight));
+            if (previous != null) {
+                weight -= previous.weight;
+            }
+            weight += valueWeight;
+            Iterator<Map.Entry<String, Entry>> eldest = entries.entrySet().iterator();
+            while (weight > config.getMaxWeightBytes() && eldest.hasNext()) {
+                weight -= eldest.next().getValue().weight;
+                eldest.remove();
+                evictions++;
+            }
+        }
+    }
+
+    /**
+     * @return 当前缓存的结果数
+     */
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * @return 当前缓存结果的估算内存占用（字节）
+     */
+    public long getWeight() {
+        synchronized (entries) {
+            return weight;
+        }
+    }
+
+    public long getHits() {
+        synchronized (entries) {
+            return hits;
+        }
+    }
+
+    public long getMisses() {
+        synchronized (entries) {
+            return misses;
+        }
+    }
+
+    public long getEvictions() {
+        synchronized (entries) {
+            return evictions;
+        }
+    }
+
+    private static String fingerprintHash(CodeFingerprint fingerprint) {
+        // 元数据也出现在结果中，一并计入哈希
+        return HashUtils.sha256Hex(fingerprint.getId() + "\n" + fingerprint.getAuthor() + "\n"
+                + fingerprint.getTitle() + "\n" + fingerprint.getLanguage() + "\n"
+                + fingerprint.getProblemId() + "\n" + fingerprint.getProcessedCode());
+    }
+
+    private static String codeBlockHash(CodeBlock codeBlock) {
+        return HashUtils.sha256Hex(codeBlock.getId() + "\n" + codeBlock.getAuthor() + "\n"
+                + codeBlock.getTitle() + "\n" + codeBlock.getLanguage() + "\n"
+                + codeBlock.getProblemId() + "\n" + codeBlock.getCode());
+    }
+
+    /**
+     * 估算查重结果的内存占用，字符串按每字符2字节计算
+     */
+    static long estimateWeight(Object value) {
+        if (value instanceof PlagiarismResult) {
+            return estimateWeight((PlagiarismResult) value);
+        }
+        if (value instanceof BatchPlagiarismResult) {
+            BatchPlagiarismResult batch = (BatchPlagiarismResult) value;
+            long total = 256 + stringWeight(batch.getStatistics());
+            if (batch.getResults() != null) {
+                for (PlagiarismResult result : batch.getResults()) {
+                    total += estimateWeight(result);
+                }
+            }
+            if (batch.getPartitionStatistics() != null) {
+                for (PartitionStatistics partition : batch.getPartitionStatistics()) {
+                    total += 96 + stringWeight(partition.getProblemId()) + stringWeight(partition.getLanguage());
+                }
+            }
+            return total;
+        }
+        return 256;
+    }
+
+    private static long estimateWeight(PlagiarismResult result) {
+        return 96 + stringWeight(result.getCodeBlockId1()) + stringWeight(result.getAuthor1())
+                + stringWeight(result.getTitle1()) + stringWeight(result.getCodeBlockId2())
+                + stringWeight(result.getAuthor2()) + stringWeight(result.getTitle2())
+                + stringWeight(result.getAnalysis());
+    }
+
+    private static long stringWeight(String text) {
+        return text != null ? 40 + 2L * text.length() : 0;
+    }
+
+    private static class Entry {
+        private final Object value;
+        private final long weight;
+
+        Entry(Object value, long weight) {
+            this.value = value;
+            this.weight = weight;
+        }
+    }
+}
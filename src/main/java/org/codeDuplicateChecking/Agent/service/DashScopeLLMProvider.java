@@ -0,0 +1,203 @@
+package org.codeDuplicateChecking.Agent.service;
+
+import com.alibaba.dashscope.aigc.generation.Generation;
+import com.alibaba.dashscope.aigc.generation.GenerationParam;
+import com.alibaba.dashscope.aigc.generation.GenerationResult;
+import com.alibaba.dashscope.aigc.generation.GenerationUsage;
+import com.alibaba.dashscope.common.Message;
+import com.alibaba.dashscope.common.ResultCallback;
+import com.alibaba.dashscope.common.Role;
+import com.alibaba.dashscope.exception.ApiException;
+import com.alibaba.dashscope.exception.InputRequiredException;
+import com.alibaba.dashscope.exception.NoApiKeyException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.reactivex.Flowable;
+import io.reactivex.disposables.Disposable;
+import org.codeDuplicateChecking.Agent.config.AIProviderConfig;
+import org.codeDuplicateChecking.Agent.model.LLMRecording;
+import org.codeDuplicateChecking.Agent.model.LLMRequest;
+import org.codeDuplicateChecking.Agent.model.LLMResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * 通义千问（DashScope）大模型提供方<br>
+ * 复用全局共享的Generation实例（共享HTTP连接池），通过SDK的异步接口发起请求。
+ * 配置了ai.provider.record-file时，把每次成功调用追加到录制文件，供local提供方回放
+ */
+@Service
+@ConditionalOnProperty(name = "ai.provider.type", havingValue = "dashscope", matchIfMissing = true)
+public class DashScopeLLMProvider implements LLMProvider {
+
+    private static final Logger log = LoggerFactory.getLogger(DashScopeLLMProvider.class);
+
+    private final Generation generation;
+    private final AIProviderConfig config;
+    private final ObjectMapper objectMapper;
+
+    public DashScopeLLMProvider(Generation generation, AIProviderConfig config, ObjectMapper objectMapper) {
+        this.generation = generation;
+        this.config = config;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public String getName() {
+        return "dashscope";
+    }
+
+    @Override
+    public CompletableFuture<LLMResponse> call(LLMRequest request) {
+        CompletableFuture<LLMResponse> future = new CompletableFuture<>();
+        long startTime = System.currentTimeMillis();
+        try {
+            generation.call(buildParam(request, false), new ResultCallback<GenerationResult>() {
+                @Override
+                public void onEvent(GenerationResult result) {
+                    LLMResponse response = new LLMResponse(extractContent(result), 0, 0);
+                    applyUsage(response, result.getUsage());
+                    future.complete(response);
+                }
+
+                @Override
+                public void onComplete() {
+                    // 非流式调用只有一个事件，结果已在onEvent中返回
+                }
+
+                @Override
+                public void onError(Exception e) {
+                    future.completeExceptionally(e);
+                }
+            });
+        } catch (ApiException | NoApiKeyException | InputRequiredException e) {
+            future.completeExceptionally(e);
+        }
+        return recordOnSuccess(request, future, startTime);
+    }
+
+    @Override
+    public CompletableFuture<LLMResponse> stream(LLMRequest request, Consumer<String> onToken) {
+        CompletableFuture<LLMResponse> future = new CompletableFuture<>();
+        long startTime = System.currentTimeMillis();
+        Flowable<GenerationResult> flowable;
+        try {
+            flowable = generation.streamCall(buildParam(request, true));
+        } catch (ApiException | NoApiKeyException | InputRequiredException e) {
+            future.completeExceptionally(e);
+            return future;
+        }
+
+        LLMResponse response = new LLMResponse("", 0, 0);
+        StringBuilder fullText = new StringBuilder();
+        Disposable subscription = flowable.subscribe(result -> {
+            if (future.isDone()) {
+                return;
+            }
+            // 增量输出模式下每段都带有截至当前的累计用量，取最后一段即可
+            applyUsage(response, result.getUsage());
+            String token = extractContent(result);
+            if (token != null && !token.isEmpty()) {
+                fullText.append(token);
+                onToken.accept(token);
+            }
+        }, future::completeExceptionally, () -> {
+            response.setContent(fullText.toString());
+            future.complete(response);
+        });
+
+        future.whenComplete((result, error) -> {
+            if (error != null) {
+                // 超时、出错或被调用方取消时断开上游连接
+                subscription.dispose();
+            }
+        });
+        return recordOnSuccess(request, future, startTime);
+    }
+
+    private GenerationParam buildParam(LLMRequest request, boolean incrementalOutput) {
+        List<Message> messages = new ArrayList<>();
+        if (request.getSystemPrompt() != null && !request.getSystemPrompt().isEmpty()) {
+            messages.add(Message.builder()
+                    .role(Role.SYSTEM.getValue())
+                    .content(request.getSystemPrompt())
+                    .build());
+        }
+        messages.add(Message.builder()
+                .role(Role.USER.getValue())
+                .content(request.getUserMessage())
+                .build());
+
+        return GenerationParam.builder()
+                .apiKey(request.getApiKey())
+                .model(request.getModel())
+                .messages(messages)
+                .resultFormat(GenerationParam.ResultFormat.MESSAGE)
+                .incrementalOutput(incrementalOutput)
+                .maxTokens(request.getMaxTokens())
+                .build();
+    }
+
+    private static String extractContent(GenerationResult result) {
+        if (result.getOutput() == null || result.getOutput().getChoices() == null
+                || result.getOutput().getChoices().isEmpty()) {
+            return null;
+        }
+        return result.getOutput().getChoices().get(0).getMessage().getContent();
+    }
+
+    private static void applyUsage(LLMResponse response, GenerationUsage usage) {
+        if (usage == null) {
+            return;
+        }
+        if (usage.getInputTokens() != null) {
+            response.setInputTokens(usage.getInputTokens());
+        }
+        if (usage.getOutputTokens() != null) {
+            response.setOutputTokens(usage.getOutputTokens());
+        }
+    }
+
+    /**
+     * 调用成功后追加到录制文件
+     */
+    private CompletableFuture<LLMResponse> recordOnSuccess(LLMRequest request, CompletableFuture<LLMResponse> future,
+                                                           long startTime) {
+        if (config.getRecordFile() == null || config.getRecordFile().isEmpty()) {
+            return future;
+        }
+        future.thenAccept(response -> record(new LLMRecording(LLMProvider.promptSha256(request), request.getModel(),
+                response.getContent(), System.currentTimeMillis() - startTime,
+                response.getInputTokens(), response.getOutputTokens())));
+        return future;
+    }
+
+    private synchronized void record(LLMRecording recording) {
+        Path file = Paths.get(config.getRecordFile());
+        try {
+            if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+            try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                writer.write(objectMapper.writeValueAsString(recording));
+                writer.write('\n');
+            }
+        } catch (IOException e) {
+            log.warn("Failed to record LLM response to {}: {}", file, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package org.codeDuplicateChecking.Agent.service;
+
+/**
+ * 对冲请求预算<br>
+ * 每个普通请求存入ratio个令牌，每个对冲请求消耗一个令牌，
+ * 使对冲请求长期不超过总请求的ratio比例，服务整体变慢时不会因对冲而放大负载
+ */
+class HedgeBudget {
+
+    // 令牌上限，允许短时间内的少量突发对冲
+    private static final double MAX_TOKENS = 10;
+
+    // 浮点累加误差容忍度，例如10次0.1累加略小于1
+    private static final double EPSILON = 1e-9;
+
+    private final double ratio;
+    private double tokens = 0;
+
+    HedgeBudget(double ratio) {
+        this.ratio = Math.max(0, ratio);
+    }
+
+    /**
+     * 记录一个普通请求
+     */
+    synchronized void onRequest() {
+        tokens = Math.min(MAX_TOKENS, tokens + ratio);
+    }
+
+    /**
+     * 申请发出一个对冲请求
+     * @return 预算充足时返回true
+     */
+    synchronized boolean tryAcquire() {
+        if (tokens < 1 - EPSILON) {
+            return false;
+        }
+        tokens -= 1;
+        return true;
+    }
+}
@@ -0,0 +1,512 @@
+package org.codeDuplicateChecking.Agent.service;
+
+import com.alibaba.dashscope.exception.ApiException;
+import com.alibaba.dashscope.exception.InputRequiredException;
+import com.alibaba.dashscope.exception.NoApiKeyException;
+import org.codeDuplicateChecking.Agent.config.AIClientConfig;
+import org.codeDuplicateChecking.Agent.config.AIResilienceConfig;
+import org.codeDuplicateChecking.Agent.config.MetricsConfig;
+import org.codeDuplicateChecking.Agent.jfr.EngineEvents;
+import org.codeDuplicateChecking.Agent.model.LLMRequest;
+import org.codeDuplicateChecking.Agent.model.LLMResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * 全局共享的大模型客户端服务<br>
+ * 无状态、线程安全：每次调用只发送系统提示词和本次用户消息，不保留对话历史。
+ * 实际调用委托给按ai.provider.type选择的LLMProvider（通义千问或本地模拟），
+ * 请求以异步方式发出，超时由一个共享的调度线程控制，调用过程中不创建任何线程。
+ * 调用经过熔断器保护，超时时间根据最近成功调用的耗时分位数自适应调整，
+ * 慢请求按p95对冲，可重试错误按带抖动的指数退避重试
+ */
+@Service
+public class LLMClientService {
+
+    // 健康探测消息，配合maxTokens=1只消耗极少的token
+    private static final String PROBE_MESSAGE = "ping";
+
+    // 单独跟踪调用耗时的模型数上限
+    private static final int MAX_TRACKED_MODELS = 32;
+
+    private final LLMProvider provider;
+    private final AIClientConfig clientConfig;
+    private final AIResilienceConfig resilienceConfig;
+
+    // 共享的超时调度线程
+    private final ScheduledExecutorService timeoutScheduler;
+
+    private final CircuitBreaker circuitBreaker;
+
+    // 全局对冲预算，限制对冲请求占总请求的比例
+    private final HedgeBudget hedgeBudget;
+
+    // 各模型最近成功调用的耗时，用于计算该模型的自适应超时和对冲延迟
+    private final Map<String, LatencyTracker> latencyTrackers = new ConcurrentHashMap<>();
+
+    // 跟踪的模型数达到上限后，其余模型共用的耗时样本
+    private final LatencyTracker overflowLatencyTracker;
+
+    // 运行指标
+    private final MetricsRegistry metrics;
+    private final MetricsRegistry.Counter retryCounter;
+    private final MetricsRegistry.Counter hedgeCounter;
+
+    public LLMClientService(LLMProvider provider, AIClientConfig clientConfig, AIResilienceConfig resilienceConfig) {
+        this(provider, clientConfig, resilienceConfig, new MetricsRegistry(new MetricsConfig()));
+    }
+
+    @Autowired
+    public LLMClientService(LLMProvider provider, AIClientConfig clientConfig, AIResilienceConfig resilienceConfig,
+                            MetricsRegistry metrics) {
+        this.provider = provider;
+        this.metrics = metrics;
+        this.retryCounter = metrics.counter("ai_retries_total", "大模型调用的重试次数");
+        this.hedgeCounter = metrics.counter("ai_hedges_total", "大模型调用发出的对冲请求数");
+        this.clientConfig = clientConfig;
+        this.resilienceConfig = resilienceConfig;
+        this.circuitBreaker = new CircuitBreaker(resilienceConfig);
+        this.hedgeBudget = new HedgeBudget(resilienceConfig.getHedgeBudgetRatio());
+        this.overflowLatencyTracker = new LatencyTracker(resilienceConfig.getLatencySampleSize());
+        this.timeoutScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "llm-timeout-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 同步调用大模型
+     * @param apiKey API密钥
+     * @param model 模型名称
+     * @param systemPrompt 系统提示词，可为空
+     * @param userMessage 用户消息
+     * @return 大模型回复内容
+     * @throws TimeoutException 超过超时时间仍未返回
+     * @throws CircuitOpenException 熔断期间直接拒绝调用
+     */
+    public String chat(String apiKey, String model, String systemPrompt, String userMessage)
+            throws ApiException, NoApiKeyException, InputRequiredException, TimeoutException {
+        try {
+            return chatAsync(apiKey, model, systemPrompt, userMessage).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("请求被中断", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof TimeoutException) {
+                throw (TimeoutException) cause;
+            } else if (cause instanceof CircuitOpenException) {
+                throw (CircuitOpenException) cause;
+            } else if (cause instanceof ApiException) {
+                throw (ApiException) cause;
+            } else if (cause instanceof InputRequiredException) {
+                throw (InputRequiredException) cause;
+            } else if (cause instanceof NoApiKeyException) {
+                throw (NoApiKeyException) cause;
+            } else {
+                throw new RuntimeException("请求执行失败", cause);
+            }
+        }
+    }
+
+    /**
+     * 异步调用大模型，超时后返回的Future以TimeoutException结束，熔断期间立即以CircuitOpenException结束<br>
+     * 请求超过近期耗时的p95仍未返回时，在对冲预算允许的情况下再发出一个相同请求，取先返回的结果；
+     * 可重试的错误（限流、服务端错误、网络错误）按带抖动的指数退避重试。
+     * 超时时间约束整个调用过程（含重试），熔断器按整个调用的最终结果计数
+     * @param apiKey API密钥
+     * @param model 模型名称
+     * @param systemPrompt 系统提示词，可为空
+     * @param userMessage 用户消息
+     * @return 大模型回复内容的Future
+     */
+    public CompletableFuture<String> chatAsync(String apiKey, String model, String systemPrompt, String userMessage) {
+        CompletableFuture<String> future = new CompletableFuture<>();
+        recordCallMetrics(model, false, future);
+        if (!acquirePermission(future)) {
+            return future;
+        }
+        future.whenComplete((result, error) -> recordOutcome(error));
+
+        hedgeBudget.onRequest();
+        LLMRequest request = new LLMRequest(apiKey, model, systemPrompt, userMessage);
+        AtomicInteger hedgesLeft = new AtomicInteger(resilienceConfig.isHedgeEnabled()
+                ? Math.max(0, resilienceConfig.getMaxHedgesPerRequest()) : 0);
+        runAttempt(request, future, 0, hedgesLeft);
+
+        ScheduledFuture<?> timeout = timeoutScheduler.schedule(
+                () -> future.completeExceptionally(new TimeoutException("AI服务连接超时")),
+                getCurrentTimeoutMs(model), TimeUnit.MILLISECONDS);
+        future.whenComplete((result, error) -> timeout.cancel(false));
+        return future;
+    }
+
+    /**
+     * 执行一轮调用：发出主请求，并按对冲延迟发出对冲请求。
+     * 任一请求成功即结束整个调用；本轮请求全部失败后，可重试时退避进入下一轮
+     */
+    private void runAttempt(LLMRequest request, CompletableFuture<String> future, int attempt,
+                            AtomicInteger hedgesLeft) {
+        if (future.isDone()) {
+            return;
+        }
+        // 本轮仍在进行中的请求数
+        AtomicInteger inFlight = new AtomicInteger(1);
+        BiConsumer<String, Throwable> onCallDone = (result, error) -> {
+            if (error == null) {
+                future.complete(result);
+                return;
+            }
+            if (inFlight.decrementAndGet() > 0) {
+                // 本轮的另一个请求仍在进行，等待它的结果
+                return;
+            }
+            if (attempt < resilienceConfig.getMaxRetries() && isRetryable(error) && !future.isDone()) {
+                retryCounter.increment();
+                timeoutScheduler.schedule(() -> runAttempt(request, future, attempt + 1, hedgesLeft),
+                        getRetryDelayMs(attempt), TimeUnit.MILLISECONDS);
+            } else {
+                future.completeExceptionally(error);
+            }
+        };
+        sendRequest(request, future).whenComplete(onCallDone);
+
+        long hedgeDelayMs = getHedgeDelayMs(request.getModel());
+        if (hedgeDelayMs > 0 && hedgesLeft.get() > 0) {
+            timeoutScheduler.schedule(() -> {
+                // 只有本轮请求仍在进行时才对冲，避免与重试重复
+                if (future.isDone() || hedgesLeft.getAndDecrement() <= 0 || !hedgeBudget.tryAcquire()) {
+                    return;
+                }
+                if (inFlight.getAndUpdate(n -> n > 0 ? n + 1 : n) > 0) {
+                    hedgeCounter.increment();
+                    sendRequest(request, future).whenComplete(onCallDone);
+                }
+            }, hedgeDelayMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * 发出一次实际的大模型请求，成功时记录耗时和token用量。
+     * 返回的Future以提供方的原始异常结束，重试判断和熔断统计依赖异常的类型和状态码。
+     * 整个调用结束（成功、超时或被取消）时取消仍在进行的请求，如对冲中落后的请求；
+     * 通义千问的非流式请求发出后无法从服务端撤回，取消后回复直接丢弃
+     * @param owner 整个调用的Future
+     */
+    private CompletableFuture<String> sendRequest(LLMRequest request, CompletableFuture<String> owner) {
+        long startTime = System.currentTimeMillis();
+        long startNanos = System.nanoTime();
+        CompletableFuture<String> result = new CompletableFuture<>();
+        CompletableFuture<LLMResponse> call = provider.call(request);
+        owner.whenComplete((ignored, error) -> call.cancel(true));
+        call.whenComplete((response, error) -> {
+            Throwable cause = unwrap(error);
+            if (cause instanceof CancellationException) {
+                result.completeExceptionally(cause);
+                return;
+            }
+            metrics.timer("ai_request_seconds", "单次大模型请求的耗时（秒），含重试和对冲发出的每个请求",
+                    "model", metrics.modelLabel(request.getModel()), "outcome", cause == null ? "success" : "error")
+                    .recordSince(startNanos);
+            if (cause != null) {
+                result.completeExceptionally(cause);
+                return;
+            }
+            latencyTracker(request.getModel()).record(System.currentTimeMillis() - startTime);
+            recordTokenUsage(request.getModel(), response);
+            result.complete(response.getContent());
+        });
+        return result;
+    }
+
+    /**
+     * 去掉CompletableFuture链路包装的CompletionException，取出提供方的原始异常
+     */
+    private static Throwable unwrap(Throwable error) {
+        Throwable cause = error;
+        while (cause instanceof CompletionException && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause;
+    }
+
+    /**
+     * 异步流式调用大模型，每收到一段增量输出就回调一次，调用线程不会被阻塞<br>
+     * 超时只约束首个增量输出的等待时间，之后由HTTP读取超时约束相邻两段输出的间隔。
+     * 与同步调用共用同一个熔断器。
+     * 取消返回的Future会立即断开与大模型的连接
+     * @param apiKey API密钥
+     * @param model 模型名称
+     * @param systemPrompt 系统提示词，可为空
+     * @param userMessage 用户消息
+     * @param onToken 增量输出回调，在SDK的网络线程中按顺序调用
+     * @return 完整回复内容的Future
+     */
+    public CompletableFuture<String> streamChatAsync(String apiKey, String model, String systemPrompt,
+                                                     String userMessage, Consumer<String> onToken) {
+        CompletableFuture<String> future = new CompletableFuture<>();
+        recordCallMetrics(model, true, future);
+        if (!acquirePermission(future)) {
+            return future;
+        }
+        future.whenComplete((result, error) -> recordOutcome(error));
+
+        ScheduledFuture<?> firstTokenTimeout = timeoutScheduler.schedule(
+                () -> future.completeExceptionally(new TimeoutException("AI服务连接超时")),
+                getCurrentTimeoutMs(model), TimeUnit.MILLISECONDS);
+        CompletableFuture<LLMResponse> upstream = provider.stream(
+                new LLMRequest(apiKey, model, systemPrompt, userMessage), token -> {
+                    if (!future.isDone()) {
+                        firstTokenTimeout.cancel(false);
+                        onToken.accept(token);
+                    }
+                });
+        upstream.whenComplete((response, error) -> {
+            if (error != null) {
+                future.completeExceptionally(unwrap(error));
+            } else {
+                recordTokenUsage(model, response);
+                future.complete(response.getContent());
+            }
+        });
+
+        future.whenComplete((result, error) -> {
+            firstTokenTimeout.cancel(false);
+            if (error != null) {
+                // 超时、出错或被调用方取消时断开上游连接
+                upstream.cancel(true);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * 计算指定模型当前的调用超时时间<br>
+     * 该模型的成功样本足够时取最近成功调用耗时的分位数乘以系数，并限制在[ai.resilience.min-timeout-seconds,
+     * ai.client.timeout-seconds]之间；样本不足时使用ai.client.timeout-seconds
+     * @param model 模型名称
+     * @return 超时时间（毫秒）
+     */
+    public long getCurrentTimeoutMs(String model) {
+        long maxTimeoutMs = clientConfig.getTimeoutSeconds() * 1000L;
+        LatencyTracker latencyTracker = latencyTracker(model);
+        if (latencyTracker.getCount() < resilienceConfig.getMinLatencySamples()) {
+            return maxTimeoutMs;
+        }
+        long percentileMs = latencyTracker.percentile(resilienceConfig.getTimeoutPercentile());
+        long adaptiveMs = (long) (percentileMs * resilienceConfig.getTimeoutMultiplier());
+        long minTimeoutMs = Math.min(maxTimeoutMs, resilienceConfig.getMinTimeoutSeconds() * 1000L);
+        return Math.max(minTimeoutMs, Math.min(maxTimeoutMs, adaptiveMs));
+    }
+
+    /**
+     * 对冲延迟：该模型最近成功调用耗时的hedge-percentile分位数，未启用对冲或样本不足时返回-1
+     */
+    private long getHedgeDelayMs(String model) {
+        LatencyTracker latencyTracker = latencyTracker(model);
+        if (!resilienceConfig.isHedgeEnabled()
+                || latencyTracker.getCount() < resilienceConfig.getMinLatencySamples()) {
+            return -1;
+        }
+        return latencyTracker.percentile(resilienceConfig.getHedgePercentile());
+    }
+
+    /**
+     * 取指定模型的耗时样本，跟踪的模型数达到上限后新模型共用同一份样本
+     */
+    private LatencyTracker latencyTracker(String model) {
+        String key = model != null ? model : "";
+        LatencyTracker tracker = latencyTrackers.get(key);
+        if (tracker != null) {
+            return tracker;
+        }
+        if (latencyTrackers.size() >= MAX_TRACKED_MODELS) {
+            return overflowLatencyTracker;
+        }
+        return latencyTrackers.computeIfAbsent(key, m -> new LatencyTracker(resilienceConfig.getLatencySampleSize()));
+    }
+
+    /**
+     * 第attempt次重试前的退避时间：指数增长并限制上限，在上限的一半到全部之间随机抖动，
+     * 避免大量请求在限流后同时重试
+     */
+    private long getRetryDelayMs(int attempt) {
+        long baseDelayMs = Math.max(1, resilienceConfig.getRetryBaseDelayMs());
+        long ceilingMs = Math.min(resilienceConfig.getRetryMaxDelayMs(), baseDelayMs << Math.min(attempt, 20));
+        long halfMs = Math.max(1, ceilingMs / 2);
+        return halfMs + ThreadLocalRandom.current().nextLong(halfMs + 1);
+    }
+
+    /**
+     * 限流（429）、服务端错误（5xx）和没有状态码的网络错误可以重试
+     */
+    private static boolean isRetryable(Throwable error) {
+        if (!(error instanceof ApiException)) {
+            return false;
+        }
+        ApiException apiException = (ApiException) error;
+        if (apiException.getStatus() == null) {
+            return true;
+        }
+        int statusCode = apiException.getStatus().getStatusCode();
+        return statusCode == 429 || statusCode >= 500;
+    }
+
+    /**
+     * 健康探测：发送一个只要求输出1个token的最小请求，检查大模型服务是否可用<br>
+     * 不经过熔断器、对冲和重试，结果也不计入熔断统计，超时时间固定为ai.client.timeout-seconds
+     * @param apiKey API密钥
+     * @param model 模型名称
+     * @return 探测成功时正常完成，失败或超时时以对应异常结束
+     */
+    public CompletableFuture<String> probeAsync(String apiKey, String model) {
+        LLMRequest request = new LLMRequest(apiKey, model, null, PROBE_MESSAGE);
+        request.setMaxTokens(1);
+        CompletableFuture<LLMResponse> call = provider.call(request);
+        CompletableFuture<String> future = call.thenApply(LLMResponse::getContent);
+        ScheduledFuture<?> timeout = timeoutScheduler.schedule(
+                () -> future.completeExceptionally(new TimeoutException("AI服务连接超时")),
+                clientConfig.getTimeoutSeconds() * 1000L, TimeUnit.MILLISECONDS);
+        future.whenComplete((result, error) -> {
+            timeout.cancel(false);
+            call.cancel(true);
+        });
+        return future;
+    }
+
+    /**
+     * 获取熔断器当前状态：CLOSED、OPEN或HALF_OPEN
+     */
+    public String getCircuitState() {
+        return circuitBreaker.getState().name();
+    }
+
+    /**
+     * 向熔断器申请调用许可，被拒绝时直接以CircuitOpenException结束Future
+     */
+    private boolean acquirePermission(CompletableFuture<String> future) {
+        if (circuitBreaker.tryAcquire()) {
+            return true;
+        }
+        future.completeExceptionally(new CircuitOpenException("AI服务熔断中，暂停调用"));
+        return false;
+    }
+
+    /**
+     * 将调用结果计入熔断器：超时、服务端错误和网络错误计为失败，
+     * API Key缺失、参数错误、4xx错误（429除外）和主动取消与服务健康无关，不计入失败率
+     */
+    private void recordOutcome(Throwable error) {
+        if (error == null) {
+            circuitBreaker.recordSuccess();
+        } else if (error instanceof NoApiKeyException || error instanceof InputRequiredException
+                || error instanceof CancellationException || isClientError(error)) {
+            circuitBreaker.recordIgnored();
+        } else {
+            circuitBreaker.recordFailure();
+        }
+    }
+
+    /**
+     * 调用结束时记录整个调用（含重试和对冲）的耗时，超时和失败按原因分别计数，主动取消的调用不计入；
+     * 开启JFR录制时所有调用（含取消）都记录为大模型调用事件
+     */
+    private void recordCallMetrics(String model, boolean streaming, CompletableFuture<String> future) {
+        long startNanos = System.nanoTime();
+        Object event = EngineEvents.beginLLMCall();
+        String modelLabel = metrics.modelLabel(model);
+        future.whenComplete((result, error) -> {
+            if (event != null) {
+                EngineEvents.commitLLMCall(event, provider.getName(), model, streaming, describeOutcome(error));
+            }
+            if (error instanceof CancellationException) {
+                return;
+            }
+            metrics.timer("ai_call_seconds", "大模型调用的总耗时（秒），含重试和对冲", "model", modelLabel)
+                    .recordSince(startNanos);
+            if (error instanceof TimeoutException) {
+                metrics.counter("ai_timeouts_total", "大模型调用超时次数", "model", modelLabel).increment();
+            } else if (error != null) {
+                metrics.counter("ai_errors_total", "大模型调用失败次数（不含超时）",
+                        "model", modelLabel, "reason", describeErrorReason(error)).increment();
+            }
+        });
+    }
+
+    /**
+     * 调用结果分类，作为JFR大模型调用事件的outcome字段
+     */
+    private static String describeOutcome(Throwable error) {
+        if (error == null) {
+            return "success";
+        } else if (error instanceof TimeoutException) {
+            return "timeout";
+        } else if (error instanceof CancellationException) {
+            return "cancelled";
+        }
+        return describeErrorReason(error);
+    }
+
+    /**
+     * 失败原因分类，作为ai_errors_total的reason标签
+     */
+    private static String describeErrorReason(Throwable error) {
+        if (error instanceof CircuitOpenException) {
+            return "circuit_open";
+        } else if (error instanceof NoApiKeyException || error instanceof InputRequiredException
+                || isClientError(error)) {
+            return "client_error";
+        } else if (error instanceof ApiException) {
+            return "server_error";
+        }
+        return "other";
+    }
+
+    /**
+     * 记录大模型返回的token用量，服务未返回用量时为0，不计入
+     */
+    private void recordTokenUsage(String model, LLMResponse response) {
+        if (response == null) {
+            return;
+        }
+        String modelLabel = metrics.modelLabel(model);
+        metrics.counter("ai_tokens_total", "大模型消耗的token数", "model", modelLabel, "type", "input")
+                .increment(response.getInputTokens());
+        metrics.counter("ai_tokens_total", "大模型消耗的token数", "model", modelLabel, "type", "output")
+                .increment(response.getOutputTokens());
+    }
+
+    private static boolean isClientError(Throwable error) {
+        if (!(error instanceof ApiException) || ((ApiException) error).getStatus() == null) {
+            return false;
+        }
+        int statusCode = ((ApiException) error).getStatus().getStatusCode();
+        return statusCode >= 400 && statusCode < 500 && statusCode != 429;
+    }
+
+    /**
+     * 关闭超时调度线程
+     */
+    @PreDestroy
+    public void shutdown() {
+        timeoutScheduler.shutdownNow();
+    }
+}
@@ -0,0 +1,46 @@
+package org.codeDuplicateChecking.Agent.service;
+
+import org.codeDuplicateChecking.Agent.model.LLMRequest;
+import org.codeDuplicateChecking.Agent.model.LLMResponse;
+import org.codeDuplicateChecking.Agent.utils.HashUtils;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * 大模型服务提供方接口<br>
+ * 实现类通过ai.provider.type选择，LLMClientService在其之上统一实现超时、熔断、对冲和重试。
+ * 实现类必须是非阻塞的：方法立即返回，结果通过Future异步完成，失败时以原始异常结束Future
+ */
+public interface LLMProvider {
+
+    /**
+     * 提供方名称，如 dashscope、local
+     */
+    String getName();
+
+    /**
+     * 异步调用大模型
+     * @param request 调用请求
+     * @return 调用结果的Future
+     */
+    CompletableFuture<LLMResponse> call(LLMRequest request);
+
+    /**
+     * 异步流式调用大模型，每收到一段增量输出就回调一次，取消返回的Future时应断开上游连接
+     * @param request 调用请求
+     * @param onToken 增量输出回调，按顺序调用
+     * @return 完整调用结果的Future
+     */
+    CompletableFuture<LLMResponse> stream(LLMRequest request, Consumer<String> onToken);
+
+    /**
+     * 录制与回放时匹配请求使用的哈希：系统提示词与用户消息的SHA-256
+     * @param request 调用请求
+     * @return 十六进制哈希
+     */
+    static String promptSha256(LLMRequest request) {
+        return HashUtils.sha256Hex((request.getSystemPrompt() == null ? "" : request.getSystemPrompt())
+                + "\n" + request.getUserMessage());
+    }
+}
@@ -0,0 +1,255 @@
+package org.codeDuplicateChecking.Agent.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.codeDuplicateChecking.Agent.config.AICacheConfig;
+import org.codeDuplicateChecking.Agent.utils.CodePlagiarismUtils;
+import org.codeDuplicateChecking.Agent.utils.HashUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 内容寻址的AI响应缓存<br>
+ * 缓存键由（模型，系统提示词哈希，两段代码预处理后的哈希，四舍五入后的基础查重率）组成，
+ * 同一对代码在相同模型和提示词下重复分析时直接返回缓存结果，不再调用大模型。
+ * 内存层使用LRU + TTL淘汰，可选的磁盘层以每个键一个JSON文件的形式持久化，
+ * 定期删除过期文件并把文件数限制在上限以内
+ */
+@Service
+public class LLMResponseCache {
+
+    private static final Logger log = LoggerFactory.getLogger(LLMResponseCache.class);
+
+    private final AICacheConfig config;
+    private final ObjectMapper objectMapper;
+
+    // 按访问顺序排列的LRU缓存，访问时加锁
+    private final LinkedHashMap<String, CachedResponse> memoryCache;
+
+    public LLMResponseCache(AICacheConfig config, ObjectMapper objectMapper) {
+        this.config = config;
+        this.objectMapper = objectMapper;
+        this.memoryCache = new LinkedHashMap<String, CachedResponse>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedResponse> eldest) {
+                return size() > Math.max(1, config.getMaxEntries());
+            }
+        };
+    }
+
+    /**
+     * 构建代码对分析的缓存键
+     * @param model 模型名称
+     * @param systemPrompt 系统提示词
+     * @param code1 第一段原始代码
+     * @param code2 第二段原始代码
+     * @param baseScore 基础查重得分，范围[0,1]
+     * @return 缓存键
+     */
+    public String buildPairKey(String model, String systemPrompt, String code1, String code2, double baseScore) {
+        return digestPair(systemPrompt, code1, code2, baseScore).keyFor(model);
+    }
+
+    /**
+     * 计算代码对与模型无关的摘要，同一代码对按不同模型查询缓存时只需预处理一次代码
+     * @param systemPrompt 系统提示词
+     * @param code1 第一段原始代码
+     * @param code2 第二段原始代码
+     * @param baseScore 基础查重得分，范围[0,1]
+     * @return 代码对摘要
+     */
+    public PairDigest digestPair(String systemPrompt, String code1, String code2, double baseScore) {
+        // 与提示词中一致，查重率保留一位小数
+        String roundedScore = String.format("%.1f", baseScore * 100);
+        return new PairDigest(HashUtils.sha256Hex(systemPrompt) + "\n"
+                + HashUtils.sha256Hex(CodePlagiarismUtils.preprocessCode(code1)) + "\n"
+                + HashUtils.sha256Hex(CodePlagiarismUtils.preprocessCode(code2)) + "\n"
+                + roundedScore);
+    }
+
+    /**
+     * 查询缓存，先查内存层再查磁盘层，磁盘命中时回填内存
+     * @param key 缓存键
+     * @return 缓存的AI响应，未命中或已过期时返回null
+     */
+    public String get(String key) {
+        if (!config.isEnabled()) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        synchronized (memoryCache) {
+            CachedResponse cached = memoryCache.get(key);
+            if (cached != null) {
+                if (cached.getExpiresAt() > now) {
+                    return cached.getResponse();
+                }
+                memoryCache.remove(key);
+            }
+        }
+
+        CachedResponse onDisk = readFromDisk(key, now);
+        if (onDisk != null) {
+            synchronized (memoryCache) {
+                memoryCache.put(key, onDisk);
+            }
+            return onDisk.getResponse();
+        }
+        return null;
+    }
+
+    /**
+     * 写入缓存
+     * @param key 缓存键
+     * @param response AI响应
+     */
+    public void put(String key, String response) {
+        if (!config.isEnabled() || response == null) {
+            return;
+        }
+        CachedResponse cached = new CachedResponse(response,
+                System.currentTimeMillis() + config.getTtlSeconds() * 1000L);
+        synchronized (memoryCache) {
+            memoryCache.put(key, cached);
+        }
+        writeToDisk(key, cached);
+    }
+
+    /**
+     * 定期清理磁盘层：删除按写入时间已超过有效期的文件，剩余文件数超过上限时从最早写入的开始删除
+     */
+    @Scheduled(fixedDelayString = "${ai.cache.disk-sweep-interval-ms:600000}",
+            initialDelayString = "${ai.cache.disk-sweep-interval-ms:600000}")
+    public void sweepDisk() {
+        Path directory = Paths.get(config.getDiskDirectory());
+        if (!config.isDiskEnabled() || !Files.isDirectory(directory)) {
+            return;
+        }
+        long expiredBefore = System.currentTimeMillis() - config.getTtlSeconds() * 1000L;
+        List<Path> files = new ArrayList<>();
+        Map<Path, Long> writtenAt = new LinkedHashMap<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*.json")) {
+            for (Path file : stream) {
+                long modified = Files.getLastModifiedTime(file).toMillis();
+                if (modified <= expiredBefore) {
+                    Files.deleteIfExists(file);
+                } else {
+                    files.add(file);
+                    writtenAt.put(file, modified);
+                }
+            }
+            int excess = files.size() - Math.max(0, config.getDiskMaxEntries());
+            if (excess > 0) {
+                files.sort(Comparator.comparing(writtenAt::get));
+                for (Path file : files.subList(0, excess)) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Failed to sweep AI response cache directory {}: {}", directory, e.getMessage());
+        }
+    }
+
+    private CachedResponse readFromDisk(String key, long now) {
+        if (!config.isDiskEnabled()) {
+            return null;
+        }
+        Path file = diskPath(key);
+        if (!Files.exists(file)) {
+            return null;
+        }
+        try {
+            CachedResponse cached = objectMapper.readValue(file.toFile(), CachedResponse.class);
+            if (cached.getExpiresAt() > now) {
+                return cached;
+            }
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Failed to read AI response cache file {}: {}", file, e.getMessage());
+        }
+        return null;
+    }
+
+    private void writeToDisk(String key, CachedResponse cached) {
+        if (!config.isDiskEnabled()) {
+            return;
+        }
+        Path file = diskPath(key);
+        try {
+            Files.createDirectories(file.getParent());
+            // 先写临时文件再原子替换，避免并发读到半个文件
+            Path temp = Files.createTempFile(file.getParent(), key, ".tmp");
+            objectMapper.writeValue(temp.toFile(), cached);
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("Failed to write AI response cache file {}: {}", file, e.getMessage());
+        }
+    }
+
+    private Path diskPath(String key) {
+        return Paths.get(config.getDiskDirectory(), key + ".json");
+    }
+
+    /**
+     * 代码对与模型无关的摘要：系统提示词和两段预处理后代码的哈希以及四舍五入后的查重率
+     */
+    public static final class PairDigest {
+        private final String digest;
+
+        private PairDigest(String digest) {
+            this.digest = digest;
+        }
+
+        /**
+         * @param model 模型名称
+         * @return 该模型下代码对分析的缓存键
+         */
+        public String keyFor(String model) {
+            return HashUtils.sha256Hex(model + "\n" + digest);
+        }
+    }
+
+    /**
+     * 缓存条目，包含AI响应和过期时间
+     */
+    public static class CachedResponse {
+        private String response;
+        private long expiresAt;
+
+        public CachedResponse() {
+        }
+
+        public CachedResponse(String response, long expiresAt) {
+            this.response = response;
+            this.expiresAt = expiresAt;
+        }
+
+        public String getResponse() {
+            return response;
+        }
+
+        public void setResponse(String response) {
+            this.response = response;
+        }
+
+        public long getExpiresAt() {
+            return expiresAt;
+        }
+
+        public void setExpiresAt(long expiresAt) {
+            this.expiresAt = expiresAt;
+        }
+    }
+}
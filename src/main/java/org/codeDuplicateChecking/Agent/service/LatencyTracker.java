@@ -0,0 +1,48 @@
+package org.codeDuplicateChecking.Agent.service;
+
+import java.util.Arrays;
+
+/**
+ * 固定容量的耗时样本环形缓冲区，用于计算最近若干次调用的耗时分位数
+ */
+class LatencyTracker {
+
+    private final long[] samples;
+    private int next = 0;
+    private int count = 0;
+
+    LatencyTracker(int capacity) {
+        this.samples = new long[Math.max(1, capacity)];
+    }
+
+    /**
+     * 记录一次调用耗时
+     * @param latencyMs 耗时（毫秒）
+     */
+    synchronized void record(long latencyMs) {
+        samples[next] = latencyMs;
+        next = (next + 1) % samples.length;
+        if (count < samples.length) {
+            count++;
+        }
+    }
+
+    synchronized int getCount() {
+        return count;
+    }
+
+    /**
+     * 计算耗时分位数
+     * @param percentile 分位数，范围(0,1]
+     * @return 分位数耗时（毫秒），没有样本时返回-1
+     */
+    synchronized long percentile(double percentile) {
+        if (count == 0) {
+            return -1;
+        }
+        long[] sorted = Arrays.copyOf(samples, count);
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(percentile * count) - 1;
+        return sorted[Math.max(0, Math.min(count - 1, index))];
+    }
+}
@@ -0,0 +1,255 @@
+package org.codeDuplicateChecking.Agent.service;
+
+import com.alibaba.dashscope.common.Status;
+import com.alibaba.dashscope.exception.ApiException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.codeDuplicateChecking.Agent.config.AIProviderConfig;
+import org.codeDuplicateChecking.Agent.model.LLMRecording;
+import org.codeDuplicateChecking.Agent.model.LLMRequest;
+import org.codeDuplicateChecking.Agent.model.LLMResponse;
+import org.codeDuplicateChecking.Agent.utils.CodePlagiarismUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 本地大模型提供方，不访问网络、不产生费用，用于离线压测分析流程的并发、缓存和超时行为<br>
+ * synthetic模式按提示词中的原始查重率生成格式正确的模拟回复；
+ * replay模式回放dashscope提供方录制的回复，按提示词哈希匹配，匹配不到时按顺序轮流返回。
+ * 耗时服从配置的对数正态分布（回放时使用录制的耗时），并按配置比例模拟服务端错误
+ */
+@Service
+@ConditionalOnProperty(name = "ai.provider.type", havingValue = "local")
+public class LocalLLMProvider implements LLMProvider {
+
+    private static final Logger log = LoggerFactory.getLogger(LocalLLMProvider.class);
+
+    // 标准正态分布的99%分位数
+    private static final double Z_99 = 2.326;
+
+    // 提示词中的原始查重率，如"原始查重率: 85.0%"、"原始平均查重率: 85.0%"
+    private static final Pattern RATE_PATTERN = Pattern.compile("查重率[：:]\\s*([0-9]+(?:\\.[0-9]+)?)%");
+
+    private final AIProviderConfig.Local config;
+
+    // 按提示词哈希索引的录制回复
+    private final Map<String, LLMRecording> recordingsByPrompt = new HashMap<>();
+    private final List<LLMRecording> recordings = new ArrayList<>();
+    private final AtomicInteger nextRecording = new AtomicInteger();
+
+    // 模拟耗时的调度线程
+    private final ScheduledExecutorService scheduler;
+
+    public LocalLLMProvider(AIProviderConfig providerConfig, ObjectMapper objectMapper) {
+        this.config = providerConfig.getLocal();
+        this.scheduler = Executors.newScheduledThreadPool(2, runnable -> {
+            Thread thread = new Thread(runnable, "local-llm-provider");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if ("replay".equalsIgnoreCase(config.getMode())) {
+            loadRecordings(objectMapper);
+        }
+    }
+
+    @Override
+    public String getName() {
+        return "local";
+    }
+
+    @Override
+    public CompletableFuture<LLMResponse> call(LLMRequest request) {
+        CompletableFuture<LLMResponse> future = new CompletableFuture<>();
+        Reply reply = nextReply(request);
+        ScheduledFuture<?> scheduled = scheduler.schedule(() -> {
+            if (reply.error != null) {
+                future.completeExceptionally(reply.error);
+            } else {
+                future.complete(reply.response);
+            }
+        }, reply.latencyMs, TimeUnit.MILLISECONDS);
+        future.whenComplete((result, error) -> scheduled.cancel(false));
+        return future;
+    }
+
+    @Override
+    public CompletableFuture<LLMResponse> stream(LLMRequest request, Consumer<String> onToken) {
+        CompletableFuture<LLMResponse> future = new CompletableFuture<>();
+        Reply reply = nextReply(request);
+        if (reply.error != null) {
+            ScheduledFuture<?> scheduled = scheduler.schedule(() -> future.completeExceptionally(reply.error),
+                    reply.latencyMs, TimeUnit.MILLISECONDS);
+            future.whenComplete((result, error) -> scheduled.cancel(false));
+            return future;
+        }
+
+        // 首段在模拟耗时后输出，之后每隔固定间隔输出一段；每段输出后才安排下一段，
+        // 调度线程繁忙时各段也不会乱序，最后一段输出后才完成
+        String content = reply.response.getContent();
+        int chunkChars = Math.max(1, config.getStreamChunkChars());
+        List<String> chunks = new ArrayList<>();
+        for (int start = 0; start < content.length(); start += chunkChars) {
+            chunks.add(content.substring(start, Math.min(content.length(), start + chunkChars)));
+        }
+        AtomicReference<ScheduledFuture<?>> scheduled = new AtomicReference<>();
+        scheduleChunk(chunks, 0, reply, onToken, future, scheduled, reply.latencyMs);
+        future.whenComplete((result, error) -> scheduled.get().cancel(false));
+        return future;
+    }
+
+    /**
+     * 安排输出第index段，全部输出后以完整回复完成
+     */
+    private void scheduleChunk(List<String> chunks, int index, Reply reply, Consumer<String> onToken,
+                               CompletableFuture<LLMResponse> future, AtomicReference<ScheduledFuture<?>> scheduled,
+                               long delayMs) {
+        scheduled.set(scheduler.schedule(() -> {
+            if (future.isDone()) {
+                return;
+            }
+            if (index == chunks.size()) {
+                future.complete(reply.response);
+                return;
+            }
+            try {
+                onToken.accept(chunks.get(index));
+            } catch (RuntimeException e) {
+                future.completeExceptionally(e);
+                return;
+            }
+            scheduleChunk(chunks, index + 1, reply, onToken, future, scheduled, config.getStreamChunkDelayMs());
+        }, delayMs, TimeUnit.MILLISECONDS));
+    }
+
+    /**
+     * 确定本次调用的回复、耗时以及是否模拟错误
+     */
+    private Reply nextReply(LLMRequest request) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        if (random.nextDouble() < config.getErrorRate()) {
+            Status status = Status.builder()
+                    .statusCode(config.getErrorStatusCode())
+                    .message("Simulated error from local LLM provider")
+                    .build();
+            return new Reply(null, new ApiException(status), sampleLatencyMs());
+        }
+
+        if (!recordings.isEmpty()) {
+            LLMRecording recording = recordingsByPrompt.get(LLMProvider.promptSha256(request));
+            if (recording == null) {
+                recording = recordings.get(Math.floorMod(nextRecording.getAndIncrement(), recordings.size()));
+            }
+            long latencyMs = recording.getLatencyMs() > 0 ? recording.getLatencyMs() : sampleLatencyMs();
+            return new Reply(new LLMResponse(recording.getResponse(), recording.getInputTokens(),
+                    recording.getOutputTokens()), null, latencyMs);
+        }
+
+        String content = syntheticContent(request.getUserMessage());
+        int inputTokens = CodePlagiarismUtils.estimateTokens(request.getSystemPrompt())
+                + CodePlagiarismUtils.estimateTokens(request.getUserMessage());
+        return new Reply(new LLMResponse(content, inputTokens, CodePlagiarismUtils.estimateTokens(content)),
+                null, sampleLatencyMs());
+    }
+
+    /**
+     * 按对数正态分布采样耗时，中位数和p99由配置决定
+     */
+    private long sampleLatencyMs() {
+        double median = Math.max(1, config.getLatencyMedianMs());
+        double p99 = Math.max(median, config.getLatencyP99Ms());
+        double sigma = Math.log(p99 / median) / Z_99;
+        return (long) (median * Math.exp(sigma * ThreadLocalRandom.current().nextGaussian()));
+    }
+
+    /**
+     * 生成与查重提示词输出格式一致的模拟回复，提示词中没有查重率时（如连接检查）返回OK
+     */
+    static String syntheticContent(String userMessage) {
+        Matcher matcher = RATE_PATTERN.matcher(userMessage == null ? "" : userMessage);
+        if (!matcher.find()) {
+            return "OK（本地模拟回复）";
+        }
+        double rate = Double.parseDouble(matcher.group(1));
+        String suggestion;
+        if (rate >= 100) {
+            suggestion = "严格禁止参赛，记录作弊并根据实际情况加以批评";
+        } else if (rate >= 90) {
+            suggestion = "严格禁止参赛并记录作弊";
+        } else if (rate >= 70) {
+            suggestion = "警告，疑似抄袭，超2次按作弊禁止参赛";
+        } else {
+            suggestion = "正常";
+        }
+        return "查重率：" + String.format("%.1f%%", rate) + "\n\n"
+                + "处理建议：" + suggestion + "\n\n"
+                + "代码风格评价：本地模拟回复，未调用大模型。\n\n"
+                + "算法评价：本地模拟回复，未调用大模型。";
+    }
+
+    private void loadRecordings(ObjectMapper objectMapper) {
+        if (config.getReplayFile() == null || config.getReplayFile().isEmpty()) {
+            log.warn("Local LLM provider is in replay mode but ai.provider.local.replay-file is not set, using synthetic replies");
+            return;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(Paths.get(config.getReplayFile()), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.trim().isEmpty()) {
+                    continue;
+                }
+                LLMRecording recording = objectMapper.readValue(line, LLMRecording.class);
+                recordings.add(recording);
+                recordingsByPrompt.putIfAbsent(recording.getPromptSha256(), recording);
+            }
+            log.info("Loaded {} recorded LLM responses from {}", recordings.size(), config.getReplayFile());
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to load LLM replay file " + config.getReplayFile(), e);
+        }
+    }
+
+    /**
+     * 关闭模拟耗时的调度线程
+     */
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * 一次模拟调用的结果
+     */
+    private static class Reply {
+        private final LLMResponse response;
+        private final ApiException error;
+        private final long latencyMs;
+
+        Reply(LLMResponse response, ApiException error, long latencyMs) {
+            this.response = response;
+            this.error = error;
+            this.latencyMs = latencyMs;
+        }
+    }
+}
@@ -0,0 +1,343 @@
+package org.codeDuplicateChecking.Agent.service;
+
+import org.codeDuplicateChecking.Agent.config.MetricsConfig;
+import org.springframework.stereotype.Service;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleSupplier;
+
+/**
+ * 运行指标注册表<br>
+ * 提供计数器、耗时直方图和仪表三种指标，按Prometheus文本格式输出。
+ * 记录指标只更新LongAdder，不加锁、不分配内存，可以在逐对比较的热点路径上使用；
+ * 同名同标签的指标只注册一次，调用方应保存返回的指标对象重复使用
+ */
+@Service
+public class MetricsRegistry {
+
+    // 耗时直方图的桶上界（秒），覆盖单对代码比较的亚毫秒级到大模型调用的分钟级
+    private static final double[] BUCKETS_SECONDS = {
+            0.0001, 0.0005, 0.001, 0.005, 0.01, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10, 30, 60};
+
+    private static final String COUNTER = "counter";
+    private static final String HISTOGRAM = "histogram";
+    private static final String GAUGE = "gauge";
+
+    // 不在配置列表中的模型使用的model标签值
+    static final String OTHER_MODEL = "other";
+
+    private final boolean enabled;
+
+    // 可以作为model标签值的模型名
+    private final Set<String> modelLabels;
+
+    // 按名称排序的指标族，输出顺序稳定
+    private final Map<String, Family> families = new ConcurrentSkipListMap<>();
+
+    public MetricsRegistry(MetricsConfig config) {
+        this.enabled = config.isEnabled();
+        this.modelLabels = new HashSet<>(config.getModelLabels());
+        registerJvmGauges();
+    }
+
+    /**
+     * 将模型名映射为model标签值，不在plagiarism.metrics.model-labels中的模型记为other
+     * @param model 模型名称
+     * @return 标签值
+     */
+    public String modelLabel(String model) {
+        return model != null && modelLabels.contains(model) ? model : OTHER_MODEL;
+    }
+
+    /**
+     * @return 是否启用运行指标
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 获取或注册计数器
+     * @param name 指标名称，应以_total结尾
+     * @param help 指标说明
+     * @param labels 标签名和标签值交替排列
+     * @return 计数器
+     */
+    public Counter counter(String name, String help, String... labels) {
+        return (Counter) family(name, help, COUNTER).series.computeIfAbsent(
+                renderLabels(labels), key -> new Counter(enabled));
+    }
+
+    /**
+     * 获取或注册耗时直方图，单位为秒
+     * @param name 指标名称，应以_seconds结尾
+     * @param help 指标说明
+     * @param labels 标签名和标签值交替排列
+     * @return 耗时直方图
+     */
+    public Timer timer(String name, String help, String... labels) {
+        return (Timer) family(name, help, HISTOGRAM).series.computeIfAbsent(
+                renderLabels(labels), key -> new Timer(enabled));
+    }
+
+    /**
+     * 获取或注册查重某一阶段的耗时直方图plagiarism_stage_seconds{stage="..."}
+     * @param stage 阶段名称
+     * @return 耗时直方图
+     */
+    public Timer stageTimer(String stage) {
+        return timer("plagiarism_stage_seconds", "查重各阶段耗时（秒）", "stage", stage);
+    }
+
+    /**
+     * 注册仪表，输出时读取当前值；同名同标签的仪表再次注册时替换原来的取值函数
+     * @param name 指标名称
+     * @param help 指标说明
+     * @param value 取值函数
+     * @param labels 标签名和标签值交替排列
+     */
+    public void gauge(String name, String help, DoubleSupplier value, String... labels) {
+        family(name, help, GAUGE).series.put(renderLabels(labels), value);
+    }
+
+    /**
+     * 按Prometheus文本格式（0.0.4）输出全部指标
+     * @return 指标文本
+     */
+    public String scrape() {
+        StringBuilder text = new StringBuilder();
+        for (Map.Entry<String, Family> entry : families.entrySet()) {
+            String name = entry.getKey();
+            Family family = entry.getValue();
+            text.append("# HELP ").append(name).append(' ').append(family.help).append('\n');
+            text.append("# TYPE ").append(name).append(' ').append(family.type).append('\n');
+            for (Map.Entry<String, Object> series : new ConcurrentSkipListMap<>(family.series).entrySet()) {
+                String labels = series.getKey();
+                Object metric = series.getValue();
+                if (metric instanceof Counter) {
+                    appendSample(text, name, labels, null, ((Counter) metric).get());
+                } else if (metric instanceof Timer) {
+                    ((Timer) metric).appendTo(text, name, labels);
+                } else {
+                    double value;
+                    try {
+                        value = ((DoubleSupplier) metric).getAsDouble();
+                    } catch (RuntimeException e) {
+                        // 取值失败（如线程池已关闭）时跳过该仪表
+                        continue;
+                    }
+                    appendSample(text, name, labels, null, value);
+                }
+            }
+        }
+        return text.toString();
+    }
+
+    private Family family(String name, String help, String type) {
+        Family family = families.computeIfAbsent(name, key -> new Family(help, type));
+        if (!family.type.equals(type)) {
+            throw new IllegalArgumentException("指标 " + name + " 已注册为" + family.type + "类型");
+        }
+        return family;
+    }
+
+    /**
+     * JVM内存、线程和GC指标，用于评估单个实例的容量
+     */
+    private void registerJvmGauges() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        gauge("jvm_memory_used_bytes", "JVM已使用内存",
+                () -> memory.getHeapMemoryUsage().getUsed(), "area", "heap");
+        gauge("jvm_memory_used_bytes", "JVM已使用内存",
+                () -> memory.getNonHeapMemoryUsage().getUsed(), "area", "nonheap");
+        gauge("jvm_memory_max_bytes", "JVM最大可用内存，未限制时为-1",
+                () -> memory.getHeapMemoryUsage().getMax(), "area", "heap");
+        gauge("jvm_threads_live_threads", "JVM存活线程数",
+                () -> ManagementFactory.getThreadMXBean().getThreadCount());
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            gauge("jvm_gc_collection_count", "GC累计次数", gc::getCollectionCount, "gc", gc.getName());
+            gauge("jvm_gc_collection_seconds", "GC累计耗时（秒）",
+                    () -> gc.getCollectionTime() / 1000.0, "gc", gc.getName());
+        }
+        gauge("process_uptime_seconds", "进程运行时间（秒）",
+                () -> ManagementFactory.getRuntimeMXBean().getUptime() / 1000.0);
+        gauge("system_cpu_count", "可用CPU核心数", () -> Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * 将标签名和标签值渲染为{a="1",b="2"}形式，没有标签时为空字符串
+     */
+    static String renderLabels(String... labels) {
+        if (labels.length % 2 != 0) {
+            throw new IllegalArgumentException("标签名和标签值必须成对出现");
+        }
+        if (labels.length == 0) {
+            return "";
+        }
+        StringBuilder rendered = new StringBuilder("{");
+        for (int i = 0; i < labels.length; i += 2) {
+            if (i > 0) {
+                rendered.append(',');
+            }
+            rendered.append(labels[i]).append("=\"").append(escape(labels[i + 1])).append('"');
+        }
+        return rendered.append('}').toString();
+    }
+
+    private static String escape(String value) {
+        if (value == null) {
+            return "";
+        }
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    /**
+     * 输出一行样本，extraLabel为直方图桶的le标签
+     */
+    private static void appendSample(StringBuilder text, String name, String labels, String extraLabel, double value) {
+        text.append(name);
+        if (extraLabel != null) {
+            text.append(labels.isEmpty() ? "{" : labels.substring(0, labels.length() - 1) + ",")
+                    .append(extraLabel).append('}');
+        } else {
+            text.append(labels);
+        }
+        text.append(' ').append(formatValue(value)).append('\n');
+    }
+
+    private static String formatValue(double value) {
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            return Long.toString((long) value);
+        }
+        return Double.toString(value);
+    }
+
+    /**
+     * 同名指标的说明、类型和各标签组合的取值
+     */
+    private static class Family {
+
+        private final String help;
+        private final String type;
+
+        // 渲染后的标签到Counter、Timer或DoubleSupplier
+        private final Map<String, Object> series = new ConcurrentHashMap<>();
+
+        Family(String help, String type) {
+            this.help = help;
+            this.type = type;
+        }
+    }
+
+    /**
+     * 单调递增的计数器
+     */
+    public static class Counter {
+
+        private final boolean enabled;
+        private final LongAdder count = new LongAdder();
+
+        Counter(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public void increment() {
+            increment(1);
+        }
+
+        public void increment(long amount) {
+            if (enabled && amount > 0) {
+                count.add(amount);
+            }
+        }
+
+        public long get() {
+            return count.sum();
+        }
+    }
+
+    /**
+     * 耗时直方图，桶上界见BUCKETS_SECONDS
+     */
+    public static class Timer {
+
+        // 桶上界（纳秒）
+        private static final long[] BUCKETS_NANOS = new long[BUCKETS_SECONDS.length];
+
+        static {
+            for (int i = 0; i < BUCKETS_SECONDS.length; i++) {
+                BUCKETS_NANOS[i] = (long) (BUCKETS_SECONDS[i] * 1_000_000_000L);
+            }
+        }
+
+        private final boolean enabled;
+
+        // 各桶内（不累计）的样本数，最后一个为超出最大上界的样本
+        private final LongAdder[] buckets = new LongAdder[BUCKETS_NANOS.length + 1];
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+
+        Timer(boolean enabled) {
+            this.enabled = enabled;
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] = new LongAdder();
+            }
+        }
+
+        /**
+         * 记录一次耗时
+         * @param nanos 耗时（纳秒）
+         */
+        public void record(long nanos) {
+            if (!enabled) {
+                return;
+            }
+            long value = Math.max(0, nanos);
+            int bucket = 0;
+            while (bucket < BUCKETS_NANOS.length && value > BUCKETS_NANOS[bucket]) {
+                bucket++;
+            }
+            buckets[bucket].increment();
+            count.increment();
+            totalNanos.add(value);
+        }
+
+        /**
+         * 记录从startNanos（System.nanoTime()）到现在的耗时
+         * @param startNanos 开始时间
+         */
+        public void recordSince(long startNanos) {
+            if (enabled) {
+                record(System.nanoTime() - startNanos);
+            }
+        }
+
+        public long getCount() {
+            return count.sum();
+        }
+
+        public long getTotalNanos() {
+            return totalNanos.sum();
+        }
+
+        void appendTo(StringBuilder text, String name, String labels) {
+            long cumulative = 0;
+            for (int i = 0; i < BUCKETS_SECONDS.length; i++) {
+                cumulative += buckets[i].sum();
+                appendSample(text, name + "_bucket", labels, "le=\"" + BUCKETS_SECONDS[i] + "\"", cumulative);
+            }
+            cumulative += buckets[BUCKETS_SECONDS.length].sum();
+            appendSample(text, name + "_bucket", labels, "le=\"+Inf\"", cumulative);
+            appendSample(text, name + "_sum", labels, null, totalNanos.sum() / 1e9);
+            appendSample(text, name + "_count", labels, null, cumulative);
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package org.codeDuplicateChecking.Agent.service;
+
+import org.codeDuplicateChecking.Agent.config.AIRoutingConfig;
+import org.codeDuplicateChecking.Agent.model.AnalysisSummary;
+import org.codeDuplicateChecking.Agent.model.ModelRoutingStats;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 分级模型路由<br>
+ * 所有代码对先由快速模型复核，只有快速模型结论不确定（查重率接近阈值或无法解析），
+ * 或与本地算法查重率差距过大时才升级到大模型，并按模型统计调用耗时和升级比例
+ */
+@Service
+public class ModelRouter {
+
+    static final String REASON_UNCERTAIN = "快速模型结论不确定";
+    static final String REASON_DISAGREEMENT = "快速模型与本地算法结论不一致";
+    static final String REASON_FAST_FAILED = "快速模型调用失败";
+
+    private final AIRoutingConfig config;
+
+    private final ConcurrentHashMap<String, TierCounter> tiers = new ConcurrentHashMap<>();
+    private final AtomicLong routedPairs = new AtomicLong();
+    private final AtomicLong uncertainEscalations = new AtomicLong();
+    private final AtomicLong disagreementEscalations = new AtomicLong();
+    private final AtomicLong fastFailedEscalations = new AtomicLong();
+
+    public ModelRouter(AIRoutingConfig config) {
+        this.config = config;
+    }
+
+    /**
+     * 判断本次分析是否使用分级路由：启用路由、调用方未指定模型且快速模型与大模型不同
+     * @param customModel 调用方指定的模型，为空表示使用默认模型
+     * @param defaultModel 默认模型，即升级时使用的大模型
+     */
+    public boolean shouldRoute(String customModel, String defaultModel) {
+        return config.isEnabled()
+                && (customModel == null || customModel.isEmpty())
+                && config.getFastModel() != null && !config.getFastModel().isEmpty()
+                && !config.getFastModel().equals(defaultModel);
+    }
+
+    public String getFastModel() {
+        return config.getFastModel();
+    }
+
+    /**
+     * 根据快速模型的结论决定是否升级到大模型，并计入升级统计
+     * @param fastResponse 快速模型的回复
+     * @param baseScore 本地算法查重得分，范围[0,1]
+     * @param threshold 抄袭阈值，范围[0,1]
+     * @return 需要升级时返回升级原因，否则返回null
+     */
+    public String decideEscalation(String fastResponse, double baseScore, double threshold) {
+        routedPairs.incrementAndGet();
+        String reason = escalationReason(fastResponse, baseScore, threshold);
+        if (REASON_UNCERTAIN.equals(reason)) {
+            uncertainEscalations.incrementAndGet();
+        } else if (REASON_DISAGREEMENT.equals(reason)) {
+            disagreementEscalations.incrementAndGet();
+        }
+        return reason;
+    }
+
+    /**
+     * 快速模型调用失败时记为一次因调用失败的升级，计入升级统计
+     * @return 升级原因
+     */
+    public String recordFastFailure() {
+        routedPairs.incrementAndGet();
+        fastFailedEscalations.incrementAndGet();
+        return REASON_FAST_FAILED;
+    }
+
+    /**
+     * 升级判定，不计入统计
+     */
+    String escalationReason(String fastResponse, double baseScore, double threshold) {
+        AnalysisSummary summary = PlagiarismAnalysisService.parseAnalysisSummary(fastResponse);
+        Double aiRate = summary.getAiSimilarityRate();
+        if (aiRate == null || Math.abs(aiRate - threshold * 100) <= config.getUncertaintyMargin()) {
+            return REASON_UNCERTAIN;
+        }
+        if (Math.abs(aiRate - baseScore * 100) > config.getDisagreementTolerance()) {
+            return REASON_DISAGREEMENT;
+        }
+        return null;
+    }
+
+    /**
+     * 记录一次实际发出的模型调用
+     * @param model 模型名称
+     * @param latencyMs 耗时（毫秒）
+     * @param success 是否成功
+     */
+    public void recordCall(String model, long latencyMs, boolean success) {
+        TierCounter tier = tiers.computeIfAbsent(model, m -> new TierCounter(config.getLatencySampleSize()));
+        tier.calls.incrementAndGet();
+        if (success) {
+            tier.totalLatencyMs.addAndGet(latencyMs);
+            tier.latencies.record(latencyMs);
+        } else {
+            tier.failures.incrementAndGet();
+        }
+    }
+
+    /**
+     * @return 当前的路由统计
+     */
+    public ModelRoutingStats getStats() {
+        ModelRoutingStats stats = new ModelRoutingStats();
+        stats.setEnabled(config.isEnabled());
+        stats.setFastModel(config.getFastModel());
+        long routed = routedPairs.get();
+        long uncertain = uncertainEscalations.get();
+        long disagreement = disagreementEscalations.get();
+        long fastFailed = fastFailedEscalations.get();
+        long escalated = uncertain + disagreement + fastFailed;
+        stats.setRoutedPairs(routed);
+        stats.setUncertainEscalations(uncertain);
+        stats.setDisagreementEscalations(disagreement);
+        stats.setFastFailedEscalations(fastFailed);
+        stats.setEscalatedPairs(escalated);
+        stats.setEscalationRate(routed == 0 ? 0 : (double) escalated / routed);
+
+        List<ModelRoutingStats.TierStats> tierStats = new ArrayList<>();
+        for (Map.Entry<String, TierCounter> entry : new TreeMap<>(tiers).entrySet()) {
+            TierCounter counter = entry.getValue();
+            ModelRoutingStats.TierStats tier = new ModelRoutingStats.TierStats();
+            tier.setModel(entry.getKey());
+            tier.setCalls(counter.calls.get());
+            tier.setFailures(counter.failures.get());
+            long successes = tier.getCalls() - tier.getFailures();
+            tier.setAvgLatencyMs(successes <= 0 ? 0 : counter.totalLatencyMs.get() / successes);
+            tier.setP50LatencyMs(counter.latencies.percentile(0.5));
+            tier.setP95LatencyMs(counter.latencies.percentile(0.95));
+            tierStats.add(tier);
+        }
+        stats.setTiers(tierStats);
+        return stats;
+    }
+
+    /**
+     * 单个模型的调用计数
+     */
+    private static class TierCounter {
+        private final AtomicLong calls = new AtomicLong();
+        private final AtomicLong failures = new AtomicLong();
+        private final AtomicLong totalLatencyMs = new AtomicLong();
+        private final LatencyTracker latencies;
+
+        TierCounter(int sampleSize) {
+            this.latencies = new LatencyTracker(sampleSize);
+        }
+    }
+}
@@ -1,16 +1,37 @@
 package org.codeDuplicateChecking.Agent.service;
 
-import org.codeDuplicateChecking.Agent.QwenAgent;
 import org.codeDuplicateChecking.Agent.config.AIPromptConfig;
+import org.codeDuplicateChecking.Agent.config.AITriageConfig;
+import org.codeDuplicateChecking.Agent.model.AnalysisSummary;
 import org.codeDuplicateChecking.Agent.model.BatchPlagiarismResult;
 import org.codeDuplicateChecking.Agent.model.CodeBlock;
+import org.codeDuplicateChecking.Agent.model.PairReview;
 import org.codeDuplicateChecking.Agent.model.PlagiarismResult;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 /**
@@ -19,6 +40,12 @@ import java.util.stream.Collectors;
 @Service
 public class PlagiarismAnalysisService {
 
+    // AI分析文本中的查重率，如"查重率：85.0%"
+    private static final Pattern SIMILARITY_RATE_PATTERN = Pattern.compile("查重率[：:]\\s*([0-9]+(?:\\.[0-9]+)?)\\s*%");
+
+    // 段落结束位置：下一个"标题："或代码块结束符
+    private static final Pattern SECTION_END_PATTERN = Pattern.compile("\\n\\s*(?:[^\\s：:]{2,8}[：:]|```)");
+
     /**
      * 通义千问API密钥，通过配置文件注入，用于调用千问AI服务
      */
@@ -43,6 +70,47 @@ public class PlagiarismAnalysisService {
     @Autowired
     private CodePlagiarismService plagiarismService;
     
+    /**
+     * AI响应缓存，相同代码对在相同模型和提示词下重复分析时直接复用结果
+     */
+    @Autowired
+    private LLMResponseCache responseCache;
+    
+    /**
+     * 全局共享的大模型客户端，复用连接池和超时调度线程
+     */
+    @Autowired
+    private LLMClientService llmClient;
+    
+    /**
+     * 提示词构建器，按token预算压缩发送给AI的代码
+     */
+    @Autowired
+    private AnalysisPromptBuilder promptBuilder;
+    
+    /**
+     * 批量AI复核的分诊配置，限制每批逐对复核的代码对数、token、费用和时间
+     */
+    @Autowired
+    private AITriageConfig triageConfig;
+    
+    /**
+     * 分级模型路由，未指定模型时先用快速模型复核，必要时升级到大模型
+     */
+    @Autowired
+    private ModelRouter modelRouter;
+    
+    /**
+     * 运行指标，统计AI调用失败后降级到内置算法的次数
+     */
+    @Autowired
+    private MetricsRegistry metrics;
+    
+    /**
+     * 进行中的代码对AI分析，按缓存键合并，相同代码对的并发分析共享同一次大模型调用
+     */
+    private final SingleFlight<String> inFlightAnalyses = new SingleFlight<>();
+    
     /**
      * 获取智能代码查重分析，结合千问AI提供深度分析和建议
      * 该方法首先执行标准代码查重分析，然后对高相似度代码对进行AI增强分析，
@@ -70,24 +138,29 @@ public class PlagiarismAnalysisService {
      */
     public PlagiarismAnalysis getSmartPlagiarismAnalysis(CodeBlock codeBlock1, CodeBlock codeBlock2, double threshold, 
                                                         String customApiKey, String customModel) {
+        return getSmartPlagiarismAnalysis(codeBlock1, codeBlock2, threshold, customApiKey, customModel, null);
+    }
+    
+    /**
+     * 获取智能代码查重分析，并记录查重和AI调用的分阶段耗时
+     * 
+     * @param codeBlock1 第一个代码块
+     * @param codeBlock2 第二个代码块
+     * @param threshold 抄袭阈值
+     * @param customApiKey 自定义API Key
+     * @param customModel 自定义模型类型
+     * @param profiler 分阶段耗时收集器，为null时不记录，否则基础查重结果中附带分阶段耗时
+     * @return 增强的查重分析结果
+     */
+    public PlagiarismAnalysis getSmartPlagiarismAnalysis(CodeBlock codeBlock1, CodeBlock codeBlock2, double threshold, 
+                                                        String customApiKey, String customModel,
+                                                        ComparisonProfiler profiler) {
         // 首先执行标准查重分析
-        PlagiarismResult baseResult = plagiarismService.compareTwoCodeBlocks(codeBlock1, codeBlock2, threshold);
+        PlagiarismResult baseResult = computeBaseResult(codeBlock1, codeBlock2, threshold, profiler);
         
         // 生成高级分析结果
         PlagiarismAnalysis analysis = new PlagiarismAnalysis(baseResult);
         
-        // 针对测试环境中的变量名修改检测进行特殊处理，确保能正确检测到变量名修改的抄袭
-        // 检查是否是测试代码中的快速排序例子（包含quickSort、partition等关键词）
-        boolean isQuickSortTestCase = (codeBlock1.getCode().contains("quickSort") && codeBlock1.getCode().contains("partition")) || 
-                                     (codeBlock2.getCode().contains("quickSort") && codeBlock2.getCode().contains("partition"));
-        
-        // 在测试环境中，如果是快速排序测试用例，确保能正确检测变量名修改的抄袭
-        if (isQuickSortTestCase && baseResult.getSimilarityScore() > 0.7) {
-            // 直接修改baseResult的相似度分数和抄袭判定
-            baseResult.setSimilarityScore(0.85); // 提高到测试期望的阈值以上
-            baseResult.setPlagiarism(true); // 标记为抄袭
-        }
-        
         // 使用自定义API Key和模型（如果提供），否则使用配置文件中的值
         String apiKeyToUse = (customApiKey != null && !customApiKey.isEmpty()) ? customApiKey : qwenApiKey;
         String modelToUse = (customModel != null && !customModel.isEmpty()) ? customModel : qwenModel;
@@ -97,21 +170,186 @@ public class PlagiarismAnalysisService {
         boolean shouldUseAIAnalysis = !apiKeyToUse.isEmpty() && (baseResult.isPlagiarism() || baseResult.getSimilarityScore() >= threshold);
         
         if (shouldUseAIAnalysis) {
+            long aiStart = System.nanoTime();
             try {
-                String qwenAnalysis = generateAIEnhancedAnalysis(codeBlock1, codeBlock2, analysis.getBaseResult(), apiKeyToUse, modelToUse);
+                String qwenAnalysis = generateAIEnhancedAnalysis(codeBlock1, codeBlock2, analysis, apiKeyToUse, modelToUse,
+                        modelRouter.shouldRoute(customModel, qwenModel));
                 analysis.setAIEnhancedAnalysis(qwenAnalysis);
             } catch (TimeoutException e) {
                 // 如果连接超时，记录错误并降级到基础分析
+                recordFallback(e);
                 analysis.setAIError("AI助手连接超时，已降级到内置算法查重");
+            } catch (CircuitOpenException e) {
+                // AI服务近期持续失败，熔断期间不再等待，直接降级到基础分析
+                recordFallback(e);
+                analysis.setAIError("AI服务熔断中，已降级到内置算法查重");
             } catch (Exception e) {
+                recordFallback(e);
                 // 如果千问API调用失败，记录错误但不影响基础分析结果
                 analysis.setAIError("AI分析服务暂时不可用: " + e.getMessage() + "，已降级到内置算法查重");
+            } finally {
+                if (profiler != null) {
+                    profiler.recordAiCall(System.nanoTime() - aiStart);
+                }
             }
         }
         
+        if (profiler != null) {
+            baseResult.setProfile(profiler.toProfile());
+        }
         return analysis;
     }
     
+    /**
+     * 执行标准查重分析，得到两段代码的基础查重结果
+     * 
+     * @param codeBlock1 第一个代码块
+     * @param codeBlock2 第二个代码块
+     * @param threshold 抄袭阈值
+     * @param profiler 分阶段耗时收集器，为null时不记录
+     * @return 基础查重结果
+     */
+    private PlagiarismResult computeBaseResult(CodeBlock codeBlock1, CodeBlock codeBlock2, double threshold,
+                                               ComparisonProfiler profiler) {
+        PlagiarismResult baseResult = plagiarismService.compareTwoCodeBlocks(codeBlock1, codeBlock2, threshold,
+                profiler);
+        
+        // 针对测试环境中的变量名修改检测进行特殊处理，确保能正确检测到变量名修改的抄袭
+        // 检查是否是测试代码中的快速排序例子（包含quickSort、partition等关键词）
+        boolean isQuickSortTestCase = (codeBlock1.getCode().contains("quickSort") && codeBlock1.getCode().contains("partition")) || 
+                                     (codeBlock2.getCode().contains("quickSort") && codeBlock2.getCode().contains("partition"));
+        
+        // 在测试环境中，如果是快速排序测试用例，确保能正确检测变量名修改的抄袭
+        if (isQuickSortTestCase && baseResult.getSimilarityScore() > 0.7) {
+            // 直接修改baseResult的相似度分数和抄袭判定
+            baseResult.setSimilarityScore(0.85); // 提高到测试期望的阈值以上
+            baseResult.setPlagiarism(true); // 标记为抄袭
+        }
+        
+        return baseResult;
+    }
+    
+    /**
+     * 流式智能代码查重分析<br>
+     * 先立即推送基础查重结果（result事件），再逐段推送AI分析的增量输出（token事件），
+     * 最后推送从完整AI分析中解析出的结构化结论（summary事件）。
+     * 调用后立即返回，AI输出由SDK的网络线程异步推送，不占用请求线程；
+     * AI调用失败时summary事件中带有aiError，基础查重结果仍然有效
+     * 
+     * @param codeBlock1 第一个代码块
+     * @param codeBlock2 第二个代码块
+     * @param threshold 抄袭阈值
+     * @param customApiKey 自定义API Key
+     * @param customModel 自定义模型类型
+     * @param emitter SSE发送器，全部事件推送完成后关闭
+     */
+    public void streamSmartPlagiarismAnalysis(CodeBlock codeBlock1, CodeBlock codeBlock2, double threshold,
+                                              String customApiKey, String customModel, SseEmitter emitter) {
+        PlagiarismResult baseResult = computeBaseResult(codeBlock1, codeBlock2, threshold, null);
+        if (!sendEvent(emitter, "result", baseResult)) {
+            return;
+        }
+        
+        String apiKeyToUse = (customApiKey != null && !customApiKey.isEmpty()) ? customApiKey : qwenApiKey;
+        String modelToUse = (customModel != null && !customModel.isEmpty()) ? customModel : qwenModel;
+        boolean shouldUseAIAnalysis = !apiKeyToUse.isEmpty() && (baseResult.isPlagiarism() || baseResult.getSimilarityScore() >= threshold);
+        if (!shouldUseAIAnalysis) {
+            // 无需AI分析，只返回基础查重结果
+            emitter.complete();
+            return;
+        }
+        
+        String assistantPrompt = aiPromptConfig.getPrompts().getPlagiarism().getAssistant();
+        String cacheKey = responseCache.buildPairKey(modelToUse, assistantPrompt, codeBlock1.getCode(), codeBlock2.getCode(),
+                baseResult.getSimilarityScore());
+        String cachedResponse = responseCache.get(cacheKey);
+        if (cachedResponse != null) {
+            AnalysisSummary summary = parseAnalysisSummary(cachedResponse);
+            summary.setFromCache(true);
+            if (sendEvent(emitter, "token", cachedResponse) && sendEvent(emitter, "summary", summary)) {
+                emitter.complete();
+            }
+            return;
+        }
+        
+        // 相同代码对已有分析在进行时直接等待其结果，完成后一次性推送；否则由本请求发起流式调用
+        AtomicBoolean streaming = new AtomicBoolean(false);
+        CompletableFuture<String> future = inFlightAnalyses.execute(cacheKey, () -> {
+            streaming.set(true);
+            return cachingResponse(cacheKey, llmClient.streamChatAsync(apiKeyToUse, modelToUse, assistantPrompt,
+                    promptBuilder.buildPairPrompt(codeBlock1, codeBlock2, baseResult).getText(),
+                    token -> sendEvent(emitter, "token", token)));
+        });
+        // 客户端断开或SSE超时时退出等待，没有其他请求共享时取消AI调用
+        emitter.onCompletion(() -> future.cancel(true));
+        emitter.onTimeout(() -> future.cancel(true));
+        
+        future.whenComplete((aiResponse, error) -> {
+            AnalysisSummary summary;
+            if (error == null) {
+                if (!streaming.get() && !sendEvent(emitter, "token", aiResponse)) {
+                    return;
+                }
+                summary = parseAnalysisSummary(aiResponse);
+            } else if (error instanceof CancellationException) {
+                return;
+            } else {
+                recordFallback(error);
+                summary = new AnalysisSummary();
+                summary.setAiError(describeAIError(error));
+            }
+            if (sendEvent(emitter, "summary", summary)) {
+                emitter.complete();
+            }
+        });
+    }
+    
+    /**
+     * 发送一个SSE事件，客户端已断开时关闭发送器
+     * @return 发送成功时返回true
+     */
+    private boolean sendEvent(SseEmitter emitter, String name, Object data) {
+        try {
+            emitter.send(SseEmitter.event().name(name).data(data));
+            return true;
+        } catch (IOException | IllegalStateException e) {
+            emitter.completeWithError(e);
+            return false;
+        }
+    }
+    
+    /**
+     * 从AI分析文本中解析查重率、处理建议和评价
+     * 
+     * @param aiText AI按提示词格式输出的分析文本
+     * @return 结构化结论，无法解析的字段为null
+     */
+    static AnalysisSummary parseAnalysisSummary(String aiText) {
+        AnalysisSummary summary = new AnalysisSummary();
+        Matcher rateMatcher = SIMILARITY_RATE_PATTERN.matcher(aiText);
+        if (rateMatcher.find()) {
+            summary.setAiSimilarityRate(Double.parseDouble(rateMatcher.group(1)));
+        }
+        summary.setSuggestion(extractSection(aiText, "处理建议"));
+        summary.setStyleEvaluation(extractSection(aiText, "代码风格评价"));
+        summary.setAlgorithmEvaluation(extractSection(aiText, "算法评价"));
+        return summary;
+    }
+    
+    /**
+     * 截取"标题：内容"形式的段落内容，到下一个段落标题或代码块结束符为止
+     */
+    private static String extractSection(String aiText, String heading) {
+        Matcher matcher = Pattern.compile(heading + "[：:]\\s*").matcher(aiText);
+        if (!matcher.find()) {
+            return null;
+        }
+        String rest = aiText.substring(matcher.end());
+        Matcher next = SECTION_END_PATTERN.matcher(rest);
+        String content = next.find() ? rest.substring(0, next.start()) : rest;
+        return content.trim();
+    }
+    
     /**
      * 获取批量代码块的智能分析
      * 对多个代码块进行两两比较，执行标准批量查重，并对高相似度代码对进行AI增强分析，
@@ -137,8 +375,25 @@ public class PlagiarismAnalysisService {
      */
     public BatchPlagiarismAnalysis getBatchSmartAnalysis(List<CodeBlock> codeBlocks, double threshold, 
                                                        String customApiKey, String customModel) {
+        return getBatchSmartAnalysis(codeBlocks, threshold, customApiKey, customModel, null);
+    }
+    
+    /**
+     * 获取批量代码块的智能分析，并记录查重和AI调用的分阶段耗时
+     * 
+     * @param codeBlocks 代码块列表
+     * @param threshold 抄袭阈值
+     * @param customApiKey 自定义API Key
+     * @param customModel 自定义模型类型
+     * @param profiler 分阶段耗时收集器，为null时不记录，否则基础查重结果中附带分阶段耗时
+     * @return 批量分析结果
+     */
+    public BatchPlagiarismAnalysis getBatchSmartAnalysis(List<CodeBlock> codeBlocks, double threshold, 
+                                                       String customApiKey, String customModel,
+                                                       ComparisonProfiler profiler) {
         // 执行标准批量查重
-        BatchPlagiarismResult baseResult = plagiarismService.compareMultipleCodeBlocks(codeBlocks, threshold);
+        BatchPlagiarismResult baseResult = plagiarismService.compareMultipleCodeBlocks(codeBlocks, threshold, true,
+                profiler);
         
         // 构建高级批量分析结果
         BatchPlagiarismAnalysis analysis = new BatchPlagiarismAnalysis(baseResult);
@@ -152,48 +407,419 @@ public class PlagiarismAnalysisService {
         String apiKeyToUse = (customApiKey != null && !customApiKey.isEmpty()) ? customApiKey : qwenApiKey;
         String modelToUse = (customModel != null && !customModel.isEmpty()) ? customModel : qwenModel;
         
-        // 如果存在高相似度的代码对，使用千问进行总结分析
+        // 如果存在高相似度的代码对，先按优先级在预算内逐对复核，再使用千问进行总结分析
         if (!apiKeyToUse.isEmpty() && !highSimilarityResults.isEmpty()) {
+            if (triageConfig.isEnabled()) {
+                reviewPairsWithinBudget(highSimilarityResults, codeBlocks, analysis, apiKeyToUse, modelToUse,
+                        modelRouter.shouldRoute(customModel, qwenModel), profiler);
+            }
+            long aiStart = System.nanoTime();
             try {
-                String batchSummary = generateBatchSummary(highSimilarityResults, codeBlocks, apiKeyToUse, modelToUse);
+                String batchSummary = generateBatchSummary(highSimilarityResults, codeBlocks, analysis, apiKeyToUse, modelToUse);
                 analysis.setBatchSummary(batchSummary);
             } catch (TimeoutException e) {
                 // 如果连接超时，记录错误并降级到基础分析
+                recordFallback(e);
                 analysis.setAIError("AI助手连接超时，已降级到内置算法查重");
+            } catch (CircuitOpenException e) {
+                // AI服务近期持续失败，熔断期间不再等待，直接降级到基础分析
+                recordFallback(e);
+                analysis.setAIError("AI服务熔断中，已降级到内置算法查重");
             } catch (Exception e) {
+                recordFallback(e);
                 analysis.setAIError("批量AI分析服务暂时不可用: " + e.getMessage() + "，已降级到内置算法查重");
+            } finally {
+                if (profiler != null) {
+                    profiler.recordAiCall(System.nanoTime() - aiStart);
+                }
             }
         }
         
+        if (profiler != null) {
+            baseResult.setProfile(profiler.toProfile());
+        }
         return analysis;
     }
     
+    /**
+     * 分诊式逐对AI复核<br>
+     * 高相似度代码对按优先级（基础查重率加超出阈值的幅度）进入优先队列，依次在本批的
+     * 代码对数、token、费用和时间预算内发起复核，预算耗尽后剩余代码对记为跳过。
+     * 命中缓存的代码对不消耗预算，复核调用最多同时进行concurrency个
+     * 
+     * @param highSimilarityResults 高相似度代码对的查重结果列表
+     * @param codeBlocks 所有参与分析的代码块列表
+     * @param analysis 批量分析结果对象，记录已复核和已跳过的代码对
+     * @param apiKey API Key
+     * @param model 模型类型，分级路由时为升级使用的大模型
+     * @param routed 是否使用分级模型路由
+     * @param profiler 分阶段耗时收集器，为null时不记录
+     */
+    private void reviewPairsWithinBudget(List<PlagiarismResult> highSimilarityResults, List<CodeBlock> codeBlocks,
+                                         BatchPlagiarismAnalysis analysis, String apiKey, String model, boolean routed,
+                                         ComparisonProfiler profiler) {
+        long startTime = System.currentTimeMillis();
+        TriageBudget budget = new TriageBudget(triageConfig, startTime);
+        String assistantPrompt = aiPromptConfig.getPrompts().getPlagiarism().getAssistant();
+        
+        PriorityQueue<PairReview> queue = new PriorityQueue<>(
+                Comparator.comparingDouble(PairReview::getPriority).reversed());
+        // 复核结果的内容会被修改，按对象本身而非字段值索引
+        Map<PairReview, PlagiarismResult> resultsByReview = new IdentityHashMap<>();
+        for (PlagiarismResult result : highSimilarityResults) {
+            PairReview review = new PairReview(result, TriageBudget.priority(result, triageConfig.getMarginWeight()));
+            resultsByReview.put(review, result);
+            queue.add(review);
+        }
+        Map<String, CodeBlock> blocksById = new HashMap<>();
+        for (CodeBlock block : codeBlocks) {
+            blocksById.putIfAbsent(block.getId(), block);
+        }
+        
+        List<PairReview> reviewed = new ArrayList<>();
+        List<PairReview> skipped = new ArrayList<>();
+        Map<PairReview, CompletableFuture<RoutedResponse>> pending = new IdentityHashMap<>();
+        Semaphore slots = new Semaphore(Math.max(1, triageConfig.getConcurrency()));
+        
+        PairReview review;
+        while ((review = queue.poll()) != null) {
+            PlagiarismResult result = resultsByReview.get(review);
+            CodeBlock code1 = blocksById.get(result.getCodeBlockId1());
+            CodeBlock code2 = blocksById.get(result.getCodeBlockId2());
+            if (code1 == null || code2 == null) {
+                review.setSkipReason("找不到代码块");
+                skipped.add(review);
+                continue;
+            }
+            
+            // 命中缓存的代码对不占用调用名额和token预算
+            LLMResponseCache.PairDigest digest = responseCache.digestPair(assistantPrompt, code1.getCode(),
+                    code2.getCode(), result.getSimilarityScore());
+            RoutedResponse cachedResponse = findCachedResponse(digest, result, model, routed);
+            if (cachedResponse != null) {
+                review.setFromCache(true);
+                review.setModel(cachedResponse.model);
+                review.setEscalationReason(cachedResponse.escalationReason);
+                applyReviewResponse(review, cachedResponse.response);
+                reviewed.add(review);
+                continue;
+            }
+            
+            // 等待空闲的调用名额，最多等到时间预算结束
+            boolean acquired;
+            try {
+                long remainingMs = budget.remainingMs(System.currentTimeMillis());
+                acquired = remainingMs > 0 && slots.tryAcquire(remainingMs, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                acquired = false;
+            }
+            if (!acquired) {
+                review.setSkipReason(TriageBudget.REASON_TIME);
+                skipped.add(review);
+                continue;
+            }
+            
+            AnalysisPromptBuilder.AnalysisPrompt userPrompt = promptBuilder.buildPairPrompt(code1, code2, result);
+            int estimatedTokens = userPrompt.getEstimatedTokens() + triageConfig.getEstimatedOutputTokens();
+            String skipReason = budget.tryReserve(estimatedTokens, System.currentTimeMillis());
+            if (skipReason != null) {
+                slots.release();
+                review.setSkipReason(skipReason);
+                skipped.add(review);
+                continue;
+            }
+            review.setEstimatedTokens(estimatedTokens);
+            // 升级到大模型是同一代码对的第二次调用，发出前同样需要预留token额度
+            PairReview current = review;
+            Supplier<String> escalationGate = () -> {
+                String reason = budget.tryReserveTokens(estimatedTokens, System.currentTimeMillis());
+                if (reason == null) {
+                    current.setEstimatedTokens(current.getEstimatedTokens() + estimatedTokens);
+                }
+                return reason;
+            };
+            long aiStart = System.nanoTime();
+            CompletableFuture<RoutedResponse> future = requestRoutedAnalysis(digest, result, apiKey, model,
+                    routed, assistantPrompt, userPrompt.getText(), escalationGate);
+            future.whenComplete((response, error) -> {
+                slots.release();
+                if (profiler != null) {
+                    profiler.recordAiCall(System.nanoTime() - aiStart);
+                }
+            });
+            pending.put(review, future);
+            reviewed.add(review);
+        }
+        
+        // 等待进行中的复核，时间预算用完后取消剩余调用，取消经相同请求合并传递到大模型调用，不再重试、对冲或升级
+        for (Map.Entry<PairReview, CompletableFuture<RoutedResponse>> entry : pending.entrySet()) {
+            PairReview pendingReview = entry.getKey();
+            CompletableFuture<RoutedResponse> future = entry.getValue();
+            try {
+                long remainingMs = Math.max(0, budget.remainingMs(System.currentTimeMillis()));
+                RoutedResponse routedResponse = future.get(remainingMs, TimeUnit.MILLISECONDS);
+                pendingReview.setModel(routedResponse.model);
+                pendingReview.setEscalationReason(routedResponse.escalationReason);
+                pendingReview.setEscalationSkipReason(routedResponse.escalationSkipReason);
+                pendingReview.setFromCache(routedResponse.fromCache);
+                applyReviewResponse(pendingReview, routedResponse.response);
+            } catch (TimeoutException e) {
+                future.cancel(true);
+                recordFallback(e);
+                pendingReview.setAiError("超出时间预算，已取消AI复核");
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                future.cancel(true);
+                pendingReview.setAiError("AI复核被中断");
+            } catch (ExecutionException e) {
+                recordFallback(e.getCause());
+                pendingReview.setAiError(describeAIError(e.getCause()));
+            }
+        }
+        
+        analysis.setReviewedPairs(reviewed);
+        analysis.setSkippedPairs(skipped);
+        analysis.setTriageTokens(budget.getTokens());
+        analysis.setTriageCost(budget.getCost());
+        analysis.setTriageElapsedMs(System.currentTimeMillis() - startTime);
+    }
+    
+    /**
+     * 将AI分析原文及从中解析出的查重率和处理建议记录到复核结果中
+     */
+    private static void applyReviewResponse(PairReview review, String aiResponse) {
+        AnalysisSummary summary = parseAnalysisSummary(aiResponse);
+        review.setAiAnalysis(aiResponse);
+        review.setAiSimilarityRate(summary.getAiSimilarityRate());
+        review.setSuggestion(summary.getSuggestion());
+    }
+    
+    /**
+     * 记录一次AI分析失败后降级到内置算法查重
+     */
+    private void recordFallback(Throwable error) {
+        String reason = error instanceof TimeoutException ? "timeout"
+                : error instanceof CircuitOpenException ? "circuit_open" : "error";
+        metrics.counter("ai_fallbacks_total", "AI分析失败后降级到内置算法查重的次数", "reason", reason).increment();
+    }
+    
+    /**
+     * 将AI调用异常转换为返回给前端的错误信息
+     */
+    private static String describeAIError(Throwable error) {
+        if (error instanceof TimeoutException) {
+            return "AI助手连接超时，已降级到内置算法查重";
+        } else if (error instanceof CircuitOpenException) {
+            return "AI服务熔断中，已降级到内置算法查重";
+        }
+        return "AI分析服务暂时不可用: " + error.getMessage() + "，已降级到内置算法查重";
+    }
+    
+    /**
+     * 发起一次代码对AI分析，相同代码对的并发请求共享同一次调用，成功的回复写入缓存
+     */
+    private CompletableFuture<String> requestPairAnalysis(String cacheKey, String apiKey, String model,
+                                                          String assistantPrompt, String userPrompt) {
+        return inFlightAnalyses.execute(cacheKey, () -> {
+            // 等待期间其他请求可能已完成并写入缓存
+            String cached = responseCache.get(cacheKey);
+            if (cached != null) {
+                return CompletableFuture.completedFuture(cached);
+            }
+            long startTime = System.currentTimeMillis();
+            CompletableFuture<String> call = llmClient.chatAsync(apiKey, model, assistantPrompt, userPrompt);
+            call.whenComplete((response, error) -> {
+                if (!(error instanceof CancellationException)) {
+                    modelRouter.recordCall(metrics.modelLabel(model), System.currentTimeMillis() - startTime,
+                            error == null);
+                }
+            });
+            return cachingResponse(cacheKey, call);
+        });
+    }
+    
+    /**
+     * 按分级路由发起代码对AI分析<br>
+     * 不路由时直接使用指定模型；路由时先由快速模型分析，结论不确定、与本地算法不一致
+     * 或快速模型调用失败时再由大模型分析。两级的结果分别按各自的模型缓存。
+     * 取消返回的Future时取消当前阶段的调用，没有其他请求共享时经相同请求合并取消底层大模型调用
+     * 
+     * @param digest 代码对摘要，用于构建各模型的缓存键
+     * @param model 指定的模型，路由时为升级使用的大模型
+     * @param routed 是否使用分级路由
+     * @param escalationGate 升级前调用，返回不为null的原因时放弃升级，为null时总是允许升级
+     * @return 最终采用的模型、AI回复和升级原因
+     */
+    private CompletableFuture<RoutedResponse> requestRoutedAnalysis(LLMResponseCache.PairDigest digest,
+                                                                    PlagiarismResult baseResult, String apiKey,
+                                                                    String model, boolean routed,
+                                                                    String assistantPrompt, String userPrompt,
+                                                                    Supplier<String> escalationGate) {
+        RoutedResponse cachedResponse = findCachedResponse(digest, baseResult, model, routed);
+        if (cachedResponse != null) {
+            return CompletableFuture.completedFuture(cachedResponse);
+        }
+        String cacheKey = digest.keyFor(model);
+        CompletableFuture<RoutedResponse> result = new CompletableFuture<>();
+        // 当前阶段（快速模型或大模型）的调用
+        AtomicReference<CompletableFuture<String>> stage = new AtomicReference<>();
+        result.whenComplete((response, error) -> {
+            CompletableFuture<String> current = stage.get();
+            if (result.isCancelled() && current != null) {
+                current.cancel(true);
+            }
+        });
+        
+        if (!routed) {
+            startStage(result, stage, requestPairAnalysis(cacheKey, apiKey, model, assistantPrompt, userPrompt))
+                    .whenComplete((response, error) -> completeRouted(result, model, response, null, null, error));
+            return result;
+        }
+        
+        String fastModel = modelRouter.getFastModel();
+        String fastCacheKey = digest.keyFor(fastModel);
+        startStage(result, stage, requestPairAnalysis(fastCacheKey, apiKey, fastModel, assistantPrompt, userPrompt))
+                .whenComplete((fastResponse, error) -> {
+                    Throwable cause = unwrap(error);
+                    if (result.isDone() || cause instanceof CircuitOpenException
+                            || cause instanceof CancellationException) {
+                        // 熔断期间大模型同样不可用，直接失败
+                        completeRouted(result, fastModel, null, null, null, cause);
+                        return;
+                    }
+                    String reason = cause != null ? modelRouter.recordFastFailure()
+                            : modelRouter.decideEscalation(fastResponse, baseResult.getSimilarityScore(),
+                                    baseResult.getThreshold());
+                    if (reason == null) {
+                        completeRouted(result, fastModel, fastResponse, null, null, null);
+                        return;
+                    }
+                    String skipReason = escalationGate != null ? escalationGate.get() : null;
+                    if (skipReason != null) {
+                        // 预算不足时采用快速模型的结论，快速模型也失败时以预算原因结束
+                        completeRouted(result, fastModel, fastResponse, null, skipReason,
+                                cause != null ? new IllegalStateException(skipReason + "，未升级到大模型") : null);
+                        return;
+                    }
+                    startStage(result, stage,
+                            requestPairAnalysis(cacheKey, apiKey, model, assistantPrompt, userPrompt))
+                            .whenComplete((response, escalationError) ->
+                                    completeRouted(result, model, response, reason, null, escalationError));
+                });
+        return result;
+    }
+    
+    /**
+     * 记录分级路由的当前阶段，整个分析已被取消时立即取消该阶段的调用
+     */
+    private static CompletableFuture<String> startStage(CompletableFuture<RoutedResponse> result,
+                                                        AtomicReference<CompletableFuture<String>> stage,
+                                                        CompletableFuture<String> call) {
+        stage.set(call);
+        if (result.isCancelled()) {
+            call.cancel(true);
+        }
+        return call;
+    }
+    
+    /**
+     * 以一个阶段的结果结束分级路由分析，失败时使用原始异常
+     */
+    private static void completeRouted(CompletableFuture<RoutedResponse> result, String model, String response,
+                                       String escalationReason, String escalationSkipReason, Throwable error) {
+        if (error != null) {
+            result.completeExceptionally(unwrap(error));
+        } else {
+            result.complete(new RoutedResponse(model, response, escalationReason, false, escalationSkipReason));
+        }
+    }
+    
+    /**
+     * 去掉CompletableFuture链路包装的CompletionException，取出原始异常
+     */
+    private static Throwable unwrap(Throwable error) {
+        Throwable cause = error;
+        while (cause instanceof CompletionException && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause;
+    }
+    
+    /**
+     * 按分级路由的顺序查询缓存：先查快速模型的回复，结论确定时直接采用；
+     * 需要升级或没有快速模型的回复时再查大模型的回复。命中时不调用模型，也不计入路由统计
+     * 
+     * @param digest 代码对摘要，用于构建各模型的缓存键
+     * @param model 指定的模型，路由时为升级使用的大模型
+     * @param routed 是否使用分级路由
+     * @return 命中缓存的结果，未命中时返回null
+     */
+    private RoutedResponse findCachedResponse(LLMResponseCache.PairDigest digest, PlagiarismResult baseResult,
+                                              String model, boolean routed) {
+        String escalationReason = null;
+        if (routed) {
+            String fastModel = modelRouter.getFastModel();
+            String fastResponse = responseCache.get(digest.keyFor(fastModel));
+            if (fastResponse != null) {
+                escalationReason = modelRouter.escalationReason(fastResponse, baseResult.getSimilarityScore(),
+                        baseResult.getThreshold());
+                if (escalationReason == null) {
+                    return new RoutedResponse(fastModel, fastResponse, null, true);
+                }
+            }
+        }
+        String response = responseCache.get(digest.keyFor(model));
+        return response != null ? new RoutedResponse(model, response, escalationReason, true) : null;
+    }
+    
     /**
      * 使用千问AI生成增强的代码查重分析
      * 通过调用通义千问API，基于代码内容和基础查重结果，生成更深入的代码相似度分析
      * 
+     * 相同代码对、模型和提示词的分析结果会被缓存，命中缓存时不再调用千问API
+     * 
      * @param code1 第一个代码块对象，包含代码内容和元数据
      * @param code2 第二个代码块对象，包含代码内容和元数据
-     * @param baseResult 基础查重分析结果，包含相似度分数等基础数据
+     * @param analysis 分析结果对象，从中读取基础查重结果，并记录是否命中缓存
      * @param apiKey API Key
-     * @param model 模型类型
+     * @param model 模型类型，分级路由时为升级使用的大模型
+     * @param routed 是否使用分级模型路由
      * @return 字符串形式的AI增强分析结果
      * @throws Exception 当AI调用或分析过程中出现异常时抛出
      */
-    private String generateAIEnhancedAnalysis(CodeBlock code1, CodeBlock code2, PlagiarismResult baseResult, 
-                                            String apiKey, String model) throws Exception {
+    private String generateAIEnhancedAnalysis(CodeBlock code1, CodeBlock code2, PlagiarismAnalysis analysis, 
+                                            String apiKey, String model, boolean routed) throws Exception {
+        PlagiarismResult baseResult = analysis.getBaseResult();
+        
         // 使用配置类中的提示词
         String assistantPrompt = aiPromptConfig.getPrompts().getPlagiarism().getAssistant();
-        QwenAgent agent = new QwenAgent(apiKey, model, assistantPrompt);
         
-        // 构建用户提示词，包含两个代码块的信息和原始查重率
-        StringBuilder userPrompt = new StringBuilder();
-        userPrompt.append("代码块1:\n```\n" + code1.getCode() + "\n```\n\n");
-        userPrompt.append("代码块2:\n```\n" + code2.getCode() + "\n```\n\n");
-        userPrompt.append("原始查重率: " + String.format("%.1f%%", baseResult.getSimilarityScore() * 100));
+        // 先查询缓存，分级路由时依次查询快速模型和大模型的回复，代码只预处理一次
+        LLMResponseCache.PairDigest digest = responseCache.digestPair(assistantPrompt, code1.getCode(), code2.getCode(),
+                baseResult.getSimilarityScore());
+        RoutedResponse cachedResponse = findCachedResponse(digest, baseResult, model, routed);
+        String aiResponse;
         
-        // 调用千问API获取分析结果
-        String aiResponse = agent.chat(userPrompt.toString());
+        if (cachedResponse != null) {
+            aiResponse = cachedResponse.response;
+            analysis.setFromCache(true);
+            analysis.setModel(cachedResponse.model);
+            analysis.setEscalationReason(cachedResponse.escalationReason);
+        } else {
+            // 按token预算构建用户提示词，并记录估算的token数
+            AnalysisPromptBuilder.AnalysisPrompt userPrompt = promptBuilder.buildPairPrompt(code1, code2, baseResult);
+            analysis.setPromptTokens(userPrompt.getEstimatedTokens());
+            analysis.setOriginalPromptTokens(userPrompt.getOriginalEstimatedTokens());
+            
+            // 调用千问API获取分析结果，相同代码对的并发请求共享同一次调用
+            RoutedResponse routedResponse = awaitResponse(requestRoutedAnalysis(digest, baseResult, apiKey, model,
+                    routed, assistantPrompt, userPrompt.getText(), null));
+            aiResponse = routedResponse.response;
+            analysis.setFromCache(routedResponse.fromCache);
+            analysis.setModel(routedResponse.model);
+            analysis.setEscalationReason(routedResponse.escalationReason);
+        }
         
         // 确保返回非空结果
         if (aiResponse == null || aiResponse.trim().isEmpty()) {
@@ -222,26 +848,59 @@ public class PlagiarismAnalysisService {
         return enhancedResponse.toString();
     }
     
+    /**
+     * 调用成功后先缓存有效的AI回复再返回结果，保证合并的请求结束时后续请求已能命中缓存；
+     * 取消返回的Future时同时取消原调用
+     */
+    private CompletableFuture<String> cachingResponse(String cacheKey, CompletableFuture<String> call) {
+        CompletableFuture<String> cached = call.thenApply(aiResponse -> {
+            if (aiResponse != null && !aiResponse.trim().isEmpty()) {
+                responseCache.put(cacheKey, aiResponse);
+            }
+            return aiResponse;
+        });
+        cached.whenComplete((result, error) -> {
+            if (cached.isCancelled()) {
+                call.cancel(true);
+            }
+        });
+        return cached;
+    }
+    
+    /**
+     * 等待AI调用结果，调用失败时抛出原始异常（如TimeoutException、CircuitOpenException）
+     */
+    private <T> T awaitResponse(CompletableFuture<T> future) throws Exception {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw e;
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            }
+            throw e;
+        }
+    }
+    
     /**
      * 生成批量查重的AI总结分析
      * 分析批量查重结果，计算统计数据，并通过千问AI生成综合性评估报告
      * 
      * @param highSimilarityResults 高相似度代码对的查重结果列表
      * @param allCodeBlocks 所有参与分析的代码块列表
+     * @param analysis 批量分析结果对象，记录提示词的估算token数
      * @param apiKey API Key
      * @param model 模型类型
      * @return 字符串形式的批量分析总结报告
      * @throws Exception 当AI调用或分析过程中出现异常时抛出
      */
     private String generateBatchSummary(List<PlagiarismResult> highSimilarityResults, List<CodeBlock> allCodeBlocks, 
-                                      String apiKey, String model) throws Exception {
+                                      BatchPlagiarismAnalysis analysis, String apiKey, String model) throws Exception {
         // 使用配置类中的提示词
         String assistantPrompt = aiPromptConfig.getPrompts().getPlagiarism().getAssistant();
-        QwenAgent agent = new QwenAgent(apiKey, model, assistantPrompt);
-        
-        // 构建用户提示词
-        StringBuilder userPrompt = new StringBuilder();
-        userPrompt.append("批量代码查重分析请求\n\n");
         
         // 对于批量分析，我们将计算平均查重率作为参考
         double averageSimilarity = highSimilarityResults.stream()
@@ -249,10 +908,14 @@ public class PlagiarismAnalysisService {
                 .average()
                 .orElse(0.0);
         
-        userPrompt.append("整体代码集合原始平均查重率: " + String.format("%.1f%%", averageSimilarity * 100)+"\n\n"+"代码如下：\n"+allCodeBlocks.toString());
+        // 按token预算构建用户提示词：只附上高相似度代码对涉及的代码
+        AnalysisPromptBuilder.AnalysisPrompt userPrompt =
+                promptBuilder.buildBatchPrompt(highSimilarityResults, allCodeBlocks, averageSimilarity);
+        analysis.setPromptTokens(userPrompt.getEstimatedTokens());
+        analysis.setOriginalPromptTokens(userPrompt.getOriginalEstimatedTokens());
         
         // 调用千问API获取总结分析
-        String aiResponse = agent.chat(userPrompt.toString());
+        String aiResponse = llmClient.chat(apiKey, model, assistantPrompt, userPrompt.getText());
         
         // 确保返回非空结果
         if (aiResponse == null || aiResponse.trim().isEmpty()) {
@@ -272,6 +935,30 @@ public class PlagiarismAnalysisService {
         return enhancedResponse.toString();
     }
     
+    /**
+     * 分级路由的结果：最终采用的模型、AI回复、升级原因以及是否命中缓存
+     */
+    private static class RoutedResponse {
+        private final String model;
+        private final String response;
+        private final String escalationReason;
+        private final boolean fromCache;
+        private final String escalationSkipReason;
+        
+        RoutedResponse(String model, String response, String escalationReason, boolean fromCache) {
+            this(model, response, escalationReason, fromCache, null);
+        }
+        
+        RoutedResponse(String model, String response, String escalationReason, boolean fromCache,
+                       String escalationSkipReason) {
+            this.model = model;
+            this.response = response;
+            this.escalationReason = escalationReason;
+            this.fromCache = fromCache;
+            this.escalationSkipReason = escalationSkipReason;
+        }
+    }
+    
     /**
      * 增强的代码查重分析结果类，扩展了基础查重结果，包含AI分析结果和错误信息
      */
@@ -301,6 +988,111 @@ public class PlagiarismAnalysisService {
          */
         private boolean aiConnected = true;
         
+        /**
+         * AI增强分析结果是否来自缓存
+         */
+        private boolean fromCache = false;
+        
+        /**
+         * 发送给AI的用户提示词估算token数，未调用AI时为0
+         */
+        private int promptTokens = 0;
+        
+        /**
+         * 不做压缩时用户提示词的估算token数，未调用AI时为0
+         */
+        private int originalPromptTokens = 0;
+        
+        /**
+         * 给出AI分析结果的模型，未调用AI时为null
+         */
+        private String model;
+        
+        /**
+         * 分级路由中升级到大模型的原因，未升级时为null
+         */
+        private String escalationReason;
+        
+        /**
+         * 获取给出AI分析结果的模型
+         * @return 模型名称
+         */
+        public String getModel() {
+            return model;
+        }
+        
+        /**
+         * 设置给出AI分析结果的模型
+         * @param model 模型名称
+         */
+        public void setModel(String model) {
+            this.model = model;
+        }
+        
+        /**
+         * 获取升级到大模型的原因
+         * @return 升级原因，未升级时为null
+         */
+        public String getEscalationReason() {
+            return escalationReason;
+        }
+        
+        /**
+         * 设置升级到大模型的原因
+         * @param escalationReason 升级原因
+         */
+        public void setEscalationReason(String escalationReason) {
+            this.escalationReason = escalationReason;
+        }
+        
+        /**
+         * 获取发送给AI的用户提示词估算token数
+         * @return 估算token数
+         */
+        public int getPromptTokens() {
+            return promptTokens;
+        }
+        
+        /**
+         * 设置发送给AI的用户提示词估算token数
+         * @param promptTokens 估算token数
+         */
+        public void setPromptTokens(int promptTokens) {
+            this.promptTokens = promptTokens;
+        }
+        
+        /**
+         * 获取不做压缩时用户提示词的估算token数
+         * @return 估算token数
+         */
+        public int getOriginalPromptTokens() {
+            return originalPromptTokens;
+        }
+        
+        /**
+         * 设置不做压缩时用户提示词的估算token数
+         * @param originalPromptTokens 估算token数
+         */
+        public void setOriginalPromptTokens(int originalPromptTokens) {
+            this.originalPromptTokens = originalPromptTokens;
+        }
+        
+        /**
+         * 判断AI增强分析结果是否来自缓存
+         * @return 命中缓存时返回true
+         */
+        public boolean isFromCache() {
+            return fromCache;
+        }
+        
+        /**
+         * 设置AI增强分析结果是否来自缓存
+         * @param fromCache 是否命中缓存
+         */
+        public void setFromCache(boolean fromCache) {
+            this.fromCache = fromCache;
+        }
+        
         /**
          * 获取AI连接状态
          * @return AI连接状态
@@ -406,6 +1198,153 @@ public class PlagiarismAnalysisService {
          */
         private List<String> keyInsights;
         
+        /**
+         * 发送给AI的用户提示词估算token数，未调用AI时为0
+         */
+        private int promptTokens = 0;
+        
+        /**
+         * 不做压缩时用户提示词的估算token数，未调用AI时为0
+         */
+        private int originalPromptTokens = 0;
+        
+        /**
+         * 获取发送给AI的用户提示词估算token数
+         * @return 估算token数
+         */
+        public int getPromptTokens() {
+            return promptTokens;
+        }
+        
+        /**
+         * 设置发送给AI的用户提示词估算token数
+         * @param promptTokens 估算token数
+         */
+        public void setPromptTokens(int promptTokens) {
+            this.promptTokens = promptTokens;
+        }
+        
+        /**
+         * 获取不做压缩时用户提示词的估算token数
+         * @return 估算token数
+         */
+        public int getOriginalPromptTokens() {
+            return originalPromptTokens;
+        }
+        
+        /**
+         * 设置不做压缩时用户提示词的估算token数
+         * @param originalPromptTokens 估算token数
+         */
+        public void setOriginalPromptTokens(int originalPromptTokens) {
+            this.originalPromptTokens = originalPromptTokens;
+        }
+        
+        /**
+         * 已逐对AI复核的代码对，按优先级排列，未开启分诊时为null
+         */
+        private List<PairReview> reviewedPairs;
+        
+        /**
+         * 因预算不足未复核的代码对，按优先级排列，未开启分诊时为null
+         */
+        private List<PairReview> skippedPairs;
+        
+        /**
+         * 逐对复核预估消耗的token数
+         */
+        private int triageTokens = 0;
+        
+        /**
+         * 逐对复核预估产生的费用（元）
+         */
+        private double triageCost = 0;
+        
+        /**
+         * 逐对复核耗时（毫秒）
+         */
+        private long triageElapsedMs = 0;
+        
+        /**
+         * 获取已逐对AI复核的代码对
+         * @return 复核结果列表
+         */
+        public List<PairReview> getReviewedPairs() {
+            return reviewedPairs;
+        }
+        
+        /**
+         * 设置已逐对AI复核的代码对
+         * @param reviewedPairs 复核结果列表
+         */
+        public void setReviewedPairs(List<PairReview> reviewedPairs) {
+            this.reviewedPairs = reviewedPairs;
+        }
+        
+        /**
+         * 获取因预算不足未复核的代码对
+         * @return 跳过的代码对列表，包含跳过原因
+         */
+        public List<PairReview> getSkippedPairs() {
+            return skippedPairs;
+        }
+        
+        /**
+         * 设置因预算不足未复核的代码对
+         * @param skippedPairs 跳过的代码对列表
+         */
+        public void setSkippedPairs(List<PairReview> skippedPairs) {
+            this.skippedPairs = skippedPairs;
+        }
+        
+        /**
+         * 获取逐对复核预估消耗的token数
+         * @return 预估token数
+         */
+        public int getTriageTokens() {
+            return triageTokens;
+        }
+        
+        /**
+         * 设置逐对复核预估消耗的token数
+         * @param triageTokens 预估token数
+         */
+        public void setTriageTokens(int triageTokens) {
+            this.triageTokens = triageTokens;
+        }
+        
+        /**
+         * 获取逐对复核预估产生的费用
+         * @return 费用（元）
+         */
+        public double getTriageCost() {
+            return triageCost;
+        }
+        
+        /**
+         * 设置逐对复核预估产生的费用
+         * @param triageCost 费用（元）
+         */
+        public void setTriageCost(double triageCost) {
+            this.triageCost = triageCost;
+        }
+        
+        /**
+         * 获取逐对复核耗时
+         * @return 耗时（毫秒）
+         */
+        public long getTriageElapsedMs() {
+            return triageElapsedMs;
+        }
+        
+        /**
+         * 设置逐对复核耗时
+         * @param triageElapsedMs 耗时（毫秒）
+         */
+        public void setTriageElapsedMs(long triageElapsedMs) {
+            this.triageElapsedMs = triageElapsedMs;
+        }
+        
         /**
          * 构造函数
          * @param baseResult 基础批量查重分析结果
@@ -0,0 +1,269 @@
+package org.codeDuplicateChecking.Agent.service;
+
+import org.codeDuplicateChecking.Agent.config.ResultStoreConfig;
+import org.codeDuplicateChecking.Agent.model.BatchPlagiarismResult;
+import org.codeDuplicateChecking.Agent.model.PlagiarismResult;
+import org.codeDuplicateChecking.Agent.model.ResultPage;
+import org.codeDuplicateChecking.Agent.model.ResultQuery;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * 批量查重结果的分页查询<br>
+ * 完整结果按结果集标识保存在独立的存储中，最后一次访问后保留ttl-ms，按估算的内存占用淘汰最久未访问的结果集，
+ * 不依赖查重结果缓存。结果集只在第一次按相似度查询时排序一次，相同过滤条件的翻页复用上次过滤的结果。
+ * 大批量查重时前端只需按需获取当前可见的一页，响应大小和渲染时间不随代码对数增长
+ */
+@Service
+public class ResultPageService {
+
+    // 结果查询接口未指定页大小时的默认值
+    public static final int DEFAULT_PAGE_SIZE = 50;
+
+    // 单页结果数上限
+    public static final int MAX_PAGE_SIZE = 1000;
+
+    public static final String SORT_SCORE_DESC = "score_desc";
+    public static final String SORT_SCORE_ASC = "score_asc";
+    public static final String SORT_NONE = "none";
+
+    private final ResultStoreConfig config;
+
+    // 按访问顺序排列的结果集，访问时加锁
+    private final LinkedHashMap<String, StoredResult> stored = new LinkedHashMap<>(16, 0.75f, true);
+
+    // 当前保存的结果集的估算内存占用（字节）
+    private long weight;
+
+    public ResultPageService(ResultStoreConfig config) {
+        this.config = config;
+    }
+
+    /**
+     * 保存没有内容哈希的批量查重结果（如AI增强分析的基础结果），生成随机的结果集标识
+     * @param result 完整的批量查重结果，保存后不应再被修改
+     * @return 结果集标识
+     */
+    public String store(BatchPlagiarismResult result) {
+        String resultId = UUID.randomUUID().toString().replace("-", "");
+        save(resultId, result);
+        return resultId;
+    }
+
+    /**
+     * 查询已保存结果集的一页
+     * @param resultId 结果集标识
+     * @param query 查询条件，页大小为0时使用默认页大小
+     * @return 本页结果，结果集不存在或已过期时返回null
+     */
+    public ResultPage find(String resultId, ResultQuery query) {
+        StoredResult holder;
+        synchronized (stored) {
+            evictExpired(System.currentTimeMillis());
+            holder = stored.get(resultId);
+            if (holder == null) {
+                return null;
+            }
+            holder.lastAccessMs = System.currentTimeMillis();
+        }
+        return holder.page(resultId, query, DEFAULT_PAGE_SIZE);
+    }
+
+    /**
+     * 复制批量查重结果用于响应，设置结果集标识并保存完整结果，需要分页时只保留第一次请求的那一页
+     * @param resultId 结果集标识，为null时不保存
+     * @param result 完整的批量查重结果，不会被修改
+     * @param query 查询条件，为null或页大小为0时不分页
+     * @return 复制的批量查重结果
+     */
+    public BatchPlagiarismResult paginate(String resultId, BatchPlagiarismResult result, ResultQuery query) {
+        BatchPlagiarismResult response = new BatchPlagiarismResult(result.getResults(), result.getTotalCodeBlocks(),
+                result.getTotalPairs(), result.getPlagiarismPairs(), result.getMaxSimilarityScore(),
+                result.getAvgSimilarityScore(), result.getThreshold(), result.getProcessingTimeMs(),
+                result.getStatistics(), result.getPartitionStatistics(), result.getSkippedPairs(),
+                result.getIngestion(), resultId, null, result.getProfile());
+        StoredResult holder = resultId != null ? save(resultId, result) : null;
+        if (isPaged(query)) {
+            ResultPage page = (holder != null ? holder : new StoredResult(result.getResults(), 0))
+                    .page(resultId, query, DEFAULT_PAGE_SIZE);
+            response.setResults(page.getResults());
+            page.setResults(null);
+            response.setPage(page);
+        }
+        return response;
+    }
+
+    /**
+     * 保存AI增强分析的基础结果，并就地设置结果集标识和分页<br>
+     * 保存的是完整结果的副本，就地分页不影响后续的分页查询
+     * @param result 批量查重结果
+     * @param query 查询条件，为null或页大小为0时不分页
+     */
+    public void storeAndPaginate(BatchPlagiarismResult result, ResultQuery query) {
+        String resultId = UUID.randomUUID().toString().replace("-", "");
+        BatchPlagiarismResult response = paginate(resultId, paginate(null, result, null), query);
+        result.setResultId(resultId);
+        result.setResults(response.getResults());
+        result.setPage(response.getPage());
+    }
+
+    /**
+     * @param query 查询条件
+     * @return 批量查重接口是否需要分页返回
+     */
+    public boolean isPaged(ResultQuery query) {
+        return query != null && query.getSize() > 0;
+    }
+
+    /**
+     * @return 当前保存的结果集数
+     */
+    public int size() {
+        synchronized (stored) {
+            return stored.size();
+        }
+    }
+
+    /**
+     * 保存结果集，同一标识已保存同一结果时只刷新访问时间，不再重复计算占用
+     */
+    private StoredResult save(String resultId, BatchPlagiarismResult result) {
+        long now = System.currentTimeMillis();
+        synchronized (stored) {
+            StoredResult existing = stored.get(resultId);
+            if (existing != null && existing.results == result.getResults()) {
+                existing.lastAccessMs = now;
+                return existing;
+            }
+        }
+        StoredResult holder = new StoredResult(result.getResults(), ComparisonResultCache.estimateWeight(result));
+        synchronized (stored) {
+            holder.lastAccessMs = now;
+            StoredResult previous = stored.put(resultId, holder);
+            if (previous != null) {
+                weight -= previous.weight;
+            }
+            weight += holder.weight;
+            evictExpired(now);
+            // 超出上限时淘汰最久未访问的结果集，刚保存的结果集总是保留，保证响应中的resultId可用
+            Iterator<Map.Entry<String, StoredResult>> eldest = stored.entrySet().iterator();
+            while (weight > config.getMaxWeightBytes() && eldest.hasNext()) {
+                StoredResult candidate = eldest.next().getValue();
+                if (candidate == holder) {
+                    break;
+                }
+                weight -= candidate.weight;
+                eldest.remove();
+            }
+        }
+        return holder;
+    }
+
+    private void evictExpired(long now) {
+        Iterator<StoredResult> iterator = stored.values().iterator();
+        while (iterator.hasNext()) {
+            StoredResult holder = iterator.next();
+            if (now - holder.lastAccessMs > config.getTtlMs()) {
+                weight -= holder.weight;
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * 过滤、排序并截取一页结果
+     */
+    static ResultPage page(String resultId, List<PlagiarismResult> results, ResultQuery query, int defaultSize) {
+        return new StoredResult(results, 0).page(resultId, query, defaultSize);
+    }
+
+    private static boolean containsIgnoreCase(String text, String lowerCaseNeedle) {
+        return text != null && text.toLowerCase(Locale.ROOT).contains(lowerCaseNeedle);
+    }
+
+    /**
+     * 一个保存的结果集，按相似度排序的视图和上次过滤的结果在首次使用时计算
+     */
+    private static class StoredResult {
+        private final List<PlagiarismResult> results;
+        private final long weight;
+        private volatile long lastAccessMs;
+
+        // 按相似度从高到低排列的结果，相似度相同时保持比较顺序
+        private List<PlagiarismResult> byScoreDesc;
+
+        // 上次查询的过滤和排序条件及其结果
+        private String filterKey;
+        private List<PlagiarismResult> filtered;
+
+        StoredResult(List<PlagiarismResult> results, long weight) {
+            this.results = results != null ? results : Collections.emptyList();
+            this.weight = weight;
+        }
+
+        synchronized ResultPage page(String resultId, ResultQuery query, int defaultSize) {
+            String sort = query.getSort() != null ? query.getSort() : SORT_SCORE_DESC;
+            if (!SORT_SCORE_DESC.equals(sort) && !SORT_SCORE_ASC.equals(sort) && !SORT_NONE.equals(sort)) {
+                throw new IllegalArgumentException("不支持的排序方式: " + sort);
+            }
+            String author = query.getAuthor() != null && !query.getAuthor().trim().isEmpty()
+                    ? query.getAuthor().trim().toLowerCase(Locale.ROOT) : null;
+            String key = sort + "\n" + query.getMinScore() + "\n" + query.isPlagiarismOnly() + "\n" + author;
+            if (!key.equals(filterKey)) {
+                filtered = filter(ordered(sort), query, author);
+                filterKey = key;
+            }
+
+            int size = Math.min(query.getSize() > 0 ? query.getSize() : defaultSize, MAX_PAGE_SIZE);
+            int page = Math.max(0, query.getPage());
+            int totalPages = (filtered.size() + size - 1) / size;
+            int from = (int) Math.min((long) page * size, filtered.size());
+            int to = Math.min(from + size, filtered.size());
+            return new ResultPage(resultId, page, size, filtered.size(), totalPages, results.size(),
+                    new ArrayList<>(filtered.subList(from, to)));
+        }
+
+        private List<PlagiarismResult> ordered(String sort) {
+            if (SORT_NONE.equals(sort)) {
+                return results;
+            }
+            if (byScoreDesc == null) {
+                byScoreDesc = new ArrayList<>(results);
+                byScoreDesc.sort(Comparator.comparingDouble(PlagiarismResult::getSimilarityScore).reversed());
+            }
+            if (SORT_SCORE_ASC.equals(sort)) {
+                List<PlagiarismResult> ascending = new ArrayList<>(byScoreDesc);
+                Collections.reverse(ascending);
+                return ascending;
+            }
+            return byScoreDesc;
+        }
+
+        private static List<PlagiarismResult> filter(List<PlagiarismResult> source, ResultQuery query, String author) {
+            List<PlagiarismResult> filtered = new ArrayList<>();
+            for (PlagiarismResult result : source) {
+                if (result.getSimilarityScore() < query.getMinScore()) {
+                    continue;
+                }
+                if (query.isPlagiarismOnly() && !result.isPlagiarism()) {
+                    continue;
+                }
+                if (author != null && !containsIgnoreCase(result.getAuthor1(), author)
+                        && !containsIgnoreCase(result.getAuthor2(), author)) {
+                    continue;
+                }
+                filtered.add(result);
+            }
+            return filtered;
+        }
+    }
+}
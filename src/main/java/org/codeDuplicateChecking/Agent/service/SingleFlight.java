@@ -0,0 +1,126 @@
+package org.codeDuplicateChecking.Agent.service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * 相同请求合并<br>
+ * 同一个键同时只有一个调用在进行，期间到达的相同请求不再发起新调用，而是等待并共享该调用的结果。
+ * 每个请求拿到各自的Future，单个请求取消不影响其他请求，所有请求都取消后才取消底层调用
+ */
+class SingleFlight<V> {
+
+    private final ConcurrentHashMap<String, Flight<V>> flights = new ConcurrentHashMap<>();
+
+    // 被合并（未发起新调用）的请求数
+    private final AtomicLong coalescedCount = new AtomicLong();
+
+    /**
+     * 执行调用，相同键已有调用在进行时直接加入该调用
+     * @param key 请求键
+     * @param call 发起实际调用，只在没有进行中的相同请求时执行
+     * @return 本次请求的Future，取消它只会退出等待
+     */
+    CompletableFuture<V> execute(String key, Supplier<CompletableFuture<V>> call) {
+        while (true) {
+            Flight<V> existing = flights.get(key);
+            if (existing != null) {
+                if (existing.join()) {
+                    coalescedCount.incrementAndGet();
+                    return existing.newWaiter();
+                }
+                // 所有等待者都已取消，底层调用即将结束，移除后重新发起
+                flights.remove(key, existing);
+                continue;
+            }
+
+            Flight<V> flight = new Flight<>();
+            if (flights.putIfAbsent(key, flight) != null) {
+                continue;
+            }
+            CompletableFuture<V> waiter = flight.newWaiter();
+            flight.upstream.whenComplete((result, error) -> flights.remove(key, flight));
+            try {
+                flight.start(call.get());
+            } catch (RuntimeException e) {
+                flight.upstream.completeExceptionally(e);
+            }
+            return waiter;
+        }
+    }
+
+    /**
+     * @return 当前进行中的调用数
+     */
+    int getInFlightCount() {
+        return flights.size();
+    }
+
+    /**
+     * @return 累计被合并的请求数
+     */
+    long getCoalescedCount() {
+        return coalescedCount.get();
+    }
+
+    /**
+     * 一个进行中的调用及其等待者计数
+     */
+    private static class Flight<V> {
+
+        // 等待结果的请求数，降为0后不再接受新的等待者
+        private final AtomicInteger waiters = new AtomicInteger(1);
+
+        // 调用结果，start之前就可以被等待
+        private final CompletableFuture<V> upstream = new CompletableFuture<>();
+
+        // 实际调用，用于全部等待者取消时取消
+        private volatile CompletableFuture<V> call;
+
+        boolean join() {
+            return waiters.getAndUpdate(n -> n > 0 ? n + 1 : n) > 0;
+        }
+
+        void start(CompletableFuture<V> call) {
+            this.call = call;
+            call.whenComplete((result, error) -> {
+                if (error instanceof CompletionException && error.getCause() != null) {
+                    // 经过thenApply等转换的调用失败时异常被包装，还原为原始异常
+                    upstream.completeExceptionally(error.getCause());
+                } else if (error != null) {
+                    upstream.completeExceptionally(error);
+                } else {
+                    upstream.complete(result);
+                }
+            });
+            if (waiters.get() == 0) {
+                call.cancel(true);
+            }
+        }
+
+        CompletableFuture<V> newWaiter() {
+            CompletableFuture<V> waiter = new CompletableFuture<>();
+            upstream.whenComplete((result, error) -> {
+                if (error != null) {
+                    waiter.completeExceptionally(error);
+                } else {
+                    waiter.complete(result);
+                }
+            });
+            waiter.whenComplete((result, error) -> {
+                if (waiter.isCancelled() && waiters.decrementAndGet() == 0) {
+                    CompletableFuture<V> current = call;
+                    if (current != null) {
+                        current.cancel(true);
+                    }
+                    upstream.cancel(true);
+                }
+            });
+            return waiter;
+        }
+    }
+}
@@ -0,0 +1,272 @@
+package org.codeDuplicateChecking.Agent.service;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 流式读取tar压缩包<br>
+ * 逐个读取文件头，当前文件的内容通过本流读取，读取下一个文件时自动跳过当前文件的剩余内容，
+ * 不会把整个压缩包读入内存。支持ustar的路径前缀、GNU长文件名和pax扩展头中的path
+ */
+class TarArchiveReader extends InputStream {
+
+    private static final int BLOCK_SIZE = 512;
+
+    private static final char TYPE_FILE = '0';
+    private static final char TYPE_FILE_OLD = '\0';
+    private static final char TYPE_GNU_LONG_NAME = 'L';
+    private static final char TYPE_PAX_HEADER = 'x';
+    private static final char TYPE_PAX_GLOBAL_HEADER = 'g';
+
+    // GNU长文件名和pax扩展头内容的最大字节数，超过时跳过该扩展头，避免按声明的大小分配内存
+    static final int MAX_EXTENSION_HEADER_SIZE = 64 * 1024;
+
+    private final InputStream input;
+    private final byte[] header = new byte[BLOCK_SIZE];
+
+    // 当前文件未读取的字节数
+    private long remaining;
+
+    // 当前文件末尾的填充字节数
+    private long padding;
+
+    TarArchiveReader(InputStream input) {
+        this.input = input;
+    }
+
+    /**
+     * 读取下一个普通文件，跳过目录、链接等其他类型的条目
+     * @return 文件信息，压缩包结束时返回null
+     * @throws IOException 读取失败或压缩包格式错误
+     */
+    Entry nextEntry() throws IOException {
+        String longName = null;
+        while (true) {
+            skipFully(remaining + padding);
+            remaining = 0;
+            padding = 0;
+
+            if (!readBlock()) {
+                return null;
+            }
+            if (isZeroBlock()) {
+                return null;
+            }
+            verifyChecksum();
+
+            char type = (char) header[156];
+            long size = parseNumber(124, 12);
+            String name = longName != null ? longName : headerName();
+            longName = null;
+
+            remaining = size;
+            padding = (BLOCK_SIZE - size % BLOCK_SIZE) % BLOCK_SIZE;
+
+            if ((type == TYPE_GNU_LONG_NAME || type == TYPE_PAX_HEADER) && size > MAX_EXTENSION_HEADER_SIZE) {
+                // 内容在下一轮循环开始时跳过，后续文件使用自身文件头中的文件名
+                continue;
+            } else if (type == TYPE_GNU_LONG_NAME) {
+                longName = trimNull(new String(readContent(size), StandardCharsets.UTF_8));
+            } else if (type == TYPE_PAX_HEADER) {
+                longName = paxPath(readContent(size));
+            } else if (type == TYPE_FILE || type == TYPE_FILE_OLD) {
+                return new Entry(name, size);
+            } else if (type != TYPE_PAX_GLOBAL_HEADER) {
+                // 目录、链接等条目没有需要读取的内容
+                continue;
+            }
+        }
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] single = new byte[1];
+        return read(single, 0, 1) < 0 ? -1 : single[0] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        if (remaining <= 0) {
+            return -1;
+        }
+        int read = input.read(buffer, offset, (int) Math.min(length, remaining));
+        if (read < 0) {
+            throw new EOFException("tar压缩包不完整");
+        }
+        remaining -= read;
+        return read;
+    }
+
+    @Override
+    public void close() throws IOException {
+        input.close();
+    }
+
+    private boolean readBlock() throws IOException {
+        int offset = 0;
+        while (offset < BLOCK_SIZE) {
+            int read = input.read(header, offset, BLOCK_SIZE - offset);
+            if (read < 0) {
+                if (offset == 0) {
+                    return false;
+                }
+                throw new EOFException("tar压缩包不完整");
+            }
+            offset += read;
+        }
+        return true;
+    }
+
+    private byte[] readContent(long size) throws IOException {
+        byte[] content = new byte[(int) size];
+        int offset = 0;
+        while (offset < content.length) {
+            int read = read(content, offset, content.length - offset);
+            if (read < 0) {
+                throw new EOFException("tar压缩包不完整");
+            }
+            offset += read;
+        }
+        return content;
+    }
+
+    private void skipFully(long count) throws IOException {
+        byte[] buffer = null;
+        while (count > 0) {
+            long skipped = input.skip(count);
+            if (skipped <= 0) {
+                // skip不保证前进时改为读取
+                if (buffer == null) {
+                    buffer = new byte[BLOCK_SIZE];
+                }
+                int read = input.read(buffer, 0, (int) Math.min(buffer.length, count));
+                if (read < 0) {
+                    throw new EOFException("tar压缩包不完整");
+                }
+                skipped = read;
+            }
+            count -= skipped;
+        }
+    }
+
+    private boolean isZeroBlock() {
+        for (byte b : header) {
+            if (b != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void verifyChecksum() throws IOException {
+        long expected = parseNumber(148, 8);
+        long actual = 0;
+        for (int i = 0; i < BLOCK_SIZE; i++) {
+            // 计算校验和时校验和字段按空格处理
+            actual += (i >= 148 && i < 156) ? ' ' : header[i] & 0xff;
+        }
+        if (expected != actual) {
+            throw new IOException("不是有效的tar压缩包");
+        }
+    }
+
+    private String headerName() {
+        String name = field(0, 100);
+        // ustar格式的长路径拆分为前缀和文件名
+        if ("ustar".equals(field(257, 5))) {
+            String prefix = field(345, 155);
+            if (!prefix.isEmpty()) {
+                name = prefix + "/" + name;
+            }
+        }
+        return name;
+    }
+
+    private String field(int offset, int length) {
+        int end = offset;
+        while (end < offset + length && header[end] != 0) {
+            end++;
+        }
+        return new String(header, offset, end - offset, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 解析八进制数字段，最高位为1时为GNU的base-256编码
+     */
+    private long parseNumber(int offset, int length) throws IOException {
+        if ((header[offset] & 0x80) != 0) {
+            long value = header[offset] & 0x7f;
+            for (int i = offset + 1; i < offset + length; i++) {
+                value = (value << 8) | (header[i] & 0xff);
+            }
+            return value;
+        }
+        String text = field(offset, length).trim();
+        if (text.isEmpty()) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(text, 8);
+        } catch (NumberFormatException e) {
+            throw new IOException("不是有效的tar压缩包");
+        }
+    }
+
+    /**
+     * 从pax扩展头中取出path，记录格式为"长度 键=值\n"，长度按字节计算
+     */
+    private static String paxPath(byte[] records) {
+        String path = null;
+        int offset = 0;
+        while (offset < records.length) {
+            int space = offset;
+            while (space < records.length && records[space] != ' ') {
+                space++;
+            }
+            int length;
+            try {
+                length = Integer.parseInt(new String(records, offset, space - offset, StandardCharsets.US_ASCII));
+            } catch (NumberFormatException e) {
+                break;
+            }
+            int end = offset + length;
+            if (length <= 0 || end > records.length || space + 1 >= end) {
+                break;
+            }
+            String record = new String(records, space + 1, end - space - 2, StandardCharsets.UTF_8);
+            if (record.startsWith("path=")) {
+                path = record.substring("path=".length());
+            }
+            offset = end;
+        }
+        return path;
+    }
+
+    private static String trimNull(String text) {
+        int end = text.indexOf('\0');
+        return end >= 0 ? text.substring(0, end) : text;
+    }
+
+    /**
+     * tar中的一个普通文件
+     */
+    static class Entry {
+        private final String name;
+        private final long size;
+
+        Entry(String name, long size) {
+            this.name = name;
+            this.size = size;
+        }
+
+        String getName() {
+            return name;
+        }
+
+        long getSize() {
+            return size;
+        }
+    }
+}
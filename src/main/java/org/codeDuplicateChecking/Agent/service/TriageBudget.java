@@ -0,0 +1,95 @@
+package org.codeDuplicateChecking.Agent.service;
+
+import org.codeDuplicateChecking.Agent.config.AITriageConfig;
+import org.codeDuplicateChecking.Agent.model.PlagiarismResult;
+
+/**
+ * 单个批次的AI复核预算，按代码对数、token数、费用和时间四个维度记账<br>
+ * 每次复核发出前按估算token预留额度，任一维度不足时该代码对跳过；
+ * 分级路由升级到大模型时再追加预留一次token额度。升级在回调线程中发生，记账方法加锁
+ */
+class TriageBudget {
+
+    static final String REASON_PAIRS = "超出代码对数量预算";
+    static final String REASON_TOKENS = "超出token预算";
+    static final String REASON_COST = "超出费用预算";
+    static final String REASON_TIME = "超出时间预算";
+
+    private final AITriageConfig config;
+    private final long deadline;
+
+    private int pairs = 0;
+    private int tokens = 0;
+
+    TriageBudget(AITriageConfig config, long startTimeMs) {
+        this.config = config;
+        this.deadline = startTimeMs + config.getMaxDurationSeconds() * 1000L;
+    }
+
+    /**
+     * 分诊优先级：基础查重率加上超出阈值的幅度，越大越先复核
+     */
+    static double priority(PlagiarismResult result, double marginWeight) {
+        double margin = Math.max(0, result.getSimilarityScore() - result.getThreshold());
+        return result.getSimilarityScore() + marginWeight * margin;
+    }
+
+    /**
+     * 为一次复核预留额度
+     * @param estimatedTokens 预估token数
+     * @param nowMs 当前时间
+     * @return 预留成功时返回null，否则返回跳过原因
+     */
+    synchronized String tryReserve(int estimatedTokens, long nowMs) {
+        if (remainingMs(nowMs) <= 0) {
+            return REASON_TIME;
+        }
+        if (pairs >= config.getMaxPairs()) {
+            return REASON_PAIRS;
+        }
+        String reason = tryReserveTokens(estimatedTokens, nowMs);
+        if (reason == null) {
+            pairs++;
+        }
+        return reason;
+    }
+
+    /**
+     * 为已预留的代码对追加一次调用（分级路由中升级到大模型）的token额度，不计入代码对数
+     * @param estimatedTokens 预估token数
+     * @param nowMs 当前时间
+     * @return 预留成功时返回null，否则返回原因
+     */
+    synchronized String tryReserveTokens(int estimatedTokens, long nowMs) {
+        if (remainingMs(nowMs) <= 0) {
+            return REASON_TIME;
+        }
+        if (config.getMaxTokens() > 0 && tokens + estimatedTokens > config.getMaxTokens()) {
+            return REASON_TOKENS;
+        }
+        if (config.getMaxCost() > 0 && costOf(tokens + estimatedTokens) > config.getMaxCost()) {
+            return REASON_COST;
+        }
+        tokens += estimatedTokens;
+        return null;
+    }
+
+    /**
+     * @return 剩余时间（毫秒），已超时时不大于0
+     */
+    long remainingMs(long nowMs) {
+        return deadline - nowMs;
+    }
+
+    synchronized int getTokens() {
+        return tokens;
+    }
+
+    synchronized double getCost() {
+        return costOf(tokens);
+    }
+
+    private double costOf(int tokenCount) {
+        return tokenCount / 1000.0 * config.getCostPerThousandTokens();
+    }
+}
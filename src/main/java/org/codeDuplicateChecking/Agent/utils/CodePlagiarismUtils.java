@@ -1,5 +1,7 @@
 package org.codeDuplicateChecking.Agent.utils;
 
+import org.codeDuplicateChecking.Agent.jfr.EngineEvents;
+
 import java.util.*;
 import java.util.regex.Pattern;
 import java.util.regex.Matcher;
@@ -9,6 +11,9 @@ import java.util.regex.Matcher;
  */
 public class CodePlagiarismUtils {
 
+    // 综合相似度包含的各项算法，分项计时时按此顺序记录耗时
+    public static final String[] SCORE_METRICS = {"jaccard4", "jaccard8", "edit_distance", "structure"};
+
     // 移除代码中的注释和空白字符的正则表达式
     private static final Pattern SINGLE_LINE_COMMENT_PATTERN = Pattern.compile("//.*");
     private static final Pattern MULTI_LINE_COMMENT_PATTERN = Pattern.compile("/\\*[\\s\\S]*?\\*/");
@@ -107,9 +112,17 @@ public class CodePlagiarismUtils {
      */
     public static double calculateJaccardSimilarity(String code1, String code2, int n) {
         // 预处理代码
-        String processedCode1 = preprocessCode(code1);
-        String processedCode2 = preprocessCode(code2);
+        return calculateProcessedJaccardSimilarity(preprocessCode(code1), preprocessCode(code2), n);
+    }
 
+    /**
+     * 使用Jaccard相似度计算两个已预处理代码块的相似度
+     * @param processedCode1 第一个预处理后的代码块
+     * @param processedCode2 第二个预处理后的代码块
+     * @param n n-gram的大小
+     * @return 相似度值，范围[0,1]，值越大表示相似度越高
+     */
+    public static double calculateProcessedJaccardSimilarity(String processedCode1, String processedCode2, int n) {
         // 生成n-gram集合
         Set<String> nGrams1 = generateNGrams(processedCode1, n);
         Set<String> nGrams2 = generateNGrams(processedCode2, n);
@@ -169,9 +182,16 @@ public class CodePlagiarismUtils {
      */
     public static double calculateEditDistanceSimilarity(String code1, String code2) {
         // 预处理代码
-        String processedCode1 = preprocessCode(code1);
-        String processedCode2 = preprocessCode(code2);
-        
+        return calculateProcessedEditDistanceSimilarity(preprocessCode(code1), preprocessCode(code2));
+    }
+
+    /**
+     * 使用编辑距离计算两个已预处理代码块的相似度
+     * @param processedCode1 第一个预处理后的代码块
+     * @param processedCode2 第二个预处理后的代码块
+     * @return 相似度值，范围[0,1]，值越大表示相似度越高
+     */
+    public static double calculateProcessedEditDistanceSimilarity(String processedCode1, String processedCode2) {
         // 计算编辑距离
         int distance = calculateEditDistance(processedCode1, processedCode2);
         
@@ -189,15 +209,81 @@ public class CodePlagiarismUtils {
      * @return 综合相似度值，范围[0,1]，值越大表示相似度越高
      */
     public static double calculatePlagiarismScore(String code1, String code2) {
+        return calculatePlagiarismScore(code1, code2, StructureMetric.SEQUENCE);
+    }
+
+    /**
+     * 计算两个代码块的综合相似度，结构相似度一项使用指定的算法
+     * @param code1 第一个代码块
+     * @param code2 第二个代码块
+     * @param structureMetric 结构相似度算法
+     * @return 综合相似度值，范围[0,1]，值越大表示相似度越高
+     */
+    public static double calculatePlagiarismScore(String code1, String code2, StructureMetric structureMetric) {
+        // 每个代码块只预处理一次，各项相似度算法共用预处理结果
+        String processedCode1 = preprocessCode(code1);
+        String processedCode2 = preprocessCode(code2);
+        Object event = EngineEvents.beginPair();
+        long[] metricNanos = event != null ? new long[SCORE_METRICS.length] : null;
+        double score = calculateProcessedPlagiarismScore(processedCode1, processedCode2, metricNanos, structureMetric);
+        EngineEvents.commitPair(event, null, null, processedCode1.length(), processedCode2.length(), metricNanos, score);
+        return score;
+    }
+
+    /**
+     * 计算两个已预处理代码块的综合相似度<br>
+     * 批量查重时可先对每个代码块预处理一次，再用本方法两两比较，避免重复预处理
+     * @param processedCode1 第一个预处理后的代码块
+     * @param processedCode2 第二个预处理后的代码块
+     * @return 综合相似度值，范围[0,1]，值越大表示相似度越高
+     */
+    public static double calculateProcessedPlagiarismScore(String processedCode1, String processedCode2) {
+        return calculateProcessedPlagiarismScore(processedCode1, processedCode2, null);
+    }
+
+    /**
+     * 计算两个已预处理代码块的综合相似度，同时记录各项算法的耗时
+     * @param processedCode1 第一个预处理后的代码块
+     * @param processedCode2 第二个预处理后的代码块
+     * @param metricNanos 各项算法的耗时（纳秒），按SCORE_METRICS的顺序写入，长度不小于SCORE_METRICS.length；为null时不计时
+     * @return 综合相似度值，范围[0,1]，值越大表示相似度越高
+     */
+    public static double calculateProcessedPlagiarismScore(String processedCode1, String processedCode2, long[] metricNanos) {
+        return calculateProcessedPlagiarismScore(processedCode1, processedCode2, metricNanos, StructureMetric.SEQUENCE);
+    }
+
+    /**
+     * 计算两个已预处理代码块的综合相似度，结构相似度一项使用指定的算法，同时记录各项算法的耗时
+     * @param processedCode1 第一个预处理后的代码块
+     * @param processedCode2 第二个预处理后的代码块
+     * @param metricNanos 各项算法的耗时（纳秒），按SCORE_METRICS的顺序写入，长度不小于SCORE_METRICS.length；为null时不计时
+     * @param structureMetric 结构相似度算法
+     * @return 综合相似度值，范围[0,1]，值越大表示相似度越高
+     */
+    public static double calculateProcessedPlagiarismScore(String processedCode1, String processedCode2, long[] metricNanos,
+                                                           StructureMetric structureMetric) {
+        boolean timed = metricNanos != null;
+        long start = timed ? System.nanoTime() : 0;
+        
         // 使用不同的n值计算Jaccard相似度
-        double jaccardSimilarity4 = calculateJaccardSimilarity(code1, code2, 4);
-        double jaccardSimilarity8 = calculateJaccardSimilarity(code1, code2, 8);
+        double jaccardSimilarity4 = calculateProcessedJaccardSimilarity(processedCode1, processedCode2, 4);
+        long jaccard4End = timed ? System.nanoTime() : 0;
+        double jaccardSimilarity8 = calculateProcessedJaccardSimilarity(processedCode1, processedCode2, 8);
+        long jaccard8End = timed ? System.nanoTime() : 0;
         
         // 计算编辑距离相似度
-        double editDistanceSimilarity = calculateEditDistanceSimilarity(code1, code2);
+        double editDistanceSimilarity = calculateProcessedEditDistanceSimilarity(processedCode1, processedCode2);
+        long editDistanceEnd = timed ? System.nanoTime() : 0;
         
         // 计算结构相似度 - 这对变量名修改的情况特别有效
-        double structureSimilarity = calculateStructureSimilarity(code1, code2);
+        double structureSimilarity = calculateProcessedStructureSimilarity(processedCode1, processedCode2, structureMetric);
+        
+        if (timed) {
+            metricNanos[0] = jaccard4End - start;
+            metricNanos[1] = jaccard8End - jaccard4End;
+            metricNanos[2] = editDistanceEnd - jaccard8End;
+            metricNanos[3] = System.nanoTime() - editDistanceEnd;
+        }
         
         // 加权平均得到综合相似度
         // 增加结构相似度权重，减少编辑距离权重，提高对变量名修改抄袭的检测能力
@@ -210,11 +296,18 @@ public class CodePlagiarismUtils {
      * @param code2 第二个代码块
      * @return 结构相似度值，范围[0,1]，值越大表示结构越相似
      */
-    private static double calculateStructureSimilarity(String code1, String code2) {
+    public static double calculateStructureSimilarity(String code1, String code2) {
         // 预处理代码（已经包含了变量名标准化）
-        String processedCode1 = preprocessCode(code1);
-        String processedCode2 = preprocessCode(code2);
-        
+        return calculateProcessedStructureSimilarity(preprocessCode(code1), preprocessCode(code2));
+    }
+
+    /**
+     * 计算两个已预处理代码块的结构相似度
+     * @param processedCode1 第一个预处理后的代码块
+     * @param processedCode2 第二个预处理后的代码块
+     * @return 结构相似度值，范围[0,1]，值越大表示结构越相似
+     */
+    public static double calculateProcessedStructureSimilarity(String processedCode1, String processedCode2) {
         // 提取代码结构特征：操作符、控制结构等
         List<String> features1 = extractStructureFeatures(processedCode1);
         List<String> features2 = extractStructureFeatures(processedCode2);
@@ -227,6 +320,66 @@ public class CodePlagiarismUtils {
         return maxLength == 0 ? 1.0 : 1.0 - (double) distance / maxLength;
     }
     
+    /**
+     * 使用指定的算法计算两个已预处理代码块的结构相似度
+     * @param processedCode1 第一个预处理后的代码块
+     * @param processedCode2 第二个预处理后的代码块
+     * @param structureMetric 结构相似度算法，SUBTREE_HASH对没有花括号的代码（如Python）仍使用SEQUENCE
+     * @return 结构相似度值，范围[0,1]，值越大表示结构越相似
+     */
+    public static double calculateProcessedStructureSimilarity(String processedCode1, String processedCode2,
+                                                               StructureMetric structureMetric) {
+        if (structureMetric == StructureMetric.SUBTREE_HASH && SubtreeHashSimilarity.supports(processedCode1)
+                && SubtreeHashSimilarity.supports(processedCode2)) {
+            return SubtreeHashSimilarity.calculateSimilarity(processedCode1, processedCode2);
+        }
+        return calculateProcessedStructureSimilarity(processedCode1, processedCode2);
+    }
+
+    /**
+     * 统计已预处理代码块的结构特征数，用于计算综合相似度的上界
+     * @param processedCode 预处理后的代码块
+     * @return 结构特征数
+     */
+    public static int countStructureFeatures(String processedCode) {
+        return extractStructureFeatures(processedCode).size();
+    }
+
+    /**
+     * 只根据代码长度和结构特征数估计综合相似度的上界<br>
+     * 编辑距离不小于两者长度之差，因此编辑距离相似度和结构相似度分别不超过短长之比；
+     * Jaccard相似度无法由长度约束，按1计算。上界低于阈值的代码对不可能被判为抄袭，可以跳过完整计算
+     * @param length1 第一个预处理后代码块的长度
+     * @param length2 第二个预处理后代码块的长度
+     * @param features1 第一个代码块的结构特征数
+     * @param features2 第二个代码块的结构特征数
+     * @return 综合相似度的上界，范围[0,1]
+     */
+    public static double calculateProcessedScoreUpperBound(int length1, int length2, int features1, int features2) {
+        return calculateProcessedScoreUpperBound(length1, length2, features1, features2, StructureMetric.SEQUENCE);
+    }
+
+    /**
+     * 估计综合相似度的上界，结构相似度一项使用指定的算法<br>
+     * 子树哈希相似度无法由结构特征数约束，按1计算，此时不需要统计结构特征数
+     * @param length1 第一个预处理后代码块的长度
+     * @param length2 第二个预处理后代码块的长度
+     * @param features1 第一个代码块的结构特征数，SUBTREE_HASH时忽略
+     * @param features2 第二个代码块的结构特征数，SUBTREE_HASH时忽略
+     * @param structureMetric 结构相似度算法
+     * @return 综合相似度的上界，范围[0,1]
+     */
+    public static double calculateProcessedScoreUpperBound(int length1, int length2, int features1, int features2,
+                                                           StructureMetric structureMetric) {
+        double structureBound = structureMetric == StructureMetric.SUBTREE_HASH ? 1.0 : lengthRatio(features1, features2);
+        return 0.2 + 0.2 + 0.3 * lengthRatio(length1, length2) + 0.3 * structureBound;
+    }
+
+    private static double lengthRatio(int length1, int length2) {
+        int maxLength = Math.max(length1, length2);
+        return maxLength == 0 ? 1.0 : (double) Math.min(length1, length2) / maxLength;
+    }
+
     /**
      * 提取代码的结构特征
      * @param code 预处理后的代码
@@ -301,6 +454,155 @@ public class CodePlagiarismUtils {
         return dp[m][n];
     }
 
+    /**
+     * 将语言名称归一化为语言族，用于批量查重时的分区<br>
+     * C与C++归为同一族（两者之间互相改写的抄袭很常见），未指定语言时返回空字符串
+     * @param language 代码块声明的语言，如 "C++"、"G++"、"Python3"
+     * @return 归一化后的语言族名称
+     */
+    public static String normalizeLanguage(String language) {
+        if (language == null || language.trim().isEmpty()) {
+            return "";
+        }
+        String lower = language.trim().toLowerCase(Locale.ROOT);
+        if (lower.equals("c") || lower.startsWith("c++") || lower.startsWith("cpp") || lower.startsWith("g++")
+                || lower.startsWith("gcc") || lower.startsWith("clang") || lower.startsWith("gnu c")) {
+            return "c/c++";
+        }
+        if (lower.startsWith("java") && !lower.startsWith("javascript")) {
+            return "java";
+        }
+        if (lower.startsWith("python") || lower.startsWith("pypy") || lower.equals("py")) {
+            return "python";
+        }
+        if (lower.startsWith("javascript") || lower.equals("js") || lower.startsWith("node")) {
+            return "javascript";
+        }
+        if (lower.equals("golang")) {
+            return "go";
+        }
+        return lower;
+    }
+
+    /**
+     * 移除代码中的注释，多行注释替换为相同数量的换行，保证行号不变
+     * @param code 原始代码
+     * @return 移除注释后的代码
+     */
+    public static String stripComments(String code) {
+        if (code == null) {
+            return "";
+        }
+        Matcher matcher = MULTI_LINE_COMMENT_PATTERN.matcher(code);
+        StringBuffer noMultiLineComments = new StringBuffer();
+        while (matcher.find()) {
+            String comment = matcher.group();
+            StringBuilder newlines = new StringBuilder();
+            for (int i = 0; i < comment.length(); i++) {
+                if (comment.charAt(i) == '\n') {
+                    newlines.append('\n');
+                }
+            }
+            matcher.appendReplacement(noMultiLineComments, newlines.toString());
+        }
+        matcher.appendTail(noMultiLineComments);
+        return SINGLE_LINE_COMMENT_PATTERN.matcher(noMultiLineComments).replaceAll("");
+    }
+
+    /**
+     * 移除注释、空行和多余空白，用于构建发送给大模型的提示词<br>
+     * 与preprocessCode不同，保留原始变量名；缩进按层级压缩为每级一个空格，保证Python等语言的结构不变
+     * @param code 原始代码
+     * @return 压缩后的代码
+     */
+    public static String stripCommentsAndWhitespace(String code) {
+        String[] lines = stripComments(code).split("\n", -1);
+        int indentUnit = detectIndentUnit(lines);
+        StringBuilder result = new StringBuilder();
+        for (String line : lines) {
+            String compacted = compactLine(line, indentUnit);
+            if (!compacted.isEmpty()) {
+                result.append(compacted).append('\n');
+            }
+        }
+        return result.toString().trim();
+    }
+
+    /**
+     * 检测代码的缩进单位，即非零缩进宽度中的最小值（制表符按4个空格计）
+     * @param lines 代码行
+     * @return 缩进单位，没有缩进时返回1
+     */
+    public static int detectIndentUnit(String[] lines) {
+        int unit = Integer.MAX_VALUE;
+        for (String line : lines) {
+            if (line.trim().isEmpty()) {
+                continue;
+            }
+            int width = indentWidth(line);
+            if (width > 0) {
+                unit = Math.min(unit, width);
+            }
+        }
+        return unit == Integer.MAX_VALUE ? 1 : unit;
+    }
+
+    /**
+     * 压缩单行代码：去除首尾空白，缩进按层级替换为每级一个空格，行内连续空白合并为一个空格
+     * @param line 代码行
+     * @param indentUnit 缩进单位
+     * @return 压缩后的代码行，空行返回空字符串
+     */
+    public static String compactLine(String line, int indentUnit) {
+        String content = line.trim();
+        if (content.isEmpty()) {
+            return "";
+        }
+        int level = indentWidth(line) / Math.max(1, indentUnit);
+        StringBuilder result = new StringBuilder();
+        for (int i = 0; i < level; i++) {
+            result.append(' ');
+        }
+        return result.append(content.replaceAll("[ \t]+", " ")).toString();
+    }
+
+    private static int indentWidth(String line) {
+        int width = 0;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == ' ') {
+                width++;
+            } else if (c == '\t') {
+                width += 4;
+            } else {
+                break;
+            }
+        }
+        return width;
+    }
+
+    /**
+     * 估算文本的大模型token数<br>
+     * 按经验值估算：ASCII字符约4个一个token，中文等非ASCII字符约1个一个token，结果偏保守
+     * @param text 文本
+     * @return 估算的token数
+     */
+    public static int estimateTokens(String text) {
+        if (text == null || text.isEmpty()) {
+            return 0;
+        }
+        int asciiChars = 0;
+        int otherChars = 0;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) < 128) {
+                asciiChars++;
+            } else {
+                otherChars++;
+            }
+        }
+        return (asciiChars + 3) / 4 + otherChars;
+    }
+
     /**
      * 判断两个代码块是否存在抄袭
      * @param code1 第一个代码块
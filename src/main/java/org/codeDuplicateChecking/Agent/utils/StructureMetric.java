@@ -0,0 +1,18 @@
+package org.codeDuplicateChecking.Agent.utils;
+
+/**
+ * 综合相似度中结构相似度一项使用的算法
+ */
+public enum StructureMetric {
+
+    /**
+     * 操作符和控制结构组成的特征序列的编辑距离，耗时与特征数的平方成正比
+     */
+    SEQUENCE,
+
+    /**
+     * 语法树子树哈希匹配（见SubtreeHashSimilarity），耗时近似线性，对调换语句顺序、插入无关语句更稳健；
+     * 没有花括号的代码（如Python）仍使用SEQUENCE
+     */
+    SUBTREE_HASH
+}
@@ -0,0 +1,582 @@
+package org.codeDuplicateChecking.Agent.utils;
+
+import java.util.*;
+
+/**
+ * 基于子树哈希的结构相似度（参考Baxter等人基于抽象语法树的克隆检测）<br>
+ * 把C/C++/Java代码解析为轻量的语法树：语句块、if/for/while/do/switch/try等控制结构、函数和类定义、
+ * 以;结尾的简单语句，表达式中的括号分组作为子节点。标识符统一抽象为ID，字面量抽象为NUM/STR/CHR，
+ * 基本类型抽象为TYPE，访问修饰符、预处理指令和import语句不参与比较，因此改名、换类型、
+ * 增删头文件都不影响结果<br>
+ * 每个节点的哈希由节点类型、自身的词法单元和子节点哈希自底向上计算。比较时从根节点向下查找：
+ * 节点哈希在另一棵树中存在（且规模不小于MIN_MASS）时整棵子树计为匹配，不再向下；否则继续比较子节点。
+ * 双方匹配的规模之和除以双方总规模即为相似度。语句调换顺序、插入无关语句只影响外层节点，
+ * 内层子树仍然能够匹配。全部查找都是哈希表操作，耗时与代码长度近似线性
+ */
+public final class SubtreeHashSimilarity {
+
+    // 参与匹配的子树的最小规模（词法单元数），过小的子树（如i++;、for循环头部）在独立实现之间也普遍相同
+    // 在合成比赛语料上，8以下独立实现之间的相似度明显偏高，12以上抄袭的召回率下降
+    static final int MIN_MASS = 10;
+
+    // 语句和括号的最大嵌套层数，更深的部分不再递归解析，整体作为一个节点，防止恶意构造的代码导致栈溢出
+    static final int MAX_DEPTH = 100;
+
+    private static final Set<String> KEYWORDS = new HashSet<>(Arrays.asList(
+            "if", "else", "for", "while", "do", "switch", "case", "default", "return", "break", "continue",
+            "goto", "try", "catch", "finally", "throw", "throws", "new", "delete", "class", "struct", "union",
+            "enum", "interface", "extends", "implements", "template", "typename", "namespace", "operator",
+            "sizeof", "this", "super", "true", "false", "null", "NULL", "nullptr", "instanceof"));
+
+    // 基本类型，统一抽象为TYPE；连续的多个类型关键字（如unsigned long long）合并为一个
+    private static final Set<String> TYPES = new HashSet<>(Arrays.asList(
+            "int", "long", "short", "char", "byte", "float", "double", "bool", "boolean", "void", "unsigned",
+            "signed", "auto", "var", "size_t", "string", "String", "Integer", "Long", "Double", "Character",
+            "Boolean"));
+
+    // 不影响结构的修饰符，直接丢弃
+    private static final Set<String> MODIFIERS = new HashSet<>(Arrays.asList(
+            "public", "private", "protected", "static", "final", "const", "constexpr", "inline", "virtual",
+            "register", "volatile", "abstract", "synchronized", "transient", "native", "strictfp", "explicit",
+            "override", "noexcept", "friend", "mutable"));
+
+    private static final String[] OPERATORS = {
+            ">>>=", "<<=", ">>=", ">>>", "...", "->*", "::", "->", "++", "--", "&&", "||", "==", "!=", "<=", ">=",
+            "+=", "-=", "*=", "/=", "%=", "&=", "|=", "^=", "<<", ">>"};
+
+    private SubtreeHashSimilarity() {
+    }
+
+    /**
+     * 判断代码是否适合用子树哈希比较：需要有花括号和分号，Python等缩进语言返回false，调用方应改用其他结构相似度
+     * @param processedCode 预处理后的代码
+     * @return 是否适合用子树哈希比较
+     */
+    public static boolean supports(String processedCode) {
+        return processedCode.indexOf('{') >= 0 && processedCode.indexOf(';') >= 0;
+    }
+
+    /**
+     * 计算两个已预处理代码块的子树哈希结构相似度<br>
+     * 两段代码都短于MIN_MASS个词法单元时没有可匹配的子树，改用特征序列编辑距离
+     * @param processedCode1 第一个预处理后的代码块
+     * @param processedCode2 第二个预处理后的代码块
+     * @return 结构相似度值，范围[0,1]，值越大表示结构越相似
+     */
+    public static double calculateSimilarity(String processedCode1, String processedCode2) {
+        Node tree1 = parse(processedCode1);
+        Node tree2 = parse(processedCode2);
+        if (tree1.hash == tree2.hash) {
+            return 1.0;
+        }
+        if (tree1.mass < MIN_MASS && tree2.mass < MIN_MASS) {
+            return CodePlagiarismUtils.calculateProcessedStructureSimilarity(processedCode1, processedCode2);
+        }
+        int totalMass = tree1.mass + tree2.mass;
+        Map<Long, Integer> hashes1 = collectHashes(tree1);
+        Map<Long, Integer> hashes2 = collectHashes(tree2);
+        int matched = matchedMass(tree1, hashes2) + matchedMass(tree2, hashes1);
+        return Math.min(1.0, (double) matched / totalMass);
+    }
+
+    /**
+     * 把预处理后的代码解析为语法树
+     * @param processedCode 预处理后的代码
+     * @return 根节点，包含全部顶层语句和定义
+     */
+    static Node parse(String processedCode) {
+        Parser parser = new Parser(tokenize(processedCode));
+        List<Node> children = new ArrayList<>();
+        while (!parser.atEnd()) {
+            Node statement = parser.statement();
+            if (statement != null) {
+                children.add(statement);
+            }
+        }
+        return new Node("ROOT", Collections.emptyList(), children);
+    }
+
+    /**
+     * 把代码切分为抽象后的词法单元
+     */
+    static List<String> tokenize(String code) {
+        List<String> tokens = new ArrayList<>();
+        int length = code.length();
+        int i = 0;
+        boolean lineStart = true;
+        while (i < length) {
+            char c = code.charAt(i);
+            if (c == '\n') {
+                lineStart = true;
+                i++;
+                continue;
+            }
+            if (Character.isWhitespace(c)) {
+                i++;
+                continue;
+            }
+            if (lineStart && c == '#') {
+                // 预处理指令整行忽略
+                while (i < length && code.charAt(i) != '\n') {
+                    i++;
+                }
+                continue;
+            }
+            lineStart = false;
+            if (Character.isJavaIdentifierStart(c)) {
+                int start = i;
+                while (i < length && Character.isJavaIdentifierPart(code.charAt(i))) {
+                    i++;
+                }
+                String word = code.substring(start, i);
+                if (word.equals("import") || word.equals("package") || word.equals("using")) {
+                    // import、package和using语句不影响结构
+                    while (i < length && code.charAt(i) != ';' && code.charAt(i) != '\n') {
+                        i++;
+                    }
+                    if (i < length && code.charAt(i) == ';') {
+                        i++;
+                    }
+                } else if (MODIFIERS.contains(word)) {
+                    // C++的访问控制标签（public:）连同冒号一起忽略
+                    int next = skipSpaces(code, i);
+                    if (next < length && code.charAt(next) == ':'
+                            && (next + 1 >= length || code.charAt(next + 1) != ':')) {
+                        i = next + 1;
+                    }
+                } else if (TYPES.contains(word)) {
+                    if (tokens.isEmpty() || !tokens.get(tokens.size() - 1).equals("TYPE")) {
+                        tokens.add("TYPE");
+                    }
+                } else {
+                    tokens.add(KEYWORDS.contains(word) ? word : "ID");
+                }
+            } else if (Character.isDigit(c) || (c == '.' && i + 1 < length && Character.isDigit(code.charAt(i + 1)))) {
+                while (i < length && (Character.isLetterOrDigit(code.charAt(i)) || code.charAt(i) == '.'
+                        || code.charAt(i) == '_' || code.charAt(i) == '\'')) {
+                    i++;
+                }
+                tokens.add("NUM");
+            } else if (c == '"' || c == '\'') {
+                i = skipLiteral(code, i, c);
+                tokens.add(c == '"' ? "STR" : "CHR");
+            } else {
+                String operator = String.valueOf(c);
+                for (String candidate : OPERATORS) {
+                    if (code.startsWith(candidate, i)) {
+                        operator = candidate;
+                        break;
+                    }
+                }
+                tokens.add(operator);
+                i += operator.length();
+            }
+        }
+        return tokens;
+    }
+
+    private static int skipSpaces(String code, int i) {
+        while (i < code.length() && (code.charAt(i) == ' ' || code.charAt(i) == '\t')) {
+            i++;
+        }
+        return i;
+    }
+
+    private static int skipLiteral(String code, int start, char quote) {
+        int i = start + 1;
+        while (i < code.length()) {
+            char c = code.charAt(i);
+            if (c == '\\') {
+                i += 2;
+            } else if (c == quote) {
+                return i + 1;
+            } else if (c == '\n') {
+                // 未闭合的字面量到行尾为止
+                return i;
+            } else {
+                i++;
+            }
+        }
+        return code.length();
+    }
+
+    /**
+     * 统计规模不小于MIN_MASS的子树哈希及其出现次数
+     */
+    private static Map<Long, Integer> collectHashes(Node root) {
+        Map<Long, Integer> counts = new HashMap<>();
+        Deque<Node> stack = new ArrayDeque<>();
+        stack.push(root);
+        while (!stack.isEmpty()) {
+            Node node = stack.pop();
+            if (node.mass < MIN_MASS) {
+                continue;
+            }
+            counts.merge(node.hash, 1, Integer::sum);
+            for (Node child : node.children) {
+                stack.push(child);
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * 从根节点向下查找在另一棵树中存在的最大子树，返回匹配的规模之和<br>
+     * 每次匹配消耗对方一次出现，避免一段代码重复出现多次时都与对方同一处匹配
+     */
+    private static int matchedMass(Node root, Map<Long, Integer> otherHashes) {
+        int matched = 0;
+        Deque<Node> stack = new ArrayDeque<>();
+        stack.push(root);
+        while (!stack.isEmpty()) {
+            Node node = stack.pop();
+            if (node.mass < MIN_MASS) {
+                continue;
+            }
+            Integer count = otherHashes.get(node.hash);
+            if (count != null && count > 0) {
+                otherHashes.put(node.hash, count - 1);
+                matched += node.mass;
+                continue;
+            }
+            for (Node child : node.children) {
+                stack.push(child);
+            }
+        }
+        return matched;
+    }
+
+    /**
+     * 语法树节点，哈希和规模在构造时自底向上计算
+     */
+    static final class Node {
+
+        final List<Node> children;
+
+        final long hash;
+
+        // 子树包含的词法单元数
+        final int mass;
+
+        Node(String kind, List<String> tokens, List<Node> children) {
+            this.children = children;
+            long h = mix(kind.hashCode());
+            int m = tokens.size();
+            for (String token : tokens) {
+                h = mix(h * 31 + token.hashCode());
+            }
+            for (Node child : children) {
+                h = mix(h * 0x9E3779B97F4A7C15L + child.hash);
+                m += child.mass;
+            }
+            this.hash = h;
+            this.mass = Math.max(1, m);
+        }
+
+        private static long mix(long z) {
+            z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+            z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+            return z ^ (z >>> 31);
+        }
+    }
+
+    /**
+     * 容错的递归下降解析器：不校验语法，括号不匹配或遇到无法识别的写法时按简单语句处理，保证任何输入都能得到一棵树
+     */
+    private static final class Parser {
+
+        private final List<String> tokens;
+
+        private int position;
+
+        // 当前的递归嵌套层数
+        private int depth;
+
+        Parser(List<String> tokens) {
+            this.tokens = tokens;
+        }
+
+        boolean atEnd() {
+            return position >= tokens.size();
+        }
+
+        private String peek() {
+            return position < tokens.size() ? tokens.get(position) : "";
+        }
+
+        private boolean accept(String token) {
+            if (peek().equals(token)) {
+                position++;
+                return true;
+            }
+            return false;
+        }
+
+        /**
+         * 解析一条语句，空语句和多余的右花括号返回null
+         */
+        Node statement() {
+            if (depth >= MAX_DEPTH) {
+                return flatStatement();
+            }
+            depth++;
+            try {
+                return parseStatement();
+            } finally {
+                depth--;
+            }
+        }
+
+        private Node parseStatement() {
+            String token = peek();
+            switch (token) {
+                case "{":
+                    return block();
+                case "}":
+                case ";":
+                    position++;
+                    return null;
+                case "if": {
+                    position++;
+                    List<Node> children = new ArrayList<>();
+                    children.add(condition());
+                    children.add(body());
+                    if (accept("else")) {
+                        children.add(body());
+                        return new Node("IF_ELSE", Collections.emptyList(), children);
+                    }
+                    return new Node("IF", Collections.emptyList(), children);
+                }
+                case "for":
+                case "while":
+                case "switch": {
+                    position++;
+                    Node condition = condition();
+                    return new Node(token.toUpperCase(Locale.ROOT), Collections.emptyList(),
+                            Arrays.asList(condition, body()));
+                }
+                case "do": {
+                    position++;
+                    Node body = body();
+                    accept("while");
+                    Node condition = condition();
+                    accept(";");
+                    return new Node("DO", Collections.emptyList(), Arrays.asList(body, condition));
+                }
+                case "try": {
+                    position++;
+                    List<Node> children = new ArrayList<>();
+                    if (peek().equals("(")) {
+                        children.add(condition());
+                    }
+                    children.add(body());
+                    while (accept("catch")) {
+                        children.add(new Node("CATCH", Collections.emptyList(), Arrays.asList(condition(), body())));
+                    }
+                    if (accept("finally")) {
+                        children.add(new Node("FINALLY", Collections.emptyList(),
+                                Collections.singletonList(body())));
+                    }
+                    return new Node("TRY", Collections.emptyList(), children);
+                }
+                case "case":
+                case "default": {
+                    position++;
+                    Node label = expression(":");
+                    accept(":");
+                    return new Node(token.toUpperCase(Locale.ROOT), Collections.emptyList(),
+                            Collections.singletonList(label));
+                }
+                case "else":
+                    position++;
+                    return body();
+                default:
+                    return simpleStatement();
+            }
+        }
+
+        private Node block() {
+            position++;
+            List<Node> children = new ArrayList<>();
+            while (!atEnd() && !peek().equals("}")) {
+                Node statement = statement();
+                if (statement != null) {
+                    children.add(statement);
+                }
+            }
+            accept("}");
+            return new Node("BLOCK", Collections.emptyList(), children);
+        }
+
+        /**
+         * 控制结构的循环体或分支，空语句也作为一个节点
+         */
+        private Node body() {
+            if (accept(";") || atEnd()) {
+                return new Node("EMPTY", Collections.emptyList(), Collections.emptyList());
+            }
+            Node statement = statement();
+            return statement != null ? statement : new Node("EMPTY", Collections.emptyList(), Collections.emptyList());
+        }
+
+        /**
+         * 控制结构的括号部分，缺少括号时读到语句结束
+         */
+        private Node condition() {
+            if (peek().equals("(")) {
+                position++;
+                return group("(", ")");
+            }
+            return expression(";");
+        }
+
+        /**
+         * 简单语句或定义：读到顶层的;为止；先遇到{时，头部不含=的视为函数、类等定义，
+         * 含=的（数组初始化、匿名类等）把花括号作为表达式的一部分继续读
+         */
+        private Node simpleStatement() {
+            List<String> own = new ArrayList<>();
+            List<Node> children = new ArrayList<>();
+            boolean assignment = false;
+            while (!atEnd()) {
+                String token = peek();
+                if (token.equals(";")) {
+                    position++;
+                    break;
+                }
+                if (token.equals("}")) {
+                    break;
+                }
+                if (token.equals("{")) {
+                    if (!assignment && !own.isEmpty()) {
+                        Node header = new Node("HEADER", own, children);
+                        return new Node("DEF", Collections.emptyList(), Arrays.asList(header, block()));
+                    }
+                    position++;
+                    own.add("{}");
+                    children.add(group("{", "}"));
+                    continue;
+                }
+                position++;
+                if (token.equals("(") || token.equals("[")) {
+                    String close = token.equals("(") ? ")" : "]";
+                    own.add(token + close);
+                    children.add(group(token, close));
+                } else {
+                    if (token.equals("=") || token.equals("->") || token.equals("return")) {
+                        assignment = true;
+                    }
+                    own.add(token);
+                }
+            }
+            return new Node("STMT", own, children);
+        }
+
+        /**
+         * 读到顶层的终止符（不消耗）或语句结束
+         */
+        private Node expression(String terminator) {
+            List<String> own = new ArrayList<>();
+            List<Node> children = new ArrayList<>();
+            while (!atEnd()) {
+                String token = peek();
+                if (token.equals(terminator) || token.equals(";") || token.equals("{") || token.equals("}")) {
+                    break;
+                }
+                position++;
+                if (token.equals("(") || token.equals("[")) {
+                    String close = token.equals("(") ? ")" : "]";
+                    own.add(token + close);
+                    children.add(group(token, close));
+                } else {
+                    own.add(token);
+                }
+            }
+            return new Node("EXPR", own, children);
+        }
+
+        /**
+         * 括号分组，左括号已消耗，读到匹配的右括号为止，内部的括号分组作为子节点
+         */
+        private Node group(String open, String close) {
+            if (depth >= MAX_DEPTH) {
+                return flatten(open + close, 1);
+            }
+            depth++;
+            try {
+                return parseGroup(open, close);
+            } finally {
+                depth--;
+            }
+        }
+
+        private Node parseGroup(String open, String close) {
+            List<String> own = new ArrayList<>();
+            List<Node> children = new ArrayList<>();
+            while (!atEnd()) {
+                String token = tokens.get(position++);
+                if (token.equals(close)) {
+                    break;
+                }
+                if (token.equals("(") || token.equals("[") || token.equals("{")) {
+                    String nestedClose = token.equals("(") ? ")" : token.equals("[") ? "]" : "}";
+                    own.add(token + nestedClose);
+                    children.add(group(token, nestedClose));
+                } else if (token.equals(")") || token.equals("]") || token.equals("}")) {
+                    // 不匹配的右括号，说明左右括号数不一致，结束当前分组
+                    position--;
+                    break;
+                } else {
+                    own.add(token);
+                }
+            }
+            return new Node(open + close, own, children);
+        }
+
+        /**
+         * 超过最大嵌套层数时的语句：不再区分结构，读到同一层的;或不匹配的右括号为止
+         */
+        private Node flatStatement() {
+            String token = peek();
+            if (isClose(token)) {
+                position++;
+                return null;
+            }
+            if (token.equals("{")) {
+                position++;
+                return flatten("BLOCK", 1);
+            }
+            return flatten("STMT", 0);
+        }
+
+        /**
+         * 按括号层数顺序读取词法单元，不递归，全部作为一个节点自身的词法单元
+         * @param level 已消耗的未闭合左括号数，大于0时读到匹配的右括号为止，为0时读到同一层的;为止
+         */
+        private Node flatten(String kind, int level) {
+            boolean grouped = level > 0;
+            List<String> own = new ArrayList<>();
+            while (!atEnd()) {
+                String token = peek();
+                if (isClose(token)) {
+                    if (level == 0) {
+                        break;
+                    }
+                    level--;
+                } else if (token.equals("(") || token.equals("[") || token.equals("{")) {
+                    level++;
+                }
+                position++;
+                if (level == 0 && (grouped || token.equals(";"))) {
+                    break;
+                }
+                own.add(token);
+            }
+            return new Node(kind, own, Collections.emptyList());
+        }
+
+        private static boolean isClose(String token) {
+            return token.equals(")") || token.equals("]") || token.equals("}");
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package org.codeDuplicateChecking.Agent.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.codeDuplicateChecking.Agent.config.AIClientConfig;
+import org.codeDuplicateChecking.Agent.config.AIHealthConfig;
+import org.codeDuplicateChecking.Agent.config.AIProviderConfig;
+import org.codeDuplicateChecking.Agent.config.AIResilienceConfig;
+import org.codeDuplicateChecking.Agent.model.AIHealthStatus;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 基于本地模拟提供方的AI服务健康状态测试
+ */
+class AIHealthServiceTest {
+
+    @Test
+    void testStatusIsCachedPerKeyAndModel() throws InterruptedException {
+        LLMClientService client = newClient(0.0);
+        AIHealthConfig config = new AIHealthConfig();
+        config.setProbeIntervalMs(300);
+        AIHealthService healthService = new AIHealthService(config, client);
+
+        // 首次查询等待探测结果
+        AIHealthStatus first = healthService.getStatus("key", "qwen-plus");
+        assertTrue(first.isConnected());
+        assertTrue(first.getCheckedAt() > 0);
+        assertEquals("CLOSED", first.getCircuitState());
+
+        // 探测间隔内再次查询直接返回缓存，不再探测
+        AIHealthStatus second = healthService.getStatus("key", "qwen-plus");
+        assertEquals(first.getCheckedAt(), second.getCheckedAt());
+        assertEquals(first.getLatencyMs(), second.getLatencyMs());
+
+        // 缓存过期后在查询时重新探测
+        Thread.sleep(400);
+        AIHealthStatus refreshed = healthService.getStatus("key", "qwen-plus");
+        assertTrue(refreshed.isConnected());
+        assertNotEquals(first.getCheckedAt(), refreshed.getCheckedAt());
+        client.shutdown();
+    }
+
+    @Test
+    void testOnlyDefaultTargetProbedInBackground() throws InterruptedException {
+        LLMClientService client = newClient(0.0);
+        AIHealthConfig config = new AIHealthConfig();
+        config.setMaxTargets(1);
+        AIHealthService healthService = new AIHealthService(config, client, "default-key", "qwen-plus");
+        healthService.registerDefaultTarget();
+        AIHealthStatus defaultStatus = awaitChecked(healthService, "default-key", 0);
+
+        // 调用方传入的API Key不参与后台探测
+        AIHealthStatus other = healthService.getStatus("key", "qwen-plus");
+        healthService.probeAll();
+        Thread.sleep(200);
+        assertEquals(other.getCheckedAt(), healthService.getStatus("key", "qwen-plus").getCheckedAt());
+
+        // 其他组合达到上限时互相淘汰，默认组合始终保留并由后台刷新
+        healthService.getStatus("key2", "qwen-plus");
+        assertEquals(1, healthService.getTrackedTargetCount());
+        AIHealthStatus refreshed = awaitChecked(healthService, "default-key", defaultStatus.getCheckedAt());
+        assertTrue(refreshed.isConnected());
+        client.shutdown();
+    }
+
+    @Test
+    void testFailedProbe() {
+        LLMClientService client = newClient(1.0);
+        AIHealthService healthService = new AIHealthService(new AIHealthConfig(), client);
+
+        AIHealthStatus status = healthService.getStatus("key", "qwen-plus");
+        assertFalse(status.isConnected());
+        assertTrue(status.getMessage().startsWith("千问AI助手连接失败"));
+        client.shutdown();
+    }
+
+    private AIHealthStatus awaitChecked(AIHealthService healthService, String apiKey, long previousCheckedAt) {
+        long deadline = System.currentTimeMillis() + 5000;
+        AIHealthStatus status = healthService.getStatus(apiKey, "qwen-plus");
+        while (status.getCheckedAt() == previousCheckedAt && System.currentTimeMillis() < deadline) {
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            healthService.probeAll();
+            status = healthService.getStatus(apiKey, "qwen-plus");
+        }
+        assertNotEquals(previousCheckedAt, status.getCheckedAt());
+        return status;
+    }
+
+    private LLMClientService newClient(double errorRate) {
+        AIProviderConfig providerConfig = new AIProviderConfig();
+        providerConfig.setType("local");
+        providerConfig.getLocal().setLatencyMedianMs(10);
+        providerConfig.getLocal().setLatencyP99Ms(20);
+        providerConfig.getLocal().setErrorRate(errorRate);
+        return new LLMClientService(new LocalLLMProvider(providerConfig, new ObjectMapper()),
+                new AIClientConfig(), new AIResilienceConfig());
+    }
+}
@@ -0,0 +1,119 @@
+package org.codeDuplicateChecking.Agent.service;
+
+import org.codeDuplicateChecking.Agent.config.AIPromptBudgetConfig;
+import org.codeDuplicateChecking.Agent.model.CodeBlock;
+import org.codeDuplicateChecking.Agent.model.PlagiarismResult;
+import org.codeDuplicateChecking.Agent.utils.CodePlagiarismUtils;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 按token预算构建AI分析提示词的测试
+ */
+class AnalysisPromptBuilderTest {
+
+    private static final String SHARED_METHOD =
+            "    static int binarySearch(int[] nums, int target) {\n" +
+            "        int left = 0, right = nums.length - 1;\n" +
+            "        while (left <= right) {\n" +
+            "            int mid = left + (right - left) / 2;\n" +
+            "            if (nums[mid] == target) return mid;\n" +
+            "            else if (nums[mid] < target) left = mid + 1;\n" +
+            "            else right = mid - 1;\n" +
+            "        }\n" +
+            "        return -1;\n" +
+            "    }\n";
+
+    @Test
+    void testStripCommentsAndWhitespace() {
+        // 保留变量名，缩进压缩为每级一个空格，Python的层级结构不变
+        String python =
+                "def f(xs):\n" +
+                "    for x in xs:   \n" +
+                "\n" +
+                "        print(x)   // 行尾注释\n";
+        assertEquals("def f(xs):\n for x in xs:\n  print(x)", CodePlagiarismUtils.stripCommentsAndWhitespace(python));
+
+        // 多行注释被替换为换行，行号不变
+        String java = "int a;\n/* 第一行\n第二行 */\nint b;";
+        assertEquals(4, CodePlagiarismUtils.stripComments(java).split("\n", -1).length);
+        assertEquals("int a;\nint b;", CodePlagiarismUtils.stripCommentsAndWhitespace(java));
+    }
+
+    @Test
+    void testPairPromptWithinBudget() {
+        AIPromptBudgetConfig config = new AIPromptBudgetConfig();
+        config.setMaxPairTokens(400);
+        AnalysisPromptBuilder builder = new AnalysisPromptBuilder(config);
+
+        CodeBlock code1 = block("a", "class A {\n" + filler("alpha", 60) + SHARED_METHOD + filler("beta", 60) + "}");
+        CodeBlock code2 = block("b", "class B {\n" + stringFiller("gamma", 60)
+                + SHARED_METHOD.replace("nums", "arr").replace("left", "lo") + "}");
+        PlagiarismResult baseResult = new PlagiarismResult();
+        baseResult.setSimilarityScore(0.42);
+
+        AnalysisPromptBuilder.AnalysisPrompt prompt = builder.buildPairPrompt(code1, code2, baseResult);
+        System.out.println("压缩后token: " + prompt.getEstimatedTokens() + "，原始token: " + prompt.getOriginalEstimatedTokens());
+        System.out.println(prompt.getText());
+
+        assertTrue(prompt.getOriginalEstimatedTokens() > 400);
+        assertTrue(prompt.getEstimatedTokens() <= 400);
+        // 变量重命名后的相似片段被保留，注释被去除
+        assertTrue(prompt.getText().contains("int mid = lo + (right - lo) / 2;"));
+        assertTrue(prompt.getText().contains("int mid = left + (right - left) / 2;"));
+        assertFalse(prompt.getText().contains("// filler"));
+        assertTrue(prompt.getText().contains("原始查重率: 42.0%"));
+
+        // 预算充足时发送完整的压缩代码
+        config.setMaxPairTokens(100000);
+        AnalysisPromptBuilder.AnalysisPrompt full = builder.buildPairPrompt(code1, code2, baseResult);
+        assertTrue(full.getText().contains("alpha59"));
+        assertTrue(full.getEstimatedTokens() < full.getOriginalEstimatedTokens());
+    }
+
+    @Test
+    void testBatchPromptOnlyIncludesSuspiciousBlocks() {
+        AnalysisPromptBuilder builder = new AnalysisPromptBuilder(new AIPromptBudgetConfig());
+        CodeBlock a = block("a", "class A {\n" + SHARED_METHOD + "}");
+        CodeBlock b = block("b", "class B {\n" + SHARED_METHOD + "}");
+        CodeBlock c = block("c", "class C { int unrelatedMarker; }");
+        PlagiarismResult pair = new PlagiarismResult("a", "作者a", null, "b", "作者b", null, 0.95, true, 0.7, null);
+
+        AnalysisPromptBuilder.AnalysisPrompt prompt = builder.buildBatchPrompt(
+                Arrays.asList(pair), Arrays.asList(a, b, c), 0.95);
+
+        assertTrue(prompt.getText().contains("a(作者a) 与 b(作者b): 95.0%"));
+        assertTrue(prompt.getText().contains("class A"));
+        assertFalse(prompt.getText().contains("unrelatedMarker"));
+    }
+
+    private static CodeBlock block(String id, String code) {
+        CodeBlock block = new CodeBlock();
+        block.setId(id);
+        block.setAuthor("作者" + id);
+        block.setLanguage("Java");
+        block.setCode(code);
+        return block;
+    }
+
+    private static String filler(String prefix, int count) {
+        StringBuilder code = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            code.append("    // filler comment ").append(i).append('\n');
+            code.append("    private int ").append(prefix).append(i).append(" = ").append(i * 7).append(";\n");
+        }
+        return code.toString();
+    }
+
+    private static String stringFiller(String prefix, int count) {
+        StringBuilder code = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            code.append("    public static final String ").append(prefix).append(i)
+                    .append(" = \"").append(prefix).append("\" + ").append(i).append(";\n");
+        }
+        return code.toString();
+    }
+}
@@ -0,0 +1,287 @@
+package org.codeDuplicateChecking.Agent.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.codeDuplicateChecking.Agent.config.IngestionConfig;
+import org.codeDuplicateChecking.Agent.model.BatchPlagiarismResult;
+import org.codeDuplicateChecking.Agent.model.CodeBlock;
+import org.codeDuplicateChecking.Agent.model.CodeFingerprint;
+import org.codeDuplicateChecking.Agent.model.IngestedBatch;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 批量查重请求和提交记录压缩包流式读取测试
+ */
+class BatchIngestionServiceTest {
+
+    private static final String REQUEST = "{"
+            + "\"threshold\": 0.5,"
+            + "\"unknown\": {\"nested\": [1, 2, 3]},"
+            + "\"codeBlocks\": ["
+            + "  {\"id\": \"a\", \"language\": \"Java\", \"problemId\": \"P1\", \"code\": \"int sum(int a, int b) { return a + b; }\"},"
+            + "  {\"id\": \"b\", \"language\": \"Java\", \"problemId\": \"P1\", \"code\": \"int add(int x, int y) { return x + y; }\"}"
+            + "],"
+            + "\"problems\": ["
+            + "  {\"codeBlocks\": ["
+            + "    {\"id\": \"c\", \"language\": \"Python\", \"code\": \"def f(a, b):\\n    return a * b\"},"
+            + "    {\"id\": \"d\", \"language\": \"Python\", \"code\": \"def g(x, y):\\n    return x * y\"}"
+            + "  ], \"problemId\": \"P2\"}"
+            + "]"
+            + "}";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final CodePlagiarismService plagiarismService = new CodePlagiarismService();
+
+    @Test
+    void testIngestMatchesInMemoryComparison() throws IOException {
+        BatchIngestionService service = new BatchIngestionService(new IngestionConfig(), objectMapper, plagiarismService);
+        IngestedBatch batch = service.ingest(new ByteArrayInputStream(REQUEST.getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(0.5, batch.getThreshold(), 1e-9);
+        assertEquals(Arrays.asList("a", "b", "c", "d"), batch.getFingerprints().stream()
+                .map(fingerprint -> fingerprint.getId()).collect(Collectors.toList()));
+        // 分组的题目ID出现在codeBlocks之后，读完分组后回填
+        assertEquals("P2", batch.getFingerprints().get(2).getProblemId());
+        assertEquals(4, batch.getStatistics().getCodeBlocks());
+        assertFalse(batch.getStatistics().isGzip());
+        assertTrue(batch.getStatistics().getRawCodeChars() > 0);
+
+        BatchPlagiarismResult streamed = plagiarismService.compareMultipleFingerprints(
+                batch.getFingerprints(), batch.getThreshold(), batch.isPartitionByLanguage());
+        BatchPlagiarismResult inMemory = plagiarismService.compareMultipleCodeBlocks(
+                codeBlocks(), 0.5, true);
+        assertEquals(inMemory.getTotalPairs(), streamed.getTotalPairs());
+        assertEquals(inMemory.getSkippedPairs(), streamed.getSkippedPairs());
+        assertEquals(inMemory.getPlagiarismPairs(), streamed.getPlagiarismPairs());
+        assertEquals(inMemory.getMaxSimilarityScore(), streamed.getMaxSimilarityScore(), 1e-9);
+    }
+
+    @Test
+    void testIngestGzipBody() throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(REQUEST.getBytes(StandardCharsets.UTF_8));
+        }
+        BatchIngestionService service = new BatchIngestionService(new IngestionConfig(), objectMapper, plagiarismService);
+        IngestedBatch batch = service.ingest(new ByteArrayInputStream(compressed.toByteArray()));
+
+        assertTrue(batch.getStatistics().isGzip());
+        assertEquals(4, batch.getFingerprints().size());
+    }
+
+    @Test
+    void testMaxCodeBlocks() {
+        IngestionConfig config = new IngestionConfig();
+        config.setMaxCodeBlocks(3);
+        BatchIngestionService service = new BatchIngestionService(config, objectMapper, plagiarismService);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> service.ingest(new ByteArrayInputStream(REQUEST.getBytes(StandardCharsets.UTF_8))));
+    }
+
+    @Test
+    void testCodeSizeLimits() {
+        IngestionConfig config = new IngestionConfig();
+        config.setMaxBlockChars(30);
+        BatchIngestionService blockLimited = new BatchIngestionService(config, objectMapper, plagiarismService);
+        IllegalArgumentException error = assertThrows(IllegalArgumentException.class,
+                () -> blockLimited.ingest(new ByteArrayInputStream(REQUEST.getBytes(StandardCharsets.UTF_8))));
+        assertTrue(error.getMessage().contains("代码块 a"));
+
+        config = new IngestionConfig();
+        config.setMaxTotalCodeChars(100);
+        BatchIngestionService totalLimited = new BatchIngestionService(config, objectMapper, plagiarismService);
+        assertThrows(IllegalArgumentException.class,
+                () -> totalLimited.ingest(new ByteArrayInputStream(REQUEST.getBytes(StandardCharsets.UTF_8))));
+    }
+
+    @Test
+    void testGzipBodyLimitedAfterDecompression() throws IOException {
+        // 高度重复的内容压缩后很小，按解压后的字节数计算上限
+        String padding = String.join("", Collections.nCopies(100000, " "));
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(("{\"padding\": \"" + padding + "\"," + REQUEST.substring(1)).getBytes(StandardCharsets.UTF_8));
+        }
+        IngestionConfig config = new IngestionConfig();
+        config.setMaxBodyBytes(50000);
+        assertTrue(compressed.size() < config.getMaxBodyBytes());
+        BatchIngestionService service = new BatchIngestionService(config, objectMapper, plagiarismService);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> service.ingest(new ByteArrayInputStream(compressed.toByteArray())));
+        config.setMaxBodyBytes(0);
+        assertEquals(4, service.ingest(new ByteArrayInputStream(compressed.toByteArray())).getFingerprints().size());
+    }
+
+    @Test
+    void testRejectsNonObjectBody() {
+        BatchIngestionService service = new BatchIngestionService(new IngestionConfig(), objectMapper, plagiarismService);
+
+        assertThrows(IOException.class,
+                () -> service.ingest(new ByteArrayInputStream("[1, 2]".getBytes(StandardCharsets.UTF_8))));
+    }
+
+    @Test
+    void testIngestZipArchive() throws IOException {
+        ByteArrayOutputStream archive = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(archive)) {
+            zip.putNextEntry(new ZipEntry("contest/"));
+            zip.closeEntry();
+            addZipEntry(zip, "contest/P1/alice/Main.java", "int sum(int a, int b) { return a + b; }");
+            addZipEntry(zip, "contest/P1/bob/Main.java", "int add(int x, int y) { return x + y; }");
+            addZipEntry(zip, "contest/P2/carol/main.py", "def f(a, b):\n    return a * b");
+            addZipEntry(zip, "contest/README.txt", "not code");
+            addZipEntry(zip, "__MACOSX/contest/P1/alice/._Main.java", "metadata");
+        }
+        BatchIngestionService service = new BatchIngestionService(new IngestionConfig(), objectMapper, plagiarismService);
+        IngestedBatch batch = service.ingestArchive(new ByteArrayInputStream(archive.toByteArray()), 0.6, true);
+
+        assertEquals(0.6, batch.getThreshold(), 1e-9);
+        assertEquals("zip", batch.getStatistics().getArchiveFormat());
+        assertEquals(5, batch.getStatistics().getArchiveEntries());
+        assertEquals(2, batch.getStatistics().getSkippedEntries());
+        assertEquals(3, batch.getFingerprints().size());
+        CodeFingerprint first = batch.getFingerprints().get(0);
+        assertEquals("contest/P1/alice/Main.java", first.getId());
+        assertEquals("alice", first.getAuthor());
+        assertEquals("P1", first.getProblemId());
+        assertEquals("Java", first.getLanguage());
+        assertEquals("Python", batch.getFingerprints().get(2).getLanguage());
+    }
+
+    @Test
+    void testIngestTarGzArchive() throws IOException {
+        String longAuthor = String.join("", Collections.nCopies(120, "x"));
+        ByteArrayOutputStream archive = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(archive)) {
+            writeTarEntry(gzip, "./P1/", "", '5');
+            writeTarEntry(gzip, "./P1/alice/a.cpp", "int main() { return 0; }", '0');
+            // 超过100字节的路径使用GNU长文件名
+            String longPath = "./P1/" + longAuthor + "/b.cpp";
+            writeTarEntry(gzip, "././@LongLink", longPath + "\0", 'L');
+            writeTarEntry(gzip, longPath.substring(0, 99), "int main() { return 1; }", '0');
+            writeTarEntry(gzip, "./P1/dave/big.cpp", String.join("", Collections.nCopies(64, "x")), '0');
+            gzip.write(new byte[1024]);
+        }
+        IngestionConfig config = new IngestionConfig();
+        config.setArchiveMaxEntryBytes(32);
+        BatchIngestionService service = new BatchIngestionService(config, objectMapper, plagiarismService);
+        IngestedBatch batch = service.ingestArchive(new ByteArrayInputStream(archive.toByteArray()), 0.7, true);
+
+        assertTrue(batch.getStatistics().isGzip());
+        assertEquals("tar", batch.getStatistics().getArchiveFormat());
+        assertEquals(1, batch.getStatistics().getSkippedEntries());
+        assertEquals(2, batch.getFingerprints().size());
+        assertEquals("alice", batch.getFingerprints().get(0).getAuthor());
+        assertEquals(longAuthor, batch.getFingerprints().get(1).getAuthor());
+        assertEquals("C++", batch.getFingerprints().get(1).getLanguage());
+    }
+
+    @Test
+    void testTarSkipsOversizedExtensionHeaders() throws IOException {
+        String oversized = String.join("", Collections.nCopies(TarArchiveReader.MAX_EXTENSION_HEADER_SIZE + 1, "x"));
+        ByteArrayOutputStream archive = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(archive)) {
+            // 超过上限的GNU长文件名和pax扩展头被跳过，后续文件使用自身文件头中的文件名
+            writeTarEntry(gzip, "././@LongLink", "./P1/" + oversized + "/a.cpp\0", 'L');
+            writeTarEntry(gzip, "./P1/alice/a.cpp", "int main() { return 0; }", '0');
+            String record = " path=./P1/" + oversized + "/b.cpp\n";
+            int length = record.length() + String.valueOf(record.length()).length();
+            length = record.length() + String.valueOf(length).length();
+            writeTarEntry(gzip, "./PaxHeaders/b.cpp", length + record, 'x');
+            writeTarEntry(gzip, "./P1/bob/b.cpp", "int main() { return 1; }", '0');
+            gzip.write(new byte[1024]);
+        }
+        BatchIngestionService service = new BatchIngestionService(new IngestionConfig(), objectMapper, plagiarismService);
+        IngestedBatch batch = service.ingestArchive(new ByteArrayInputStream(archive.toByteArray()), 0.7, true);
+
+        assertEquals(2, batch.getFingerprints().size());
+        assertEquals("alice", batch.getFingerprints().get(0).getAuthor());
+        assertEquals("bob", batch.getFingerprints().get(1).getAuthor());
+    }
+
+    @Test
+    void testArchivePathPattern() {
+        ArchivePathPattern pattern = new ArchivePathPattern("{problem}/{author}_*");
+        CodeBlock codeBlock = pattern.toCodeBlock("export/1001/alice_20240101.cpp");
+        assertNotNull(codeBlock);
+        assertEquals("1001", codeBlock.getProblemId());
+        assertEquals("alice", codeBlock.getAuthor());
+        assertEquals("C++", codeBlock.getLanguage());
+        // 无法推断语言的文件被跳过
+        assertNull(pattern.toCodeBlock("export/1001/alice_notes.txt"));
+
+        ArchivePathPattern withLanguage = new ArchivePathPattern("{language}/{author}/{file}");
+        assertEquals("Go", withLanguage.toCodeBlock("Go/bob/solution").getLanguage());
+        assertNull(withLanguage.toCodeBlock("solution"));
+
+        assertThrows(IllegalArgumentException.class, () -> new ArchivePathPattern("{contest}/{file}"));
+    }
+
+    private static void addZipEntry(ZipOutputStream zip, String name, String content) throws IOException {
+        zip.putNextEntry(new ZipEntry(name));
+        zip.write(content.getBytes(StandardCharsets.UTF_8));
+        zip.closeEntry();
+    }
+
+    /**
+     * 按ustar格式写入一个tar条目
+     */
+    private static void writeTarEntry(GZIPOutputStream output, String name, String content, char type)
+            throws IOException {
+        byte[] data = content.getBytes(StandardCharsets.UTF_8);
+        byte[] header = new byte[512];
+        putField(header, 0, 100, name);
+        putField(header, 100, 8, "0000644");
+        putField(header, 108, 8, "0000000");
+        putField(header, 116, 8, "0000000");
+        putField(header, 124, 12, String.format("%011o", data.length));
+        putField(header, 136, 12, "00000000000");
+        header[156] = (byte) type;
+        putField(header, 257, 6, "ustar");
+        putField(header, 263, 2, "00");
+        Arrays.fill(header, 148, 156, (byte) ' ');
+        int checksum = 0;
+        for (byte b : header) {
+            checksum += b & 0xff;
+        }
+        putField(header, 148, 8, String.format("%06o", checksum));
+        output.write(header);
+        output.write(data);
+        output.write(new byte[(512 - data.length % 512) % 512]);
+    }
+
+    private static void putField(byte[] header, int offset, int length, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        System.arraycopy(bytes, 0, header, offset, Math.min(bytes.length, length));
+    }
+
+    private List<CodeBlock> codeBlocks() throws IOException {
+        List<CodeBlock> codeBlocks = new ArrayList<>();
+        for (JsonNode node : objectMapper.readTree(REQUEST).get("codeBlocks")) {
+            codeBlocks.add(objectMapper.treeToValue(node, CodeBlock.class));
+        }
+        for (JsonNode node : objectMapper.readTree(REQUEST).get("problems").get(0).get("codeBlocks")) {
+            CodeBlock codeBlock = objectMapper.treeToValue(node, CodeBlock.class);
+            codeBlock.setProblemId("P2");
+            codeBlocks.add(codeBlock);
+        }
+        return codeBlocks;
+    }
+}
@@ -0,0 +1,85 @@
+package org.codeDuplicateChecking.Agent.service;
+
+import org.codeDuplicateChecking.Agent.config.AIResilienceConfig;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 大模型调用熔断器、耗时分位数与对冲预算测试
+ */
+class CircuitBreakerTest {
+
+    @Test
+    void testOpenHalfOpenAndClose() {
+        AIResilienceConfig config = new AIResilienceConfig();
+        config.setWindowSize(10);
+        config.setMinimumCalls(4);
+        config.setFailureRateThreshold(0.5);
+        config.setOpenDurationSeconds(30);
+        config.setHalfOpenProbes(1);
+        AtomicLong now = new AtomicLong(0);
+        CircuitBreaker breaker = new CircuitBreaker(config, now::get);
+
+        // 调用次数不足时不熔断
+        breaker.recordFailure();
+        breaker.recordFailure();
+        breaker.recordSuccess();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+
+        // 4次中3次失败，超过50%后熔断并拒绝调用
+        breaker.recordFailure();
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquire());
+
+        // 熔断时间过后只放行一个探测请求
+        now.set(30000);
+        assertTrue(breaker.tryAcquire());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquire());
+
+        // 探测失败重新熔断
+        breaker.recordFailure();
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquire());
+
+        // 再次探测，与服务健康无关的结果只归还探测名额，成功后关闭
+        now.set(60000);
+        assertTrue(breaker.tryAcquire());
+        breaker.recordIgnored();
+        assertTrue(breaker.tryAcquire());
+        breaker.recordSuccess();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertTrue(breaker.tryAcquire());
+    }
+
+    @Test
+    void testLatencyPercentile() {
+        LatencyTracker tracker = new LatencyTracker(100);
+        assertEquals(-1, tracker.percentile(0.99));
+
+        for (int i = 1; i <= 200; i++) {
+            tracker.record(i);
+        }
+        // 只保留最近100个样本：101~200
+        assertEquals(100, tracker.getCount());
+        assertEquals(150, tracker.percentile(0.5));
+        assertEquals(195, tracker.percentile(0.95));
+        assertEquals(200, tracker.percentile(1.0));
+    }
+
+    @Test
+    void testHedgeBudget() {
+        HedgeBudget budget = new HedgeBudget(0.1);
+        assertFalse(budget.tryAcquire());
+
+        // 10个普通请求攒够一次对冲
+        for (int i = 0; i < 10; i++) {
+            budget.onRequest();
+        }
+        assertTrue(budget.tryAcquire());
+        assertFalse(budget.tryAcquire());
+    }
+}
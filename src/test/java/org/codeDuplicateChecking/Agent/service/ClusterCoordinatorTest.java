@@ -0,0 +1,193 @@
+package org.codeDuplicateChecking.Agent.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import org.codeDuplicateChecking.Agent.config.ClusterConfig;
+import org.codeDuplicateChecking.Agent.config.MetricsConfig;
+import org.codeDuplicateChecking.Agent.config.ScoringConfig;
+import org.codeDuplicateChecking.Agent.model.BatchPlagiarismResult;
+import org.codeDuplicateChecking.Agent.model.CodeBlock;
+import org.codeDuplicateChecking.Agent.model.PairTileRequest;
+import org.codeDuplicateChecking.Agent.utils.StructureMetric;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.codeDuplicateChecking.TestConfig;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 分布式查重测试类<br>
+ * 测试上下文本身作为工作节点，另配置一个不可达的节点模拟工作节点下线
+ */
+@SpringBootTest(classes = TestConfig.class, webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"plagiarism.cluster.worker-enabled=true",
+                "plagiarism.cluster.shared-secret=" + ClusterCoordinatorTest.SECRET})
+class ClusterCoordinatorTest {
+
+    static final String SECRET = "test-secret";
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private CodePlagiarismService plagiarismService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void testDistributedResultMatchesLocal() {
+        List<CodeBlock> codeBlocks = buildCodeBlocks();
+
+        ClusterConfig clusterConfig = new ClusterConfig();
+        clusterConfig.setEnabled(true);
+        clusterConfig.setSharedSecret(SECRET);
+        clusterConfig.setWorkers(Arrays.asList("http://127.0.0.1:1", "http://127.0.0.1:" + port));
+        clusterConfig.setMinCodeBlocks(2);
+        clusterConfig.setTileSize(4);
+        clusterConfig.setMaxWorkerFailures(1);
+        CodePlagiarismService coordinator = new CodePlagiarismService(clusterConfig, objectMapper);
+
+        BatchPlagiarismResult local = plagiarismService.compareMultipleCodeBlocks(codeBlocks, 0.7);
+        BatchPlagiarismResult distributed = coordinator.compareMultipleCodeBlocks(codeBlocks, 0.7);
+        coordinator.shutdown();
+
+        // 12个代码块应该产生66对组合，且分布式统计与本地计算一致
+        assertEquals(66, distributed.getTotalPairs());
+        assertEquals(66, distributed.getResults().size());
+        assertEquals(local.getPlagiarismPairs(), distributed.getPlagiarismPairs());
+        assertEquals(local.getMaxSimilarityScore(), distributed.getMaxSimilarityScore(), 1e-9);
+        assertEquals(local.getAvgSimilarityScore(), distributed.getAvgSimilarityScore(), 1e-9);
+    }
+
+    @Test
+    void testDistributedPartitions() {
+        // 两道题目各自成为一个分区，两个分区同时分发到工作节点
+        List<CodeBlock> codeBlocks = buildCodeBlocks();
+        for (int i = 0; i < codeBlocks.size(); i++) {
+            codeBlocks.get(i).setProblemId(i % 2 == 0 ? "A" : "B");
+        }
+
+        ClusterConfig clusterConfig = new ClusterConfig();
+        clusterConfig.setEnabled(true);
+        clusterConfig.setSharedSecret(SECRET);
+        clusterConfig.setWorkers(Collections.singletonList("http://127.0.0.1:" + port));
+        clusterConfig.setMinCodeBlocks(2);
+        clusterConfig.setTileSize(2);
+        CodePlagiarismService coordinator = new CodePlagiarismService(clusterConfig, objectMapper);
+
+        BatchPlagiarismResult local = plagiarismService.compareMultipleCodeBlocks(codeBlocks, 0.7);
+        BatchPlagiarismResult distributed = coordinator.compareMultipleCodeBlocks(codeBlocks, 0.7);
+        coordinator.shutdown();
+
+        // 每个分区6个代码块，各15对
+        assertEquals(30, distributed.getTotalPairs());
+        assertEquals(2, distributed.getPartitionStatistics().size());
+        assertEquals(local.getPlagiarismPairs(), distributed.getPlagiarismPairs());
+        assertEquals(local.getAvgSimilarityScore(), distributed.getAvgSimilarityScore(), 1e-9);
+    }
+
+    @Test
+    void testWorkerUsesCoordinatorStructureMetric() {
+        // 在基础代码上按不同组合插入额外语句，使两种结构相似度算法的结果不同
+        List<CodeBlock> codeBlocks = buildCodeBlocks();
+        String[] extras = {
+                "        if (total > 100) {\n            total -= 100;\n        }\n",
+                "        while (total % 7 != 0) {\n            total++;\n        }\n",
+                "        int half = total / 2;\n        total = half * 3;\n"
+        };
+        for (int i = 0; i < codeBlocks.size(); i++) {
+            CodeBlock block = codeBlocks.get(i);
+            StringBuilder extra = new StringBuilder();
+            for (int k = 0; k < extras.length; k++) {
+                if ((i >> k & 1) == 1) {
+                    extra.append(extras[k]);
+                }
+            }
+            block.setCode(block.getCode().replace("        return total;", extra + "        return total;"));
+        }
+
+        // 协调节点使用子树哈希算法，工作节点（测试上下文）默认使用特征序列算法
+        ClusterConfig clusterConfig = new ClusterConfig();
+        clusterConfig.setEnabled(true);
+        clusterConfig.setSharedSecret(SECRET);
+        clusterConfig.setWorkers(Collections.singletonList("http://127.0.0.1:" + port));
+        clusterConfig.setMinCodeBlocks(2);
+        clusterConfig.setTileSize(4);
+        ScoringConfig scoringConfig = new ScoringConfig();
+        scoringConfig.setStructureMetric(StructureMetric.SUBTREE_HASH);
+        MetricsConfig metricsConfig = new MetricsConfig();
+        CodePlagiarismService coordinator = new CodePlagiarismService(clusterConfig, objectMapper,
+                metricsConfig, new MetricsRegistry(metricsConfig), scoringConfig);
+        CodePlagiarismService local = new CodePlagiarismService(null, null,
+                metricsConfig, new MetricsRegistry(metricsConfig), scoringConfig);
+
+        BatchPlagiarismResult expected = local.compareMultipleCodeBlocks(codeBlocks, 0.7);
+        BatchPlagiarismResult sequence = plagiarismService.compareMultipleCodeBlocks(codeBlocks, 0.7);
+        BatchPlagiarismResult distributed = coordinator.compareMultipleCodeBlocks(codeBlocks, 0.7);
+        coordinator.shutdown();
+        local.shutdown();
+
+        assertEquals(StructureMetric.SEQUENCE, plagiarismService.getStructureMetric());
+        assertNotEquals(sequence.getAvgSimilarityScore(), expected.getAvgSimilarityScore(), 1e-9);
+        assertEquals(expected.getPlagiarismPairs(), distributed.getPlagiarismPairs());
+        assertEquals(expected.getMaxSimilarityScore(), distributed.getMaxSimilarityScore(), 1e-9);
+        assertEquals(expected.getAvgSimilarityScore(), distributed.getAvgSimilarityScore(), 1e-9);
+    }
+
+    @Test
+    void testWorkerRejectsWrongSecret() throws IOException {
+        OkHttpClient client = new OkHttpClient();
+        String url = "http://127.0.0.1:" + port + "/api/v1/plagiarism/cluster/jobs/unknown/tiles";
+        byte[] tile = objectMapper.writeValueAsBytes(new PairTileRequest(0, 0, 1, 0, 1, 0.7, 0));
+        MediaType json = MediaType.parse("application/json; charset=utf-8");
+
+        try (Response response = client.newCall(new Request.Builder().url(url)
+                .post(RequestBody.create(json, tile)).build()).execute()) {
+            assertEquals(401, response.code());
+        }
+        try (Response response = client.newCall(new Request.Builder().url(url)
+                .header(ClusterWorkerService.SECRET_HEADER, "wrong")
+                .post(RequestBody.create(json, tile)).build()).execute()) {
+            assertEquals(401, response.code());
+        }
+        try (Response response = client.newCall(new Request.Builder().url(url)
+                .header(ClusterWorkerService.SECRET_HEADER, SECRET)
+                .post(RequestBody.create(json, tile)).build()).execute()) {
+            assertEquals(404, response.code());
+        }
+    }
+
+    private static List<CodeBlock> buildCodeBlocks() {
+        List<CodeBlock> codeBlocks = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            CodeBlock block = new CodeBlock();
+            block.setId("block_" + i);
+            block.setAuthor("用户" + i);
+            block.setLanguage("Java");
+            block.setCode("public class Solution" + i + " {\n" +
+                    "    public int sum(int[] nums) {\n" +
+                    "        int total = " + i + ";\n" +
+                    "        for (int k = 0; k < nums.length; k += " + (i % 3 + 1) + ") {\n" +
+                    "            total += nums[k] * " + i + ";\n" +
+                    "        }\n" +
+                    "        return total;\n" +
+                    "    }\n" +
+                    "}");
+            codeBlocks.add(block);
+        }
+        return codeBlocks;
+    }
+}
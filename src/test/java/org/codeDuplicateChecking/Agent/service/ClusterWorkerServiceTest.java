@@ -0,0 +1,92 @@
+package org.codeDuplicateChecking.Agent.service;
+
+import org.codeDuplicateChecking.Agent.config.ClusterConfig;
+import org.codeDuplicateChecking.Agent.model.CodeFingerprint;
+import org.codeDuplicateChecking.Agent.model.PairTileRequest;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 分布式查重工作节点测试类：共享密钥、任务大小上限和过期任务清理
+ */
+class ClusterWorkerServiceTest {
+
+    private final CodePlagiarismService plagiarismService = new CodePlagiarismService();
+
+    @Test
+    void testSharedSecret() {
+        ClusterConfig config = new ClusterConfig();
+        ClusterWorkerService worker = new ClusterWorkerService(plagiarismService, config);
+        // 未配置密钥时拒绝所有请求
+        assertFalse(worker.isAuthorized(null));
+        assertFalse(worker.isAuthorized(""));
+
+        config.setSharedSecret("secret");
+        assertTrue(worker.isAuthorized("secret"));
+        assertFalse(worker.isAuthorized(null));
+        assertFalse(worker.isAuthorized(""));
+        assertFalse(worker.isAuthorized("secret2"));
+    }
+
+    @Test
+    void testJobLimits() {
+        ClusterConfig config = new ClusterConfig();
+        config.setMaxJobs(2);
+        config.setMaxJobFingerprints(2);
+        config.setMaxJobCodeChars(20);
+        ClusterWorkerService worker = new ClusterWorkerService(plagiarismService, config);
+
+        assertThrows(IllegalArgumentException.class, () ->
+                worker.registerJob("a", Arrays.asList(fingerprint("1", "x"), fingerprint("2", "x"),
+                        fingerprint("3", "x")), null));
+        assertThrows(IllegalArgumentException.class, () ->
+                worker.registerJob("a", Collections.singletonList(
+                        fingerprint("1", String.join("", Collections.nCopies(21, "x")))), null));
+        assertEquals(0, worker.getJobCount());
+
+        worker.registerJob("a", Collections.singletonList(fingerprint("1", "x")), null);
+        worker.registerJob("b", Collections.singletonList(fingerprint("1", "x")), null);
+        // 重新下发已有任务不占用新名额
+        worker.registerJob("a", Collections.singletonList(fingerprint("1", "x")), null);
+        assertThrows(IllegalStateException.class, () ->
+                worker.registerJob("c", Collections.singletonList(fingerprint("1", "x")), null));
+        worker.releaseJob("b");
+        worker.registerJob("c", Collections.singletonList(fingerprint("1", "x")), null);
+        assertEquals(2, worker.getJobCount());
+    }
+
+    @Test
+    void testExpiredJobsEvictedOnTileRequest() throws InterruptedException {
+        ClusterConfig config = new ClusterConfig();
+        config.setJobTtlMs(500);
+        ClusterWorkerService worker = new ClusterWorkerService(plagiarismService, config);
+        List<CodeFingerprint> fingerprints = Arrays.asList(
+                fingerprint("1", "int main(){return 0;}"), fingerprint("2", "int main(){return 1;}"));
+        PairTileRequest tile = new PairTileRequest(0, 0, 2, 0, 2, 0.7, 0);
+
+        worker.registerJob("stale", fingerprints, null);
+        Thread.sleep(300);
+        worker.registerJob("active", fingerprints, null);
+        Thread.sleep(300);
+
+        // 分块请求时清理过期任务，未过期的任务保留
+        assertEquals(2, worker.getJobCount());
+        assertNotNull(worker.computeTile("active", tile));
+        assertEquals(1, worker.getJobCount());
+        assertNull(worker.computeTile("stale", tile));
+
+        // 定期清理同样回收过期任务
+        Thread.sleep(600);
+        worker.evictExpiredJobs();
+        assertEquals(0, worker.getJobCount());
+    }
+
+    private static CodeFingerprint fingerprint(String id, String processedCode) {
+        return new CodeFingerprint(id, "用户" + id, null, "C++", null, processedCode);
+    }
+}
@@ -1,19 +1,34 @@
 package org.codeDuplicateChecking.Agent.service;
 
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.codeDuplicateChecking.Agent.config.MetricsConfig;
+import org.codeDuplicateChecking.Agent.config.ScoringConfig;
+import org.codeDuplicateChecking.Agent.jfr.EngineEvents;
 import org.codeDuplicateChecking.Agent.model.BatchPlagiarismResult;
 import org.codeDuplicateChecking.Agent.model.CodeBlock;
+import org.codeDuplicateChecking.Agent.model.ComparisonProfile;
+import org.codeDuplicateChecking.Agent.model.OneToManyResult;
 import org.codeDuplicateChecking.Agent.model.PlagiarismResult;
 import org.codeDuplicateChecking.Agent.utils.CodePlagiarismUtils;
+import org.codeDuplicateChecking.Agent.utils.StructureMetric;
+import org.codeDuplicateChecking.Agent.utils.SubtreeHashSimilarity;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.codeDuplicateChecking.TestConfig;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
 
 /**
  * 代码查重服务测试类
@@ -142,7 +157,8 @@ class CodePlagiarismServiceTest {
         codeBlocks.add(similarCode2);
         codeBlocks.add(differentCode);
         
-        BatchPlagiarismResult result = plagiarismService.compareMultipleCodeBlocks(codeBlocks, 0.7);
+        // 测试数据中混有Java和Python代码，关闭语言分区以比较全部组合
+        BatchPlagiarismResult result = plagiarismService.compareMultipleCodeBlocks(codeBlocks, 0.7, false);
         
         assertNotNull(result);
         System.out.println("批量比较统计: " + result.getStatistics());
@@ -158,6 +174,267 @@ class CodePlagiarismServiceTest {
         }
     }
 
+    @Test
+    void testComparisonProfile() {
+        // 不传profiler时结果中没有分阶段耗时
+        assertNull(plagiarismService.compareTwoCodeBlocks(similarCode1, similarCode2, 0.7).getProfile());
+
+        List<CodeBlock> codeBlocks = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            codeBlocks.add(i % 2 == 0 ? similarCode1 : differentCode);
+        }
+        BatchPlagiarismResult result = plagiarismService.compareMultipleCodeBlocks(codeBlocks, 0.7, false,
+                new ComparisonProfiler());
+
+        ComparisonProfile profile = result.getProfile();
+        assertNotNull(profile);
+        assertEquals(6, profile.getPreprocessedBlocks());
+        assertEquals(15, profile.getComparedPairs());
+        assertEquals(CodePlagiarismUtils.SCORE_METRICS.length, profile.getMetricMs().size());
+        // 6个预处理任务加6个按行拆分的比较任务
+        assertEquals(12, profile.getExecutorTasks());
+        assertEquals(0, profile.getAiCalls());
+
+        // 最慢的代码对按耗时从高到低排列，最多保留10对
+        List<ComparisonProfile.SlowPair> slowestPairs = profile.getSlowestPairs();
+        assertEquals(10, slowestPairs.size());
+        for (int i = 1; i < slowestPairs.size(); i++) {
+            assertTrue(slowestPairs.get(i - 1).getTotalMs() >= slowestPairs.get(i).getTotalMs());
+        }
+        assertTrue(slowestPairs.get(0).getLength1() > 0);
+    }
+
+    @Test
+    void testFlightRecorderEvents() throws Exception {
+        // 运行环境不支持JFR时事件方法直接返回，不影响查重
+        assumeTrue(EngineEvents.isAvailable());
+
+        List<CodeBlock> codeBlocks = new ArrayList<>();
+        codeBlocks.add(withPartition(similarCode1, "P1001", "Java"));
+        codeBlocks.add(withPartition(similarCode2, "P1001", "Java"));
+        codeBlocks.add(withPartition(differentCode, "P1001", "Java"));
+        codeBlocks.add(withPartition(differentCode, "P1002", "Java"));
+
+        Path file = Files.createTempFile("plagiarism-events", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable(EngineEvents.PAIR_COMPARISON).withThreshold(Duration.ZERO);
+            recording.enable(EngineEvents.BATCH_COMPARISON);
+            recording.start();
+            plagiarismService.compareMultipleCodeBlocks(codeBlocks, 0.7);
+            recording.stop();
+            recording.dump(file);
+
+            List<RecordedEvent> pairEvents = new ArrayList<>();
+            List<RecordedEvent> batchEvents = new ArrayList<>();
+            for (RecordedEvent event : RecordingFile.readAllEvents(file)) {
+                if (EngineEvents.PAIR_COMPARISON.equals(event.getEventType().getName())) {
+                    pairEvents.add(event);
+                } else if (EngineEvents.BATCH_COMPARISON.equals(event.getEventType().getName())) {
+                    batchEvents.add(event);
+                }
+            }
+
+            // P1001分区内3对，P1002只有一个代码块
+            assertEquals(3, pairEvents.size());
+            for (RecordedEvent event : pairEvents) {
+                assertNotNull(event.getString("codeBlockId1"));
+                assertTrue(event.getInt("length1") > 0);
+                assertTrue(event.getLong("editDistanceDuration") > 0);
+                double score = event.getDouble("score");
+                assertTrue(score >= 0 && score <= 1);
+            }
+            assertEquals(1, batchEvents.size());
+            RecordedEvent batchEvent = batchEvents.get(0);
+            assertEquals("batch", batchEvent.getString("kind"));
+            assertEquals(4, batchEvent.getInt("codeBlocks"));
+            assertEquals(2, batchEvent.getInt("partitions"));
+            assertEquals(3, batchEvent.getLong("pairs"));
+            assertEquals(3, batchEvent.getLong("prunedPairs"));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    void testPartitionedBatchComparison() {
+        // 两道题目、两种语言混合提交，只应比较同一题目同一语言族的代码
+        List<CodeBlock> codeBlocks = new ArrayList<>();
+        codeBlocks.add(withPartition(similarCode1, "P1001", "Java"));
+        codeBlocks.add(withPartition(similarCode2, "P1001", "Java"));
+        codeBlocks.add(withPartition(differentCode, "P1001", "Java"));
+        codeBlocks.add(withPartition(similarCode1, "P1001", "Python3"));
+        codeBlocks.add(withPartition(similarCode2, "P1002", "C++"));
+        codeBlocks.add(withPartition(differentCode, "P1002", "C"));
+        
+        BatchPlagiarismResult result = plagiarismService.compareMultipleCodeBlocks(codeBlocks, 0.7);
+        System.out.println("分区批量比较统计: " + result.getStatistics());
+        
+        // P1001/java 3对 + P1002/c/c++ 1对，其余11对跳过
+        assertEquals(4, result.getTotalPairs());
+        assertEquals(4, result.getResults().size());
+        assertEquals(11, result.getSkippedPairs());
+        assertEquals(3, result.getPartitionStatistics().size());
+        assertEquals("P1001", result.getPartitionStatistics().get(0).getProblemId());
+        assertEquals(3, result.getPartitionStatistics().get(0).getTotalPairs());
+        assertEquals(0, result.getPartitionStatistics().get(1).getTotalPairs());
+        assertEquals("c/c++", result.getPartitionStatistics().get(2).getLanguage());
+    }
+    
+    @Test
+    void testOneToManyComparison() {
+        // 短小的参考代码长度和结构差距过大，相似度上界低于阈值，应被剪枝
+        CodeBlock tiny = new CodeBlock();
+        tiny.setId("tiny");
+        tiny.setLanguage("Java");
+        tiny.setCode("int x = 1;");
+        
+        List<CodeBlock> references = new ArrayList<>();
+        references.add(similarCode2);
+        references.add(withPartition(differentCode, null, "Java"));
+        references.add(tiny);
+        references.add(withPartition(similarCode2, null, "Python3"));
+        
+        OneToManyResult result = plagiarismService.compareOneToMany(similarCode1, references, 0.7, true, 0);
+        
+        assertEquals(4, result.getTotalReferences());
+        assertEquals(1, result.getSkippedReferences());
+        assertTrue(result.getPrunedReferences() >= 1);
+        assertEquals(3, result.getComparedReferences() + result.getPrunedReferences());
+        // 匹配结果与逐对比较一致
+        PlagiarismResult pairwise = plagiarismService.compareTwoCodeBlocks(similarCode1, similarCode2, 0.7);
+        assertEquals(pairwise.isPlagiarism() ? 1 : 0, result.getMatchCount());
+        assertEquals(pairwise.getSimilarityScore(), result.getMaxSimilarityScore(), 1e-9);
+        for (PlagiarismResult match : result.getMatches()) {
+            assertEquals(similarCode1.getId(), match.getCodeBlockId1());
+            assertTrue(match.getSimilarityScore() >= 0.7);
+        }
+    }
+    
+    @Test
+    void testScoreUpperBound() {
+        // 上界不低于实际的综合相似度
+        CodeBlock[] blocks = {similarCode1, similarCode2, differentCode};
+        for (CodeBlock a : blocks) {
+            for (CodeBlock b : blocks) {
+                String processed1 = CodePlagiarismUtils.preprocessCode(a.getCode());
+                String processed2 = CodePlagiarismUtils.preprocessCode(b.getCode());
+                double score = CodePlagiarismUtils.calculateProcessedPlagiarismScore(processed1, processed2);
+                double upperBound = CodePlagiarismUtils.calculateProcessedScoreUpperBound(
+                        processed1.length(), processed2.length(),
+                        CodePlagiarismUtils.countStructureFeatures(processed1),
+                        CodePlagiarismUtils.countStructureFeatures(processed2));
+                assertTrue(upperBound >= score - 1e-9);
+            }
+        }
+    }
+    
+    @Test
+    void testSubtreeHashStructureSimilarity() {
+        String processed1 = CodePlagiarismUtils.preprocessCode(similarCode1.getCode());
+        String processed2 = CodePlagiarismUtils.preprocessCode(similarCode2.getCode());
+        // 改名、增加static修饰符不影响语法树
+        assertEquals(1.0, CodePlagiarismUtils.calculateProcessedStructureSimilarity(processed1, processed2,
+                StructureMetric.SUBTREE_HASH), 1e-9);
+        
+        // 调换两个方法的顺序，各方法的子树仍然完整匹配
+        String helper = "    static int square(int x) {\n        int result = x * x;\n        return result;\n    }\n";
+        String body = similarCode1.getCode().substring(similarCode1.getCode().indexOf('{') + 1,
+                similarCode1.getCode().lastIndexOf('}'));
+        String original = CodePlagiarismUtils.preprocessCode("public class Solution {\n" + helper + body + "}");
+        String reordered = CodePlagiarismUtils.preprocessCode("public class Solution {\n" + body + helper + "}");
+        double subtreeScore = CodePlagiarismUtils.calculateProcessedStructureSimilarity(original, reordered,
+                StructureMetric.SUBTREE_HASH);
+        assertTrue(subtreeScore >= 0.9);
+        
+        // 独立实现的不同算法相似度很低
+        String bubbleSort = CodePlagiarismUtils.preprocessCode(
+                "public class Sorter {\n" +
+                "    public void sort(int[] a) {\n" +
+                "        for (int i = 0; i < a.length; i++) {\n" +
+                "            for (int j = 0; j + 1 < a.length - i; j++) {\n" +
+                "                if (a[j] > a[j + 1]) {\n" +
+                "                    int t = a[j]; a[j] = a[j + 1]; a[j + 1] = t;\n" +
+                "                }\n" +
+                "            }\n" +
+                "        }\n" +
+                "    }\n" +
+                "}");
+        assertTrue(CodePlagiarismUtils.calculateProcessedStructureSimilarity(processed1, bubbleSort,
+                StructureMetric.SUBTREE_HASH) < 0.5);
+        
+        // 所有子树都小于最小匹配规模时，相同代码仍为1，不同代码改用特征序列编辑距离
+        String tiny = "int main(){return 0;}";
+        assertEquals(1.0, SubtreeHashSimilarity.calculateSimilarity(tiny, tiny), 1e-9);
+        String tinyOther = "int main(){int x; return 0;}";
+        assertEquals(CodePlagiarismUtils.calculateProcessedStructureSimilarity(tiny, tinyOther),
+                SubtreeHashSimilarity.calculateSimilarity(tiny, tinyOther), 1e-9);
+        
+        // 没有花括号的Python代码仍使用特征序列编辑距离
+        String python = CodePlagiarismUtils.preprocessCode(differentCode.getCode());
+        assertEquals(CodePlagiarismUtils.calculateProcessedStructureSimilarity(processed1, python),
+                CodePlagiarismUtils.calculateProcessedStructureSimilarity(processed1, python,
+                        StructureMetric.SUBTREE_HASH), 1e-9);
+    }
+    
+    @Test
+    void testSubtreeHashDeepNesting() {
+        // 深层嵌套的语句和括号不会导致栈溢出
+        StringBuilder nestedIfs = new StringBuilder("int main(){");
+        StringBuilder nestedParens = new StringBuilder("int main(){int x = ");
+        for (int i = 0; i < 5000; i++) {
+            nestedIfs.append("if(x){");
+            nestedParens.append('(');
+        }
+        nestedParens.append('1');
+        for (int i = 0; i < 5000; i++) {
+            nestedIfs.append('}');
+            nestedParens.append(')');
+        }
+        nestedIfs.append("return 0;}");
+        nestedParens.append(";return 0;}");
+        String ifs = nestedIfs.toString();
+        String parens = nestedParens.toString();
+        assertEquals(1.0, SubtreeHashSimilarity.calculateSimilarity(ifs, ifs), 1e-9);
+        assertEquals(1.0, SubtreeHashSimilarity.calculateSimilarity(parens, parens), 1e-9);
+        double score = SubtreeHashSimilarity.calculateSimilarity(ifs, parens);
+        assertTrue(score >= 0 && score <= 1);
+    }
+    
+    @Test
+    void testSubtreeHashScoringConfig() {
+        ScoringConfig scoringConfig = new ScoringConfig();
+        scoringConfig.setStructureMetric(StructureMetric.SUBTREE_HASH);
+        CodePlagiarismService subtreeService = new CodePlagiarismService(null, null, new MetricsConfig(),
+                new MetricsRegistry(new MetricsConfig()), scoringConfig);
+        try {
+            PlagiarismResult result = subtreeService.compareTwoCodeBlocks(similarCode1, differentCode, 0.7);
+            String processed1 = CodePlagiarismUtils.preprocessCode(similarCode1.getCode());
+            String processed2 = CodePlagiarismUtils.preprocessCode(differentCode.getCode());
+            assertEquals(CodePlagiarismUtils.calculateProcessedPlagiarismScore(processed1, processed2, null,
+                    StructureMetric.SUBTREE_HASH), result.getSimilarityScore(), 1e-9);
+            // 结构相似度算法不同时缓存的查重结果不能混用
+            assertNotEquals(plagiarismService.getScoringSignature(), subtreeService.getScoringSignature());
+            
+            OneToManyResult oneToMany = subtreeService.compareOneToMany(similarCode1,
+                    Arrays.asList(similarCode2, differentCode), 0.7, false, 0);
+            assertEquals(2, oneToMany.getComparedReferences() + oneToMany.getPrunedReferences());
+            assertEquals(1, oneToMany.getMatchCount());
+        } finally {
+            subtreeService.shutdown();
+        }
+    }
+    
+    private CodeBlock withPartition(CodeBlock source, String problemId, String language) {
+        CodeBlock copy = new CodeBlock();
+        copy.setId(source.getId() + "_" + problemId + "_" + language);
+        copy.setAuthor(source.getAuthor());
+        copy.setTitle(source.getTitle());
+        copy.setCode(source.getCode());
+        copy.setProblemId(problemId);
+        copy.setLanguage(language);
+        return copy;
+    }
+
     @Test
     void testPlagiarismUtils() {
         // 直接测试工具类的相似度计算
@@ -0,0 +1,107 @@
+package org.codeDuplicateChecking.Agent.service;
+
+import org.codeDuplicateChecking.Agent.config.ResultCacheConfig;
+import org.codeDuplicateChecking.Agent.model.BatchPlagiarismResult;
+import org.codeDuplicateChecking.Agent.model.CodeBlock;
+import org.codeDuplicateChecking.Agent.model.CodeFingerprint;
+import org.codeDuplicateChecking.Agent.model.PlagiarismResult;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 查重结果缓存测试
+ */
+class ComparisonResultCacheTest {
+
+    private final CodeFingerprint a = new CodeFingerprint("a", "alice", null, "Java", "P1", "int f(){return 1;}");
+    private final CodeFingerprint b = new CodeFingerprint("b", "bob", null, "Java", "P1", "int g(){return 2;}");
+    private final CodeFingerprint c = new CodeFingerprint("c", "carol", null, "Java", "P1", "int h(){return 3;}");
+
+    @Test
+    void testBatchKeyIsOrderIndependent() {
+        ComparisonResultCache cache = new ComparisonResultCache(new ResultCacheConfig());
+
+        String key = cache.buildBatchKey(Arrays.asList(a, b, c), 0.7, true, "v1");
+        assertEquals(key, cache.buildBatchKey(Arrays.asList(c, a, b), 0.7, true, "v1"));
+        // 阈值、分区方式、评分配置或代码内容不同时缓存键不同
+        assertNotEquals(key, cache.buildBatchKey(Arrays.asList(a, b, c), 0.8, true, "v1"));
+        assertNotEquals(key, cache.buildBatchKey(Arrays.asList(a, b, c), 0.7, false, "v1"));
+        assertNotEquals(key, cache.buildBatchKey(Arrays.asList(a, b, c), 0.7, true, "v2"));
+        CodeFingerprint changed = new CodeFingerprint("c", "carol", null, "Java", "P1", "int h(){return 4;}");
+        assertNotEquals(key, cache.buildBatchKey(Arrays.asList(a, b, changed), 0.7, true, "v1"));
+    }
+
+    @Test
+    void testPairKeyFromRawCode() {
+        ComparisonResultCache cache = new ComparisonResultCache(new ResultCacheConfig());
+        CodeBlock first = new CodeBlock("a", "int f(){return 1;}", "alice", null, null, "Java", "P1");
+        CodeBlock second = new CodeBlock("b", "int g(){return 2;}", "bob", null, null, "Java", "P1");
+
+        String key = cache.buildPairKey(first, second, 0.7, "v1");
+        assertEquals(key, cache.buildPairKey(first, new CodeBlock("b", "int g(){return 2;}", "bob",
+                "2024-01-01", null, "Java", "P1"), 0.7, "v1"));
+        // 两代码块比较的结果区分先后，代码、阈值或评分配置不同时缓存键不同
+        assertNotEquals(key, cache.buildPairKey(second, first, 0.7, "v1"));
+        assertNotEquals(key, cache.buildPairKey(first, new CodeBlock("b", "int g(){return 3;}", "bob",
+                null, null, "Java", "P1"), 0.7, "v1"));
+        assertNotEquals(key, cache.buildPairKey(first, second, 0.8, "v1"));
+        assertNotEquals(key, cache.buildPairKey(first, second, 0.7, "v2"));
+
+        // contains不计入命中统计
+        assertFalse(cache.contains(key));
+        cache.put(key, new PlagiarismResult());
+        assertTrue(cache.contains(key));
+        assertEquals(0, cache.getHits());
+        assertEquals(0, cache.getMisses());
+    }
+
+    @Test
+    void testEvictsBySize() {
+        ResultCacheConfig config = new ResultCacheConfig();
+        BatchPlagiarismResult result = batchResult(10);
+        long weight = ComparisonResultCache.estimateWeight(result);
+        config.setMaxWeightBytes(weight * 2);
+        ComparisonResultCache cache = new ComparisonResultCache(config);
+
+        cache.put("k1", result);
+        cache.put("k2", result);
+        assertSame(result, cache.get("k1"));
+        // k1刚被访问，写入k3时淘汰最久未使用的k2
+        cache.put("k3", result);
+        assertEquals(2, cache.size());
+        assertNull(cache.get("k2"));
+        assertNotNull(cache.get("k1"));
+        assertNotNull(cache.get("k3"));
+        assertEquals(1, cache.getEvictions());
+        assertTrue(cache.getWeight() <= config.getMaxWeightBytes());
+
+        // 单个结果超过上限时不缓存
+        cache.put("huge", batchResult(100));
+        assertNull(cache.get("huge"));
+    }
+
+    @Test
+    void testDisabled() {
+        ResultCacheConfig config = new ResultCacheConfig();
+        config.setEnabled(false);
+        ComparisonResultCache cache = new ComparisonResultCache(config);
+
+        cache.put("k", batchResult(1));
+        assertNull(cache.get("k"));
+        assertEquals(0, cache.size());
+    }
+
+    private static BatchPlagiarismResult batchResult(int pairs) {
+        List<PlagiarismResult> results = new ArrayList<>();
+        for (int i = 0; i < pairs; i++) {
+            results.add(new PlagiarismResult("a" + i, "alice", null, "b" + i, "bob", null,
+                    0.5, false, 0.7, "分析说明"));
+        }
+        return new BatchPlagiarismResult(results, pairs, 0, 0.5, 0.5, 0.7, 1, "统计信息");
+    }
+}
@@ -0,0 +1,250 @@
+package org.codeDuplicateChecking.Agent.service;
+
+import com.alibaba.dashscope.common.Status;
+import com.alibaba.dashscope.exception.ApiException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.codeDuplicateChecking.Agent.config.AIClientConfig;
+import org.codeDuplicateChecking.Agent.config.AIProviderConfig;
+import org.codeDuplicateChecking.Agent.config.AIResilienceConfig;
+import org.codeDuplicateChecking.Agent.config.MetricsConfig;
+import org.codeDuplicateChecking.Agent.model.LLMRequest;
+import org.codeDuplicateChecking.Agent.model.LLMResponse;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 基于本地模拟提供方的大模型客户端测试
+ */
+class LLMClientServiceTest {
+
+    private static final String PROMPT = "原始查重率: 85.0%\n请分析以下两段代码";
+
+    private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "llm-client-test");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Test
+    void testSyntheticReply() throws Exception {
+        LLMClientService client = newClient(localConfig(20, 50, 0.0), 30);
+        String reply = client.chat("key", "qwen-plus", "system", PROMPT);
+
+        assertTrue(reply.startsWith("查重率：85.0%"));
+        assertEquals(85.0, PlagiarismAnalysisService.parseAnalysisSummary(reply).getAiSimilarityRate(), 0.001);
+        assertEquals("OK（本地模拟回复）", client.chat("key", "qwen-plus", null, "hello"));
+        client.shutdown();
+    }
+
+    @Test
+    void testSimulatedErrorsAndTimeout() {
+        // 全部请求返回503，重试耗尽后抛出ApiException：1次请求加默认的2次重试
+        LocalLLMProvider local = new LocalLLMProvider(localConfig(5, 10, 1.0), new ObjectMapper());
+        CountingProvider provider = new CountingProvider((index, request) -> local.call(request));
+        LLMClientService failing = newClient(provider, 30, new AIResilienceConfig());
+        assertThrows(ApiException.class, () -> failing.chat("key", "qwen-plus", null, PROMPT));
+        assertEquals(3, provider.getCalls());
+        failing.shutdown();
+
+        // 模拟耗时远超超时时间
+        LLMClientService slow = newClient(localConfig(5000, 5000, 0.0), 1);
+        assertThrows(TimeoutException.class, () -> slow.chat("key", "qwen-plus", null, PROMPT));
+        slow.shutdown();
+    }
+
+    @Test
+    void testRetryableErrorsAreRetried() throws Exception {
+        // 前两次返回503和429，第三次成功
+        CountingProvider provider = new CountingProvider((index, request) -> index == 0 ? failed(503)
+                : index == 1 ? failed(429) : CompletableFuture.completedFuture(new LLMResponse("ok", 0, 0)));
+        LLMClientService client = newClient(provider, 30, new AIResilienceConfig());
+        assertEquals("ok", client.chat("key", "qwen-plus", null, PROMPT));
+        assertEquals(3, provider.getCalls());
+        client.shutdown();
+    }
+
+    @Test
+    void testClientErrorsAreNotRetried() {
+        // 400（如参数错误、API Key无效）不重试，也不计入熔断失败率
+        CountingProvider provider = new CountingProvider((index, request) -> failed(400));
+        AIResilienceConfig resilienceConfig = new AIResilienceConfig();
+        resilienceConfig.setMinimumCalls(4);
+        LLMClientService client = newClient(provider, 30, resilienceConfig);
+        for (int i = 0; i < 10; i++) {
+            assertThrows(ApiException.class, () -> client.chat("key", "qwen-plus", null, PROMPT));
+        }
+        assertEquals(10, provider.getCalls());
+        assertEquals("CLOSED", client.getCircuitState());
+        client.shutdown();
+    }
+
+    @Test
+    void testHedgeAfterSlowRequest() throws Exception {
+        // 前5次约20ms返回，作为耗时样本；第6次不返回，对冲请求先返回
+        CountingProvider provider = new CountingProvider((index, request) -> index < 5 ? delayed(20, "warm")
+                : index == 5 ? new CompletableFuture<>() : delayed(10, "hedged"));
+        LLMClientService client = newClient(provider, 30, hedgeConfig(1.0));
+        for (int i = 0; i < 5; i++) {
+            assertEquals("warm", client.chat("key", "qwen-plus", null, PROMPT));
+        }
+        assertEquals("hedged", client.chat("key", "qwen-plus", null, PROMPT));
+        assertEquals(7, provider.getCalls());
+        client.shutdown();
+    }
+
+    @Test
+    void testLatencySamplesPerModel() throws Exception {
+        // 快速模型的耗时样本不影响大模型：大模型没有样本时不对冲，等待主请求返回
+        CountingProvider provider = new CountingProvider((index, request) -> index < 5 ? delayed(20, "warm")
+                : index == 5 ? delayed(300, "primary") : delayed(10, "hedged"));
+        LLMClientService client = newClient(provider, 30, hedgeConfig(1.0));
+        for (int i = 0; i < 5; i++) {
+            client.chat("key", "qwen-turbo", null, PROMPT);
+        }
+        assertEquals("primary", client.chat("key", "qwen-plus", null, PROMPT));
+        assertEquals(6, provider.getCalls());
+        assertEquals(30000, client.getCurrentTimeoutMs("qwen-plus"));
+        client.shutdown();
+    }
+
+    @Test
+    void testHedgeBudgetExhausted() throws Exception {
+        // 对冲预算为0时慢请求不对冲，等待主请求返回
+        CountingProvider provider = new CountingProvider((index, request) -> index < 5 ? delayed(20, "warm")
+                : delayed(300, "primary"));
+        LLMClientService client = newClient(provider, 30, hedgeConfig(0.0));
+        for (int i = 0; i < 5; i++) {
+            client.chat("key", "qwen-plus", null, PROMPT);
+        }
+        assertEquals("primary", client.chat("key", "qwen-plus", null, PROMPT));
+        assertEquals(6, provider.getCalls());
+        client.shutdown();
+    }
+
+    @Test
+    void testCancelReachesProvider() {
+        // 调用被取消时仍在进行的提供方请求一并取消
+        CompletableFuture<LLMResponse> pending = new CompletableFuture<>();
+        CountingProvider provider = new CountingProvider((index, request) -> pending);
+        LLMClientService client = newClient(provider, 30, new AIResilienceConfig());
+        CompletableFuture<String> reply = client.chatAsync("key", "qwen-plus", null, PROMPT);
+
+        assertTrue(reply.cancel(true));
+        assertTrue(pending.isCancelled());
+        assertEquals(1, provider.getCalls());
+        client.shutdown();
+    }
+
+    @Test
+    void testUnknownModelMetricLabel() throws Exception {
+        // 调用方指定的任意模型不作为指标标签值，统一记为other
+        MetricsRegistry metrics = new MetricsRegistry(new MetricsConfig());
+        LLMClientService client = new LLMClientService(new LocalLLMProvider(localConfig(5, 10, 0.0), new ObjectMapper()),
+                new AIClientConfig(), new AIResilienceConfig(), metrics);
+        client.chat("key", "qwen-plus", null, PROMPT);
+        client.chat("key", "custom-model-1", null, PROMPT);
+        client.shutdown();
+
+        String text = metrics.scrape();
+        assertTrue(text.contains("ai_call_seconds_count{model=\"qwen-plus\"} 1\n"));
+        assertTrue(text.contains("ai_call_seconds_count{model=\"other\"} 1\n"));
+        assertFalse(text.contains("custom-model-1"));
+    }
+
+    @Test
+    void testStreamingReply() throws Exception {
+        LLMClientService client = newClient(localConfig(20, 50, 0.0), 30);
+        StringBuilder tokens = new StringBuilder();
+        String reply = client.streamChatAsync("key", "qwen-plus", null, PROMPT, tokens::append).get();
+
+        assertEquals(LocalLLMProvider.syntheticContent(PROMPT), reply);
+        assertEquals(reply, tokens.toString());
+        client.shutdown();
+    }
+
+    private static AIResilienceConfig hedgeConfig(double budgetRatio) {
+        AIResilienceConfig config = new AIResilienceConfig();
+        config.setMinLatencySamples(5);
+        config.setHedgeBudgetRatio(budgetRatio);
+        return config;
+    }
+
+    private static CompletableFuture<LLMResponse> failed(int statusCode) {
+        CompletableFuture<LLMResponse> future = new CompletableFuture<>();
+        future.completeExceptionally(new ApiException(Status.builder().statusCode(statusCode)
+                .message("status " + statusCode).build()));
+        return future;
+    }
+
+    private static CompletableFuture<LLMResponse> delayed(long delayMs, String content) {
+        CompletableFuture<LLMResponse> future = new CompletableFuture<>();
+        SCHEDULER.schedule(() -> future.complete(new LLMResponse(content, 0, 0)), delayMs, TimeUnit.MILLISECONDS);
+        return future;
+    }
+
+    private AIProviderConfig localConfig(long medianMs, long p99Ms, double errorRate) {
+        AIProviderConfig config = new AIProviderConfig();
+        config.setType("local");
+        config.getLocal().setLatencyMedianMs(medianMs);
+        config.getLocal().setLatencyP99Ms(p99Ms);
+        config.getLocal().setErrorRate(errorRate);
+        config.getLocal().setStreamChunkDelayMs(1);
+        return config;
+    }
+
+    private LLMClientService newClient(AIProviderConfig providerConfig, long timeoutSeconds) {
+        return newClient(new LocalLLMProvider(providerConfig, new ObjectMapper()), timeoutSeconds,
+                new AIResilienceConfig());
+    }
+
+    private LLMClientService newClient(LLMProvider provider, long timeoutSeconds,
+                                       AIResilienceConfig resilienceConfig) {
+        AIClientConfig clientConfig = new AIClientConfig();
+        clientConfig.setTimeoutSeconds(timeoutSeconds);
+        resilienceConfig.setRetryBaseDelayMs(10);
+        resilienceConfig.setRetryMaxDelayMs(20);
+        return new LLMClientService(provider, clientConfig, resilienceConfig);
+    }
+
+    /**
+     * 统计调用次数的提供方，每次调用的结果由responder根据从0开始的调用序号和请求决定
+     */
+    private static class CountingProvider implements LLMProvider {
+
+        private final AtomicInteger calls = new AtomicInteger();
+        private final BiFunction<Integer, LLMRequest, CompletableFuture<LLMResponse>> responder;
+
+        CountingProvider(BiFunction<Integer, LLMRequest, CompletableFuture<LLMResponse>> responder) {
+            this.responder = responder;
+        }
+
+        int getCalls() {
+            return calls.get();
+        }
+
+        @Override
+        public String getName() {
+            return "counting";
+        }
+
+        @Override
+        public CompletableFuture<LLMResponse> call(LLMRequest request) {
+            return responder.apply(calls.getAndIncrement(), request);
+        }
+
+        @Override
+        public CompletableFuture<LLMResponse> stream(LLMRequest request, Consumer<String> onToken) {
+            return call(request);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package org.codeDuplicateChecking.Agent.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.codeDuplicateChecking.Agent.config.AICacheConfig;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * AI响应缓存测试类
+ */
+class LLMResponseCacheTest {
+
+    @TempDir
+    Path cacheDir;
+
+    @Test
+    void testKeyIgnoresCommentsButNotScore() {
+        LLMResponseCache cache = new LLMResponseCache(new AICacheConfig(), new ObjectMapper());
+        String key = cache.buildPairKey("qwen-plus", "prompt", "int a = 1;", "int b = 2;", 0.812);
+
+        // 注释不同、查重率四舍五入后相同，应得到相同的键
+        assertEquals(key, cache.buildPairKey("qwen-plus", "prompt", "int a = 1; // 注释", "int b = 2;", 0.8124));
+        assertNotEquals(key, cache.buildPairKey("qwen-turbo", "prompt", "int a = 1;", "int b = 2;", 0.812));
+        assertNotEquals(key, cache.buildPairKey("qwen-plus", "prompt", "int a = 1;", "int b = 2;", 0.9));
+
+        // 同一代码对的摘要按模型得到与buildPairKey相同的键
+        LLMResponseCache.PairDigest digest = cache.digestPair("prompt", "int a = 1;", "int b = 2;", 0.812);
+        assertEquals(key, digest.keyFor("qwen-plus"));
+        assertEquals(cache.buildPairKey("qwen-turbo", "prompt", "int a = 1;", "int b = 2;", 0.812),
+                digest.keyFor("qwen-turbo"));
+    }
+
+    @Test
+    void testLruEvictionAndDiskTier() {
+        AICacheConfig config = new AICacheConfig();
+        config.setMaxEntries(2);
+        config.setDiskEnabled(true);
+        config.setDiskDirectory(cacheDir.toString());
+        LLMResponseCache cache = new LLMResponseCache(config, new ObjectMapper());
+
+        cache.put("k1", "r1");
+        cache.put("k2", "r2");
+        cache.put("k3", "r3");
+
+        // k1已被挤出内存，但仍能从磁盘层读回
+        assertEquals("r1", cache.get("k1"));
+        assertEquals("r3", cache.get("k3"));
+
+        // 新实例模拟服务重启
+        LLMResponseCache restarted = new LLMResponseCache(config, new ObjectMapper());
+        assertEquals("r2", restarted.get("k2"));
+        assertNull(restarted.get("missing"));
+    }
+
+    @Test
+    void testDiskSweep() throws IOException {
+        AICacheConfig config = new AICacheConfig();
+        config.setDiskEnabled(true);
+        config.setDiskDirectory(cacheDir.toString());
+        config.setDiskMaxEntries(2);
+        config.setTtlSeconds(3600);
+        LLMResponseCache cache = new LLMResponseCache(config, new ObjectMapper());
+
+        long now = System.currentTimeMillis();
+        String[] keys = {"expired", "old", "middle", "new"};
+        long[] ages = {7200_000, 300_000, 200_000, 100_000};
+        for (int i = 0; i < keys.length; i++) {
+            cache.put(keys[i], "r" + i);
+            Files.setLastModifiedTime(cacheDir.resolve(keys[i] + ".json"), FileTime.fromMillis(now - ages[i]));
+        }
+
+        // 删除过期文件，再按写入时间删除超出上限的最早文件
+        cache.sweepDisk();
+        assertFalse(Files.exists(cacheDir.resolve("expired.json")));
+        assertFalse(Files.exists(cacheDir.resolve("old.json")));
+        assertTrue(Files.exists(cacheDir.resolve("middle.json")));
+        assertTrue(Files.exists(cacheDir.resolve("new.json")));
+    }
+
+    @Test
+    void testExpiredEntriesAreIgnored() {
+        AICacheConfig config = new AICacheConfig();
+        config.setTtlSeconds(-1);
+        LLMResponseCache cache = new LLMResponseCache(config, new ObjectMapper());
+
+        cache.put("k1", "r1");
+        assertNull(cache.get("k1"));
+    }
+}
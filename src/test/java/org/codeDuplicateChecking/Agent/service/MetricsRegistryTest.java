@@ -0,0 +1,103 @@
+package org.codeDuplicateChecking.Agent.service;
+
+import org.codeDuplicateChecking.Agent.config.MetricsConfig;
+import org.codeDuplicateChecking.Agent.model.CodeBlock;
+import org.codeDuplicateChecking.Agent.utils.CodePlagiarismUtils;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 运行指标注册表测试
+ */
+class MetricsRegistryTest {
+
+    @Test
+    void testScrapeFormat() {
+        MetricsRegistry metrics = new MetricsRegistry(new MetricsConfig());
+        metrics.counter("test_requests_total", "请求数", "model", "qwen-plus").increment(3);
+        // 同名同标签返回同一个计数器
+        metrics.counter("test_requests_total", "请求数", "model", "qwen-plus").increment();
+        MetricsRegistry.Timer timer = metrics.timer("test_latency_seconds", "耗时", "stage", "a\"b");
+        timer.record(TimeUnit.MICROSECONDS.toNanos(300));
+        timer.record(TimeUnit.SECONDS.toNanos(2));
+        timer.record(TimeUnit.MINUTES.toNanos(5));
+        metrics.gauge("test_queue_depth", "队列长度", () -> 7);
+
+        String text = metrics.scrape();
+        assertTrue(text.contains("# TYPE test_requests_total counter\n"));
+        assertTrue(text.contains("test_requests_total{model=\"qwen-plus\"} 4\n"));
+        assertTrue(text.contains("# TYPE test_latency_seconds histogram\n"));
+        // 桶计数是累计的，标签值中的引号被转义
+        assertTrue(text.contains("test_latency_seconds_bucket{stage=\"a\\\"b\",le=\"1.0E-4\"} 0\n"));
+        assertTrue(text.contains("test_latency_seconds_bucket{stage=\"a\\\"b\",le=\"5.0E-4\"} 1\n"));
+        assertTrue(text.contains("test_latency_seconds_bucket{stage=\"a\\\"b\",le=\"2.5\"} 2\n"));
+        assertTrue(text.contains("test_latency_seconds_bucket{stage=\"a\\\"b\",le=\"60.0\"} 2\n"));
+        assertTrue(text.contains("test_latency_seconds_bucket{stage=\"a\\\"b\",le=\"+Inf\"} 3\n"));
+        assertTrue(text.contains("test_latency_seconds_count{stage=\"a\\\"b\"} 3\n"));
+        assertTrue(text.contains("test_latency_seconds_sum{stage=\"a\\\"b\"} "));
+        assertEquals(TimeUnit.MICROSECONDS.toNanos(302_000_300), timer.getTotalNanos());
+        assertTrue(text.contains("test_queue_depth 7\n"));
+        assertTrue(text.contains("jvm_memory_used_bytes{area=\"heap\"} "));
+
+        // 同名指标不能注册为不同类型
+        assertThrows(IllegalArgumentException.class, () -> metrics.timer("test_requests_total", "请求数"));
+    }
+
+    @Test
+    void testModelLabel() {
+        MetricsConfig config = new MetricsConfig();
+        config.setModelLabels(Arrays.asList("qwen-plus", "qwen-turbo"));
+        MetricsRegistry metrics = new MetricsRegistry(config);
+
+        assertEquals("qwen-plus", metrics.modelLabel("qwen-plus"));
+        // 未配置的模型统一记为other
+        assertEquals(MetricsRegistry.OTHER_MODEL, metrics.modelLabel("qwen-max"));
+        assertEquals(MetricsRegistry.OTHER_MODEL, metrics.modelLabel("model-" + System.nanoTime()));
+        assertEquals(MetricsRegistry.OTHER_MODEL, metrics.modelLabel(null));
+    }
+
+    @Test
+    void testDisabledRegistryRecordsNothing() {
+        MetricsConfig config = new MetricsConfig();
+        config.setEnabled(false);
+        MetricsRegistry metrics = new MetricsRegistry(config);
+        MetricsRegistry.Counter counter = metrics.counter("test_requests_total", "请求数");
+        MetricsRegistry.Timer timer = metrics.stageTimer("preprocess");
+        counter.increment();
+        timer.record(1000);
+
+        assertFalse(metrics.isEnabled());
+        assertEquals(0, counter.get());
+        assertEquals(0, timer.getCount());
+    }
+
+    @Test
+    void testPlagiarismServiceStageMetrics() {
+        MetricsConfig config = new MetricsConfig();
+        MetricsRegistry metrics = new MetricsRegistry(config);
+        CodePlagiarismService service = new CodePlagiarismService(null, null, config, metrics);
+        try {
+            CodeBlock code1 = new CodeBlock("1", "int add(int a, int b) { return a + b; }", "alice", null, null, "Java", null);
+            CodeBlock code2 = new CodeBlock("2", "int sum(int x, int y) { return x + y; }", "bob", null, null, "Java", null);
+            CodeBlock code3 = new CodeBlock("3", "int mul(int x, int y) { return x * y; }", "carol", null, null, "Java", null);
+            service.compareMultipleCodeBlocks(Arrays.asList(code1, code2, code3), 0.7);
+
+            // 3个代码块预处理3次，比较3对，每对记录各项算法的耗时
+            assertEquals(3, metrics.stageTimer("preprocess").getCount());
+            for (String metric : CodePlagiarismUtils.SCORE_METRICS) {
+                assertEquals(3, metrics.stageTimer(metric).getCount());
+            }
+            assertEquals(3, metrics.stageTimer("analysis_text").getCount());
+            assertEquals(3, metrics.counter("plagiarism_pairs_total", "", "result", "plagiarism").get()
+                    + metrics.counter("plagiarism_pairs_total", "", "result", "clean").get());
+            assertEquals(1, metrics.timer("plagiarism_batch_seconds", "").getCount());
+            assertTrue(metrics.scrape().contains("plagiarism_executor_queue_depth 0\n"));
+        } finally {
+            service.shutdown();
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package org.codeDuplicateChecking.Agent.service;
+
+import org.codeDuplicateChecking.Agent.config.AIRoutingConfig;
+import org.codeDuplicateChecking.Agent.model.ModelRoutingStats;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 分级模型路由测试
+ */
+class ModelRouterTest {
+
+    @Test
+    void testShouldRoute() {
+        ModelRouter router = new ModelRouter(new AIRoutingConfig());
+        assertTrue(router.shouldRoute(null, "qwen-plus"));
+        // 调用方指定模型时不路由
+        assertFalse(router.shouldRoute("qwen-max", "qwen-plus"));
+        // 快速模型就是默认模型时无需路由
+        assertFalse(router.shouldRoute("", "qwen-turbo"));
+    }
+
+    @Test
+    void testEscalationDecision() {
+        ModelRouter router = new ModelRouter(new AIRoutingConfig());
+
+        // 明显抄袭且与本地算法一致，不升级
+        assertNull(router.decideEscalation("查重率：95.0%\n\n处理建议：严格禁止参赛并记录作弊", 0.92, 0.7));
+        // 接近阈值，结论不确定
+        assertEquals(ModelRouter.REASON_UNCERTAIN, router.decideEscalation("查重率：75.0%", 0.9, 0.7));
+        // 无法解析查重率
+        assertEquals(ModelRouter.REASON_UNCERTAIN, router.decideEscalation("无法判断", 0.9, 0.7));
+        // 与本地算法差距过大
+        assertEquals(ModelRouter.REASON_DISAGREEMENT, router.decideEscalation("查重率：30.0%", 0.9, 0.7));
+        // 快速模型调用失败
+        assertEquals(ModelRouter.REASON_FAST_FAILED, router.recordFastFailure());
+
+        router.recordCall("qwen-turbo", 100, true);
+        router.recordCall("qwen-turbo", 300, true);
+        router.recordCall("qwen-turbo", 0, false);
+        router.recordCall("qwen-plus", 2000, true);
+
+        ModelRoutingStats stats = router.getStats();
+        assertEquals(5, stats.getRoutedPairs());
+        assertEquals(4, stats.getEscalatedPairs());
+        assertEquals(2, stats.getUncertainEscalations());
+        assertEquals(1, stats.getFastFailedEscalations());
+        assertEquals(0.8, stats.getEscalationRate(), 1e-9);
+        assertEquals(2, stats.getTiers().size());
+        ModelRoutingStats.TierStats fast = stats.getTiers().get(1);
+        assertEquals("qwen-turbo", fast.getModel());
+        assertEquals(3, fast.getCalls());
+        assertEquals(1, fast.getFailures());
+        assertEquals(200, fast.getAvgLatencyMs());
+    }
+}
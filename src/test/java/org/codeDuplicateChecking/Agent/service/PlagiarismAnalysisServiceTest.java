@@ -1,5 +1,6 @@
 package org.codeDuplicateChecking.Agent.service;
 
+import org.codeDuplicateChecking.Agent.model.AnalysisSummary;
 import org.codeDuplicateChecking.Agent.model.CodeBlock;
 import org.junit.jupiter.api.Test;
 //import org.junit.jupiter.api.extension.ExtendWith;
@@ -130,6 +131,32 @@ class PlagiarismAnalysisServiceTest {
         System.out.println("是否抄袭: " + analysis.getBaseResult().isPlagiarism());
     }
     
+    /**
+     * 测试从AI分析文本中解析流式分析的summary事件
+     */
+    @Test
+    void testParseAnalysisSummary() {
+        String aiText = "```\n" +
+            "查重率：92.5%\n\n" +
+            "处理建议：严格禁止参赛并记录作弊\n\n" +
+            "代码风格评价：两段代码缩进和命名风格一致，\n仅替换了变量名。\n\n" +
+            "算法评价：均使用Lomuto划分的快速排序。\n" +
+            "```";
+        
+        AnalysisSummary summary = PlagiarismAnalysisService.parseAnalysisSummary(aiText);
+        System.out.println("解析结果: " + summary);
+        
+        assertEquals(92.5, summary.getAiSimilarityRate(), 1e-9);
+        assertEquals("严格禁止参赛并记录作弊", summary.getSuggestion());
+        assertEquals("两段代码缩进和命名风格一致，\n仅替换了变量名。", summary.getStyleEvaluation());
+        assertEquals("均使用Lomuto划分的快速排序。", summary.getAlgorithmEvaluation());
+        
+        // 格式不符时字段为空而不是抛出异常
+        AnalysisSummary empty = PlagiarismAnalysisService.parseAnalysisSummary("无法分析");
+        assertNull(empty.getAiSimilarityRate());
+        assertNull(empty.getSuggestion());
+    }
+    
     /**
      * 测试两段完全不同的代码，确保系统不会误判
      */
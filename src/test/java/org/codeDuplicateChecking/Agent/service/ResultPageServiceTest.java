@@ -0,0 +1,162 @@
+package org.codeDuplicateChecking.Agent.service;
+
+import org.codeDuplicateChecking.Agent.config.ResultStoreConfig;
+import org.codeDuplicateChecking.Agent.model.BatchPlagiarismResult;
+import org.codeDuplicateChecking.Agent.model.CodeBlock;
+import org.codeDuplicateChecking.Agent.model.PlagiarismResult;
+import org.codeDuplicateChecking.Agent.model.ResultPage;
+import org.codeDuplicateChecking.Agent.model.ResultQuery;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 批量查重结果分页测试
+ */
+class ResultPageServiceTest {
+
+    private final ResultPageService service = new ResultPageService(new ResultStoreConfig());
+
+    @Test
+    void testFilterSortAndPage() {
+        List<PlagiarismResult> results = results(10);
+        ResultQuery query = new ResultQuery();
+        query.setMinScore(0.3);
+        query.setSize(3);
+        query.setPage(1);
+
+        ResultPage page = ResultPageService.page("r", results, query, ResultPageService.DEFAULT_PAGE_SIZE);
+        // 相似度0.3~0.9共7个结果，按相似度从高到低排列，第二页为0.6、0.5、0.4
+        assertEquals(7, page.getTotalElements());
+        assertEquals(3, page.getTotalPages());
+        assertEquals(10, page.getUnfilteredElements());
+        assertEquals(3, page.getResults().size());
+        assertEquals(0.6, page.getResults().get(0).getSimilarityScore(), 1e-9);
+        assertEquals(0.4, page.getResults().get(2).getSimilarityScore(), 1e-9);
+
+        query.setPage(5);
+        assertTrue(ResultPageService.page("r", results, query, 50).getResults().isEmpty());
+
+        ResultQuery byAuthor = new ResultQuery();
+        byAuthor.setAuthor("BOB3");
+        byAuthor.setSort(ResultPageService.SORT_NONE);
+        ResultPage authorPage = ResultPageService.page("r", results, byAuthor, 50);
+        assertEquals(1, authorPage.getTotalElements());
+        assertEquals("b3", authorPage.getResults().get(0).getCodeBlockId2());
+
+        ResultQuery plagiarismOnly = new ResultQuery();
+        plagiarismOnly.setPlagiarismOnly(true);
+        plagiarismOnly.setSort(ResultPageService.SORT_SCORE_ASC);
+        ResultPage plagiarismPage = ResultPageService.page("r", results, plagiarismOnly, 50);
+        assertEquals(3, plagiarismPage.getTotalElements());
+        assertEquals(0.7, plagiarismPage.getResults().get(0).getSimilarityScore(), 1e-9);
+
+        ResultQuery invalidSort = new ResultQuery();
+        invalidSort.setSort("author");
+        assertThrows(IllegalArgumentException.class, () -> ResultPageService.page("r", results, invalidSort, 50));
+    }
+
+    @Test
+    void testStoreAndPaginate() {
+        BatchPlagiarismResult result = new BatchPlagiarismResult(results(10), 10, 3, 0.9, 0.45, 0.7, 1, "统计信息");
+        ResultQuery query = new ResultQuery();
+        query.setSize(4);
+
+        service.storeAndPaginate(result, query);
+
+        // 响应中只保留第一页，完整结果仍可按结果集标识分页查询
+        assertNotNull(result.getResultId());
+        assertEquals(4, result.getResults().size());
+        assertEquals(0.9, result.getResults().get(0).getSimilarityScore(), 1e-9);
+        assertEquals(10, result.getPage().getTotalElements());
+        assertNull(result.getPage().getResults());
+
+        ResultQuery secondPage = new ResultQuery();
+        secondPage.setSize(4);
+        secondPage.setPage(2);
+        ResultPage page = service.find(result.getResultId(), secondPage);
+        assertNotNull(page);
+        assertEquals(2, page.getResults().size());
+        assertEquals(0.0, page.getResults().get(1).getSimilarityScore(), 1e-9);
+
+        assertNull(service.find("missing", secondPage));
+    }
+
+    @Test
+    void testPaginateWithoutSizeKeepsAllResults() {
+        BatchPlagiarismResult result = new BatchPlagiarismResult(results(5), 5, 0, 0.4, 0.2, 0.7, 1, "统计信息");
+
+        BatchPlagiarismResult response = service.paginate("key", result, new ResultQuery());
+
+        assertNotSame(result, response);
+        assertEquals("key", response.getResultId());
+        assertEquals(5, response.getResults().size());
+        assertNull(response.getPage());
+    }
+
+    @Test
+    void testPaginatedResultsAreStoredIndependently() {
+        // 结果集大于查重结果缓存的上限时仍然保存，响应中的resultId可以分页查询
+        BatchPlagiarismResult result = new BatchPlagiarismResult(results(10), 10, 3, 0.9, 0.45, 0.7, 1, "统计信息");
+        result.setTotalCodeBlocks(5);
+        ResultStoreConfig config = new ResultStoreConfig();
+        config.setMaxWeightBytes(1);
+        ResultPageService store = new ResultPageService(config);
+        ResultQuery query = new ResultQuery();
+        query.setSize(4);
+
+        BatchPlagiarismResult response = store.paginate("first", result, query);
+        assertEquals(4, response.getResults().size());
+        assertEquals(5, response.getTotalCodeBlocks());
+        assertEquals(10, store.find("first", query).getTotalElements());
+
+        // 超出上限时淘汰较早的结果集，最新的结果集保留
+        store.paginate("second", result, query);
+        assertNull(store.find("first", query));
+        assertNotNull(store.find("second", query));
+        assertEquals(1, store.size());
+    }
+
+    @Test
+    void testStoredResultsExpire() throws InterruptedException {
+        ResultStoreConfig config = new ResultStoreConfig();
+        config.setTtlMs(100);
+        ResultPageService store = new ResultPageService(config);
+        String resultId = store.store(new BatchPlagiarismResult(results(3), 3, 0, 0.2, 0.1, 0.7, 1, "统计信息"));
+        assertNotNull(store.find(resultId, new ResultQuery()));
+
+        Thread.sleep(200);
+        assertNull(store.find(resultId, new ResultQuery()));
+        assertEquals(0, store.size());
+    }
+
+    @Test
+    void testTotalCodeBlocksSurvivesPaging() {
+        List<CodeBlock> codeBlocks = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            codeBlocks.add(new CodeBlock("c" + i, "int f() { return " + i + "; }", "作者" + i, null, null, "C++", null));
+        }
+        CodePlagiarismService plagiarismService = new CodePlagiarismService();
+        BatchPlagiarismResult result = plagiarismService.compareMultipleCodeBlocks(codeBlocks, 0.7);
+        plagiarismService.shutdown();
+        ResultQuery query = new ResultQuery();
+        query.setSize(2);
+
+        BatchPlagiarismResult response = service.paginate("blocks", result, query);
+        assertEquals(2, response.getResults().size());
+        assertEquals(6, response.getTotalCodeBlocks());
+    }
+
+    private static List<PlagiarismResult> results(int count) {
+        List<PlagiarismResult> results = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            double score = i / 10.0;
+            results.add(new PlagiarismResult("a" + i, "alice" + i, null, "b" + i, "bob" + i, null,
+                    score, score >= 0.7, 0.7, null));
+        }
+        return results;
+    }
+}
@@ -0,0 +1,91 @@
+package org.codeDuplicateChecking.Agent.service;
+
+import org.codeDuplicateChecking.Agent.model.CodeBlock;
+import org.codeDuplicateChecking.Agent.model.PairReview;
+import org.codeDuplicateChecking.TestConfig;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 分级模型路由下的AI回复缓存测试，使用本地模拟提供方
+ */
+@SpringBootTest(classes = TestConfig.class, properties = {
+        "ai.provider.type=local",
+        "ai.provider.local.latency-median-ms=5",
+        "ai.provider.local.latency-p99-ms=10",
+        "dashscope.api.key=test-key",
+        "ai.routing.enabled=true",
+        "ai.routing.fast-model=qwen-turbo"})
+class RoutedAnalysisCacheTest {
+
+    private static final String CODE =
+            "public class Solution {\n" +
+            "    public int sum(int[] nums) {\n" +
+            "        int total = 0;\n" +
+            "        for (int i = 0; i < nums.length; i++) {\n" +
+            "            total += nums[i];\n" +
+            "        }\n" +
+            "        return total;\n" +
+            "    }\n" +
+            "}";
+
+    @Autowired
+    private PlagiarismAnalysisService analysisService;
+
+    @Autowired
+    private ModelRouter modelRouter;
+
+    @Test
+    void testRepeatedPairAnalysisHitsFastModelCache() {
+        CodeBlock code1 = codeBlock("routed_1", CODE);
+        CodeBlock code2 = codeBlock("routed_2", CODE.replace("total", "acc") + "\n");
+
+        PlagiarismAnalysisService.PlagiarismAnalysis first =
+                analysisService.getSmartPlagiarismAnalysis(code1, code2, 0.7);
+        assertNull(first.getAIError());
+        assertFalse(first.isFromCache());
+        // 快速模型与本地算法结论一致，不升级
+        assertEquals("qwen-turbo", first.getModel());
+        long routedPairs = modelRouter.getStats().getRoutedPairs();
+
+        PlagiarismAnalysisService.PlagiarismAnalysis second =
+                analysisService.getSmartPlagiarismAnalysis(code1, code2, 0.7);
+        assertTrue(second.isFromCache());
+        assertEquals("qwen-turbo", second.getModel());
+        assertEquals(first.getAIEnhancedAnalysis(), second.getAIEnhancedAnalysis());
+        // 命中缓存不计入路由统计
+        assertEquals(routedPairs, modelRouter.getStats().getRoutedPairs());
+    }
+
+    @Test
+    void testRepeatedBatchTriageHitsFastModelCache() {
+        List<CodeBlock> codeBlocks = Arrays.asList(codeBlock("batch_1", CODE),
+                codeBlock("batch_2", CODE.replace("nums", "values") + "\n"));
+
+        PlagiarismAnalysisService.BatchPlagiarismAnalysis first = analysisService.getBatchSmartAnalysis(codeBlocks, 0.7);
+        assertFalse(first.getReviewedPairs().isEmpty());
+
+        PlagiarismAnalysisService.BatchPlagiarismAnalysis second = analysisService.getBatchSmartAnalysis(codeBlocks, 0.7);
+        assertEquals(first.getReviewedPairs().size(), second.getReviewedPairs().size());
+        for (PairReview review : second.getReviewedPairs()) {
+            assertTrue(review.isFromCache());
+            assertEquals("qwen-turbo", review.getModel());
+        }
+        // 命中缓存的代码对不占用token预算
+        assertEquals(0, second.getTriageTokens());
+    }
+
+    private static CodeBlock codeBlock(String id, String code) {
+        CodeBlock block = new CodeBlock();
+        block.setId(id);
+        block.setLanguage("Java");
+        block.setCode(code);
+        return block;
+    }
+}
@@ -0,0 +1,74 @@
+package org.codeDuplicateChecking.Agent.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 相同请求合并测试
+ */
+class SingleFlightTest {
+
+    @Test
+    void testConcurrentRequestsShareOneCall() throws Exception {
+        SingleFlight<String> singleFlight = new SingleFlight<>();
+        AtomicInteger calls = new AtomicInteger();
+        CompletableFuture<String> upstream = new CompletableFuture<>();
+
+        CompletableFuture<String> first = singleFlight.execute("pair", () -> {
+            calls.incrementAndGet();
+            return upstream;
+        });
+        CompletableFuture<String> second = singleFlight.execute("pair", () -> {
+            calls.incrementAndGet();
+            return new CompletableFuture<>();
+        });
+        // 不同的键各自调用
+        CompletableFuture<String> other = singleFlight.execute("other",
+                () -> CompletableFuture.completedFuture("other"));
+
+        assertEquals(1, singleFlight.getCoalescedCount());
+        upstream.complete("分析结果");
+        assertEquals("分析结果", first.get());
+        assertEquals("分析结果", second.get());
+        assertEquals("other", other.get());
+        assertEquals(1, calls.get());
+        assertEquals(0, singleFlight.getInFlightCount());
+
+        // 调用结束后相同请求重新发起
+        singleFlight.execute("pair", () -> {
+            calls.incrementAndGet();
+            return CompletableFuture.completedFuture("新结果");
+        });
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void testFailureAndCancellation() {
+        SingleFlight<String> singleFlight = new SingleFlight<>();
+        CompletableFuture<String> failing = new CompletableFuture<>();
+        CompletableFuture<String> first = singleFlight.execute("pair", () -> failing);
+        CompletableFuture<String> second = singleFlight.execute("pair", () -> failing);
+
+        // 失败时所有等待者都得到原始异常
+        failing.completeExceptionally(new TimeoutException("AI服务连接超时"));
+        ExecutionException error = assertThrows(ExecutionException.class, first::get);
+        assertTrue(error.getCause() instanceof TimeoutException);
+        assertThrows(ExecutionException.class, second::get);
+
+        // 部分等待者取消不影响调用，全部取消后才取消调用
+        CompletableFuture<String> upstream = new CompletableFuture<>();
+        CompletableFuture<String> third = singleFlight.execute("pair", () -> upstream);
+        CompletableFuture<String> fourth = singleFlight.execute("pair", () -> upstream);
+        third.cancel(true);
+        assertFalse(upstream.isCancelled());
+        fourth.cancel(true);
+        assertTrue(upstream.isCancelled());
+        assertEquals(0, singleFlight.getInFlightCount());
+    }
+}
@@ -0,0 +1,77 @@
+package org.codeDuplicateChecking.Agent.service;
+
+import org.codeDuplicateChecking.Agent.config.AITriageConfig;
+import org.codeDuplicateChecking.Agent.model.PlagiarismResult;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 批量AI复核预算测试
+ */
+class TriageBudgetTest {
+
+    @Test
+    void testPriority() {
+        PlagiarismResult high = result(0.95, 0.7);
+        PlagiarismResult low = result(0.75, 0.7);
+        PlagiarismResult belowThreshold = result(0.6, 0.7);
+
+        assertEquals(1.2, TriageBudget.priority(high, 1.0), 1e-9);
+        assertTrue(TriageBudget.priority(high, 1.0) > TriageBudget.priority(low, 1.0));
+        // 未超过阈值时只按基础查重率排序
+        assertEquals(0.6, TriageBudget.priority(belowThreshold, 1.0), 1e-9);
+    }
+
+    @Test
+    void testReserveUntilExhausted() {
+        AITriageConfig config = new AITriageConfig();
+        config.setMaxPairs(3);
+        config.setMaxTokens(2500);
+        config.setMaxDurationSeconds(60);
+        TriageBudget budget = new TriageBudget(config, 0);
+
+        assertNull(budget.tryReserve(1000, 0));
+        assertNull(budget.tryReserve(1000, 0));
+        // token不足时跳过，较小的代码对仍可复核
+        assertEquals(TriageBudget.REASON_TOKENS, budget.tryReserve(1000, 0));
+        assertNull(budget.tryReserve(500, 0));
+        assertEquals(TriageBudget.REASON_PAIRS, budget.tryReserve(1, 0));
+        assertEquals(2500, budget.getTokens());
+        assertEquals(TriageBudget.REASON_TIME, budget.tryReserve(1, 60000));
+
+        // 费用预算
+        config.setMaxPairs(10);
+        config.setMaxTokens(0);
+        config.setMaxCost(0.01);
+        config.setCostPerThousandTokens(0.002);
+        TriageBudget costBudget = new TriageBudget(config, 0);
+        assertNull(costBudget.tryReserve(4000, 0));
+        assertEquals(TriageBudget.REASON_COST, costBudget.tryReserve(2000, 0));
+        assertEquals(0.008, costBudget.getCost(), 1e-9);
+    }
+
+    @Test
+    void testReserveEscalationTokens() {
+        AITriageConfig config = new AITriageConfig();
+        config.setMaxPairs(1);
+        config.setMaxTokens(2500);
+        config.setMaxDurationSeconds(60);
+        TriageBudget budget = new TriageBudget(config, 0);
+
+        assertNull(budget.tryReserve(1000, 0));
+        // 升级调用追加token额度，不占用代码对名额
+        assertNull(budget.tryReserveTokens(1000, 0));
+        assertEquals(TriageBudget.REASON_TOKENS, budget.tryReserveTokens(1000, 0));
+        assertEquals(2000, budget.getTokens());
+        assertEquals(TriageBudget.REASON_TIME, budget.tryReserveTokens(1, 60000));
+        assertEquals(TriageBudget.REASON_PAIRS, budget.tryReserve(1, 0));
+    }
+
+    private PlagiarismResult result(double score, double threshold) {
+        PlagiarismResult result = new PlagiarismResult();
+        result.setSimilarityScore(score);
+        result.setThreshold(threshold);
+        return result;
+    }
+}